@@ -0,0 +1,70 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * <p> JMH profiler that reports the heap retained at the end of each
+ * iteration: the heap is collected after the iteration and the used heap is
+ * read, so only the memory still reachable from the benchmark state (and the
+ * JVM itself) is counted. </p>
+ *
+ * <pre>
+ * -prof org.bhave.network.RetainedHeapProfiler
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class RetainedHeapProfiler implements InternalProfiler {
+
+    private static final double MB = 1024 * 1024;
+
+    @Override
+    public String getDescription() {
+        return "Heap retained after each iteration";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams,
+            IterationParams iterationParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+            IterationParams iterationParams, IterationResult result) {
+        System.gc();
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return Collections.singletonList(new ScalarResult("heap.retained", used / MB,
+                "MB", AggregationPolicy.MAX));
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p> Contention benchmark of thread-safe networks under a workload of 99%
+ * queries and 1% rewiring, with 1, 8 and 32 threads sharing one random
+ * network. A query takes the neighbours of a random node and checks if it is
+ * linked to another random node. A rewiring removes the oldest link added by
+ * the thread and links two random nodes. </p>
+ *
+ * <p> The networks compared are a {@link org.bhave.network.impl.fast.FastNetwork}
+ * with every call wrapped in a {@link ReentrantReadWriteLock}, the same
+ * network wrapped in a {@link StampedLockNetwork} and a
+ * {@link ConcurrentNetwork}. Scaling shows as an average time per operation
+ * that does not grow with the number of threads, as long as there are as
+ * many cores. </p>
+ *
+ * @author Davide Nunes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StampedLockNetworkBenchmark {
+
+    // one in REWIRE operations changes the network
+    private static final int REWIRE = 100;
+    @Param({"rwlock", "stamped", "concurrent"})
+    String network;
+    @Param({"100000"})
+    int nodes;
+    @Param({"8"})
+    int degree;
+    private Network shared;
+    // only used by the rwlock network
+    private ReentrantReadWriteLock lock;
+    private Node[] nodeArray;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int links = (int) ((long) nodes * degree / 2);
+        Random random = new Random(0);
+        NetworkBuilder builder = new NetworkBuilder(links);
+        builder.addNodes(nodes);
+        for (int l = 0; l < links; l++) {
+            builder.addLink(random.nextInt(nodes), random.nextInt(nodes));
+        }
+        switch (network) {
+            case "rwlock":
+                shared = builder.buildFastNetwork(false);
+                lock = new ReentrantReadWriteLock();
+                break;
+            case "stamped":
+                shared = new StampedLockNetwork(builder.buildFastNetwork(false));
+                break;
+            case "concurrent":
+                shared = new ConcurrentNetwork(false, nodes, links);
+                builder.buildInto(shared);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown network " + network);
+        }
+        nodeArray = shared.getNodes().toArray(new Node[nodes]);
+    }
+
+    /**
+     * The links added by each thread, removed in the order they were added
+     */
+    @State(Scope.Thread)
+    public static class Rewired {
+
+        final ArrayDeque<Link> links = new ArrayDeque<>();
+    }
+
+    private void operation(Rewired rewired, Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Node node = nodeArray[random.nextInt(nodeArray.length)];
+        Node other = nodeArray[random.nextInt(nodeArray.length)];
+        if (random.nextInt(REWIRE) == 0) {
+            rewire(rewired, node, other);
+        } else if (lock == null) {
+            blackhole.consume(shared.getNeighbours(node).size());
+            blackhole.consume(shared.containsLinks(node, other));
+        } else {
+            lock.readLock().lock();
+            try {
+                blackhole.consume(shared.getNeighbours(node).size());
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.readLock().lock();
+            try {
+                blackhole.consume(shared.containsLinks(node, other));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private void rewire(Rewired rewired, Node node, Node other) {
+        if (lock != null) {
+            lock.writeLock().lock();
+        }
+        try {
+            if (!rewired.links.isEmpty()) {
+                shared.removeLink(rewired.links.poll());
+            }
+            rewired.links.add(shared.addLink(node, other));
+        } finally {
+            if (lock != null) {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads1(Rewired rewired, Blackhole blackhole) {
+        operation(rewired, blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void threads8(Rewired rewired, Blackhole blackhole) {
+        operation(rewired, blackhole);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void threads32(Rewired rewired, Blackhole blackhole) {
+        operation(rewired, blackhole);
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.fast;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p> Benchmarks of the basic operations of {@link FastNetwork} on random
+ * networks with a given number of nodes and average degree, directed and
+ * undirected. </p>
+ *
+ * <p> Queries pick their nodes from a fixed random sequence so every run
+ * sees the same access pattern. Operations that change the network run in
+ * batches of {@link #BATCH} on a fresh copy of the network, made before each
+ * batch and not measured, so the network does not drift during a run. </p>
+ *
+ * @author Davide Nunes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastNetworkBenchmark {
+
+    static final int BATCH = 1000;
+    // length of the random query sequence, a power of 2
+    private static final int QUERIES = 1 << 16;
+    @Param({"1000", "100000"})
+    int nodes;
+    @Param({"8"})
+    int degree;
+    @Param({"false", "true"})
+    boolean directed;
+    FastNetwork network;
+    private int[] nodeIds;
+    private int[] otherIds;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        network = randomNetwork(nodes, degree, directed, new Random(0));
+        Random random = new Random(1);
+        nodeIds = new int[QUERIES];
+        otherIds = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            nodeIds[i] = random.nextInt(nodes);
+            otherIds[i] = random.nextInt(nodes);
+        }
+    }
+
+    /**
+     * Builds a random network in which links connect uniformly chosen pairs
+     * of nodes. Node and link ids are their indexes.
+     */
+    static FastNetwork randomNetwork(int nodes, int degree, boolean directed,
+            Random random) {
+        int links = (int) ((long) nodes * degree / 2);
+        NetworkBuilder builder = new NetworkBuilder(links);
+        builder.addNodes(nodes);
+        for (int l = 0; l < links; l++) {
+            builder.addLink(random.nextInt(nodes), random.nextInt(nodes));
+        }
+        return builder.buildFastNetwork(directed);
+    }
+
+    private int next() {
+        return query++ & (QUERIES - 1);
+    }
+
+    @Benchmark
+    public Node getNode() {
+        return network.getNode(nodeIds[next()]);
+    }
+
+    @Benchmark
+    public boolean containsLinks() {
+        int q = next();
+        return network.containsLinks(network.getNode(nodeIds[q]),
+                network.getNode(otherIds[q]));
+    }
+
+    @Benchmark
+    public void getNeighbours(Blackhole blackhole) {
+        for (Node neighbour : network.getNeighbours(network.getNode(nodeIds[next()]))) {
+            blackhole.consume(neighbour);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FastNetwork getCopy() {
+        return network.getCopy();
+    }
+
+    /**
+     * A fresh copy of the network for each batch of changes, with the nodes
+     * and links to be changed chosen in advance.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+
+        FastNetwork network;
+        Node[] from = new Node[BATCH];
+        Node[] to = new Node[BATCH];
+        Node[] nodes = new Node[BATCH];
+        Link[] links = new Link[BATCH];
+        private Random random;
+
+        @Setup(Level.Trial)
+        public void setupTrial() {
+            random = new Random(2);
+        }
+
+        @Setup(Level.Invocation)
+        public void setup(FastNetworkBenchmark benchmark) {
+            network = benchmark.network.getCopy();
+            int n = benchmark.nodes;
+            int m = network.getLinkCount();
+            // distinct nodes and links, from a partial shuffle of the indexes
+            int[] nodeIndexes = partialShuffle(n, Math.min(BATCH, n));
+            int[] linkIndexes = partialShuffle(m, Math.min(BATCH, m));
+            for (int i = 0; i < BATCH; i++) {
+                from[i] = network.getNode(random.nextInt(n));
+                to[i] = network.getNode(random.nextInt(n));
+                nodes[i] = network.getNode(nodeIndexes[i % nodeIndexes.length]);
+                links[i] = network.getLink(linkIndexes[i % linkIndexes.length]);
+                // changes to a copy that can't find its links measure nothing
+                if (!network.containsLinks(links[i].from(), links[i].to())) {
+                    throw new IllegalStateException("The copy does not index link " + links[i].getID());
+                }
+            }
+        }
+
+        private int[] partialShuffle(int n, int k) {
+            int[] indexes = new int[n];
+            for (int i = 0; i < n; i++) {
+                indexes[i] = i;
+            }
+            for (int i = 0; i < k; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = indexes[i];
+                indexes[i] = indexes[j];
+                indexes[j] = swap;
+            }
+            return indexes;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = 1)
+    @Measurement(iterations = 50, batchSize = 1)
+    @OperationsPerInvocation(BATCH)
+    public FastNetwork addNode(Batch batch) {
+        FastNetwork copy = batch.network;
+        for (int i = 0; i < BATCH; i++) {
+            copy.addNode(copy.createNode());
+        }
+        return copy;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = 1)
+    @Measurement(iterations = 50, batchSize = 1)
+    @OperationsPerInvocation(BATCH)
+    public FastNetwork addLink(Batch batch) {
+        FastNetwork copy = batch.network;
+        for (int i = 0; i < BATCH; i++) {
+            copy.addLink(batch.from[i], batch.to[i]);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = 1)
+    @Measurement(iterations = 50, batchSize = 1)
+    @OperationsPerInvocation(BATCH)
+    public FastNetwork removeLink(Batch batch) {
+        FastNetwork copy = batch.network;
+        for (int i = 0; i < BATCH; i++) {
+            copy.removeLink(batch.links[i]);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = 1)
+    @Measurement(iterations = 50, batchSize = 1)
+    @OperationsPerInvocation(BATCH)
+    public FastNetwork removeNode(Batch batch) {
+        FastNetwork copy = batch.network;
+        for (int i = 0; i < BATCH; i++) {
+            copy.removeNode(batch.nodes[i]);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.fast.dynamic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bhave.network.api.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p> Benchmarks of {@link DynamicFastNetwork#setCurrentTime(int)} on a
+ * random network with a given number of nodes and average degree. </p>
+ *
+ * <p> <code>newInstant</code> moves to a time after the last one, which forks
+ * a new time instant. <code>existingInstant</code> switches between
+ * {@link #INSTANTS} time instants that each changed a few links. </p>
+ *
+ * @author Davide Nunes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicFastNetworkBenchmark {
+
+    static final int INSTANTS = 16;
+    private static final int CHANGES = 10;
+    @Param({"1000", "100000"})
+    int nodes;
+    @Param({"8"})
+    int degree;
+    private DynamicFastNetwork network;
+    private int time;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        Random random = new Random(0);
+        network = new DynamicFastNetwork();
+        Node[] added = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            network.addNode(network.createNode());
+        }
+        int i = 0;
+        for (Node node : network.getNodes()) {
+            added[i++] = node;
+        }
+        int links = (int) ((long) nodes * degree / 2);
+        for (int l = 0; l < links; l++) {
+            network.addLink(added[random.nextInt(nodes)], added[random.nextInt(nodes)]);
+        }
+        for (int t = 1; t < INSTANTS; t++) {
+            network.setCurrentTime(t);
+            for (int c = 0; c < CHANGES; c++) {
+                network.addLink(network.getNode(added[random.nextInt(nodes)].getID()),
+                        network.getNode(added[random.nextInt(nodes)].getID()));
+            }
+        }
+        time = INSTANTS;
+    }
+
+    @Benchmark
+    public DynamicFastNetwork newInstant() {
+        network.setCurrentTime(time++);
+        return network;
+    }
+
+    @Benchmark
+    public DynamicFastNetwork existingInstant() {
+        network.setCurrentTime(time++ & (INSTANTS - 1));
+        return network;
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.model.impl;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.api.Network;
+import org.bhave.network.model.BAForestModel;
+import org.bhave.network.model.BAModel;
+import org.bhave.network.model.ERModel;
+import org.bhave.network.model.GilbertModel;
+import org.bhave.network.model.KRegularModel;
+import org.bhave.network.model.NetworkModel;
+import org.bhave.network.model.WSModel;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p> Benchmarks of the network models with a given number of nodes and
+ * average degree. The degree sets the density of each model: d = degree / 2
+ * for the Barabasi-Albert and Watts-Strogatz models (with p = 0.1), k =
+ * degree / 2 for k-regular networks, degree * n / 2 links for G(n,m) and p =
+ * degree / (n - 1) for G(n,p). Barabasi-Albert forests are trees and ignore
+ * the degree. </p>
+ *
+ * <p> Each model generates networks three ways: <code>generate</code> with a
+ * configured model, <code>generateWithInjector</code> that also creates and
+ * configures the model through {@link NetworkModule} and
+ * <code>generateToSink</code> that passes the links to an {@link EdgeSink}
+ * without building a network. Besides networks per second, the
+ * <code>links</code> counter reports the links generated per second. </p>
+ *
+ * <p> Allocation rates are reported by the JMH gc profiler
+ * (<code>-prof gc</code>) and the heap retained after each iteration by
+ * {@link org.bhave.network.RetainedHeapProfiler}. </p>
+ *
+ * @author Davide Nunes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetworkModelBenchmark {
+
+    @Param({"BA", "BAForest", "ER", "Gilbert", "KRegular", "WS"})
+    String model;
+    @Param({"1000", "100000"})
+    int nodes;
+    @Param({"4", "16"})
+    int degree;
+    private Injector injector;
+    private NetworkModel configured;
+    private final EdgeSink sink = new EdgeSink() {
+        @Override
+        public void onNodes(int n) {
+        }
+
+        @Override
+        public void accept(int from, int to) {
+            sinkLinks++;
+        }
+    };
+    private long sinkLinks;
+
+    /**
+     * Links generated in each iteration, reported per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long links;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            links = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws ConfigurationException {
+        injector = Guice.createInjector(new NetworkModule());
+        configured = createModel();
+    }
+
+    private NetworkModel createModel() throws ConfigurationException {
+        long seed = 0;
+        switch (model) {
+            case "BA":
+                BAModel ba = injector.getInstance(BAModel.class);
+                ba.configure(nodes, degree / 2, seed);
+                return ba;
+            case "BAForest":
+                BAForestModel forest = injector.getInstance(BAForestModel.class);
+                forest.configure(nodes, seed);
+                return forest;
+            case "ER":
+                ERModel er = injector.getInstance(ERModel.class);
+                er.configure(nodes, (int) ((long) nodes * degree / 2), seed);
+                return er;
+            case "Gilbert":
+                GilbertModel gilbert = injector.getInstance(GilbertModel.class);
+                gilbert.configure(nodes, degree / (double) (nodes - 1), seed);
+                return gilbert;
+            case "KRegular":
+                KRegularModel regular = injector.getInstance(KRegularModel.class);
+                regular.configure(nodes, degree / 2, seed);
+                return regular;
+            case "WS":
+                WSModel ws = injector.getInstance(WSModel.class);
+                ws.configure(nodes, degree / 2, 0.1, seed);
+                return ws;
+            default:
+                throw new IllegalArgumentException("Unknown model " + model);
+        }
+    }
+
+    @Benchmark
+    public Network generate(Counters counters) {
+        Network network = configured.generate();
+        counters.links += network.getLinkCount();
+        return network;
+    }
+
+    @Benchmark
+    public Network generateWithInjector(Counters counters) throws ConfigurationException {
+        Network network = createModel().generate();
+        counters.links += network.getLinkCount();
+        return network;
+    }
+
+    @Benchmark
+    public long generateToSink(Counters counters) {
+        sinkLinks = 0;
+        configured.generate(sink);
+        counters.links += sinkLinks;
+        return sinkLinks;
+    }
+}
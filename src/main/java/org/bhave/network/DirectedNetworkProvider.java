@@ -13,8 +13,21 @@ import org.bhave.network.impl.fast.FastNetwork;
  * @author davide
  */
 public class DirectedNetworkProvider implements Provider<DirectedNetwork> {
+
+    private final int expectedNodes;
+    private final int expectedLinks;
+
+    public DirectedNetworkProvider() {
+        this(0, 0);
+    }
+
+    public DirectedNetworkProvider(int expectedNodes, int expectedLinks) {
+        this.expectedNodes = expectedNodes;
+        this.expectedLinks = expectedLinks;
+    }
+
     @Override
     public DirectedNetwork get() {
-        return (DirectedNetwork) new FastNetwork(true);
+        return (DirectedNetwork) new FastNetwork(true, expectedNodes, expectedLinks);
     }
 }
@@ -46,7 +46,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import org.bhave.network.api.DirectedNetwork;
 import org.bhave.network.api.UndirectedNetwork;
-import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.concurrent.ConcurrentNetwork;
 
 /**
  * <p>
@@ -73,15 +73,67 @@ import org.bhave.network.impl.fast.FastNetwork;
  * <code>Network network = injector.getInstance(Network.class);</code>
  * </p>
  *
+ * <p>
+ * If the size of the networks is known in advance, the module can be created
+ * with the expected number of nodes and links so the networks it provides are
+ * created with room for them: <br>
+ * <br>
+ * <code>Injector injector = Guice.createInjector(new NetworkModule(1000000, 5000000));</code>
+ * </p>
+ *
+ * <p>
+ * Networks that are changed by several threads at the same time can be
+ * provided as {@link ConcurrentNetwork} instances: <br>
+ * <br>
+ * <code>Injector injector = Guice.createInjector(new NetworkModule(0, 0, true));</code>
+ * </p>
+ *
  *
  * @author Davide Nunes
  */
 public class NetworkModule extends AbstractModule {
 
+    private final int expectedNodes;
+    private final int expectedLinks;
+    private final boolean concurrent;
+
+    public NetworkModule() {
+        this(0, 0);
+    }
+
+    /**
+     * Creates a module that provides networks with room for the given number
+     * of nodes and links.
+     *
+     * @param expectedNodes the number of nodes expected in each network
+     * @param expectedLinks the number of links expected in each network
+     */
+    public NetworkModule(int expectedNodes, int expectedLinks) {
+        this(expectedNodes, expectedLinks, false);
+    }
+
+    /**
+     * Creates a module that provides networks with room for the given number
+     * of nodes and links. If concurrent is true the {@link Network},
+     * {@link DirectedNetwork} and {@link UndirectedNetwork} instances are
+     * thread-safe {@link ConcurrentNetwork} instances.
+     *
+     * @param expectedNodes the number of nodes expected in each network
+     * @param expectedLinks the number of links expected in each network
+     * @param concurrent true to provide networks that can be changed by
+     * several threads
+     */
+    public NetworkModule(int expectedNodes, int expectedLinks, boolean concurrent) {
+        this.expectedNodes = expectedNodes;
+        this.expectedLinks = expectedLinks;
+        this.concurrent = concurrent;
+    }
+
     @Override
     protected void configure() {
         // Network API
-        bind(Network.class).to(FastNetwork.class);
+        bind(Network.class).toProvider(new NetworkProvider(false,
+                expectedNodes, expectedLinks, concurrent));
 
         bind(DynamicNetwork.class).to(DynamicFastNetwork.class);
 
@@ -100,11 +152,13 @@ public class NetworkModule extends AbstractModule {
 
     @Provides
     DirectedNetwork provideDirectedNetwork() {
-        return (DirectedNetwork) new FastNetwork(true);
+        return (DirectedNetwork) new NetworkProvider(true, expectedNodes,
+                expectedLinks, concurrent).get();
     }
 
     @Provides
     UndirectedNetwork provideUndirectedNetwork() {
-        return (UndirectedNetwork) new FastNetwork(false);
+        return (UndirectedNetwork) new NetworkProvider(false, expectedNodes,
+                expectedLinks, concurrent).get();
     }
 }
@@ -1,8 +1,10 @@
 package org.bhave.network;
 
+import org.apache.commons.configuration.Configuration;
 import org.bhave.network.api.Network;
 
 import com.google.inject.Provider;
+import org.bhave.network.impl.concurrent.ConcurrentNetwork;
 import org.bhave.network.impl.fast.FastNetwork;
 
 /**
@@ -10,13 +12,76 @@ import org.bhave.network.impl.fast.FastNetwork;
  * model may need to reset its current network instance for new model
  * generations.
  *
+ * <p> The provider can be given the number of nodes and links expected in
+ * each network, the networks it provides are then created with room for
+ * them. </p>
+ *
  * @author Davide Nunes
  *
  */
 public class NetworkProvider implements Provider<Network> {
 
+    public static final String P_NUM_NODES = "numNodes";
+    public static final String P_NUM_LINKS = "numLinks";
+    private final boolean directed;
+    private final int expectedNodes;
+    private final int expectedLinks;
+    private final boolean concurrent;
+
+    public NetworkProvider() {
+        this(false, 0, 0);
+    }
+
+    /**
+     * Creates a provider for networks with room for the given number of nodes
+     * and links
+     *
+     * @param directed true if the networks provided are directed
+     * @param expectedNodes the number of nodes expected in each network
+     * @param expectedLinks the number of links expected in each network
+     */
+    public NetworkProvider(boolean directed, int expectedNodes,
+            int expectedLinks) {
+        this(directed, expectedNodes, expectedLinks, false);
+    }
+
+    /**
+     * Creates a provider for networks with room for the given number of nodes
+     * and links, which provides thread-safe {@link ConcurrentNetwork}
+     * instances if concurrent is true
+     *
+     * @param directed true if the networks provided are directed
+     * @param expectedNodes the number of nodes expected in each network
+     * @param expectedLinks the number of links expected in each network
+     * @param concurrent true to provide networks that can be changed by
+     * several threads
+     */
+    public NetworkProvider(boolean directed, int expectedNodes,
+            int expectedLinks, boolean concurrent) {
+        this.directed = directed;
+        this.expectedNodes = expectedNodes;
+        this.expectedLinks = expectedLinks;
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * Creates a provider for undirected networks sized after the
+     * <b>numNodes</b> and <b>numLinks</b> parameters of a network model
+     * configuration. Missing parameters are taken as 0.
+     *
+     * @param config a network model configuration
+     * @return a network provider
+     */
+    public static NetworkProvider forConfiguration(Configuration config) {
+        return new NetworkProvider(false, config.getInt(P_NUM_NODES, 0),
+                config.getInt(P_NUM_LINKS, 0));
+    }
+
     @Override
     public Network get() {
-        return new FastNetwork();
+        if (concurrent) {
+            return new ConcurrentNetwork(directed, expectedNodes, expectedLinks);
+        }
+        return new FastNetwork(directed, expectedNodes, expectedLinks);
     }
 }
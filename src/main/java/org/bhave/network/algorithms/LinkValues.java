@@ -0,0 +1,85 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms;
+
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+
+/**
+ * Reads the {@link Link#getValue() values} of the links of a network into
+ * arrays aligned with its adjacency rows, used as lengths or weights by the
+ * algorithms in this package and its sub-packages.
+ *
+ * @author Davide Nunes
+ */
+public final class LinkValues {
+
+    private LinkValues() {
+    }
+
+    /**
+     * Returns the value of the link of each entry of the given link index
+     * array, which is {@link CsrNetwork#getOutLinkIndexes()} or
+     * {@link CsrNetwork#getInLinkIndexes()}
+     *
+     * @param network a network
+     * @param linkIndexes the link index array of one of its adjacencies
+     * @return the values of the links of the entries
+     * @throws IllegalArgumentException if a link value is negative, infinite
+     * or NaN
+     */
+    public static double[] nonNegative(CsrNetwork network, int[] linkIndexes) {
+        return of(network, linkIndexes, true);
+    }
+
+    /**
+     * Returns the value of the link of each entry of the given link index
+     * array, as {@link #nonNegative(CsrNetwork, int[])} but without zeros
+     *
+     * @param network a network
+     * @param linkIndexes the link index array of one of its adjacencies
+     * @return the values of the links of the entries
+     * @throws IllegalArgumentException if a link value is not positive, is
+     * infinite or NaN
+     */
+    public static double[] positive(CsrNetwork network, int[] linkIndexes) {
+        return of(network, linkIndexes, false);
+    }
+
+    private static double[] of(CsrNetwork network, int[] linkIndexes, boolean zero) {
+        double[] linkValues = new double[network.getLinkCount()];
+        for (int l = 0; l < linkValues.length; l++) {
+            double value = network.getLinkAt(l).getValue();
+            if (!(zero ? value >= 0 : value > 0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Link values must be finite and "
+                        + (zero ? ">= 0, " : "> 0, ") + network.getLinkAt(l) + " has " + value);
+            }
+            linkValues[l] = value;
+        }
+        double[] values = new double[linkIndexes.length];
+        for (int e = 0; e < values.length; e++) {
+            values[e] = linkValues[linkIndexes[e]];
+        }
+        return values;
+    }
+}
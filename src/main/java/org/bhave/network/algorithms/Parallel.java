@@ -0,0 +1,119 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits loops over a range of indexes into fork/join tasks. Used by the
+ * algorithms in this package and its sub-packages, which run on a
+ * {@link ForkJoinPool} given by the caller or on {@link #defaultPool()}.
+ *
+ * @author Davide Nunes
+ */
+public final class Parallel {
+
+    private static ForkJoinPool defaultPool;
+
+    private Parallel() {
+    }
+
+    /**
+     * Work done on a range of indexes. The values returned for each range are
+     * added, which can be used to count or sum something over the whole loop.
+     */
+    public interface RangeTask {
+
+        /**
+         * Runs the task over the indexes from (inclusive) to to (exclusive)
+         *
+         * @param from the first index
+         * @param to the index after the last one
+         * @return a value added to the result of the loop, 0 if not needed
+         */
+        long run(int from, int to);
+    }
+
+    /**
+     * Returns a pool shared by the algorithms that are not given one, with as
+     * many threads as available processors. The pool is created when first
+     * requested.
+     *
+     * @return the default pool
+     */
+    public static synchronized ForkJoinPool defaultPool() {
+        if (defaultPool == null) {
+            defaultPool = new ForkJoinPool();
+        }
+        return defaultPool;
+    }
+
+    /**
+     * Runs a task over the indexes from (inclusive) to to (exclusive), split
+     * in halves until ranges have at most grain indexes. Ranges are run in
+     * parallel in the given pool, small loops run in the calling thread.
+     *
+     * @param pool the pool that runs the ranges
+     * @param from the first index
+     * @param to the index after the last one
+     * @param grain the largest range run as a single task
+     * @param task the work done on each range
+     * @return the sum of the values returned for each range
+     */
+    public static long forRange(ForkJoinPool pool, int from, int to, int grain,
+            RangeTask task) {
+        if (to - from <= grain || pool.getParallelism() == 1) {
+            return to > from ? task.run(from, to) : 0;
+        }
+        return pool.invoke(new RangeAction(from, to, Math.max(1, grain), task));
+    }
+
+    private static final class RangeAction extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeTask task;
+
+        RangeAction(int from, int to, int grain, RangeTask task) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.task = task;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= grain) {
+                return task.run(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RangeAction left = new RangeAction(from, middle, grain, task);
+            left.fork();
+            long right = new RangeAction(middle, to, grain, task).compute();
+            return right + left.join();
+        }
+    }
+}
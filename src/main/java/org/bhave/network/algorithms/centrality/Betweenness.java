@@ -0,0 +1,434 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.algorithms.LinkValues;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> Betweenness centrality of the nodes of a {@link CsrNetwork}, the number
+ * of shortest paths between other pairs of nodes that go through each node,
+ * each counted as the fraction of the shortest paths of the pair. Computed
+ * with the algorithm of Brandes, a breadth-first search (or Dijkstra search
+ * if links are weighted) from each source node followed by the accumulation
+ * of the dependencies of the source on each node. For undirected networks
+ * each pair of nodes is counted once. </p>
+ *
+ * <p> Sources are searched in parallel. Each thread works on its own
+ * distance, path count and dependency arrays and adds the dependencies to
+ * its own betweenness array, the arrays of all threads are added at the end.
+ * Predecessors are not stored, they are found again in the in row of each
+ * node. </p>
+ *
+ * <p> Betweenness can be estimated from a random sample of sources, see
+ * {@link #setSampling(int, long)}, with an error given by
+ * {@link #getErrorBound(double)}. </p>
+ *
+ * @author Davide Nunes
+ */
+public class Betweenness {
+
+    // sources searched by each task
+    private static final int GRAIN = 4;
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+    private boolean weighted = false;
+    private boolean normalized = false;
+    // 0 if every node is a source
+    private int samples = 0;
+    private long seed;
+
+    /**
+     * Creates the betweenness of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     */
+    public Betweenness(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the betweenness of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     */
+    public Betweenness(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the betweenness of the given network, computed on the given
+     * pool
+     *
+     * @param network a network
+     * @param pool the pool that computes the betweenness
+     */
+    public Betweenness(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * If true, the length of each link is its {@link Link#getValue() value},
+     * which must be positive and finite, otherwise each link has length 1.
+     * False by default.
+     *
+     * @param weighted true to use link values as lengths
+     */
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    /**
+     * If true, betweenness is divided by the number of pairs of other nodes,
+     * (n - 1)(n - 2) for directed networks and half that for undirected
+     * networks, so it is between 0 and 1. False by default.
+     *
+     * @param normalized true to normalize the betweenness
+     */
+    public void setNormalized(boolean normalized) {
+        this.normalized = normalized;
+    }
+
+    /**
+     * Estimates betweenness from the given number of sources, chosen at
+     * random without replacement. The dependencies on each node are scaled
+     * by n / samples. If samples is 0 or at least the number of nodes every
+     * node is a source and betweenness is exact.
+     *
+     * @param samples the number of sources
+     * @param seed the seed of the random generator that picks the sources
+     */
+    public void setSampling(int samples, long seed) {
+        if (samples < 0) {
+            throw new IllegalArgumentException("samples must be >= 0");
+        }
+        this.samples = samples;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the error of the estimate for the current settings. With
+     * probability at least 1 - delta the betweenness of all nodes is within
+     * the returned error of the exact value. From the Hoeffding inequality,
+     * as the dependency of a source on a node is between 0 and n - 2, with a
+     * union bound over the nodes. The error is 0 if betweenness is exact.
+     *
+     * @param delta the probability of a larger error, 0 < delta < 1
+     * @return the largest error of any node, in the units of the result
+     */
+    public double getErrorBound(double delta) {
+        if (delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("delta must be in (0, 1)");
+        }
+        int n = network.getNodeCount();
+        int sources = sourceCount();
+        if (sources == n || n <= 2) {
+            return 0;
+        }
+        double error = (double) n * (n - 2)
+                * Math.sqrt(Math.log(2.0 * n / delta) / (2.0 * sources));
+        return error * scale(n);
+    }
+
+    private int sourceCount() {
+        int n = network.getNodeCount();
+        return samples == 0 ? n : Math.min(samples, n);
+    }
+
+    /**
+     * Factor applied to the sum of dependencies of a source, for undirected
+     * networks and normalization
+     */
+    private double scale(int n) {
+        double scale = network.isDirected() ? 1 : 0.5;
+        if (normalized && n > 2) {
+            scale /= (n - 1.0) * (n - 2.0) * (network.isDirected() ? 1 : 0.5);
+        }
+        return scale;
+    }
+
+    /**
+     * Computes the betweenness of each node. The number of iterations of the
+     * result is the number of sources searched.
+     *
+     * @return the betweenness of each node
+     */
+    public Centrality compute() {
+        final int n = network.getNodeCount();
+        final int sources = sourceCount();
+        final int[] sourceNodes = new int[n];
+        for (int i = 0; i < n; i++) {
+            sourceNodes[i] = i;
+        }
+        if (sources < n) {
+            RandomGenerator random = new MersenneTwister(seed);
+            for (int i = 0; i < sources; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = sourceNodes[i];
+                sourceNodes[i] = sourceNodes[j];
+                sourceNodes[j] = swap;
+            }
+        }
+        final double[] outLengths = weighted
+                ? LinkValues.positive(network, network.getOutLinkIndexes()) : null;
+        final double[] inLengths = !weighted ? null : network.isDirected()
+                ? LinkValues.positive(network, network.getInLinkIndexes()) : outLengths;
+
+        // workspaces not in use by a task, there are as many as concurrent tasks
+        final Queue<Workspace> idle = new ConcurrentLinkedQueue<>();
+        final Queue<Workspace> all = new ConcurrentLinkedQueue<>();
+        Parallel.forRange(pool, 0, sources, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                Workspace workspace = idle.poll();
+                if (workspace == null) {
+                    workspace = new Workspace(n, weighted);
+                    all.add(workspace);
+                }
+                for (int s = from; s < to; s++) {
+                    if (weighted) {
+                        workspace.dijkstra(sourceNodes[s], outLengths, inLengths);
+                    } else {
+                        workspace.bfs(sourceNodes[s]);
+                    }
+                }
+                idle.add(workspace);
+                return 0;
+            }
+        });
+
+        double[] betweenness = new double[n];
+        for (Workspace workspace : all) {
+            for (int i = 0; i < n; i++) {
+                betweenness[i] += workspace.betweenness[i];
+            }
+        }
+        double factor = scale(n) * ((double) n / Math.max(1, sources));
+        for (int i = 0; i < n; i++) {
+            betweenness[i] *= factor;
+        }
+        return new Centrality(network, betweenness, sources, true);
+    }
+
+    /**
+     * Arrays used by the searches of a thread and the betweenness it has
+     * accumulated. Arrays are reset after each search by visiting the nodes
+     * it reached.
+     */
+    private final class Workspace {
+
+        final double[] betweenness;
+        // number of shortest paths from the source
+        private final double[] paths;
+        private final double[] dependency;
+        // nodes in the order they are reached (bfs) or settled (dijkstra)
+        private final int[] order;
+        private final int[] hops;
+        private final double[] distance;
+        // binary heap of nodes by distance and the position of each node in
+        // it, -1 if not in the heap
+        private final int[] heap;
+        private final int[] heapPosition;
+        private final int[] outOffsets = network.getOutOffsets();
+        private final int[] outTargets = network.getOutTargets();
+        private final int[] inOffsets = network.getInOffsets();
+        private final int[] inTargets = network.getInTargets();
+
+        Workspace(int n, boolean weighted) {
+            betweenness = new double[n];
+            paths = new double[n];
+            dependency = new double[n];
+            order = new int[n];
+            if (weighted) {
+                hops = null;
+                distance = new double[n];
+                heap = new int[n];
+                heapPosition = new int[n];
+                Arrays.fill(distance, Double.POSITIVE_INFINITY);
+                Arrays.fill(heapPosition, -1);
+            } else {
+                hops = new int[n];
+                distance = null;
+                heap = null;
+                heapPosition = null;
+                Arrays.fill(hops, -1);
+            }
+        }
+
+        void bfs(int source) {
+            int head = 0, tail = 0;
+            order[tail++] = source;
+            hops[source] = 0;
+            paths[source] = 1;
+            while (head < tail) {
+                int v = order[head++];
+                int next = hops[v] + 1;
+                for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                    int w = outTargets[e];
+                    if (hops[w] < 0) {
+                        hops[w] = next;
+                        order[tail++] = w;
+                    }
+                    if (hops[w] == next) {
+                        paths[w] += paths[v];
+                    }
+                }
+            }
+            // predecessors of w are the nodes one hop closer in its in row
+            for (int k = tail - 1; k > 0; k--) {
+                int w = order[k];
+                double share = (1 + dependency[w]) / paths[w];
+                int previous = hops[w] - 1;
+                for (int e = inOffsets[w]; e < inOffsets[w + 1]; e++) {
+                    int v = inTargets[e];
+                    if (hops[v] == previous) {
+                        dependency[v] += paths[v] * share;
+                    }
+                }
+                betweenness[w] += dependency[w];
+            }
+            for (int k = 0; k < tail; k++) {
+                int v = order[k];
+                hops[v] = -1;
+                paths[v] = 0;
+                dependency[v] = 0;
+            }
+        }
+
+        void dijkstra(int source, double[] outLengths, double[] inLengths) {
+            int settled = 0;
+            int size = 0;
+            distance[source] = 0;
+            paths[source] = 1;
+            heap[size++] = source;
+            heapPosition[source] = 0;
+            while (size > 0) {
+                int v = heap[0];
+                size = removeTop(size);
+                order[settled++] = v;
+                for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                    int w = outTargets[e];
+                    double alternative = distance[v] + outLengths[e];
+                    if (alternative < distance[w]) {
+                        if (distance[w] == Double.POSITIVE_INFINITY) {
+                            heap[size] = w;
+                            heapPosition[w] = size++;
+                        }
+                        distance[w] = alternative;
+                        paths[w] = paths[v];
+                        siftUp(heapPosition[w]);
+                    } else if (alternative == distance[w]) {
+                        paths[w] += paths[v];
+                    }
+                }
+            }
+            // lengths are positive, so predecessors were settled before
+            for (int k = settled - 1; k > 0; k--) {
+                int w = order[k];
+                double share = (1 + dependency[w]) / paths[w];
+                for (int e = inOffsets[w]; e < inOffsets[w + 1]; e++) {
+                    int v = inTargets[e];
+                    if (distance[v] + inLengths[e] == distance[w]) {
+                        dependency[v] += paths[v] * share;
+                    }
+                }
+                betweenness[w] += dependency[w];
+            }
+            for (int k = 0; k < settled; k++) {
+                int v = order[k];
+                distance[v] = Double.POSITIVE_INFINITY;
+                heapPosition[v] = -1;
+                paths[v] = 0;
+                dependency[v] = 0;
+            }
+        }
+
+        private int removeTop(int size) {
+            int last = heap[--size];
+            if (size > 0) {
+                heap[0] = last;
+                heapPosition[last] = 0;
+                siftDown(0, size);
+            }
+            return size;
+        }
+
+        private void siftUp(int position) {
+            int node = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (distance[heap[parent]] <= distance[node]) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                heapPosition[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = node;
+            heapPosition[node] = position;
+        }
+
+        private void siftDown(int position, int size) {
+            int node = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distance[heap[child + 1]] < distance[heap[child]]) {
+                    child++;
+                }
+                if (distance[heap[child]] >= distance[node]) {
+                    break;
+                }
+                heap[position] = heap[child];
+                heapPosition[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = node;
+            heapPosition[node] = position;
+        }
+    }
+}
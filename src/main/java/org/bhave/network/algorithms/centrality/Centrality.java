@@ -0,0 +1,112 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+
+/**
+ * Centrality value of each node of a network, computed by iteration. Nodes
+ * are identified by their index in the network the values were computed for.
+ *
+ * @author Davide Nunes
+ */
+public final class Centrality {
+
+    private final CsrNetwork network;
+    private final double[] values;
+    private final int iterations;
+    private final boolean converged;
+
+    Centrality(CsrNetwork network, double[] values, int iterations,
+            boolean converged) {
+        this.network = network;
+        this.values = values;
+        this.iterations = iterations;
+        this.converged = converged;
+    }
+
+    /**
+     * Returns the centrality of each node
+     *
+     * @return values indexed by node index
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the centrality of the node with the given index
+     *
+     * @param node a node index
+     * @return the centrality of the node
+     */
+    public double getValue(int node) {
+        return values[node];
+    }
+
+    /**
+     * Returns the number of iterations run
+     *
+     * @return the number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns true if the values converged within the tolerance before the
+     * maximum number of iterations
+     *
+     * @return true if converged
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Sets the centrality of each node as a property of the node, see
+     * {@link Node#setProperty(String, String)}. The nodes are shared with
+     * the network the snapshot was taken from, so the property is set there
+     * as well.
+     *
+     * @param key the property name
+     */
+    public void writeProperties(String key) {
+        for (int i = 0; i < values.length; i++) {
+            network.getNodeAt(i).setProperty(key, Double.toString(values[i]));
+        }
+    }
+
+    /**
+     * Adds the values in order, used for the sums of blocks so they do not
+     * depend on the number of threads
+     */
+    static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.algorithms.LinkValues;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> Eigenvector centrality of the nodes of a {@link CsrNetwork}, the
+ * principal eigenvector of its adjacency matrix, in which the centrality of
+ * a node is proportional to the sum of the centralities of the nodes linking
+ * to it. Links of undirected networks are followed both ways. </p>
+ *
+ * <p> The vector is found by power iteration over double arrays in parallel
+ * blocks of nodes, starting from a uniform vector. As in NetworkX, each
+ * iteration multiplies by the adjacency matrix plus the identity, which has
+ * the same eigenvectors but converges on bipartite networks too. Iteration
+ * stops when the sum of the changes of the nodes is below n times the
+ * tolerance or after the maximum number of iterations. The result has an
+ * euclidean norm of 1. </p>
+ *
+ * @author Davide Nunes
+ */
+public class EigenvectorCentrality {
+
+    // nodes in each block of an iteration
+    private static final int BLOCK = 1024;
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+    private double tolerance = 1e-6;
+    private int maxIterations = 100;
+    private boolean weighted = false;
+
+    /**
+     * Creates the centrality of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     */
+    public EigenvectorCentrality(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the centrality of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     */
+    public EigenvectorCentrality(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the centrality of the given network, computed on the given pool
+     *
+     * @param network a network
+     * @param pool the pool that computes the centrality
+     */
+    public EigenvectorCentrality(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Sets the tolerance per node, 1e-6 by default
+     *
+     * @param tolerance the tolerance, > 0
+     */
+    public void setTolerance(double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be > 0");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Sets the maximum number of iterations, 100 by default
+     *
+     * @param maxIterations the maximum number of iterations, > 0
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations <= 0) {
+            throw new IllegalArgumentException("maxIterations must be > 0");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * If true, links count in proportion to their {@link Link#getValue()
+     * value}, which must be finite and non-negative, otherwise each link
+     * counts as 1. False by default.
+     *
+     * @param weighted true to weight links by their value
+     */
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    /**
+     * Computes the centrality of each node
+     *
+     * @return the centralities
+     * @throws IllegalArgumentException if links are weighted and a link has a
+     * negative, infinite or NaN value
+     */
+    public Centrality compute() {
+        final int n = network.getNodeCount();
+        if (n == 0) {
+            return new Centrality(network, new double[0], 0, true);
+        }
+        final int[] inOffsets = network.getInOffsets();
+        final int[] inTargets = network.getInTargets();
+        final double[] inWeights = weighted
+                ? LinkValues.nonNegative(network, network.getInLinkIndexes()) : null;
+
+        double[] vector = new double[n];
+        Arrays.fill(vector, 1.0 / n);
+        final int blocks = (n + BLOCK - 1) / BLOCK;
+        final double[] squares = new double[blocks];
+        final double[] changes = new double[blocks];
+        int iterations = 0;
+        boolean converged = false;
+        while (iterations < maxIterations && !converged) {
+            final double[] current = vector;
+            final double[] next = new double[n];
+            Parallel.forRange(pool, 0, blocks, 1, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    for (int b = from; b < to; b++) {
+                        double square = 0;
+                        for (int i = b * BLOCK, end = Math.min(n, i + BLOCK); i < end; i++) {
+                            double value = current[i];
+                            for (int e = inOffsets[i]; e < inOffsets[i + 1]; e++) {
+                                value += inWeights == null ? current[inTargets[e]]
+                                        : current[inTargets[e]] * inWeights[e];
+                            }
+                            next[i] = value;
+                            square += value * value;
+                        }
+                        squares[b] = square;
+                    }
+                    return 0;
+                }
+            });
+            double norm = Math.sqrt(Centrality.sum(squares));
+            final double scale = norm > 0 ? 1 / norm : 1;
+            Parallel.forRange(pool, 0, blocks, 1, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    for (int b = from; b < to; b++) {
+                        double change = 0;
+                        for (int i = b * BLOCK, end = Math.min(n, i + BLOCK); i < end; i++) {
+                            next[i] *= scale;
+                            change += Math.abs(next[i] - current[i]);
+                        }
+                        changes[b] = change;
+                    }
+                    return 0;
+                }
+            });
+            vector = next;
+            iterations++;
+            converged = Centrality.sum(changes) < n * tolerance;
+        }
+        return new Centrality(network, vector, iterations, converged);
+    }
+}
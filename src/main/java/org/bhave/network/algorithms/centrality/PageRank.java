@@ -0,0 +1,300 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.algorithms.LinkValues;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> PageRank of the nodes of a {@link CsrNetwork}, computed by power
+ * iteration. At each iteration a node gets a share of the rank of each node
+ * linking to it, proportional to the weight of the link, times the damping
+ * factor. The rest of the rank jumps to nodes chosen from the
+ * personalization vector, uniform unless one is set. The rank of dangling
+ * nodes, with no out links, is spread following the dangling vector, by
+ * default the same as the personalization vector. Links of undirected
+ * networks are followed both ways. </p>
+ *
+ * <p> Each iteration pulls the rank of the in links of each node over double
+ * arrays, in parallel blocks of nodes. Sums are added block by block in a
+ * fixed order, so the result does not depend on the number of threads.
+ * Iteration stops when the sum of the changes of the nodes is below n times
+ * the tolerance or after the maximum number of iterations. Ranks add up to
+ * 1. </p>
+ *
+ * <pre>
+ * PageRank pageRank = new PageRank(network.freeze());
+ * pageRank.setDamping(0.9);
+ * Centrality ranks = pageRank.compute();
+ * ranks.writeProperties("pagerank");
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class PageRank {
+
+    // nodes in each block of an iteration
+    private static final int BLOCK = 1024;
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+    private double damping = 0.85;
+    private double tolerance = 1e-6;
+    private int maxIterations = 100;
+    private boolean weighted = false;
+    private double[] personalization;
+    private double[] dangling;
+
+    /**
+     * Creates the PageRank of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     */
+    public PageRank(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the PageRank of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     */
+    public PageRank(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the PageRank of the given network, computed on the given pool
+     *
+     * @param network a network
+     * @param pool the pool that computes the ranks
+     */
+    public PageRank(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Sets the probability of following a link instead of jumping to a node
+     * from the personalization vector, 0.85 by default
+     *
+     * @param damping the damping factor, 0 <= damping < 1
+     */
+    public void setDamping(double damping) {
+        if (damping < 0 || damping >= 1) {
+            throw new IllegalArgumentException("damping must be in [0, 1)");
+        }
+        this.damping = damping;
+    }
+
+    /**
+     * Sets the tolerance per node, 1e-6 by default
+     *
+     * @param tolerance the tolerance, > 0
+     */
+    public void setTolerance(double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be > 0");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Sets the maximum number of iterations, 100 by default
+     *
+     * @param maxIterations the maximum number of iterations, > 0
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations <= 0) {
+            throw new IllegalArgumentException("maxIterations must be > 0");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * If true, the rank of a node is shared among its links in proportion to
+     * their {@link Link#getValue() value}, which must be finite and
+     * non-negative, instead of equally. False by default.
+     *
+     * @param weighted true to weight links by their value
+     */
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    /**
+     * Sets the probability of jumping to each node, uniform by default. The
+     * weights are normalized to add up to 1.
+     *
+     * @param weights non-negative weights indexed by node index, or null for
+     * a uniform vector
+     */
+    public void setPersonalization(double[] weights) {
+        this.personalization = weights == null ? null : normalize(weights, "personalization");
+    }
+
+    /**
+     * Sets the probability of moving from a dangling node to each node, the
+     * personalization vector by default. The weights are normalized to add
+     * up to 1.
+     *
+     * @param weights non-negative weights indexed by node index, or null to
+     * use the personalization vector
+     */
+    public void setDangling(double[] weights) {
+        this.dangling = weights == null ? null : normalize(weights, "dangling");
+    }
+
+    private double[] normalize(double[] weights, String name) {
+        if (weights.length != network.getNodeCount()) {
+            throw new IllegalArgumentException("The " + name + " vector must have a weight per node");
+        }
+        double sum = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("The " + name + " vector has a negative weight");
+            }
+            sum += weight;
+        }
+        if (sum <= 0 || Double.isInfinite(sum)) {
+            throw new IllegalArgumentException("The " + name + " vector must have a positive sum");
+        }
+        double[] normalized = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            normalized[i] = weights[i] / sum;
+        }
+        return normalized;
+    }
+
+    /**
+     * Computes the rank of each node
+     *
+     * @return the ranks
+     * @throws IllegalArgumentException if links are weighted and a link has a
+     * negative, infinite or NaN value
+     */
+    public Centrality compute() {
+        final int n = network.getNodeCount();
+        if (n == 0) {
+            return new Centrality(network, new double[0], 0, true);
+        }
+        final int[] inOffsets = network.getInOffsets();
+        final int[] inTargets = network.getInTargets();
+        final int[] outOffsets = network.getOutOffsets();
+        final int[] outLinks = network.getOutLinkIndexes();
+        // weight of each in entry, null if all are 1
+        final double[] inWeights = weighted
+                ? LinkValues.nonNegative(network, network.getInLinkIndexes()) : null;
+        final double[] outWeights = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (weighted) {
+                for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                    outWeights[i] += network.getLinkAt(outLinks[e]).getValue();
+                }
+            } else {
+                outWeights[i] = outOffsets[i + 1] - outOffsets[i];
+            }
+        }
+        final double[] jump = personalization != null ? personalization : uniform(n);
+        final double[] danglingJump = dangling != null ? dangling : jump;
+        final double d = damping;
+
+        double[] rank = jump.clone();
+        final double[] share = new double[n];
+        final int blocks = (n + BLOCK - 1) / BLOCK;
+        final double[] danglingSums = new double[blocks];
+        final double[] changes = new double[blocks];
+        int iterations = 0;
+        boolean converged = false;
+        while (iterations < maxIterations && !converged) {
+            final double[] current = rank;
+            final double[] next = new double[n];
+            // the rank each node passes through each unit of out weight
+            Parallel.forRange(pool, 0, blocks, 1, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    for (int b = from; b < to; b++) {
+                        double sum = 0;
+                        for (int i = b * BLOCK, end = Math.min(n, i + BLOCK); i < end; i++) {
+                            if (outWeights[i] > 0) {
+                                share[i] = current[i] / outWeights[i];
+                            } else {
+                                share[i] = 0;
+                                sum += current[i];
+                            }
+                        }
+                        danglingSums[b] = sum;
+                    }
+                    return 0;
+                }
+            });
+            final double danglingRank = Centrality.sum(danglingSums);
+            Parallel.forRange(pool, 0, blocks, 1, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    for (int b = from; b < to; b++) {
+                        double change = 0;
+                        for (int i = b * BLOCK, end = Math.min(n, i + BLOCK); i < end; i++) {
+                            double pulled = 0;
+                            for (int e = inOffsets[i]; e < inOffsets[i + 1]; e++) {
+                                pulled += inWeights == null ? share[inTargets[e]]
+                                        : share[inTargets[e]] * inWeights[e];
+                            }
+                            next[i] = (1 - d) * jump[i]
+                                    + d * (pulled + danglingRank * danglingJump[i]);
+                            change += Math.abs(next[i] - current[i]);
+                        }
+                        changes[b] = change;
+                    }
+                    return 0;
+                }
+            });
+            rank = next;
+            iterations++;
+            converged = Centrality.sum(changes) < n * tolerance;
+        }
+        return new Centrality(network, rank, iterations, converged);
+    }
+
+    private static double[] uniform(int n) {
+        double[] vector = new double[n];
+        Arrays.fill(vector, 1.0 / n);
+        return vector;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.clustering;
+
+import org.bhave.network.impl.fast.CsrNetwork;
+
+/**
+ * Triangles at each node of a network and the clustering coefficients that
+ * follow from them, computed by {@link Triangles}. Nodes are identified by
+ * their index in the network and the degree of a node is its number of
+ * distinct neighbours, not counting itself.
+ *
+ * @author Davide Nunes
+ */
+public final class Clustering {
+
+    private final CsrNetwork network;
+    private final long[] triangles;
+    private final int[] degrees;
+    private final long triangleCount;
+
+    Clustering(CsrNetwork network, long[] triangles, int[] degrees, long triangleCount) {
+        this.network = network;
+        this.triangles = triangles;
+        this.degrees = degrees;
+        this.triangleCount = triangleCount;
+    }
+
+    /**
+     * Returns the network the triangles were counted in
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Returns the number of triangles of each node
+     *
+     * @return triangles indexed by node index
+     */
+    public long[] getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * Returns the number of triangles of the node with the given index
+     *
+     * @param node a node index
+     * @return the triangles of the node
+     */
+    public long getTriangles(int node) {
+        return triangles[node];
+    }
+
+    /**
+     * Returns the number of triangles in the network, each counted once
+     *
+     * @return the number of triangles
+     */
+    public long getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Returns the number of distinct neighbours of the node with the given
+     * index
+     *
+     * @param node a node index
+     * @return the degree of the node
+     */
+    public int getDegree(int node) {
+        return degrees[node];
+    }
+
+    /**
+     * Returns the local clustering coefficient of a node, the fraction of
+     * pairs of its neighbours that are neighbours themselves
+     *
+     * @param node a node index
+     * @return the coefficient, 0 for nodes with less than two neighbours
+     */
+    public double getLocalCoefficient(int node) {
+        long degree = degrees[node];
+        return degree < 2 ? 0 : 2.0 * triangles[node] / (degree * (degree - 1));
+    }
+
+    /**
+     * Returns the local clustering coefficient of each node
+     *
+     * @return coefficients indexed by node index
+     */
+    public double[] getLocalCoefficients() {
+        double[] coefficients = new double[triangles.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = getLocalCoefficient(i);
+        }
+        return coefficients;
+    }
+
+    /**
+     * Returns the average local clustering coefficient of the nodes, nodes
+     * with less than two neighbours count as 0
+     *
+     * @return the average coefficient, 0 for an empty network
+     */
+    public double getAverageCoefficient() {
+        if (triangles.length == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < triangles.length; i++) {
+            sum += getLocalCoefficient(i);
+        }
+        return sum / triangles.length;
+    }
+
+    /**
+     * Returns the global clustering coefficient (transitivity), three times
+     * the number of triangles over the number of pairs of links that share a
+     * node
+     *
+     * @return the global coefficient, 0 if no links share a node
+     */
+    public double getGlobalCoefficient() {
+        double triples = 0;
+        for (int degree : degrees) {
+            triples += (double) degree * (degree - 1) / 2;
+        }
+        return triples == 0 ? 0 : 3.0 * triangleCount / triples;
+    }
+}
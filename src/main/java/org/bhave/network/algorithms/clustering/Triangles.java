@@ -0,0 +1,262 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.clustering;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> Counts the triangles of a {@link CsrNetwork} and the triangles at each
+ * node, from which {@link Clustering} gives the local and global clustering
+ * coefficients. The direction of links is ignored, as are self loops and
+ * repeated links between the same nodes: two nodes are neighbours if there is
+ * at least one link between them. </p>
+ *
+ * <p> Nodes are ordered by degree (then by index) and each link is kept only
+ * in the row of its lower node, which leaves rows of at most about the square
+ * root of twice the number of links. Each triangle is found once, from its
+ * lowest node u, by intersecting the sorted row of u with the row of each node
+ * v in it. Nodes are counted in parallel and the triangles of the other two
+ * nodes of each triangle are added to an atomic array. </p>
+ *
+ * @author Davide Nunes
+ */
+public class Triangles {
+
+    // nodes counted by each task
+    private static final int GRAIN = 256;
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates the triangle counts of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     */
+    public Triangles(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the triangle counts of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     */
+    public Triangles(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the triangle counts of the given network, computed on the given
+     * pool
+     *
+     * @param network a network
+     * @param pool the pool that counts the triangles
+     */
+    public Triangles(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Counts the triangles at each node
+     *
+     * @return the triangles and degree of each node
+     */
+    public Clustering compute() {
+        final int n = network.getNodeCount();
+        final int[] degrees = new int[n];
+        Parallel.forRange(pool, 0, n, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                int[] buffer = buffer(from, to);
+                for (int u = from; u < to; u++) {
+                    degrees[u] = neighbours(u, buffer);
+                }
+                return 0;
+            }
+        });
+
+        // rows of the oriented adjacency, the neighbours ranked above each node
+        final int[] offsets = new int[n + 1];
+        Parallel.forRange(pool, 0, n, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                int[] buffer = buffer(from, to);
+                for (int u = from; u < to; u++) {
+                    int count = neighbours(u, buffer);
+                    int above = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (above(buffer[i], u, degrees)) {
+                            above++;
+                        }
+                    }
+                    offsets[u + 1] = above;
+                }
+                return 0;
+            }
+        });
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        final int[] targets = new int[offsets[n]];
+        Parallel.forRange(pool, 0, n, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                int[] buffer = buffer(from, to);
+                for (int u = from; u < to; u++) {
+                    int count = neighbours(u, buffer);
+                    int e = offsets[u];
+                    for (int i = 0; i < count; i++) {
+                        if (above(buffer[i], u, degrees)) {
+                            targets[e++] = buffer[i];
+                        }
+                    }
+                }
+                return 0;
+            }
+        });
+
+        final AtomicLongArray counts = new AtomicLongArray(n);
+        long total = Parallel.forRange(pool, 0, n, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                long found = 0;
+                for (int u = from; u < to; u++) {
+                    int uStart = offsets[u], uEnd = offsets[u + 1];
+                    long atU = 0;
+                    for (int e = uStart; e < uEnd; e++) {
+                        int v = targets[e];
+                        // the nodes in both sorted rows close triangles u, v, w
+                        int i = uStart, j = offsets[v], vEnd = offsets[v + 1];
+                        long atV = 0;
+                        while (i < uEnd && j < vEnd) {
+                            int a = targets[i], b = targets[j];
+                            if (a < b) {
+                                i++;
+                            } else if (a > b) {
+                                j++;
+                            } else {
+                                counts.getAndIncrement(a);
+                                atV++;
+                                i++;
+                                j++;
+                            }
+                        }
+                        if (atV > 0) {
+                            counts.getAndAdd(v, atV);
+                            atU += atV;
+                        }
+                    }
+                    if (atU > 0) {
+                        counts.getAndAdd(u, atU);
+                    }
+                    found += atU;
+                }
+                return found;
+            }
+        });
+
+        long[] triangles = new long[n];
+        for (int u = 0; u < n; u++) {
+            triangles[u] = counts.get(u);
+        }
+        return new Clustering(network, triangles, degrees, total);
+    }
+
+    /**
+     * True if node v comes after node u in the order by degree and index
+     */
+    private static boolean above(int v, int u, int[] degrees) {
+        return degrees[v] > degrees[u] || (degrees[v] == degrees[u] && v > u);
+    }
+
+    /**
+     * A buffer large enough for the rows of the nodes in the given range
+     */
+    private int[] buffer(int from, int to) {
+        int[] outOffsets = network.getOutOffsets();
+        int[] inOffsets = network.getInOffsets();
+        boolean directed = network.isDirected();
+        int size = 0;
+        for (int u = from; u < to; u++) {
+            int length = outOffsets[u + 1] - outOffsets[u];
+            if (directed) {
+                length += inOffsets[u + 1] - inOffsets[u];
+            }
+            size = Math.max(size, length);
+        }
+        return new int[size];
+    }
+
+    /**
+     * Writes the distinct neighbours of a node other than itself to the given
+     * buffer, sorted by index, merging its out and in rows if the network is
+     * directed
+     *
+     * @return the number of neighbours
+     */
+    private int neighbours(int u, int[] buffer) {
+        int[] outOffsets = network.getOutOffsets();
+        int[] outTargets = network.getOutTargets();
+        int i = outOffsets[u], iEnd = outOffsets[u + 1];
+        int j = 0, jEnd = 0;
+        int[] inTargets = null;
+        if (network.isDirected()) {
+            int[] inOffsets = network.getInOffsets();
+            inTargets = network.getInTargets();
+            j = inOffsets[u];
+            jEnd = inOffsets[u + 1];
+        }
+        int count = 0;
+        int last = -1;
+        while (i < iEnd || j < jEnd) {
+            int v;
+            if (j >= jEnd || (i < iEnd && outTargets[i] <= inTargets[j])) {
+                v = outTargets[i++];
+            } else {
+                v = inTargets[j++];
+            }
+            if (v != u && v != last) {
+                buffer[count++] = v;
+                last = v;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.components;
+
+/**
+ * Partition of the nodes of a network into components. Components are
+ * numbered from 0 to {@link #getCount()} - 1 and nodes are identified by their
+ * index in the network the components were computed for.
+ *
+ * @author Davide Nunes
+ */
+public final class Components {
+
+    private final int[] componentIds;
+    private final int[] sizes;
+
+    Components(int[] componentIds, int[] sizes) {
+        this.componentIds = componentIds;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Returns the component of each node
+     *
+     * @return component ids indexed by node index
+     */
+    public int[] getComponentIds() {
+        return componentIds;
+    }
+
+    /**
+     * Returns the component of the node with the given index
+     *
+     * @param node a node index
+     * @return a component id
+     */
+    public int getComponent(int node) {
+        return componentIds[node];
+    }
+
+    /**
+     * Returns the number of nodes in each component
+     *
+     * @return sizes indexed by component id
+     */
+    public int[] getSizes() {
+        return sizes;
+    }
+
+    /**
+     * Returns the number of nodes in the given component
+     *
+     * @param component a component id
+     * @return the size of the component
+     */
+    public int getSize(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * Returns the number of components
+     *
+     * @return the number of components, 0 for an empty network
+     */
+    public int getCount() {
+        return sizes.length;
+    }
+
+    /**
+     * Returns the largest component, the first one if there are several
+     * with the same size
+     *
+     * @return a component id or -1 for an empty network
+     */
+    public int getLargest() {
+        int largest = -1;
+        for (int c = 0; c < sizes.length; c++) {
+            if (largest < 0 || sizes[c] > sizes[largest]) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Returns true if two nodes are in the same component
+     *
+     * @param node1 a node index
+     * @param node2 a node index
+     * @return true if both nodes are in the same component
+     */
+    public boolean connected(int node1, int node2) {
+        return componentIds[node1] == componentIds[node2];
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.components;
+
+import java.util.Arrays;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * Strongly connected components of a directed {@link CsrNetwork}, the
+ * largest sets of nodes in which every node can reach every other node
+ * following the direction of the links. For undirected networks these are
+ * the connected components.
+ *
+ * <p> Uses Tarjan's algorithm with an explicit stack instead of recursion,
+ * so long paths do not overflow the thread stack. It takes linear time and
+ * a few <code>int</code> arrays with an entry per node. Components are
+ * numbered in the order they are completed, which is a reverse topological
+ * order of the components: links between components go from higher to lower
+ * component ids. </p>
+ *
+ * @author Davide Nunes
+ */
+public class StrongComponents {
+
+    private static final int UNVISITED = -1;
+    private final CsrNetwork network;
+
+    /**
+     * Creates the components of the given network
+     *
+     * @param network a network
+     */
+    public StrongComponents(CsrNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * Creates the components of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     */
+    public StrongComponents(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Computes the components of the network
+     *
+     * @return the component of each node
+     */
+    public Components compute() {
+        int n = network.getNodeCount();
+        int[] offsets = network.getOutOffsets();
+        int[] targets = network.getOutTargets();
+
+        // order in which nodes are visited and lowest order reachable
+        int[] order = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(order, UNVISITED);
+        // a visited node without a component is still in the node stack
+        int[] componentIds = new int[n];
+        Arrays.fill(componentIds, UNVISITED);
+        int[] nodeStack = new int[n];
+        int nodeTop = 0;
+        // explicit call stack: node and next link to follow
+        int[] callNodes = new int[n];
+        int[] callLinks = new int[n];
+        int callTop;
+        int[] sizes = new int[n];
+        int count = 0;
+        int visits = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != UNVISITED) {
+                continue;
+            }
+            order[root] = low[root] = visits++;
+            nodeStack[nodeTop++] = root;
+            callNodes[0] = root;
+            callLinks[0] = offsets[root];
+            callTop = 1;
+            while (callTop > 0) {
+                int node = callNodes[callTop - 1];
+                int link = callLinks[callTop - 1];
+                if (link < offsets[node + 1]) {
+                    callLinks[callTop - 1] = link + 1;
+                    int target = targets[link];
+                    if (order[target] == UNVISITED) {
+                        order[target] = low[target] = visits++;
+                        nodeStack[nodeTop++] = target;
+                        callNodes[callTop] = target;
+                        callLinks[callTop] = offsets[target];
+                        callTop++;
+                    } else if (componentIds[target] == UNVISITED && order[target] < low[node]) {
+                        low[node] = order[target];
+                    }
+                    continue;
+                }
+                callTop--;
+                if (callTop > 0) {
+                    int caller = callNodes[callTop - 1];
+                    if (low[node] < low[caller]) {
+                        low[caller] = low[node];
+                    }
+                }
+                if (low[node] == order[node]) {
+                    int member;
+                    do {
+                        member = nodeStack[--nodeTop];
+                        componentIds[member] = count;
+                        sizes[count]++;
+                    } while (member != node);
+                    count++;
+                }
+            }
+        }
+        return new Components(componentIds, Arrays.copyOf(sizes, count));
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.components;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * Weakly connected components of a {@link CsrNetwork}, the components of the
+ * network when the direction of the links is ignored. For undirected networks
+ * these are its connected components.
+ *
+ * <p> Links are merged in parallel into a lock-free union-find: each set is
+ * a tree of parent pointers in an atomic array, roots are linked with compare
+ * and set and the root of a set is always its smallest node index, so trees
+ * never form cycles. Finding a root halves the path to it. Components are
+ * numbered in the order of their smallest node index. </p>
+ *
+ * @author Davide Nunes
+ */
+public class WeakComponents {
+
+    // nodes merged by each task
+    private static final int GRAIN = 1024;
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates the components of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     */
+    public WeakComponents(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the components of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     */
+    public WeakComponents(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the components of the given network, computed on the given pool
+     *
+     * @param network a network
+     * @param pool the pool that computes the components
+     */
+    public WeakComponents(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Computes the components of the network
+     *
+     * @return the component of each node
+     */
+    public Components compute() {
+        final int n = network.getNodeCount();
+        final int[] offsets = network.getOutOffsets();
+        final int[] targets = network.getOutTargets();
+        final boolean directed = network.isDirected();
+        final AtomicIntegerArray parents = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parents.set(i, i);
+        }
+
+        Parallel.forRange(pool, 0, n, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                for (int node = from; node < to; node++) {
+                    for (int e = offsets[node], end = offsets[node + 1]; e < end; e++) {
+                        int target = targets[e];
+                        // undirected links are in the rows of both nodes
+                        if (directed || target > node) {
+                            union(parents, node, target);
+                        }
+                    }
+                }
+                return 0;
+            }
+        });
+
+        final int[] componentIds = new int[n];
+        Parallel.forRange(pool, 0, n, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                for (int node = from; node < to; node++) {
+                    componentIds[node] = find(parents, node);
+                }
+                return 0;
+            }
+        });
+
+        // roots are the smallest index of their set and come first
+        int[] sizes = new int[n];
+        int count = 0;
+        for (int node = 0; node < n; node++) {
+            int root = componentIds[node];
+            int component = root == node ? count++ : componentIds[root];
+            componentIds[node] = component;
+            sizes[component]++;
+        }
+        return new Components(componentIds, Arrays.copyOf(sizes, count));
+    }
+
+    private static int find(AtomicIntegerArray parents, int node) {
+        int parent;
+        while ((parent = parents.get(node)) != node) {
+            int grandParent = parents.get(parent);
+            if (grandParent != parent) {
+                parents.compareAndSet(node, parent, grandParent);
+            }
+            node = grandParent;
+        }
+        return node;
+    }
+
+    private static void union(AtomicIntegerArray parents, int node1, int node2) {
+        while (true) {
+            int root1 = find(parents, node1);
+            int root2 = find(parents, node2);
+            if (root1 == root2) {
+                return;
+            }
+            // link the larger root to the smaller one
+            if (root1 < root2) {
+                int swap = root1;
+                root1 = root2;
+                root2 = swap;
+            }
+            if (parents.compareAndSet(root1, root1, root2)) {
+                return;
+            }
+            node1 = root1;
+            node2 = root2;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> Distances between all pairs of nodes of a {@link CsrNetwork}, or
+ * between a random sample of sources and all nodes, summarized as
+ * {@link DistanceStatistics}. The length of each link is its
+ * {@link Link#getValue() value}, which must be finite and non-negative. </p>
+ *
+ * <p> Each source is searched with {@link Dijkstra} and sources are searched
+ * in parallel. Each task takes the arrays of a search from a queue of idle
+ * ones, so there are about as many as threads, and resets them by visiting
+ * only the nodes the last search reached. </p>
+ *
+ * @author Davide Nunes
+ */
+public class AllPairsShortestPaths {
+
+    // sources searched by each task
+    private static final int GRAIN = 4;
+    private final Dijkstra dijkstra;
+    private final ForkJoinPool pool;
+    // 0 if every node is a source
+    private int samples = 0;
+    private long seed;
+
+    /**
+     * Creates the distances of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public AllPairsShortestPaths(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the distances of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public AllPairsShortestPaths(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the distances of the given network, computed on the given pool
+     *
+     * @param network a network
+     * @param pool the pool that computes the distances
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public AllPairsShortestPaths(CsrNetwork network, ForkJoinPool pool) {
+        this.dijkstra = new Dijkstra(network);
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return dijkstra.getNetwork();
+    }
+
+    /**
+     * Searches from the given number of sources, chosen at random without
+     * replacement. If samples is 0 or at least the number of nodes every node
+     * is a source.
+     *
+     * @param samples the number of sources
+     * @param seed the seed of the random generator that picks the sources
+     */
+    public void setSampling(int samples, long seed) {
+        if (samples < 0) {
+            throw new IllegalArgumentException("samples must be >= 0");
+        }
+        this.samples = samples;
+        this.seed = seed;
+    }
+
+    /**
+     * Computes the distances from each source to all nodes
+     *
+     * @return statistics of the distances between sources and the nodes they
+     * reach
+     */
+    public DistanceStatistics compute() {
+        final int n = getNetwork().getNodeCount();
+        final int sources = samples == 0 ? n : Math.min(samples, n);
+        final int[] sourceNodes = new int[n];
+        for (int i = 0; i < n; i++) {
+            sourceNodes[i] = i;
+        }
+        if (sources < n) {
+            RandomGenerator random = new MersenneTwister(seed);
+            for (int i = 0; i < sources; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = sourceNodes[i];
+                sourceNodes[i] = sourceNodes[j];
+                sourceNodes[j] = swap;
+            }
+        }
+
+        // results of each source, summed in order so they do not depend on
+        // the order sources were searched
+        final double[] sums = new double[sources];
+        final double[] longest = new double[sources];
+        final int[] reached = new int[sources];
+        final Queue<Dijkstra.Search> idle = new ConcurrentLinkedQueue<>();
+        Parallel.forRange(pool, 0, sources, GRAIN, new RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                Dijkstra.Search search = idle.poll();
+                if (search == null) {
+                    search = dijkstra.new Search();
+                }
+                for (int s = from; s < to; s++) {
+                    search.run(sourceNodes[s], -1);
+                    double sum = 0;
+                    double max = 0;
+                    for (int i = 1; i < search.settledCount; i++) {
+                        double distance = search.distances[search.settled[i]];
+                        sum += distance;
+                        max = Math.max(max, distance);
+                    }
+                    sums[s] = sum;
+                    longest[s] = max;
+                    reached[s] = search.settledCount - 1;
+                    search.reset();
+                }
+                idle.add(search);
+                return 0;
+            }
+        });
+
+        double sum = 0;
+        double max = 0;
+        long pairs = 0;
+        for (int s = 0; s < sources; s++) {
+            sum += sums[s];
+            max = Math.max(max, longest[s]);
+            pairs += reached[s];
+        }
+        return new DistanceStatistics(n, sources, pairs, sum, max);
+    }
+}
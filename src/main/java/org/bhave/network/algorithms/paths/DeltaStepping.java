@@ -0,0 +1,399 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.bhave.network.algorithms.LinkValues;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> Parallel single source shortest paths over a {@link CsrNetwork} with the
+ * delta-stepping algorithm of Meyer and Sanders. The length of each link is
+ * its {@link Link#getValue() value}, which must be finite and non-negative.
+ * Lengths are read once, when the object is created, into arrays aligned with
+ * the adjacency of the network. </p>
+ *
+ * <p> Nodes are kept in buckets of width delta by their tentative distance.
+ * The nodes of the lowest non-empty bucket are relaxed in parallel, distances
+ * are lowered with compare and set and each node whose distance was lowered
+ * is added to the bucket of its new distance, which may be the current one.
+ * Light and heavy links are relaxed together. Parents are found after the
+ * distances are final, from the in rows of the nodes. </p>
+ *
+ * <p> Small deltas do less redundant work but need more parallel steps,
+ * large ones approach Bellman-Ford. The default is the largest length over
+ * the average degree. For small networks or many searches at once
+ * {@link Dijkstra} is faster. </p>
+ *
+ * @author Davide Nunes
+ */
+public class DeltaStepping {
+
+    // bucket nodes relaxed by each task
+    private static final int GRAIN = 256;
+    // nodes whose parents are found by each task
+    private static final int PARENT_GRAIN = 1024;
+    // buckets above the current one that each task fills by offset, nodes
+    // further away are put in their bucket when the task ends
+    private static final int LOCAL_BUCKETS = 64;
+    private static final long INFINITY = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+    private final double[] outLengths;
+    private final double[] inLengths;
+    private double delta;
+
+    /**
+     * Creates the shortest paths of the given network, computed on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network a network
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public DeltaStepping(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates the shortest paths of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public DeltaStepping(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates the shortest paths of the given network, computed on the given
+     * pool
+     *
+     * @param network a network
+     * @param pool the pool that computes the paths
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public DeltaStepping(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+        outLengths = LinkValues.nonNegative(network, network.getOutLinkIndexes());
+        inLengths = network.isDirected()
+                ? LinkValues.nonNegative(network, network.getInLinkIndexes()) : outLengths;
+        double longest = 0;
+        for (double length : outLengths) {
+            longest = Math.max(longest, length);
+        }
+        double degree = (double) outLengths.length / Math.max(1, network.getNodeCount());
+        delta = longest == 0 ? 1 : longest / Math.max(1, degree);
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Sets the width of the buckets
+     *
+     * @param delta a positive width
+     */
+    public void setDelta(double delta) {
+        if (!(delta > 0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException("delta must be positive and finite");
+        }
+        this.delta = delta;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Finds the shortest paths from the given node to all others
+     *
+     * @param source a node of the network
+     * @return distances and parents of the nodes reached from source
+     */
+    public ShortestPaths search(Node source) {
+        int index = network.getNodeIndex(source);
+        if (index < 0) {
+            throw new IllegalArgumentException("The node is not in the network: " + source);
+        }
+        return search(index);
+    }
+
+    /**
+     * Finds the shortest paths from the node with the given index to all
+     * others
+     *
+     * @param source a node index
+     * @return distances and parents of the nodes reached from source
+     */
+    public ShortestPaths search(int source) {
+        if (source < 0 || source >= network.getNodeCount()) {
+            throw new IllegalArgumentException("Invalid node index: " + source);
+        }
+        return new Search(source).run();
+    }
+
+    /**
+     * Growable array of node indexes
+     */
+    private static final class Bucket {
+
+        int[] nodes = new int[16];
+        int size;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+
+        void addAll(Bucket other) {
+            if (size + other.size > nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.nodes, 0, nodes, size, other.size);
+            size += other.size;
+        }
+    }
+
+    /**
+     * State of a single search
+     */
+    private final class Search {
+
+        final int source;
+        final int n;
+        final int[] outOffsets = network.getOutOffsets();
+        final int[] outTargets = network.getOutTargets();
+        final int[] inOffsets = network.getInOffsets();
+        final int[] inTargets = network.getInTargets();
+        final int[] inLinks = network.getInLinkIndexes();
+        // bits of the distance of each node, non-negative doubles have the
+        // same order as their bits
+        final AtomicLongArray distances;
+        final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+        long current;
+        Bucket frontier;
+
+        Search(int source) {
+            this.source = source;
+            n = network.getNodeCount();
+            distances = new AtomicLongArray(n);
+            for (int i = 0; i < n; i++) {
+                distances.set(i, INFINITY);
+            }
+        }
+
+        ShortestPaths run() {
+            distances.set(source, Double.doubleToLongBits(0));
+            Bucket first = new Bucket();
+            first.add(source);
+            buckets.put(0L, first);
+            while (!buckets.isEmpty()) {
+                Map.Entry<Long, Bucket> lowest = buckets.pollFirstEntry();
+                current = lowest.getKey();
+                frontier = lowest.getValue();
+                Parallel.forRange(pool, 0, frontier.size, GRAIN, new RelaxStep());
+            }
+
+            final double[] values = new double[n];
+            final int[] parents = new int[n];
+            final int[] parentLinks = new int[n];
+            int reached = (int) Parallel.forRange(pool, 0, n, PARENT_GRAIN, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    int count = 0;
+                    for (int v = from; v < to; v++) {
+                        values[v] = Double.longBitsToDouble(distances.get(v));
+                        parents[v] = ShortestPaths.NONE;
+                        parentLinks[v] = ShortestPaths.NONE;
+                        if (values[v] < Double.POSITIVE_INFINITY) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }
+            });
+            findParents(values, parents, parentLinks);
+            return new ShortestPaths(source, values, parents, parentLinks, reached);
+        }
+
+        /**
+         * Relaxes the links of a range of the frontier and adds the nodes it
+         * improves to the buckets
+         */
+        private final class RelaxStep implements RangeTask {
+
+            @Override
+            public long run(int from, int to) {
+                Bucket[] local = new Bucket[LOCAL_BUCKETS];
+                Bucket far = null;
+                for (int i = from; i < to; i++) {
+                    int u = frontier.nodes[i];
+                    double distance = Double.longBitsToDouble(distances.get(u));
+                    // skip nodes that moved to a lower bucket after being added
+                    if ((long) (distance / delta) != current) {
+                        continue;
+                    }
+                    for (int e = outOffsets[u], end = outOffsets[u + 1]; e < end; e++) {
+                        int v = outTargets[e];
+                        double alternative = distance + outLengths[e];
+                        if (lower(v, alternative)) {
+                            // not below the current bucket, lengths are >= 0
+                            long offset = (long) (alternative / delta) - current;
+                            if (offset < LOCAL_BUCKETS) {
+                                if (local[(int) offset] == null) {
+                                    local[(int) offset] = new Bucket();
+                                }
+                                local[(int) offset].add(v);
+                            } else {
+                                if (far == null) {
+                                    far = new Bucket();
+                                }
+                                far.add(v);
+                            }
+                        }
+                    }
+                }
+                synchronized (buckets) {
+                    for (int offset = 0; offset < LOCAL_BUCKETS; offset++) {
+                        if (local[offset] != null) {
+                            Bucket bucket = buckets.get(current + offset);
+                            if (bucket == null) {
+                                buckets.put(current + offset, local[offset]);
+                            } else {
+                                bucket.addAll(local[offset]);
+                            }
+                        }
+                    }
+                    // a distance lowered since is also in the bucket of the
+                    // task that lowered it and may be relaxed once more
+                    for (int i = 0; far != null && i < far.size; i++) {
+                        int v = far.nodes[i];
+                        long index = (long) (Double.longBitsToDouble(distances.get(v)) / delta);
+                        Bucket bucket = buckets.get(index);
+                        if (bucket == null) {
+                            bucket = new Bucket();
+                            buckets.put(index, bucket);
+                        }
+                        bucket.add(v);
+                    }
+                }
+                return 0;
+            }
+
+            /**
+             * Lowers the distance of a node to the given value if it is
+             * smaller
+             */
+            private boolean lower(int node, double distance) {
+                long bits = Double.doubleToLongBits(distance);
+                long old = distances.get(node);
+                while (bits < old) {
+                    if (distances.compareAndSet(node, old, bits)) {
+                        return true;
+                    }
+                    old = distances.get(node);
+                }
+                return false;
+            }
+        }
+
+        /**
+         * The parent of a node is a node whose distance plus the length of
+         * its link to the node gives the distance of the node. Nodes at a
+         * smaller distance are taken first. Nodes with no such parent, reached
+         * through links of length 0 or too short to change a large distance,
+         * take their parents in rounds from nodes that already have one, so
+         * parents never form cycles.
+         */
+        private void findParents(final double[] values, final int[] parents,
+                final int[] parentLinks) {
+            int unresolved = (int) Parallel.forRange(pool, 0, n, PARENT_GRAIN, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    int count = 0;
+                    for (int v = from; v < to; v++) {
+                        if (v == source || values[v] == Double.POSITIVE_INFINITY) {
+                            continue;
+                        }
+                        for (int e = inOffsets[v], end = inOffsets[v + 1]; e < end; e++) {
+                            int u = inTargets[e];
+                            if (values[u] < values[v] && values[u] + inLengths[e] == values[v]) {
+                                parents[v] = u;
+                                parentLinks[v] = inLinks[e];
+                                break;
+                            }
+                        }
+                        if (parents[v] == ShortestPaths.NONE) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }
+            });
+            while (unresolved > 0) {
+                int before = unresolved;
+                for (int v = 0; v < n; v++) {
+                    if (v == source || parents[v] != ShortestPaths.NONE
+                            || values[v] == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    for (int e = inOffsets[v], end = inOffsets[v + 1]; e < end; e++) {
+                        int u = inTargets[e];
+                        if (u != v && values[u] + inLengths[e] == values[v]
+                                && (u == source || parents[u] != ShortestPaths.NONE)) {
+                            parents[v] = u;
+                            parentLinks[v] = inLinks[e];
+                            unresolved--;
+                            break;
+                        }
+                    }
+                }
+                if (unresolved == before) {
+                    throw new IllegalStateException("Nodes without a parent at a finite distance");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.Arrays;
+import org.bhave.network.algorithms.LinkValues;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * <p> Shortest paths over a {@link CsrNetwork} with the algorithm of Dijkstra.
+ * The length of each link is its {@link Link#getValue() value}, which must be
+ * finite and non-negative. Lengths are read once, when the object is created,
+ * into an array aligned with the out adjacency of the network. </p>
+ *
+ * <p> Nodes are kept in an {@link IndexedHeap indexed 4-ary heap} over their
+ * indexes, so the search allocates no objects per node or link. A search runs
+ * in the calling thread and does not change the network, several can run at
+ * the same time. For large networks see {@link DeltaStepping}. </p>
+ *
+ * @author Davide Nunes
+ */
+public class Dijkstra {
+
+    private final CsrNetwork network;
+    private final double[] lengths;
+
+    /**
+     * Creates the shortest paths of the given network
+     *
+     * @param network a network
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public Dijkstra(CsrNetwork network) {
+        this.network = network;
+        this.lengths = LinkValues.nonNegative(network, network.getOutLinkIndexes());
+    }
+
+    /**
+     * Creates the shortest paths of a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}
+     *
+     * @param network a network
+     * @throws IllegalArgumentException if a link has a negative, infinite or
+     * NaN value
+     */
+    public Dijkstra(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Returns the network, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Finds the shortest paths from the given node to all others
+     *
+     * @param source a node of the network
+     * @return distances and parents of the nodes reached from source
+     */
+    public ShortestPaths search(Node source) {
+        int index = network.getNodeIndex(source);
+        if (index < 0) {
+            throw new IllegalArgumentException("The node is not in the network: " + source);
+        }
+        return search(index);
+    }
+
+    /**
+     * Finds the shortest paths from the node with the given index to all
+     * others
+     *
+     * @param source a node index
+     * @return distances and parents of the nodes reached from source
+     */
+    public ShortestPaths search(int source) {
+        checkNode(source);
+        Search search = new Search();
+        search.run(source, -1);
+        return new ShortestPaths(source, search.distances, search.parents,
+                search.parentLinks, search.settledCount);
+    }
+
+    /**
+     * Returns the length of the shortest path between two nodes. The search
+     * stops when it reaches target.
+     *
+     * @param source a node index
+     * @param target a node index
+     * @return the distance, infinite if there is no path
+     */
+    public double distance(int source, int target) {
+        checkNode(source);
+        checkNode(target);
+        Search search = new Search();
+        search.run(source, target);
+        return search.distances[target];
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= network.getNodeCount()) {
+            throw new IllegalArgumentException("Invalid node index: " + node);
+        }
+    }
+
+    /**
+     * Arrays of a search, which can be reused for another search after
+     * {@link #reset()}
+     */
+    final class Search {
+
+        final double[] distances;
+        final int[] parents;
+        final int[] parentLinks;
+        // nodes in the order they were settled
+        final int[] settled;
+        int settledCount;
+        private final IndexedHeap heap;
+        private final int[] offsets = network.getOutOffsets();
+        private final int[] targets = network.getOutTargets();
+        private final int[] links = network.getOutLinkIndexes();
+
+        Search() {
+            int n = network.getNodeCount();
+            distances = new double[n];
+            parents = new int[n];
+            parentLinks = new int[n];
+            settled = new int[n];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(parents, ShortestPaths.NONE);
+            Arrays.fill(parentLinks, ShortestPaths.NONE);
+            heap = new IndexedHeap(distances);
+        }
+
+        /**
+         * Searches from source until every reachable node is settled, or
+         * until target is settled if it is not -1
+         */
+        void run(int source, int target) {
+            distances[source] = 0;
+            heap.add(source);
+            while (!heap.isEmpty()) {
+                int u = heap.poll();
+                settled[settledCount++] = u;
+                if (u == target) {
+                    break;
+                }
+                double distance = distances[u];
+                for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                    int v = targets[e];
+                    double alternative = distance + lengths[e];
+                    if (alternative < distances[v]) {
+                        boolean queued = heap.contains(v);
+                        distances[v] = alternative;
+                        parents[v] = u;
+                        parentLinks[v] = links[e];
+                        if (queued) {
+                            heap.decreased(v);
+                        } else {
+                            heap.add(v);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Clears the nodes reached by the last search, the nodes still in the
+         * heap too if it stopped at its target
+         */
+        void reset() {
+            for (int i = 0; i < settledCount; i++) {
+                clear(settled[i]);
+            }
+            settledCount = 0;
+            for (int i = 0; i < heap.size(); i++) {
+                clear(heap.node(i));
+            }
+            heap.clear();
+        }
+
+        private void clear(int node) {
+            distances[node] = Double.POSITIVE_INFINITY;
+            parents[node] = ShortestPaths.NONE;
+            parentLinks[node] = ShortestPaths.NONE;
+        }
+    }
+}
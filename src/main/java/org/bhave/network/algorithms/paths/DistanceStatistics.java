@@ -0,0 +1,108 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.paths;
+
+/**
+ * Summary of the distances from a set of sources to the nodes they reach,
+ * computed by {@link AllPairsShortestPaths}. Pairs are ordered, from a source
+ * to another node, and only pairs with a path are counted. When the sources
+ * are a random sample the average distance estimates the average over all
+ * pairs and the longest distance is a lower bound of the diameter.
+ *
+ * @author Davide Nunes
+ */
+public final class DistanceStatistics {
+
+    private final int nodeCount;
+    private final int sourceCount;
+    private final long pairCount;
+    private final double distanceSum;
+    private final double maxDistance;
+
+    DistanceStatistics(int nodeCount, int sourceCount, long pairCount,
+            double distanceSum, double maxDistance) {
+        this.nodeCount = nodeCount;
+        this.sourceCount = sourceCount;
+        this.pairCount = pairCount;
+        this.distanceSum = distanceSum;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Returns the number of nodes searched from
+     *
+     * @return the number of sources
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    /**
+     * Returns the number of pairs of a source and another node reached from
+     * it
+     *
+     * @return the number of connected pairs
+     */
+    public long getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Returns the sum of the distances of all connected pairs
+     *
+     * @return the sum of distances
+     */
+    public double getDistanceSum() {
+        return distanceSum;
+    }
+
+    /**
+     * Returns the average distance of the connected pairs
+     *
+     * @return the average distance, 0 if no pairs are connected
+     */
+    public double getAverageDistance() {
+        return pairCount == 0 ? 0 : distanceSum / pairCount;
+    }
+
+    /**
+     * Returns the longest distance of a connected pair, the diameter of the
+     * network if every node was a source
+     *
+     * @return the longest distance
+     */
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Returns the fraction of pairs of a source and another node that are
+     * connected
+     *
+     * @return the fraction of connected pairs, 0 if there are none
+     */
+    public double getReachability() {
+        long pairs = (long) sourceCount * (nodeCount - 1);
+        return pairs == 0 ? 0 : (double) pairCount / pairs;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.Arrays;
+
+/**
+ * Min heap of node indexes keyed by their distance, with the position of each
+ * node so its key can be decreased in place. The heap is 4-ary, which makes
+ * it shallower than a binary heap and keeps the children of a node in the
+ * same cache line. Keys are read from an array owned by the caller, who must
+ * call {@link #decreased(int)} after lowering the key of a node in the heap.
+ *
+ * @author Davide Nunes
+ */
+final class IndexedHeap {
+
+    private static final int ARITY = 4;
+    private final double[] keys;
+    private final int[] heap;
+    // position of each node in the heap, -1 if not in it
+    private final int[] positions;
+    private int size;
+
+    IndexedHeap(double[] keys) {
+        this.keys = keys;
+        heap = new int[keys.length];
+        positions = new int[keys.length];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the node at a position of the heap, from 0 to size - 1
+     */
+    int node(int position) {
+        return heap[position];
+    }
+
+    boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    void add(int node) {
+        heap[size] = node;
+        positions[node] = size++;
+        siftUp(size - 1);
+    }
+
+    /**
+     * Restores the heap after the key of a node in it was lowered
+     */
+    void decreased(int node) {
+        siftUp(positions[node]);
+    }
+
+    /**
+     * Removes the node with the smallest key
+     */
+    int poll() {
+        int top = heap[0];
+        positions[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Removes every node from the heap
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int node = heap[position];
+        double key = keys[node];
+        while (position > 0) {
+            int parent = (position - 1) / ARITY;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        int node = heap[position];
+        double key = keys[node];
+        while (true) {
+            int first = position * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int child = first;
+            int end = Math.min(first + ARITY, size);
+            for (int c = first + 1; c < end; c++) {
+                if (keys[heap[c]] < keys[heap[child]]) {
+                    child = c;
+                }
+            }
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+}
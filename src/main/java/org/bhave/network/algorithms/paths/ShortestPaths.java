@@ -0,0 +1,132 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.paths;
+
+/**
+ * Shortest paths from a source node, computed by {@link Dijkstra} or
+ * {@link DeltaStepping}. Distances and parents are indexed by node index,
+ * nodes that were not reached have an infinite distance and {@link #NONE} as
+ * parent, the source has distance 0 and no parent.
+ *
+ * @author Davide Nunes
+ */
+public final class ShortestPaths {
+
+    /**
+     * Parent of the source and of nodes that were not reached
+     */
+    public static final int NONE = -1;
+    private final int source;
+    private final double[] distances;
+    private final int[] parents;
+    private final int[] parentLinks;
+    private final int reachedCount;
+
+    ShortestPaths(int source, double[] distances, int[] parents, int[] parentLinks,
+            int reachedCount) {
+        this.source = source;
+        this.distances = distances;
+        this.parents = parents;
+        this.parentLinks = parentLinks;
+        this.reachedCount = reachedCount;
+    }
+
+    /**
+     * Returns the index of the node the paths start from
+     *
+     * @return a node index
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the length of the shortest path from the source to each node
+     *
+     * @return distances indexed by node index
+     */
+    public double[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Returns the length of the shortest path from the source to a node
+     *
+     * @param node a node index
+     * @return the distance, infinite if the node was not reached
+     */
+    public double getDistance(int node) {
+        return distances[node];
+    }
+
+    /**
+     * Returns the node before each node in its shortest path, following the
+     * parents from a node gives the path back to the source
+     *
+     * @return parent node indexes indexed by node index
+     */
+    public int[] getParents() {
+        return parents;
+    }
+
+    /**
+     * Returns the index of the link from the parent of each node to the node,
+     * see {@link org.bhave.network.impl.fast.CsrNetwork#getLinkAt(int)}
+     *
+     * @return link indexes indexed by node index
+     */
+    public int[] getParentLinks() {
+        return parentLinks;
+    }
+
+    /**
+     * Returns the number of nodes reached, including the source
+     *
+     * @return the number of nodes with a finite distance
+     */
+    public int getReachedCount() {
+        return reachedCount;
+    }
+
+    /**
+     * Returns the nodes of the shortest path from the source to a node
+     *
+     * @param target a node index
+     * @return the node indexes from the source to target, empty if target
+     * was not reached
+     */
+    public int[] getPath(int target) {
+        if (distances[target] == Double.POSITIVE_INFINITY) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int node = target; node != source; node = parents[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = target, i = length - 1; i >= 0; node = parents[node], i--) {
+            path[i] = node;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,498 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.algorithms.traversal;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+
+/**
+ * Parallel breadth-first search over a {@link CsrNetwork}. Nodes are
+ * identified by their index in the network (see
+ * {@link CsrNetwork#getNodeIndex(Node)}) and the results are arrays indexed
+ * by node index.
+ *
+ * <p> The search is level synchronous: each level is expanded by fork/join
+ * tasks and nodes are claimed with an atomic visited bitset, so each node is
+ * reached from exactly one parent. Levels with small frontiers are expanded
+ * top-down, from the frontier to its successors. When the links leaving the
+ * frontier outnumber a fraction of the links that reach unvisited nodes the
+ * search switches to bottom-up steps, in which each unvisited node looks for
+ * a predecessor in the frontier and stops at the first one (direction
+ * optimizing BFS, Beamer et al. 2012). It switches back to top-down when the
+ * frontier becomes small again. </p>
+ *
+ * <p> Links are followed from their start to their end in directed networks
+ * and in both directions in undirected ones. Searches do not change the
+ * network, so several can run at the same time. </p>
+ *
+ * @author Davide Nunes
+ */
+public class BreadthFirstSearch {
+
+    /**
+     * Distance and parent of nodes that are not reached by the search
+     */
+    public static final int UNREACHED = -1;
+    // switch to bottom-up when links to check > unexplored links / ALPHA
+    private static final int ALPHA = 14;
+    // switch back to top-down when frontier < nodes / BETA
+    private static final int BETA = 24;
+    // frontier nodes expanded by each top-down task
+    private static final int TOP_DOWN_GRAIN = 256;
+    // bitset words scanned by each bottom-up task
+    private static final int BOTTOM_UP_GRAIN = 64;
+    private static final int BUFFER_SIZE = 256;
+    private final CsrNetwork network;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a search over the given network that runs on the
+     * {@link Parallel#defaultPool() default pool}
+     *
+     * @param network the network to be searched
+     */
+    public BreadthFirstSearch(CsrNetwork network) {
+        this(network, Parallel.defaultPool());
+    }
+
+    /**
+     * Creates a search over a snapshot of the given network, see
+     * {@link FastNetwork#freeze()}. Later changes to the network are not seen
+     * by the search.
+     *
+     * @param network the network to be searched
+     */
+    public BreadthFirstSearch(FastNetwork network) {
+        this(network.freeze());
+    }
+
+    /**
+     * Creates a search over the given network that runs on the given pool
+     *
+     * @param network the network to be searched
+     * @param pool the pool that runs the search
+     */
+    public BreadthFirstSearch(CsrNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the network searched by this object, node indexes refer to it
+     *
+     * @return the network
+     */
+    public CsrNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Searches the network from the given node
+     *
+     * @param source a node of the network
+     * @return distances and parents of the nodes reached from source
+     */
+    public Result search(Node source) {
+        int index = network.getNodeIndex(source);
+        if (index < 0) {
+            throw new IllegalArgumentException("The node is not in the network: " + source);
+        }
+        return search(index);
+    }
+
+    /**
+     * Searches the network from the node with the given index
+     *
+     * @param source a node index
+     * @return distances and parents of the nodes reached from source
+     */
+    public Result search(int source) {
+        if (source < 0 || source >= network.getNodeCount()) {
+            throw new IllegalArgumentException("Invalid node index: " + source);
+        }
+        return new Search(source).run();
+    }
+
+    /**
+     * Result of a search. Distances and parents are indexed by node index,
+     * nodes that were not reached have {@link #UNREACHED} as distance and
+     * parent, the source has distance 0 and no parent.
+     */
+    public static final class Result {
+
+        private final int source;
+        private final int[] distances;
+        private final int[] parents;
+        private final int visitedCount;
+        private final int depth;
+
+        Result(int source, int[] distances, int[] parents, int visitedCount,
+                int depth) {
+            this.source = source;
+            this.distances = distances;
+            this.parents = parents;
+            this.visitedCount = visitedCount;
+            this.depth = depth;
+        }
+
+        /**
+         * Returns the index of the node the search started from
+         *
+         * @return a node index
+         */
+        public int getSource() {
+            return source;
+        }
+
+        /**
+         * Returns the number of links between the source and each node
+         *
+         * @return distances indexed by node index
+         */
+        public int[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Returns the node from which each node was reached, following the
+         * parents from a node gives a shortest path back to the source
+         *
+         * @return parent node indexes indexed by node index
+         */
+        public int[] getParents() {
+            return parents;
+        }
+
+        /**
+         * Returns the number of nodes reached, including the source
+         *
+         * @return the number of nodes with a distance
+         */
+        public int getVisitedCount() {
+            return visitedCount;
+        }
+
+        /**
+         * Returns the largest distance from the source to a reached node
+         *
+         * @return the number of levels after the source
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+    /**
+     * State of a single search
+     */
+    private final class Search {
+
+        final int n;
+        final int words;
+        final int[] outOffsets = network.getOutOffsets();
+        final int[] outTargets = network.getOutTargets();
+        final int[] inOffsets = network.getInOffsets();
+        final int[] inTargets = network.getInTargets();
+        final int source;
+        final int[] distances;
+        final int[] parents;
+        final AtomicLongArray visited;
+        // top-down frontier
+        int[] frontier;
+        int frontierSize;
+        int[] next;
+        final AtomicInteger nextSize = new AtomicInteger();
+        // bottom-up frontier
+        long[] frontierBits;
+        long[] nextBits;
+        int depth;
+
+        Search(int source) {
+            this.source = source;
+            n = network.getNodeCount();
+            words = (n + 63) >>> 6;
+            distances = new int[n];
+            parents = new int[n];
+            Arrays.fill(distances, UNREACHED);
+            Arrays.fill(parents, UNREACHED);
+            visited = new AtomicLongArray(words);
+        }
+
+        Result run() {
+            distances[source] = 0;
+            visited.set(source >>> 6, 1L << source);
+            frontier = new int[]{source};
+            frontierSize = 1;
+            next = new int[n];
+
+            int visitedCount = 1;
+            int frontierCount = 1;
+            long edgesToCheck = outOffsets[source + 1] - outOffsets[source];
+            long unexploredEdges = inOffsets[n] - (inOffsets[source + 1] - inOffsets[source]);
+            boolean bottomUp = false;
+            while (frontierCount > 0) {
+                if (!bottomUp && edgesToCheck > unexploredEdges / ALPHA) {
+                    toBits();
+                    bottomUp = true;
+                } else if (bottomUp && frontierCount < n / BETA) {
+                    toQueue();
+                    edgesToCheck = degreeSum(outOffsets);
+                    unexploredEdges = unexploredEdges();
+                    bottomUp = false;
+                }
+
+                if (bottomUp) {
+                    frontierCount = (int) Parallel.forRange(pool, 0, words,
+                            BOTTOM_UP_GRAIN, new BottomUpStep());
+                    long[] swap = frontierBits;
+                    frontierBits = nextBits;
+                    nextBits = swap;
+                } else {
+                    nextSize.set(0);
+                    Parallel.forRange(pool, 0, frontierSize, TOP_DOWN_GRAIN,
+                            new TopDownStep());
+                    int[] swap = frontier;
+                    frontier = next;
+                    next = swap.length == n ? swap : new int[n];
+                    frontierSize = nextSize.get();
+                    frontierCount = frontierSize;
+                    edgesToCheck = degreeSum(outOffsets);
+                    unexploredEdges -= degreeSum(inOffsets);
+                }
+                visitedCount += frontierCount;
+                if (frontierCount > 0) {
+                    depth++;
+                }
+            }
+            return new Result(source, distances, parents, visitedCount, depth);
+        }
+
+        /**
+         * Sum of the degrees of the nodes in the frontier queue
+         */
+        long degreeSum(final int[] offsets) {
+            return Parallel.forRange(pool, 0, frontierSize, TOP_DOWN_GRAIN, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    long sum = 0;
+                    for (int i = from; i < to; i++) {
+                        int node = frontier[i];
+                        sum += offsets[node + 1] - offsets[node];
+                    }
+                    return sum;
+                }
+            });
+        }
+
+        /**
+         * Sum of the in degrees of the nodes that were not visited
+         */
+        long unexploredEdges() {
+            return Parallel.forRange(pool, 0, words, BOTTOM_UP_GRAIN, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    long sum = 0;
+                    for (int w = from; w < to; w++) {
+                        long unvisited = ~visited.get(w) & validBits(w);
+                        while (unvisited != 0) {
+                            int node = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                            unvisited &= unvisited - 1;
+                            sum += inOffsets[node + 1] - inOffsets[node];
+                        }
+                    }
+                    return sum;
+                }
+            });
+        }
+
+        /**
+         * Converts the frontier queue into a bitset, the frontier is the set
+         * of visited nodes at the current depth
+         */
+        void toBits() {
+            if (frontierBits == null) {
+                frontierBits = new long[words];
+                nextBits = new long[words];
+            }
+            Parallel.forRange(pool, 0, words, BOTTOM_UP_GRAIN, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    for (int w = from; w < to; w++) {
+                        long bits = visited.get(w);
+                        long inFrontier = 0;
+                        while (bits != 0) {
+                            int bit = Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            if (distances[(w << 6) + bit] == depth) {
+                                inFrontier |= 1L << bit;
+                            }
+                        }
+                        frontierBits[w] = inFrontier;
+                    }
+                    return 0;
+                }
+            });
+        }
+
+        /**
+         * Converts the frontier bitset into a queue
+         */
+        void toQueue() {
+            nextSize.set(0);
+            Parallel.forRange(pool, 0, words, BOTTOM_UP_GRAIN, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    int[] buffer = new int[BUFFER_SIZE];
+                    int count = 0;
+                    for (int w = from; w < to; w++) {
+                        long bits = frontierBits[w];
+                        while (bits != 0) {
+                            buffer[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            if (count == BUFFER_SIZE) {
+                                flush(buffer, count);
+                                count = 0;
+                            }
+                        }
+                    }
+                    flush(buffer, count);
+                    return 0;
+                }
+            });
+            int[] swap = frontier;
+            frontier = next;
+            next = swap.length == n ? swap : new int[n];
+            frontierSize = nextSize.get();
+        }
+
+        /**
+         * Appends the nodes in a task buffer to the next frontier queue
+         */
+        void flush(int[] buffer, int count) {
+            if (count > 0) {
+                int start = nextSize.getAndAdd(count);
+                System.arraycopy(buffer, 0, next, start, count);
+            }
+        }
+
+        /**
+         * Mask of the bits of a word that correspond to nodes
+         */
+        long validBits(int word) {
+            int remaining = n - (word << 6);
+            return remaining >= 64 ? -1L : (1L << remaining) - 1;
+        }
+
+        /**
+         * Claims a node, returns false if it was already visited
+         */
+        boolean visit(int node) {
+            int w = node >>> 6;
+            long bit = 1L << node;
+            long bits;
+            do {
+                bits = visited.get(w);
+                if ((bits & bit) != 0) {
+                    return false;
+                }
+            } while (!visited.compareAndSet(w, bits, bits | bit));
+            return true;
+        }
+
+        /**
+         * Expands a range of the frontier queue to the successors of its nodes
+         */
+        private final class TopDownStep implements RangeTask {
+
+            @Override
+            public long run(int from, int to) {
+                int[] buffer = new int[BUFFER_SIZE];
+                int count = 0;
+                int distance = depth + 1;
+                for (int i = from; i < to; i++) {
+                    int node = frontier[i];
+                    for (int e = outOffsets[node], end = outOffsets[node + 1]; e < end; e++) {
+                        int target = outTargets[e];
+                        if (visit(target)) {
+                            parents[target] = node;
+                            distances[target] = distance;
+                            buffer[count++] = target;
+                            if (count == BUFFER_SIZE) {
+                                flush(buffer, count);
+                                count = 0;
+                            }
+                        }
+                    }
+                }
+                flush(buffer, count);
+                return 0;
+            }
+        }
+
+        /**
+         * Looks for a predecessor in the frontier for each unvisited node in a
+         * range of bitset words. Each task owns its words so the visited
+         * bitset is updated without compare and set.
+         */
+        private final class BottomUpStep implements RangeTask {
+
+            @Override
+            public long run(int from, int to) {
+                long count = 0;
+                int distance = depth + 1;
+                for (int w = from; w < to; w++) {
+                    long visitedBits = visited.get(w);
+                    long unvisited = ~visitedBits & validBits(w);
+                    long found = 0;
+                    while (unvisited != 0) {
+                        int bit = Long.numberOfTrailingZeros(unvisited);
+                        unvisited &= unvisited - 1;
+                        int node = (w << 6) + bit;
+                        for (int e = inOffsets[node], end = inOffsets[node + 1]; e < end; e++) {
+                            int parent = inTargets[e];
+                            if ((frontierBits[parent >>> 6] & (1L << parent)) != 0) {
+                                parents[node] = parent;
+                                distances[node] = distance;
+                                found |= 1L << bit;
+                                break;
+                            }
+                        }
+                    }
+                    nextBits[w] = found;
+                    if (found != 0) {
+                        visited.set(w, visitedBits | found);
+                        count += Long.bitCount(found);
+                    }
+                }
+                return count;
+            }
+        }
+    }
+}
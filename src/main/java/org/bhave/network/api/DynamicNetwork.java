@@ -53,7 +53,7 @@ import java.util.Set;
  * <br>
  * As an example, if your network contains the time instances {0, 1, 2}, and you
  * use {@link DynamicNetwork#setCurrentTime(int)} with t = 3, the new time
- * instance will contain a network with a deep copy of t = 2.
+ * instance will contain a network with a copy of t = 2.
  * </p>
  *
  * <b>Node:</b> time instants do not have to be contiguous. Just with a positive
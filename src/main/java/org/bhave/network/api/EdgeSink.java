@@ -0,0 +1,52 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.api;
+
+/**
+ * Receives the structure of a network as it is generated, without storing it
+ * in a {@link Network}. Nodes are identified by their index, from 0 to the
+ * number of nodes - 1, and links by the indexes of the nodes they connect.
+ * Can be used to write large networks to a file or to pass them to other
+ * libraries as they are generated.
+ *
+ * @see org.bhave.network.model.NetworkModel#generate(EdgeSink)
+ * @author Davide Nunes
+ */
+public interface EdgeSink {
+
+    /**
+     * Called with the number of nodes in the network before any link is
+     * accepted.
+     *
+     * @param n the number of nodes
+     */
+    void onNodes(int n);
+
+    /**
+     * Called for each link in the network.
+     *
+     * @param from the index of the node at the start of the link
+     * @param to the index of the node at the end of the link
+     */
+    void accept(int from, int to);
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.api;
+
+/**
+ * <p> A reusable cursor over the links attached to a node. A cursor is
+ * created once with {@link Network#createNeighbourCursor()} and can then be
+ * positioned on any node of the network with one of the reset methods, which
+ * makes it possible to traverse neighbourhoods in a loop without allocating
+ * objects for each node. </p>
+ *
+ * <code>
+ * NeighbourCursor cursor = network.createNeighbourCursor();<br>
+ * cursor.reset(node);<br>
+ * while (cursor.next()) {<br>
+ * &nbsp;&nbsp;Node neighbour = cursor.node();<br>
+ * &nbsp;&nbsp;Link link = cursor.link();<br>
+ * }
+ * </code>
+ *
+ * <p> The cursor visits each link once, so a neighbour connected through
+ * several links is visited several times. Changing the network while a cursor
+ * is in use has undefined results. </p>
+ *
+ * @see Network#createNeighbourCursor()
+ * @author Davide Nunes
+ */
+public interface NeighbourCursor {
+
+    /**
+     * Positions the cursor before the first link attached to the given node,
+     * both in and out links. If the node is not in the network the cursor has
+     * no links.
+     *
+     * @param node the node whose links are to be visited
+     */
+    void reset(Node node);
+
+    /**
+     * Positions the cursor before the first link coming <b>from</b> the given
+     * node. For undirected networks this is the same as {@link #reset(Node)}.
+     *
+     * @param node the node whose out links are to be visited
+     */
+    void resetOut(Node node);
+
+    /**
+     * Positions the cursor before the first link coming <b>to</b> the given
+     * node. For undirected networks this is the same as {@link #reset(Node)}.
+     *
+     * @param node the node whose in links are to be visited
+     */
+    void resetIn(Node node);
+
+    /**
+     * Moves the cursor to the next link.
+     *
+     * @return true if there is a current link, false if there are no more
+     * links
+     */
+    boolean next();
+
+    /**
+     * Returns the node at the other end of the current link.
+     *
+     * @return a neighbour of the node the cursor was reset to
+     */
+    Node node();
+
+    /**
+     * Returns the current link.
+     *
+     * @return a link attached to the node the cursor was reset to
+     */
+    Link link();
+}
@@ -246,6 +246,76 @@ public interface Network extends Serializable {
      */
     Collection<? extends Link> getLinks();
 
+    /**
+     * Returns a read-only view of all the nodes in the network. Unlike
+     * {@link #getNodes()} the nodes are not copied, changes to the network are
+     * visible through the view. Changing the network while iterating over the
+     * view has undefined results.
+     *
+     * @return a read-only collection of nodes
+     */
+    Collection<? extends Node> getNodesView();
+
+    /**
+     * Returns a read-only view of all the links in the network. Unlike
+     * {@link #getLinks()} the links are not copied, changes to the network are
+     * visible through the view. Changing the network while iterating over the
+     * view has undefined results.
+     *
+     * @return a read-only collection of links
+     */
+    Collection<? extends Link> getLinksView();
+
+    /**
+     * Visits the nodes attached to the given node by some link without
+     * building a collection. Unlike {@link #getNeighbours(Node)}, a node
+     * attached through several links is visited once for each link. Does
+     * nothing if the node does not exist within the network or is null.
+     *
+     * @param node the node we want the neighbours from
+     * @param visitor the visitor called for each neighbour
+     */
+    void forEachNeighbour(Node node, NodeVisitor visitor);
+
+    /**
+     * Visits the nodes attached to links coming from the given node. Like
+     * {@link #forEachNeighbour(Node, NodeVisitor)} a node is visited once for
+     * each link.
+     *
+     * @param node the node we want the successors from
+     * @param visitor the visitor called for each successor
+     */
+    void forEachSuccessor(Node node, NodeVisitor visitor);
+
+    /**
+     * Visits the nodes attached to links coming to the given node. Like
+     * {@link #forEachNeighbour(Node, NodeVisitor)} a node is visited once for
+     * each link.
+     *
+     * @param node the node we want the predecessors from
+     * @param visitor the visitor called for each predecessor
+     */
+    void forEachPredecessor(Node node, NodeVisitor visitor);
+
+    /**
+     * Visits the links attached to the given node without building a
+     * collection. Does nothing if the node does not exist within the network
+     * or is null.
+     *
+     * @param node the node from which we wish to visit the links
+     * @param visitor the visitor called for each link
+     */
+    void forEachLink(Node node, LinkVisitor visitor);
+
+    /**
+     * Creates a reusable cursor to traverse the links attached to the nodes
+     * of this network.
+     *
+     * @return a new cursor
+     * @see NeighbourCursor
+     */
+    NeighbourCursor createNeighbourCursor();
+
     /**
      * Returns the number of nodes in the network.
      *
@@ -0,0 +1,816 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.concurrent;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.api.UndirectedNetwork;
+import org.bhave.network.impl.fast.SimpleLink;
+import org.bhave.network.impl.fast.SimpleNode;
+
+/**
+ * <p> Thread-safe implementation of {@link Network}. Nodes and links can be
+ * added and removed by several threads at the same time and read without
+ * blocking while they do. </p>
+ *
+ * <p> Nodes and links are kept in concurrent hash maps by id and ids are
+ * given by atomic counters. The links of each node are kept in an immutable
+ * snapshot that is replaced on each change: links are appended in place when
+ * the array has room, since older snapshots do not see past their size, and
+ * removing a link copies the array. Changes lock the nodes of the link, in
+ * order of id, so changes to different nodes do not contend. Reads take the
+ * current snapshot of a node and never lock, they see the links of the node
+ * as they were at some point while the read was running. </p>
+ *
+ * <p> Removing a node first marks it as removed, so no more links are added
+ * to it, and then removes its links. Counts, views and copies are weakly
+ * consistent while the network is being changed. In undirected networks self
+ * loops appear once in the links of their node. Node and link objects are
+ * compared by identity, as in
+ * {@link org.bhave.network.impl.primitive.PrimitiveNetwork}. </p>
+ *
+ * @author Davide Nunes
+ */
+public class ConcurrentNetwork implements DirectedNetwork, UndirectedNetwork {
+
+    private static final long serialVersionUID = 1L;
+    final boolean directed;
+    private final AtomicInteger nextNodeID = new AtomicInteger();
+    private final AtomicInteger nextLinkID = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, NodeEntry> nodes;
+    private final ConcurrentHashMap<Integer, LinkEntry> links;
+
+    public ConcurrentNetwork() {
+        this(false);
+    }
+
+    public ConcurrentNetwork(boolean directed) {
+        this(directed, 0, 0);
+    }
+
+    /**
+     * Creates an empty network with room for the given number of nodes and
+     * links
+     *
+     * @param directed true if the network is directed
+     * @param expectedNodes the number of nodes expected
+     * @param expectedLinks the number of links expected
+     */
+    public ConcurrentNetwork(boolean directed, int expectedNodes, int expectedLinks) {
+        this.directed = directed;
+        int threads = Runtime.getRuntime().availableProcessors();
+        nodes = new ConcurrentHashMap<>(Math.max(16, expectedNodes), 0.75f, threads);
+        links = new ConcurrentHashMap<>(Math.max(16, expectedLinks), 0.75f, threads);
+    }
+
+    /**
+     * Copy constructor, creates a deep copy of the given network. If the
+     * network is changed while it is copied the copy may have some of the
+     * changes.
+     *
+     * @param other the network to be copied
+     */
+    public ConcurrentNetwork(ConcurrentNetwork other) {
+        this(other.directed, other.nodes.size(), other.links.size());
+        nextNodeID.set(other.nextNodeID.get());
+        nextLinkID.set(other.nextLinkID.get());
+        for (NodeEntry entry : other.nodes.values()) {
+            if (!entry.removed) {
+                addNode(entry.node.getCopy());
+            }
+        }
+        for (LinkEntry entry : other.links.values()) {
+            Link link = entry.link;
+            Node from = getNode(link.from().getID());
+            Node to = getNode(link.to().getID());
+            if (from != null && to != null) {
+                addLink(link instanceof SimpleLink
+                        ? new SimpleLink((SimpleLink) link, from, to) : link.getCopy());
+            }
+        }
+    }
+
+    /**
+     * Returns a deep copy of this network
+     *
+     * @return a copy of this network
+     */
+    @Override
+    public ConcurrentNetwork getCopy() {
+        return new ConcurrentNetwork(this);
+    }
+
+    /**
+     * Returns true if the links in this network are treated as directed
+     *
+     * @return true if directed, false if undirected
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Links of a node at some point in time. The array can be shared with
+     * later snapshots, which append links after size.
+     */
+    private static final class Adjacency implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        static final Adjacency EMPTY = new Adjacency(new Link[0], 0);
+        final Link[] links;
+        final int size;
+
+        Adjacency(Link[] links, int size) {
+            this.links = links;
+            this.size = size;
+        }
+
+        /**
+         * Returns a snapshot with the given link appended, must only be
+         * called on the latest snapshot of a node
+         */
+        Adjacency with(Link link) {
+            Link[] array = links;
+            if (size == array.length) {
+                array = new Link[Math.max(4, size * 2)];
+                System.arraycopy(links, 0, array, 0, size);
+            }
+            array[size] = link;
+            return new Adjacency(array, size + 1);
+        }
+
+        /**
+         * Returns a snapshot without the given link
+         */
+        Adjacency without(Link link) {
+            for (int i = 0; i < size; i++) {
+                if (links[i] == link) {
+                    Link[] array = new Link[Math.max(4, size - 1)];
+                    System.arraycopy(links, 0, array, 0, i);
+                    System.arraycopy(links, i + 1, array, i, size - i - 1);
+                    return new Adjacency(array, size - 1);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * A node and its links. Changes to the links are made holding the lock of
+     * the entry. Undirected networks only use the out links.
+     */
+    private static final class NodeEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        final Node node;
+        volatile Adjacency out = Adjacency.EMPTY;
+        volatile Adjacency in = Adjacency.EMPTY;
+        volatile boolean removed;
+
+        NodeEntry(Node node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * A link and the entries of its nodes
+     */
+    private static final class LinkEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        final Link link;
+        final NodeEntry from;
+        final NodeEntry to;
+
+        LinkEntry(Link link, NodeEntry from, NodeEntry to) {
+            this.link = link;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Returns the entry of a node in the network, null if the node is not in
+     * the network or is being removed
+     */
+    private NodeEntry entry(Node node) {
+        if (node == null || node.getNetwork() != this) {
+            return null;
+        }
+        NodeEntry entry = nodes.get(node.getID());
+        return entry != null && entry.node == node && !entry.removed ? entry : null;
+    }
+
+    private Adjacency out(NodeEntry entry) {
+        return entry.out;
+    }
+
+    private Adjacency in(NodeEntry entry) {
+        return directed ? entry.in : entry.out;
+    }
+
+    /**
+     * Returns the node at the other end of a link
+     */
+    private static Node other(Link link, Node node) {
+        return link.from().getID() == node.getID() ? link.to() : link.from();
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        if (node == null) {
+            return false;
+        }
+        NodeEntry entry = new NodeEntry(node);
+        while (true) {
+            NodeEntry current = nodes.putIfAbsent(node.getID(), entry);
+            if (current == null) {
+                break;
+            }
+            if (!current.removed) {
+                return false;
+            }
+            // a node being removed can be replaced before its entry is gone
+            if (nodes.replace(node.getID(), current, entry)) {
+                break;
+            }
+        }
+        node.setNetwork(this);
+        return true;
+    }
+
+    @Override
+    public Link addLink(Node node1, Node node2) {
+        Link newLink = createLink(node1, node2);
+        addLink(newLink);
+        return newLink;
+    }
+
+    /**
+     * Adds a link to the network. If the nodes are not yet present in the
+     * network they are added automatically.
+     *
+     * @param link a link
+     * @return true if the link was added, false if it was already in the
+     * network
+     */
+    @Override
+    public boolean addLink(Link link) {
+        if (link == null) {
+            throw new RuntimeException("Can't add a null Link to the network");
+        }
+        if (link.from() == null || link.to() == null) {
+            throw new RuntimeException("The link is not connecting anything.");
+        }
+        while (true) {
+            NodeEntry from = attach(link.from());
+            NodeEntry to = attach(link.to());
+            // lock in order of id so threads locking the same nodes do not
+            // deadlock, self loops lock their node twice
+            boolean ordered = from.node.getID() <= to.node.getID();
+            NodeEntry first = ordered ? from : to;
+            NodeEntry second = ordered ? to : from;
+            synchronized (first) {
+                synchronized (second) {
+                    if (from.removed || to.removed) {
+                        continue;
+                    }
+                    if (links.putIfAbsent(link.getID(), new LinkEntry(link, from, to)) != null) {
+                        return false;
+                    }
+                    link.setNetwork(this);
+                    from.out = from.out.with(link);
+                    if (directed) {
+                        to.in = to.in.with(link);
+                    } else if (to != from) {
+                        to.out = to.out.with(link);
+                    }
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the entry of the node with the id of the given node, adding the
+     * node if there is none
+     */
+    private NodeEntry attach(Node node) {
+        NodeEntry entry = nodes.get(node.getID());
+        while (entry == null || entry.removed) {
+            addNode(node);
+            entry = nodes.get(node.getID());
+        }
+        return entry;
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        NodeEntry entry = entry(node);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            if (entry.removed) {
+                return false;
+            }
+            entry.removed = true;
+        }
+        // no links are added to the node after it is marked
+        Adjacency out = entry.out;
+        for (int i = 0; i < out.size; i++) {
+            removeLink(out.links[i]);
+        }
+        if (directed) {
+            Adjacency in = entry.in;
+            for (int i = 0; i < in.size; i++) {
+                removeLink(in.links[i]);
+            }
+        }
+        nodes.remove(node.getID(), entry);
+        return true;
+    }
+
+    @Override
+    public boolean removeLink(Link link) {
+        if (link == null) {
+            return false;
+        }
+        LinkEntry entry = links.get(link.getID());
+        if (entry == null || entry.link != link) {
+            return false;
+        }
+        NodeEntry from = entry.from;
+        NodeEntry to = entry.to;
+        boolean ordered = from.node.getID() <= to.node.getID();
+        NodeEntry first = ordered ? from : to;
+        NodeEntry second = ordered ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                if (!links.remove(link.getID(), entry)) {
+                    return false;
+                }
+                from.out = from.out.without(link);
+                if (directed) {
+                    to.in = to.in.without(link);
+                } else if (to != from) {
+                    to.out = to.out.without(link);
+                }
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Node getNode(int id) {
+        NodeEntry entry = nodes.get(id);
+        return entry != null && !entry.removed ? entry.node : null;
+    }
+
+    @Override
+    public Link getLink(int id) {
+        LinkEntry entry = links.get(id);
+        return entry != null ? entry.link : null;
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node1, Node node2) {
+        Set<Link> result = new HashSet<>();
+        NodeEntry from = entry(node1);
+        NodeEntry to = entry(node2);
+        if (from != null && to != null) {
+            Adjacency adjacency = out(from);
+            for (int i = 0; i < adjacency.size; i++) {
+                Link link = adjacency.links[i];
+                if (connects(link, node1, node2)) {
+                    result.add(link);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * True if a link of node1 goes to node2, or connects them in either
+     * direction if the network is undirected
+     */
+    private boolean connects(Link link, Node node1, Node node2) {
+        if (directed) {
+            return link.to().getID() == node2.getID();
+        }
+        return other(link, node1).getID() == node2.getID();
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node) {
+        Set<Link> result = new HashSet<>();
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            addLinks(out(entry), result);
+            if (directed) {
+                addLinks(entry.in, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getOutLinks(Node node) {
+        Set<Link> result = new HashSet<>();
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            addLinks(out(entry), result);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getInLinks(Node node) {
+        Set<Link> result = new HashSet<>();
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            addLinks(in(entry), result);
+        }
+        return result;
+    }
+
+    private static void addLinks(Adjacency adjacency, Set<Link> result) {
+        for (int i = 0; i < adjacency.size; i++) {
+            result.add(adjacency.links[i]);
+        }
+    }
+
+    @Override
+    public Collection<? extends Node> getSuccessors(Node node) {
+        Set<Node> result = new HashSet<>();
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            addOthers(node, out(entry), result);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Node> getPredecessors(Node node) {
+        Set<Node> result = new HashSet<>();
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            addOthers(node, in(entry), result);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Node> getNeighbours(Node node) {
+        Set<Node> result = new HashSet<>();
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            addOthers(node, out(entry), result);
+            if (directed) {
+                addOthers(node, entry.in, result);
+            }
+        }
+        return result;
+    }
+
+    private static void addOthers(Node node, Adjacency adjacency, Set<Node> result) {
+        for (int i = 0; i < adjacency.size; i++) {
+            result.add(other(adjacency.links[i], node));
+        }
+    }
+
+    @Override
+    public Collection<? extends Node> getNodes() {
+        List<Node> result = new ArrayList<>(nodes.size());
+        for (NodeEntry entry : nodes.values()) {
+            if (!entry.removed) {
+                result.add(entry.node);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks() {
+        List<Link> result = new ArrayList<>(links.size());
+        for (LinkEntry entry : links.values()) {
+            result.add(entry.link);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a read-only view of the nodes. Iterating over the view while the
+     * network is changed is safe, the iteration may or may not see the
+     * changes.
+     *
+     * @return a read-only collection of nodes
+     */
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return new AbstractCollection<Node>() {
+            @Override
+            public Iterator<Node> iterator() {
+                final Iterator<NodeEntry> entries = nodes.values().iterator();
+                return new Iterator<Node>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Node next() {
+                        return entries.next().node;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Read-only view");
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return nodes.size();
+            }
+        };
+    }
+
+    /**
+     * Returns a read-only view of the links. Iterating over the view while the
+     * network is changed is safe, the iteration may or may not see the
+     * changes.
+     *
+     * @return a read-only collection of links
+     */
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return new AbstractCollection<Link>() {
+            @Override
+            public Iterator<Link> iterator() {
+                final Iterator<LinkEntry> entries = links.values().iterator();
+                return new Iterator<Link>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Link next() {
+                        return entries.next().link;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Read-only view");
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return links.size();
+            }
+        };
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        NodeEntry entry = entry(node);
+        if (entry != null && visitOthers(node, out(entry), visitor) && directed) {
+            visitOthers(node, entry.in, visitor);
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            visitOthers(node, out(entry), visitor);
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        NodeEntry entry = entry(node);
+        if (entry != null) {
+            visitOthers(node, in(entry), visitor);
+        }
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        NodeEntry entry = entry(node);
+        if (entry != null && visitLinks(out(entry), visitor) && directed) {
+            visitLinks(entry.in, visitor);
+        }
+    }
+
+    /**
+     * Visits the node at the other end of each link, returns false if the
+     * visitor asked to stop
+     */
+    private static boolean visitOthers(Node node, Adjacency adjacency, NodeVisitor visitor) {
+        for (int i = 0; i < adjacency.size; i++) {
+            if (!visitor.visit(other(adjacency.links[i], node))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits each link, returns false if the visitor asked to stop
+     */
+    private static boolean visitLinks(Adjacency adjacency, LinkVisitor visitor) {
+        for (int i = 0; i < adjacency.size; i++) {
+            if (!visitor.visit(adjacency.links[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new SnapshotCursor();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    @Override
+    public int getLinkCount() {
+        return links.size();
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return entry(node) != null;
+    }
+
+    @Override
+    public boolean containsLink(Link link) {
+        if (link == null || link.getNetwork() != this) {
+            return false;
+        }
+        LinkEntry entry = links.get(link.getID());
+        return entry != null && entry.link == link;
+    }
+
+    @Override
+    public boolean containsLinks(Node node1, Node node2) {
+        NodeEntry from = entry(node1);
+        NodeEntry to = entry(node2);
+        if (from == null || to == null) {
+            return false;
+        }
+        // scan the shorter of the out links of node1 and the in links of node2
+        Adjacency fromLinks = out(from);
+        Adjacency toLinks = in(to);
+        if (toLinks.size < fromLinks.size) {
+            for (int i = 0; i < toLinks.size; i++) {
+                if (connectsFrom(toLinks.links[i], node1, node2)) {
+                    return true;
+                }
+            }
+        } else {
+            for (int i = 0; i < fromLinks.size; i++) {
+                if (connects(fromLinks.links[i], node1, node2)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if an in link of node2 comes from node1, or connects them in
+     * either direction if the network is undirected
+     */
+    private boolean connectsFrom(Link link, Node node1, Node node2) {
+        if (directed) {
+            return link.from().getID() == node1.getID();
+        }
+        return other(link, node2).getID() == node1.getID();
+    }
+
+    @Override
+    public Node createNode() {
+        return new SimpleNode(nextNodeID.getAndIncrement());
+    }
+
+    @Override
+    public Link createLink(Node from, Node to) {
+        return new SimpleLink(nextLinkID.getAndIncrement(), from, to);
+    }
+
+    /**
+     * Cursor over the snapshots of the links of a node taken when the cursor
+     * is reset
+     */
+    private class SnapshotCursor implements NeighbourCursor {
+
+        private Node origin;
+        private Adjacency first;
+        private Adjacency second;
+        private int position;
+        private Link current;
+
+        private void reset(Node node, boolean out, boolean in) {
+            origin = node;
+            first = Adjacency.EMPTY;
+            second = Adjacency.EMPTY;
+            position = -1;
+            current = null;
+            NodeEntry entry = entry(node);
+            if (entry != null) {
+                if (!directed) {
+                    first = entry.out;
+                } else {
+                    first = out ? entry.out : entry.in;
+                    second = (out && in) ? entry.in : Adjacency.EMPTY;
+                }
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            reset(node, true, true);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            reset(node, true, false);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            reset(node, false, true);
+        }
+
+        @Override
+        public boolean next() {
+            position++;
+            if (position >= first.size && second.size > 0) {
+                first = second;
+                second = Adjacency.EMPTY;
+                position = 0;
+            }
+            if (position >= first.size) {
+                current = null;
+                return false;
+            }
+            current = first.links[position];
+            return true;
+        }
+
+        @Override
+        public Node node() {
+            return other(current, origin);
+        }
+
+        @Override
+        public Link link() {
+            return current;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.api.UndirectedNetwork;
+
+/**
+ * <p> Thread-safe wrapper of a {@link Network} for workloads that mostly
+ * read. Changes to the network take the write lock of a {@link StampedLock}.
+ * Queries first run without a lock, as optimistic reads, and are only run
+ * again under the read lock if a change happened while they ran, so queries
+ * do not write to shared memory and do not contend with each other. </p>
+ *
+ * <p> An optimistic query can see the wrapped network in the middle of a
+ * change. Its result, or anything it throws, is dropped if the lock says a
+ * change happened, so the wrapped network must return new collections from
+ * its queries and must not change anything in them. A query that never
+ * returns can not be detected: the queries of
+ * {@link org.bhave.network.impl.fast.FastNetwork} only walk array lists and
+ * hash maps, which are not made to be read during a change, so they are
+ * expected but not guaranteed to return. Networks that create objects when
+ * they are queried, such as
+ * {@link org.bhave.network.impl.primitive.PrimitiveNetwork}, must not be
+ * wrapped. Visitors and cursors run their callbacks, so they hold the read
+ * lock while they visit the network and must not change it: the lock is not
+ * reentrant. Cursors take the links of a node when they are reset. </p>
+ *
+ * <p> Views are copies, a live view can not be read safely while other
+ * threads change the network. For networks changed as often as they are
+ * read see {@link ConcurrentNetwork}. </p>
+ *
+ * @author Davide Nunes
+ */
+public class StampedLockNetwork implements DirectedNetwork, UndirectedNetwork {
+
+    private static final long serialVersionUID = 1L;
+    private final Network network;
+    private final transient StampedLock lock = new StampedLock();
+
+    /**
+     * Wraps the given network, which must not be used directly afterwards
+     *
+     * @param network the network to be wrapped
+     */
+    public StampedLockNetwork(Network network) {
+        if (network == null) {
+            throw new IllegalArgumentException("network can't be null");
+        }
+        this.network = network;
+    }
+
+    /**
+     * Returns the wrapped network. Using it directly is not thread-safe.
+     *
+     * @return the wrapped network
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Runs a query as an optimistic read, then under the read lock if the
+     * network changed while it ran
+     */
+    private <T> T read(Supplier<T> query) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = query.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (Throwable e) {
+                // errors too, an inconsistent state can overflow the stack
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        return readLocked(query);
+    }
+
+    private <T> T readLocked(Supplier<T> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> change) {
+        long stamp = lock.writeLock();
+        try {
+            return change.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean addNode(final Node node) {
+        return write(() -> network.addNode(node));
+    }
+
+    @Override
+    public Link addLink(final Node node1, final Node node2) {
+        return write(() -> network.addLink(node1, node2));
+    }
+
+    @Override
+    public boolean addLink(final Link link) {
+        return write(() -> network.addLink(link));
+    }
+
+    @Override
+    public boolean removeNode(final Node node) {
+        return write(() -> network.removeNode(node));
+    }
+
+    @Override
+    public boolean removeLink(final Link link) {
+        return write(() -> network.removeLink(link));
+    }
+
+    @Override
+    public Node getNode(final int id) {
+        return read(() -> network.getNode(id));
+    }
+
+    @Override
+    public Link getLink(final int id) {
+        return read(() -> network.getLink(id));
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(final Node node1, final Node node2) {
+        return read(() -> network.getLinks(node1, node2));
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(final Node node) {
+        return read(() -> network.getLinks(node));
+    }
+
+    @Override
+    public Collection<? extends Link> getOutLinks(final Node node) {
+        return read(() -> network.getOutLinks(node));
+    }
+
+    @Override
+    public Collection<? extends Link> getInLinks(final Node node) {
+        return read(() -> network.getInLinks(node));
+    }
+
+    @Override
+    public Collection<? extends Node> getSuccessors(final Node node) {
+        return read(() -> network.getSuccessors(node));
+    }
+
+    @Override
+    public Collection<? extends Node> getPredecessors(final Node node) {
+        return read(() -> network.getPredecessors(node));
+    }
+
+    @Override
+    public Collection<? extends Node> getNeighbours(final Node node) {
+        return read(() -> network.getNeighbours(node));
+    }
+
+    @Override
+    public Collection<? extends Node> getNodes() {
+        return read(() -> network.getNodes());
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks() {
+        return read(() -> network.getLinks());
+    }
+
+    /**
+     * Returns a read-only copy of the nodes
+     *
+     * @return a read-only collection of nodes
+     */
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return Collections.unmodifiableCollection(getNodes());
+    }
+
+    /**
+     * Returns a read-only copy of the links
+     *
+     * @return a read-only collection of links
+     */
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return Collections.unmodifiableCollection(getLinks());
+    }
+
+    @Override
+    public void forEachNeighbour(final Node node, final NodeVisitor visitor) {
+        readLocked(() -> {
+            network.forEachNeighbour(node, visitor);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachSuccessor(final Node node, final NodeVisitor visitor) {
+        readLocked(() -> {
+            network.forEachSuccessor(node, visitor);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachPredecessor(final Node node, final NodeVisitor visitor) {
+        readLocked(() -> {
+            network.forEachPredecessor(node, visitor);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachLink(final Node node, final LinkVisitor visitor) {
+        readLocked(() -> {
+            network.forEachLink(node, visitor);
+            return null;
+        });
+    }
+
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new CopyingCursor(readLocked(() -> network.createNeighbourCursor()));
+    }
+
+    @Override
+    public int getNodeCount() {
+        return read(() -> network.getNodeCount());
+    }
+
+    @Override
+    public int getLinkCount() {
+        return read(() -> network.getLinkCount());
+    }
+
+    @Override
+    public boolean containsNode(final Node node) {
+        return read(() -> network.containsNode(node));
+    }
+
+    @Override
+    public boolean containsLink(final Link link) {
+        return read(() -> network.containsLink(link));
+    }
+
+    @Override
+    public boolean containsLinks(final Node node1, final Node node2) {
+        return read(() -> network.containsLinks(node1, node2));
+    }
+
+    /**
+     * Creates a node, under the write lock as networks count the ids they
+     * give
+     */
+    @Override
+    public Node createNode() {
+        return write(() -> network.createNode());
+    }
+
+    @Override
+    public Link createLink(final Node from, final Node to) {
+        return write(() -> network.createLink(from, to));
+    }
+
+    /**
+     * Returns a copy of this network, wrapped in a new lock
+     *
+     * @return a copy of this network
+     */
+    @Override
+    public StampedLockNetwork getCopy() {
+        return new StampedLockNetwork(readLocked(() -> network.getCopy()));
+    }
+
+    private Object readResolve() {
+        return new StampedLockNetwork(network);
+    }
+
+    /**
+     * Cursor that copies the links of a node from a cursor of the wrapped
+     * network, under the read lock, when it is reset
+     */
+    private class CopyingCursor implements NeighbourCursor {
+
+        private final NeighbourCursor cursor;
+        private final ArrayList<Node> nodes = new ArrayList<>();
+        private final ArrayList<Link> links = new ArrayList<>();
+        private int position;
+
+        CopyingCursor(NeighbourCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        private void copy() {
+            nodes.clear();
+            links.clear();
+            position = -1;
+            while (cursor.next()) {
+                nodes.add(cursor.node());
+                links.add(cursor.link());
+            }
+        }
+
+        @Override
+        public void reset(final Node node) {
+            readLocked(() -> {
+                cursor.reset(node);
+                copy();
+                return null;
+            });
+        }
+
+        @Override
+        public void resetOut(final Node node) {
+            readLocked(() -> {
+                cursor.resetOut(node);
+                copy();
+                return null;
+            });
+        }
+
+        @Override
+        public void resetIn(final Node node) {
+            readLocked(() -> {
+                cursor.resetIn(node);
+                copy();
+                return null;
+            });
+        }
+
+        @Override
+        public boolean next() {
+            return ++position < links.size();
+        }
+
+        @Override
+        public Node node() {
+            return nodes.get(position);
+        }
+
+        @Override
+        public Link link() {
+            return links.get(position);
+        }
+    }
+}
@@ -0,0 +1,945 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.fast;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.api.UndirectedNetwork;
+
+/**
+ * <p> Immutable implementation of the {@link Network} interface based on a
+ * compressed sparse row (CSR) representation. Nodes and links are kept in
+ * arrays ordered by their ids and the adjacency of each node is a contiguous
+ * range of an <code>int</code> array. This makes neighbourhood scans cache
+ * friendly and takes a few bytes per link instead of the hash map entries and
+ * lists used by {@link FastNetwork}. </p>
+ *
+ * <p> Directed networks keep an out adjacency and an in adjacency. Undirected
+ * networks keep a single adjacency in which each link appears in the rows of
+ * both its nodes (self loops appear once). Each row is sorted by neighbour
+ * index, then by link index. </p>
+ *
+ * <p> Instances are created with {@link FastNetwork#freeze()} or
+ * {@link #of(Network, boolean)}. The {@link Node} and {@link Link} objects are
+ * shared with the source network, not copied. Any method that would change
+ * the network throws an {@link UnsupportedOperationException}. </p>
+ *
+ * <p> Besides the {@link Network} methods, the CSR arrays and the mapping
+ * between nodes and their index (position) are available for algorithms that
+ * prefer to work with primitive arrays. </p>
+ *
+ * @author Davide Nunes
+ */
+public class CsrNetwork implements DirectedNetwork, UndirectedNetwork {
+
+    private static final long serialVersionUID = 1L;
+    private static final Comparator<Node> NODE_ID_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node n1, Node n2) {
+            return Integer.compare(n1.getID(), n2.getID());
+        }
+    };
+    private static final Comparator<Link> LINK_ID_ORDER = new Comparator<Link>() {
+        @Override
+        public int compare(Link l1, Link l2) {
+            return Integer.compare(l1.getID(), l2.getID());
+        }
+    };
+    final boolean directed;
+    // nodes and links sorted by id, the position in these arrays is the index
+    final Node[] nodes;
+    final Link[] links;
+    final int[] nodeIds;
+    final int[] linkIds;
+    // true if ids are 0 .. n-1, in which case the id is also the index
+    private final boolean denseNodeIds;
+    private final boolean denseLinkIds;
+    // out adjacency (all the links if the network is undirected)
+    final int[] outOffsets;
+    final int[] outTargets;
+    final int[] outLinks;
+    // in adjacency, same arrays as the out adjacency if undirected
+    final int[] inOffsets;
+    final int[] inTargets;
+    final int[] inLinks;
+
+    /**
+     * Creates a CSR network from the given nodes and links. The arrays are
+     * sorted by id in place. Every node attached to a link must be in the
+     * nodes array.
+     *
+     * @param directed true if the links are directed
+     * @param nodes the nodes of the network
+     * @param links the links of the network
+     */
+    CsrNetwork(boolean directed, Node[] nodes, Link[] links) {
+        this(directed, sortById(nodes), sortById(links), null, null);
+    }
+
+    /**
+     * Creates a CSR network from nodes and links already sorted by id. If
+     * given, src[i] and dst[i] are the indexes of the nodes at the start and
+     * end of links[i], otherwise they are looked up from the links.
+     */
+    CsrNetwork(boolean directed, Node[] nodes, Link[] links, int[] src,
+            int[] dst) {
+        this.directed = directed;
+        this.nodes = nodes;
+        this.links = links;
+
+        this.nodeIds = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodeIds[i] = nodes[i].getID();
+        }
+        this.linkIds = new int[links.length];
+        for (int i = 0; i < links.length; i++) {
+            linkIds[i] = links[i].getID();
+        }
+        this.denseNodeIds = isDense(nodeIds);
+        this.denseLinkIds = isDense(linkIds);
+
+        if (src == null || dst == null) {
+            src = new int[links.length];
+            dst = new int[links.length];
+            for (int i = 0; i < links.length; i++) {
+                src[i] = requireNode(links[i].from());
+                dst[i] = requireNode(links[i].to());
+            }
+        }
+
+        int n = nodes.length;
+        if (directed) {
+            int[][] out = buildRows(n, src, dst, false);
+            int[][] in = buildRows(n, dst, src, false);
+            outOffsets = out[0];
+            outTargets = out[1];
+            outLinks = out[2];
+            inOffsets = in[0];
+            inTargets = in[1];
+            inLinks = in[2];
+        } else {
+            int[][] all = buildRows(n, src, dst, true);
+            outOffsets = inOffsets = all[0];
+            outTargets = inTargets = all[1];
+            outLinks = inLinks = all[2];
+        }
+    }
+
+    /**
+     * Returns a CSR snapshot of the given network. If the network is a
+     * {@link FastNetwork} its own direction is used instead of the given one.
+     *
+     * @param network the network to be compacted
+     * @param directed true if the links should be taken as directed
+     * @return an immutable compact network
+     */
+    public static CsrNetwork of(Network network, boolean directed) {
+        if (network instanceof CsrNetwork) {
+            return (CsrNetwork) network;
+        }
+        if (network instanceof FastNetwork) {
+            return ((FastNetwork) network).freeze();
+        }
+        Collection<? extends Node> networkNodes = network.getNodes();
+        Collection<? extends Link> networkLinks = network.getLinks();
+        return new CsrNetwork(directed,
+                networkNodes.toArray(new Node[networkNodes.size()]),
+                networkLinks.toArray(new Link[networkLinks.size()]));
+    }
+
+    private static Node[] sortById(Node[] nodes) {
+        Arrays.sort(nodes, NODE_ID_ORDER);
+        return nodes;
+    }
+
+    private static Link[] sortById(Link[] links) {
+        Arrays.sort(links, LINK_ID_ORDER);
+        return links;
+    }
+
+    private static boolean isDense(int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int requireNode(Node node) {
+        int index = getNodeIndex(node);
+        if (index < 0) {
+            throw new IllegalArgumentException("Link attached to " + node
+                    + " which is not in the network");
+        }
+        return index;
+    }
+
+    /**
+     * Builds the rows of an adjacency with two stable counting sorts, first by
+     * column then by row, so each row ends up sorted by (column, link).
+     *
+     * @param n number of nodes
+     * @param rows the row (node index) of each link
+     * @param cols the column (neighbour index) of each link
+     * @param symmetric if true each link is also added to the row of its
+     * column, except for self loops
+     *
+     * @return {offsets, targets, links}
+     */
+    private static int[][] buildRows(int n, int[] rows, int[] cols,
+            boolean symmetric) {
+        int m = rows.length;
+        int entries = m;
+        if (symmetric) {
+            for (int l = 0; l < m; l++) {
+                if (rows[l] != cols[l]) {
+                    entries++;
+                }
+            }
+        }
+
+        // entry e < m is (rows[e], cols[e]), entry e >= m is the reverse of
+        // link e - m
+        int[] byCol = new int[entries];
+        int[] pos = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            pos[cols[e] + 1]++;
+            if (symmetric && rows[e] != cols[e]) {
+                pos[rows[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            pos[i + 1] += pos[i];
+        }
+        // both entries of a link in the same pass, so entries with the same
+        // column stay in link order
+        for (int e = 0; e < m; e++) {
+            byCol[pos[cols[e]]++] = e;
+            if (symmetric && rows[e] != cols[e]) {
+                byCol[pos[rows[e]]++] = m + e;
+            }
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < entries; k++) {
+            int e = byCol[k];
+            offsets[(e < m ? rows[e] : cols[e - m]) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        System.arraycopy(offsets, 0, pos, 0, n + 1);
+
+        int[] targets = new int[entries];
+        int[] linkIndexes = new int[entries];
+        for (int k = 0; k < entries; k++) {
+            int e = byCol[k];
+            int row, col, link;
+            if (e < m) {
+                row = rows[e];
+                col = cols[e];
+                link = e;
+            } else {
+                link = e - m;
+                row = cols[link];
+                col = rows[link];
+            }
+            int p = pos[row]++;
+            targets[p] = col;
+            linkIndexes[p] = link;
+        }
+        return new int[][]{offsets, targets, linkIndexes};
+    }
+
+    /**
+     * Returns the index of the first position in [from, to) of a sorted array
+     * with a value >= key.
+     */
+    private static int lowerBound(int[] a, int from, int to, int key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns true if the links in this network are treated as directed
+     *
+     * @return true if directed, false if undirected
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the index of the node with the given id or -1 if there is no
+     * such node. Indexes go from 0 to {@link #getNodeCount()} - 1 following the
+     * order of the node ids.
+     *
+     * @param id a node id
+     * @return the node index or -1
+     */
+    public int getNodeIndex(int id) {
+        if (denseNodeIds) {
+            return (id >= 0 && id < nodeIds.length) ? id : -1;
+        }
+        int index = Arrays.binarySearch(nodeIds, id);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns the index of the given node or -1 if the node is not in this
+     * network.
+     *
+     * @param node a node
+     * @return the node index or -1
+     */
+    public int getNodeIndex(Node node) {
+        if (node == null) {
+            return -1;
+        }
+        int index = getNodeIndex(node.getID());
+        return (index >= 0 && nodes[index].equals(node)) ? index : -1;
+    }
+
+    /**
+     * Returns the index of the link with the given id or -1 if there is no
+     * such link. Indexes go from 0 to {@link #getLinkCount()} - 1 following the
+     * order of the link ids.
+     *
+     * @param id a link id
+     * @return the link index or -1
+     */
+    public int getLinkIndex(int id) {
+        if (denseLinkIds) {
+            return (id >= 0 && id < linkIds.length) ? id : -1;
+        }
+        int index = Arrays.binarySearch(linkIds, id);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns the index of the given link or -1 if the link is not in this
+     * network.
+     *
+     * @param link a link
+     * @return the link index or -1
+     */
+    public int getLinkIndex(Link link) {
+        if (link == null) {
+            return -1;
+        }
+        int index = getLinkIndex(link.getID());
+        return (index >= 0 && links[index].equals(link)) ? index : -1;
+    }
+
+    /**
+     * Returns the node with the given index
+     *
+     * @param index a node index, 0 <= index < {@link #getNodeCount()}
+     * @return a node
+     */
+    public Node getNodeAt(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Returns the link with the given index
+     *
+     * @param index a link index, 0 <= index < {@link #getLinkCount()}
+     * @return a link
+     */
+    public Link getLinkAt(int index) {
+        return links[index];
+    }
+
+    /**
+     * Returns the number of entries in the out row of the given node index.
+     * For undirected networks this is the number of links attached to the
+     * node.
+     *
+     * @param index a node index
+     * @return the out degree
+     */
+    public int getOutDegree(int index) {
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    /**
+     * Returns the number of entries in the in row of the given node index.
+     * For undirected networks this is the same as
+     * {@link #getOutDegree(int)}.
+     *
+     * @param index a node index
+     * @return the in degree
+     */
+    public int getInDegree(int index) {
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    /**
+     * Returns the row offsets of the out adjacency. The out row of node i is
+     * the range [offsets[i], offsets[i + 1]) of {@link #getOutTargets()} and
+     * {@link #getOutLinkIndexes()}. The returned array is the internal
+     * storage of this network and must not be modified.
+     *
+     * @return an array with {@link #getNodeCount()} + 1 offsets
+     */
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    /**
+     * Returns the node indexes of the out adjacency, sorted within each row.
+     * The returned array is the internal storage of this network and must not
+     * be modified.
+     *
+     * @return the targets of each out row
+     */
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    /**
+     * Returns the link indexes of the out adjacency, aligned with
+     * {@link #getOutTargets()}. The returned array is the internal storage of
+     * this network and must not be modified.
+     *
+     * @return the links of each out row
+     */
+    public int[] getOutLinkIndexes() {
+        return outLinks;
+    }
+
+    /**
+     * Returns the row offsets of the in adjacency. For undirected networks
+     * this is the same array as {@link #getOutOffsets()}.
+     *
+     * @return an array with {@link #getNodeCount()} + 1 offsets
+     */
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    /**
+     * Returns the node indexes of the in adjacency, sorted within each row.
+     * For undirected networks this is the same array as
+     * {@link #getOutTargets()}.
+     *
+     * @return the sources of each in row
+     */
+    public int[] getInTargets() {
+        return inTargets;
+    }
+
+    /**
+     * Returns the link indexes of the in adjacency, aligned with
+     * {@link #getInTargets()}. For undirected networks this is the same array
+     * as {@link #getOutLinkIndexes()}.
+     *
+     * @return the links of each in row
+     */
+    public int[] getInLinkIndexes() {
+        return inLinks;
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public Link addLink(Node node1, Node node2) {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public boolean addLink(Link link) {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public boolean removeLink(Link link) {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public Node createNode() {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public Link createLink(Node from, Node to) {
+        throw new UnsupportedOperationException("CsrNetwork is read-only");
+    }
+
+    @Override
+    public Node getNode(int id) {
+        int index = getNodeIndex(id);
+        return index < 0 ? null : nodes[index];
+    }
+
+    @Override
+    public Link getLink(int id) {
+        int index = getLinkIndex(id);
+        return index < 0 ? null : links[index];
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node1, Node node2) {
+        int i = getNodeIndex(node1);
+        int j = getNodeIndex(node2);
+        if (i < 0 || j < 0) {
+            return Collections.<Link>emptySet();
+        }
+        int from = lowerBound(outTargets, outOffsets[i], outOffsets[i + 1], j);
+        int to = lowerBound(outTargets, from, outOffsets[i + 1], j + 1);
+        return new LinkRow(outTargets, outLinks, from, to);
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Link>emptySet();
+        }
+        if (!directed) {
+            return new LinkRow(outTargets, outLinks, outOffsets[i], outOffsets[i + 1]);
+        }
+        return new LinkRow(outTargets, outLinks, outOffsets[i], outOffsets[i + 1],
+                inTargets, inLinks, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    @Override
+    public Collection<? extends Link> getOutLinks(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Link>emptySet();
+        }
+        return new LinkRow(outTargets, outLinks, outOffsets[i], outOffsets[i + 1]);
+    }
+
+    @Override
+    public Collection<? extends Link> getInLinks(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Link>emptySet();
+        }
+        return new LinkRow(inTargets, inLinks, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    @Override
+    public Collection<? extends Node> getSuccessors(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Node>emptySet();
+        }
+        return new NodeRow(outTargets, outLinks, outOffsets[i], outOffsets[i + 1]);
+    }
+
+    @Override
+    public Collection<? extends Node> getPredecessors(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Node>emptySet();
+        }
+        return new NodeRow(inTargets, inLinks, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    @Override
+    public Collection<? extends Node> getNeighbours(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Node>emptySet();
+        }
+        if (!directed) {
+            return new NodeRow(outTargets, outLinks, outOffsets[i], outOffsets[i + 1]);
+        }
+        return new NodeRow(outTargets, outLinks, outOffsets[i], outOffsets[i + 1],
+                inTargets, inLinks, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    @Override
+    public Collection<? extends Node> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks() {
+        return Collections.unmodifiableList(Arrays.asList(links));
+    }
+
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return getNodes();
+    }
+
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return getLinks();
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0 && visitNodes(outTargets, outOffsets[i], outOffsets[i + 1], visitor)
+                && directed) {
+            visitNodes(inTargets, inOffsets[i], inOffsets[i + 1], visitor);
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0) {
+            visitNodes(outTargets, outOffsets[i], outOffsets[i + 1], visitor);
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0) {
+            visitNodes(inTargets, inOffsets[i], inOffsets[i + 1], visitor);
+        }
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0 && visitLinks(outLinks, outOffsets[i], outOffsets[i + 1], visitor)
+                && directed) {
+            visitLinks(inLinks, inOffsets[i], inOffsets[i + 1], visitor);
+        }
+    }
+
+    private boolean visitNodes(int[] targets, int from, int to,
+            NodeVisitor visitor) {
+        for (int k = from; k < to; k++) {
+            if (!visitor.visit(nodes[targets[k]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visitLinks(int[] linkIndexes, int from, int to,
+            LinkVisitor visitor) {
+        for (int k = from; k < to; k++) {
+            if (!visitor.visit(links[linkIndexes[k]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new RowCursor();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    @Override
+    public int getLinkCount() {
+        return links.length;
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return getNodeIndex(node) >= 0;
+    }
+
+    @Override
+    public boolean containsLink(Link link) {
+        return getLinkIndex(link) >= 0;
+    }
+
+    @Override
+    public boolean containsLinks(Node node1, Node node2) {
+        int i = getNodeIndex(node1);
+        int j = getNodeIndex(node2);
+        if (i < 0 || j < 0) {
+            return false;
+        }
+        return containsTarget(i, j);
+    }
+
+    private boolean containsTarget(int i, int j) {
+        int to = outOffsets[i + 1];
+        int k = lowerBound(outTargets, outOffsets[i], to, j);
+        return k < to && outTargets[k] == j;
+    }
+
+    /**
+     * This network is immutable so the copy is the network itself.
+     *
+     * @return this network
+     */
+    @Override
+    public CsrNetwork getCopy() {
+        return this;
+    }
+
+    /**
+     * Cursor over one or two adjacency rows
+     */
+    private final class RowCursor implements NeighbourCursor {
+
+        private int[] targets;
+        private int[] linkIndexes;
+        private int position;
+        private int end;
+        // second row, only used for the in links of directed networks
+        private int nextFrom;
+        private int nextTo;
+
+        private void reset(Node node, boolean out, boolean in) {
+            int i = getNodeIndex(node);
+            position = -1;
+            end = 0;
+            nextFrom = nextTo = 0;
+            if (i < 0) {
+                return;
+            }
+            if (out || !directed) {
+                targets = outTargets;
+                linkIndexes = outLinks;
+                position = outOffsets[i] - 1;
+                end = outOffsets[i + 1];
+                if (in && directed) {
+                    nextFrom = inOffsets[i];
+                    nextTo = inOffsets[i + 1];
+                }
+            } else {
+                targets = inTargets;
+                linkIndexes = inLinks;
+                position = inOffsets[i] - 1;
+                end = inOffsets[i + 1];
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            reset(node, true, true);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            reset(node, true, false);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            reset(node, false, true);
+        }
+
+        @Override
+        public boolean next() {
+            position++;
+            if (position >= end && nextFrom < nextTo) {
+                targets = inTargets;
+                linkIndexes = inLinks;
+                position = nextFrom;
+                end = nextTo;
+                nextFrom = nextTo = 0;
+            }
+            return position < end;
+        }
+
+        @Override
+        public Node node() {
+            return nodes[targets[position]];
+        }
+
+        @Override
+        public Link link() {
+            return links[linkIndexes[position]];
+        }
+    }
+
+    /**
+     * Read-only collection over one or two adjacency rows. Rows are merged by
+     * (neighbour, link) and repeated elements are skipped, which is what
+     * removes the duplicates of a set without building one.
+     */
+    private abstract class Row<E> extends AbstractCollection<E> {
+
+        private final int[] targetsA;
+        private final int[] linksA;
+        private final int fromA;
+        private final int toA;
+        private final int[] targetsB;
+        private final int[] linksB;
+        private final int fromB;
+        private final int toB;
+        // if false, elements with the same neighbour are repeated
+        private final boolean byLink;
+
+        Row(boolean byLink, int[] targetsA, int[] linksA, int fromA, int toA,
+                int[] targetsB, int[] linksB, int fromB, int toB) {
+            this.byLink = byLink;
+            this.targetsA = targetsA;
+            this.linksA = linksA;
+            this.fromA = fromA;
+            this.toA = toA;
+            this.targetsB = targetsB;
+            this.linksB = linksB;
+            this.fromB = fromB;
+            this.toB = toB;
+        }
+
+        abstract E element(int target, int link);
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int i = fromA;
+                private int j = fromB;
+                private int lastTarget = -1;
+                private int lastLink = -1;
+                private boolean ready = false;
+
+                @Override
+                public boolean hasNext() {
+                    if (!ready) {
+                        ready = advance();
+                    }
+                    return ready;
+                }
+
+                private boolean advance() {
+                    while (i < toA || j < toB) {
+                        int target, link;
+                        if (j >= toB || (i < toA && (targetsA[i] < targetsB[j]
+                                || (targetsA[i] == targetsB[j] && linksA[i] <= linksB[j])))) {
+                            target = targetsA[i];
+                            link = linksA[i];
+                            i++;
+                        } else {
+                            target = targetsB[j];
+                            link = linksB[j];
+                            j++;
+                        }
+                        if (target == lastTarget && (!byLink || link == lastLink)) {
+                            continue;
+                        }
+                        lastTarget = target;
+                        lastLink = link;
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ready = false;
+                    return element(lastTarget, lastLink);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("CsrNetwork is read-only");
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Iterator<E> it = iterator(); it.hasNext(); it.next()) {
+                size++;
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return fromA >= toA && fromB >= toB;
+        }
+    }
+
+    private final class NodeRow extends Row<Node> {
+
+        NodeRow(int[] targets, int[] links, int from, int to) {
+            super(false, targets, links, from, to, targets, links, 0, 0);
+        }
+
+        NodeRow(int[] targetsA, int[] linksA, int fromA, int toA,
+                int[] targetsB, int[] linksB, int fromB, int toB) {
+            super(false, targetsA, linksA, fromA, toA, targetsB, linksB, fromB, toB);
+        }
+
+        @Override
+        Node element(int target, int link) {
+            return nodes[target];
+        }
+    }
+
+    private final class LinkRow extends Row<Link> {
+
+        LinkRow(int[] targets, int[] links, int from, int to) {
+            super(true, targets, links, from, to, targets, links, 0, 0);
+        }
+
+        LinkRow(int[] targetsA, int[] linksA, int fromA, int toA,
+                int[] targetsB, int[] linksB, int fromB, int toB) {
+            super(true, targetsA, linksA, fromA, toA, targetsB, linksB, fromB, toB);
+        }
+
+        @Override
+        Link element(int target, int link) {
+            return links[link];
+        }
+    }
+}
@@ -25,15 +25,18 @@ package org.bhave.network.impl.fast;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Objects;
 import java.util.Set;
 import org.bhave.network.api.DirectedNetwork;
 import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
 import org.bhave.network.api.Network;
 import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
 import org.bhave.network.api.UndirectedNetwork;
 
 /**
@@ -53,7 +56,11 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
     ArrayList<Node> nodes;
     // store links
     ArrayList<Link> links;
-    HashMap<NodePairKey, Set<Link>> nodePairI;
+    // map node id pair to the links between them
+    LinkPairMap nodePairI;
+    // number of nodes and links the hash indexes were sized for
+    private int nodeCapacity;
+    private int linkCapacity;
 
     // constructors
     public FastNetwork() {
@@ -97,18 +104,31 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
     }
 
     public FastNetwork(boolean directed) {
+        this(directed, 0, 0);
+    }
+
+    /**
+     * Creates an empty network with room for the given number of nodes and
+     * links, avoiding the growth of its indexes while the network is built.
+     *
+     * @param directed true if the network is directed
+     * @param expectedNodes the number of nodes expected
+     * @param expectedLinks the number of links expected
+     */
+    public FastNetwork(boolean directed, int expectedNodes, int expectedLinks) {
         this.directed = directed;
-        nodes = new ArrayList<>();
-        links = new ArrayList<>();
-        nodeI = new HashMap<>();
-        linkI = new HashMap<>();
-        nodePairI = new HashMap<>();
+        nodes = new ArrayList<>(expectedNodes);
+        links = new ArrayList<>(expectedLinks);
+        nodeI = new HashMap<>(hashCapacity(expectedNodes));
+        linkI = new HashMap<>(hashCapacity(expectedLinks));
+        nodePairI = new LinkPairMap(expectedLinks);
+        nodeCapacity = expectedNodes;
+        linkCapacity = expectedLinks;
     }
 
     public FastNetwork(FastNetwork other) {
-        this();
+        this(other.directed, other.getNodeCount(), other.getLinkCount());
         other.copyTo(this);
-        this.directed = other.directed;
     }
 
     /**
@@ -122,6 +142,60 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
         return network;
     }
 
+    /**
+     * Makes sure the network can hold the given number of nodes and links
+     * without growing its indexes. Call this before adding a large number of
+     * nodes or links to an existing network.
+     *
+     * @param expectedNodes the total number of nodes expected
+     * @param expectedLinks the total number of links expected
+     */
+    public void ensureCapacity(int expectedNodes, int expectedLinks) {
+        nodes.ensureCapacity(expectedNodes);
+        links.ensureCapacity(expectedLinks);
+        if (expectedNodes > nodeCapacity) {
+            nodeI = resize(nodeI, expectedNodes);
+            nodeCapacity = expectedNodes;
+        }
+        if (expectedLinks > linkCapacity) {
+            linkI = resize(linkI, expectedLinks);
+            nodePairI.ensureCapacity(expectedLinks);
+            linkCapacity = expectedLinks;
+        }
+    }
+
+    private static <K, V> HashMap<K, V> resize(HashMap<K, V> map, int size) {
+        HashMap<K, V> resized = new HashMap<>(hashCapacity(size));
+        resized.putAll(map);
+        return resized;
+    }
+
+    private static int hashCapacity(int size) {
+        return Math.max(16, (int) (size / 0.75f) + 1);
+    }
+
+    /**
+     * Returns true if the links in this network are treated as directed
+     *
+     * @return true if directed, false if undirected
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns an immutable {@link CsrNetwork} snapshot of the current state of
+     * this network. The snapshot shares the node and link objects with this
+     * network but not its structure, later changes to this network are not
+     * reflected in the snapshot.
+     *
+     * @return a compact read-only copy of this network
+     */
+    public CsrNetwork freeze() {
+        return new CsrNetwork(directed, nodes.toArray(new Node[nodes.size()]),
+                links.toArray(new Link[links.size()]));
+    }
+
     /**
      * Adds a link to the network. If the nodes are not yet present in the
      * network they are added automatically
@@ -185,26 +259,81 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
         return true;
     }
 
-    private void addNodePairEntry(Link link) {
-        NodePairKey k = new NodePairKey(link.from(), link.to());
+    /**
+     * Loads nodes and links into an empty network. The node and link indexes
+     * are presized and each link list is allocated once with its final size,
+     * which is much faster than adding the links one at a time.
+     *
+     * @param newNodes the nodes to be added
+     * @param newLinks the links to be added
+     * @param src the index in newNodes of the node at the start of each link
+     * @param dst the index in newNodes of the node at the end of each link
+     *
+     * @see NetworkBuilder
+     */
+    void load(Node[] newNodes, Link[] newLinks, int[] src, int[] dst) {
+        if (!nodes.isEmpty()) {
+            throw new IllegalStateException("Can only load into an empty network");
+        }
+        int n = newNodes.length;
+        int m = newLinks.length;
 
-        Set<Link> linkset;
-        if (!nodePairI.containsKey(k)) {
-            linkset = new HashSet<>();
-            nodePairI.put(k, linkset);
-        } else {
-            linkset = nodePairI.get(k);
+        // count the links of each node so the lists are allocated once
+        int[] outCount = new int[n];
+        int[] inCount = directed ? new int[n] : outCount;
+        for (int i = 0; i < m; i++) {
+            outCount[src[i]]++;
+            inCount[dst[i]]++;
+        }
+
+        ensureCapacity(n, m);
+
+        NodeIndex[] indexes = new NodeIndex[n];
+        for (int i = 0; i < n; i++) {
+            Node node = newNodes[i];
+            node.setNetwork(this);
+            nodes.add(node);
+
+            ArrayList<Link> inLinks = inCount[i] == 0 ? null : new ArrayList<Link>(inCount[i]);
+            ArrayList<Link> outLinks = directed
+                    ? (outCount[i] == 0 ? null : new ArrayList<Link>(outCount[i]))
+                    : inLinks;
+            indexes[i] = new NodeIndex(i, inLinks, outLinks);
+            nodeI.put(node, indexes[i]);
+        }
+
+        for (int i = 0; i < m; i++) {
+            Link link = newLinks[i];
+            link.setNetwork(this);
+            links.add(link);
+
+            ArrayList<Link> outLinks = indexes[src[i]].outLinks;
+            outLinks.add(link);
+            int linkFromIndex = outLinks.size() - 1;
+            ArrayList<Link> inLinks = indexes[dst[i]].inLinks;
+            inLinks.add(link);
+            int linkToIndex = inLinks.size() - 1;
+
+            linkI.put(link, new LinkIndex(i, linkFromIndex, linkToIndex));
+            addNodePairEntry(link);
         }
-        linkset.add(link);
+    }
+
+    private void addNodePairEntry(Link link) {
+        nodePairI.add(pairKey(link.from(), link.to()), link);
     }
 
     private void removeLinkFromNodePairI(Link link) {
-        NodePairKey k = new NodePairKey(link.from(), link.to());
-        Set<Link> linkset = nodePairI.get(k);
-        linkset.remove(link);
-        if (linkset.isEmpty()) {
-            nodePairI.remove(k);
-        }
+        nodePairI.remove(pairKey(link.from(), link.to()), link);
+    }
+
+    /**
+     * Returns the node pair index key for the given nodes, the order of the
+     * nodes only matters for directed networks
+     */
+    private long pairKey(Node from, Node to) {
+        return directed ? LinkPairMap.key(from.getID(), to.getID())
+                : LinkPairMap.unorderedKey(from.getID(), to.getID());
     }
 
     /**
@@ -257,14 +386,13 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
 
     @Override
     public boolean removeNode(Node node) {
-        //get neighbours to delete the node to link index
-        for (Node neighbour : getNeighbours(node)) {
-            NodePairKey k = new NodePairKey(node, neighbour);
-            nodePairI.remove(k);
-        }
-
         //remove node from nodeList
         if (containsNode(node)) {
+            //delete the links of the node from the node pair index
+            for (Link link : getLinks(node)) {
+                removeLinkFromNodePairI(link);
+            }
+
             //remove node from nodes list
             removeNodeU(node);
 
@@ -278,23 +406,21 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
                 if (nodeIndex.outLinks != null) {
                     //remove all the links in the out link list first
                     for (Link link : nodeIndex.outLinks) {
-                        //remove from links
-                        LinkIndex li = linkI.get(link);
-                        removeLinkU(link);
-                        //mark for removal remove the link index
-                        linksToRemove.add(link);
-
+                        //mark for removal remove the link index, self loops
+                        //are listed twice but removed once from links
+                        if (linksToRemove.add(link)) {
+                            removeLinkU(link);
+                        }
                     }
                 }
             }
-            if (nodeIndex.outLinks != null) //remove all the links from the in link list
+            if (nodeIndex.inLinks != null) //remove all the links from the in link list
             {
                 for (Link link : nodeIndex.inLinks) {
-                    //remove from links
-                    LinkIndex li = linkI.get(link);
-                    removeLinkU(link);
-                    //remove the link index
-                    linksToRemove.add(link);
+                    //remove the link index and remove from links
+                    if (linksToRemove.add(link)) {
+                        removeLinkU(link);
+                    }
                 }
             }
             for (Link linkToRemove : linksToRemove) {
@@ -343,42 +469,12 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
             }
         } else {
             //not directed, delete link from both inLinks
-
-            //DELETE FROM THE FIRST NODE INDEX (FROM)
             if (fromNode.inLinks != null) {
-                //remove from out outLinks List
-                if (index.fromIndex < fromNode.inLinks.size() - 1) {
-                    //swap with the last 
-                    Link last = fromNode.inLinks.get(fromNode.inLinks.size() - 1);
-                    fromNode.inLinks.set(index.fromIndex, last);
-                    LinkIndex lastLink = linkI.get(last);
-
-                    if (last.from().equals(link.from())) {
-                        lastLink.fromIndex = index.fromIndex;
-                    } else {
-                        lastLink.toIndex = index.fromIndex;
-                    }
-                }
-                fromNode.inLinks.remove(fromNode.inLinks.size() - 1);
+                deleteFromUndirectedList(link.from(), fromNode.inLinks, index.fromIndex);
             }
-
-            //DELETE FROM THE SECOND NODE IDNEX (TO)
+            // read the index again, a self loop may have been swapped
             if (toNode.inLinks != null) {
-                //remove from out outLinks List
-                if (index.toIndex < toNode.inLinks.size() - 1) {
-                    //swap with the last 
-                    Link last = toNode.inLinks.get(toNode.inLinks.size() - 1);
-                    toNode.inLinks.set(index.toIndex, last);
-
-                    LinkIndex lastLink = linkI.get(last);
-
-                    if (last.to().equals(link.to())) {
-                        lastLink.toIndex = index.toIndex;
-                    } else {
-                        lastLink.fromIndex = index.toIndex;
-                    }
-                }
-                toNode.inLinks.remove(toNode.inLinks.size() - 1);
+                deleteFromUndirectedList(link.to(), toNode.inLinks, index.toIndex);
             }
         }
 
@@ -387,6 +483,26 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
 
     }
 
+    /**
+     * Removes the link at the given position of the links of an undirected
+     * node, moving the last link to its place. A self loop is twice in the
+     * list of its node, the end moved is the one that was at the last position.
+     */
+    private void deleteFromUndirectedList(Node node, ArrayList<Link> nodeLinks, int position) {
+        int lastPosition = nodeLinks.size() - 1;
+        if (position < lastPosition) {
+            Link last = nodeLinks.get(lastPosition);
+            nodeLinks.set(position, last);
+            LinkIndex lastLink = linkI.get(last);
+            if (last.from().equals(node) && lastLink.fromIndex == lastPosition) {
+                lastLink.fromIndex = position;
+            } else {
+                lastLink.toIndex = position;
+            }
+        }
+        nodeLinks.remove(lastPosition);
+    }
+
     /**
      * Removes a given link from the existing node indexes
      */
@@ -459,11 +575,11 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
 
     @Override
     public Collection<? extends Link> getLinks(Node node1, Node node2) {
-        NodePairKey k = new NodePairKey(node1, node2);
-        if (nodePairI.containsKey(k)) {
-            return new HashSet<>(nodePairI.get(k));
+        Set<Link> result = new HashSet<>();
+        if (node1 != null && node2 != null) {
+            nodePairI.get(pairKey(node1, node2), result);
         }
-        return new HashSet<>();
+        return result;
     }
 
     @Override
@@ -590,6 +706,169 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
         return new ArrayList<>(links);
     }
 
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return Collections.unmodifiableList(links);
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        if (containsNode(node)) {
+            NodeIndex index = nodeI.get(node);
+            if (directed) {
+                if (visitOthers(node, index.outLinks, visitor)) {
+                    visitOthers(node, index.inLinks, visitor);
+                }
+            } else {
+                visitOthers(node, index.inLinks, visitor);
+            }
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        if (containsNode(node)) {
+            NodeIndex index = nodeI.get(node);
+            visitOthers(node, directed ? index.outLinks : index.inLinks, visitor);
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        if (containsNode(node)) {
+            visitOthers(node, nodeI.get(node).inLinks, visitor);
+        }
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        if (containsNode(node)) {
+            NodeIndex index = nodeI.get(node);
+            if (directed && !visitLinks(index.outLinks, visitor)) {
+                return;
+            }
+            visitLinks(index.inLinks, visitor);
+        }
+    }
+
+    /**
+     * Visits the node at the other end of each link in the given list,
+     * returns false if the visitor asked to stop.
+     */
+    private static boolean visitOthers(Node node, ArrayList<Link> linkList,
+            NodeVisitor visitor) {
+        if (linkList != null) {
+            for (int i = 0; i < linkList.size(); i++) {
+                Link link = linkList.get(i);
+                Node other = link.to().equals(node) ? link.from() : link.to();
+                if (!visitor.visit(other)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits each link in the given list, returns false if the visitor asked
+     * to stop.
+     */
+    private static boolean visitLinks(ArrayList<Link> linkList,
+            LinkVisitor visitor) {
+        if (linkList != null) {
+            for (int i = 0; i < linkList.size(); i++) {
+                if (!visitor.visit(linkList.get(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new LinkListCursor();
+    }
+
+    /**
+     * Cursor over the in and out link lists of the node indexes
+     */
+    private class LinkListCursor implements NeighbourCursor {
+
+        private Node origin;
+        private ArrayList<Link> first;
+        private ArrayList<Link> second;
+        private int position;
+        private Link current;
+
+        private void reset(Node node, boolean out, boolean in) {
+            origin = node;
+            first = null;
+            second = null;
+            position = -1;
+            current = null;
+            if (containsNode(node)) {
+                NodeIndex index = nodeI.get(node);
+                if (!directed) {
+                    first = index.inLinks;
+                } else {
+                    first = out ? index.outLinks : index.inLinks;
+                    second = (out && in) ? index.inLinks : null;
+                }
+                if (first == null) {
+                    first = second;
+                    second = null;
+                }
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            reset(node, true, true);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            reset(node, true, false);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            reset(node, false, true);
+        }
+
+        @Override
+        public boolean next() {
+            position++;
+            while (first != null && position >= first.size()) {
+                position -= first.size();
+                first = second;
+                second = null;
+            }
+            if (first == null) {
+                current = null;
+                return false;
+            }
+            current = first.get(position);
+            return true;
+        }
+
+        @Override
+        public Node node() {
+            return current.to().equals(origin) ? current.from() : current.to();
+        }
+
+        @Override
+        public Link link() {
+            return current;
+        }
+    }
+
     @Override
     public int getNodeCount() {
         return nodes.size();
@@ -612,8 +891,8 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
 
     @Override
     public boolean containsLinks(Node node1, Node node2) {
-        NodePairKey k = new NodePairKey(node1, node2);
-        return nodePairI.containsKey(k);
+        return node1 != null && node2 != null
+                && nodePairI.containsKey(pairKey(node1, node2));
     }
 
     /**
@@ -666,13 +945,11 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
      * @param newNetwork the new network instance
      */
     private FastNetwork copyTo(FastNetwork newNetwork) {
-        newNetwork.nodes = new ArrayList<>(nodes.size());
         // copy nodes
         for (Node node : nodes) {
             Node nodeCopy = node.getCopy();
             newNetwork.addNode(nodeCopy);
         }
-        newNetwork.links = new ArrayList<>(links.size());
 
         int numNodes = nodes.size();
 
@@ -693,8 +970,9 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
             NodeIndex indexCopy = new NodeIndex(nodeIndex, inLinkCopy,
                     outLinkCopy);
 
-            // copy the index to the new network
-            newNetwork.nodeI.put(nodes.get(i), indexCopy);
+            // copy the index to the new network, the values are not in the
+            // order of the nodes
+            newNetwork.nodeI.put(nodes.get(nodeIndex), indexCopy);
             nodeIArray[i] = oldIndex;
         }
 
@@ -715,41 +993,4 @@ public class FastNetwork implements DirectedNetwork, UndirectedNetwork {
         }
         return newNetwork;
     }
-
-    private static class NodePairKey {
-
-        private Node from;
-        private Node to;
-
-        public NodePairKey(Node from, Node to) {
-            this.from = from;
-            this.to = to;
-        }
-
-        @Override
-        public int hashCode() {
-            int hash = 5;
-            int hash1 = 29 * hash + Objects.hashCode(this.from);
-
-            int hash2 = 29 * hash + Objects.hashCode(this.to);
-
-            return hash1 * hash2;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            final NodePairKey other = (NodePairKey) obj;
-            if ((Objects.equals(this.from, other.from) && Objects.equals(this.to, other.to))
-                    || (Objects.equals(this.from, other.to) && Objects.equals(this.to, other.from))) {
-                return true;
-            }
-            return false;
-        }
-    }
 }
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.fast;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.bhave.network.api.Link;
+
+/**
+ * Index from pairs of node ids to the links between them. Each pair of ids
+ * is packed in a <code>long</code> key (see {@link #key(int, int)}) and the
+ * keys are kept in an open addressing table with linear probing, so lookups
+ * do not allocate. A pair with a single link stores the link directly, a set
+ * is only created when a second link is added between the same nodes.
+ *
+ * @author Davide Nunes
+ */
+final class LinkPairMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // the table is kept at most half full
+    private static final int MAX_SIZE = MAX_CAPACITY / 2;
+    private long[] keys;
+    // a Link, a Set of links or null if the slot is free
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    LinkPairMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a map with room for the given number of node pairs
+     *
+     * @param expectedSize the number of node pairs expected
+     */
+    LinkPairMap(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity / 2 < expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Packs an ordered pair of node ids in a key
+     *
+     * @param first the id of the first node
+     * @param second the id of the second node
+     * @return a key for the pair
+     */
+    static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Packs an unordered pair of node ids in a key, the same key is returned
+     * for both orders.
+     *
+     * @param first the id of one node
+     * @param second the id of the other node
+     * @return a key for the pair
+     */
+    static long unorderedKey(int first, int second) {
+        return first <= second ? key(first, second) : key(second, first);
+    }
+
+    /**
+     * Grows the table so it can take the given number of node pairs without
+     * resizing
+     *
+     * @param expectedSize the number of node pairs expected
+     */
+    void ensureCapacity(int expectedSize) {
+        int capacity = mask + 1;
+        while (capacity / 2 < expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        if (capacity > mask + 1) {
+            resize(capacity);
+        }
+    }
+
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private int find(long key) {
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of node pairs with links between them
+     */
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns the number of links stored for the given key
+     */
+    int count(long key) {
+        int i = find(key);
+        if (i < 0) {
+            return 0;
+        }
+        return values[i] instanceof Link ? 1 : ((Set<?>) values[i]).size();
+    }
+
+    /**
+     * Adds the links stored for the given key to a collection
+     *
+     * @param key a node pair key
+     * @param result the collection where the links are added
+     */
+    @SuppressWarnings("unchecked")
+    void get(long key, Collection<? super Link> result) {
+        int i = find(key);
+        if (i >= 0) {
+            if (values[i] instanceof Link) {
+                result.add((Link) values[i]);
+            } else {
+                result.addAll((Set<Link>) values[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(long key, Link link) {
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                Object value = values[i];
+                if (value instanceof Link) {
+                    if (!value.equals(link)) {
+                        Set<Link> links = new HashSet<>(4);
+                        links.add((Link) value);
+                        links.add(link);
+                        values[i] = links;
+                    }
+                } else {
+                    ((Set<Link>) value).add(link);
+                }
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == MAX_SIZE) {
+            throw new IllegalStateException("LinkPairMap can't hold more than " + MAX_SIZE + " node pairs");
+        }
+        keys[i] = key;
+        values[i] = link;
+        if (++size > (mask + 1) / 2) {
+            resize(2 * (mask + 1));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void remove(long key, Link link) {
+        int i = find(key);
+        if (i < 0) {
+            return;
+        }
+        Object value = values[i];
+        if (value instanceof Link) {
+            if (value.equals(link)) {
+                delete(i);
+            }
+        } else {
+            Set<Link> links = (Set<Link>) value;
+            links.remove(link);
+            if (links.size() == 1) {
+                values[i] = links.iterator().next();
+            } else if (links.isEmpty()) {
+                delete(i);
+            }
+        }
+    }
+
+    /**
+     * Removes all the links stored for the given key
+     */
+    void removeAll(long key) {
+        int i = find(key);
+        if (i >= 0) {
+            delete(i);
+        }
+    }
+
+    /**
+     * Frees a slot, moving back the entries that follow it so that no
+     * lookup stops early at the free slot.
+     */
+    private void delete(int i) {
+        size--;
+        int free = i;
+        int j = (i + 1) & mask;
+        while (values[j] != null) {
+            int home = slot(keys[j]);
+            // move the entry if its home slot is not in (free, j]
+            if (((j - home) & mask) >= ((j - free) & mask)) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+            j = (j + 1) & mask;
+        }
+        values[free] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
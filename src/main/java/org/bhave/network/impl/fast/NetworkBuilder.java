@@ -0,0 +1,315 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.fast;
+
+import java.util.Arrays;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+
+/**
+ * <p> Collects the structure of a network as node indexes and arrays of links
+ * and builds the network in a single pass. Nodes are identified by their
+ * index, from 0 to {@link #getNodeCount()} - 1, and links by the indexes of
+ * the nodes they connect. </p>
+ *
+ * <p> Building a {@link FastNetwork} this way presizes all its indexes and
+ * allocates each adjacency list once, which is much faster than calling
+ * {@link Network#addLink(Node, Node)} for each link. A {@link CsrNetwork} can
+ * be built directly without creating an intermediate network. </p>
+ *
+ * <p> The builder is an {@link EdgeSink}, so network models can generate
+ * their networks into it. </p>
+ *
+ * <pre>
+ * NetworkBuilder builder = new NetworkBuilder();
+ * builder.addNodes(3);
+ * builder.addLink(0, 1);
+ * builder.addLink(1, 2, 0.5);
+ * FastNetwork network = builder.buildFastNetwork(false);
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class NetworkBuilder implements EdgeSink {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private int nodeCount;
+    private int linkCount;
+    private int[] src;
+    private int[] dst;
+    // null until a link is added with a value
+    private double[] values;
+
+    public NetworkBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a builder with room for the given number of links
+     *
+     * @param linkCapacity the number of links expected
+     */
+    public NetworkBuilder(int linkCapacity) {
+        if (linkCapacity < 0) {
+            throw new IllegalArgumentException("linkCapacity must be >= 0");
+        }
+        src = new int[linkCapacity];
+        dst = new int[linkCapacity];
+    }
+
+    /**
+     * Adds a number of nodes to the network being built.
+     *
+     * @param count the number of nodes to add
+     * @return the index of the first node added
+     */
+    public int addNodes(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be >= 0");
+        }
+        int first = nodeCount;
+        nodeCount += count;
+        return first;
+    }
+
+    /**
+     * Adds a link between two nodes.
+     *
+     * @param from the index of the node at the start of the link
+     * @param to the index of the node at the end of the link
+     */
+    public void addLink(int from, int to) {
+        checkNode(from);
+        checkNode(to);
+        ensureLinkCapacity(linkCount + 1);
+        src[linkCount] = from;
+        dst[linkCount] = to;
+        linkCount++;
+    }
+
+    /**
+     * Adds a link between two nodes with the given value, see
+     * {@link Link#setValue(double)}.
+     *
+     * @param from the index of the node at the start of the link
+     * @param to the index of the node at the end of the link
+     * @param value the value of the link
+     */
+    public void addLink(int from, int to, double value) {
+        addLink(from, to);
+        ensureValues();
+        values[linkCount - 1] = value;
+    }
+
+    /**
+     * Adds a number of links at once.
+     *
+     * @param from the index of the node at the start of each link
+     * @param to the index of the node at the end of each link
+     * @param linkValues the value of each link, can be null
+     * @param count the number of links to take from the arrays
+     */
+    public void addLinks(int[] from, int[] to, double[] linkValues, int count) {
+        if (count > from.length || count > to.length
+                || (linkValues != null && count > linkValues.length)) {
+            throw new IllegalArgumentException("count is larger than the given arrays");
+        }
+        for (int i = 0; i < count; i++) {
+            checkNode(from[i]);
+            checkNode(to[i]);
+        }
+        ensureLinkCapacity(linkCount + count);
+        System.arraycopy(from, 0, src, linkCount, count);
+        System.arraycopy(to, 0, dst, linkCount, count);
+        if (linkValues != null) {
+            ensureValues();
+            System.arraycopy(linkValues, 0, values, linkCount, count);
+        }
+        linkCount += count;
+    }
+
+    /**
+     * Adds a number of links at once.
+     *
+     * @param from the index of the node at the start of each link
+     * @param to the index of the node at the end of each link
+     */
+    public void addLinks(int[] from, int[] to) {
+        addLinks(from, to, null, Math.min(from.length, to.length));
+    }
+
+    /**
+     * Makes sure the builder has at least n nodes.
+     *
+     * @param n the number of nodes
+     */
+    @Override
+    public void onNodes(int n) {
+        if (n > nodeCount) {
+            addNodes(n - nodeCount);
+        }
+    }
+
+    /**
+     * Same as {@link #addLink(int, int)}.
+     */
+    @Override
+    public void accept(int from, int to) {
+        addLink(from, to);
+    }
+
+    /**
+     * Passes the links collected so far to the given sink, in the order they
+     * were added. Link values are not passed.
+     *
+     * @param sink the sink that accepts the links
+     */
+    public void forEachLink(EdgeSink sink) {
+        for (int i = 0; i < linkCount; i++) {
+            sink.accept(src[i], dst[i]);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    /**
+     * Makes sure the builder can take the given number of links without
+     * growing its arrays.
+     *
+     * @param capacity the number of links expected
+     */
+    public void ensureLinkCapacity(int capacity) {
+        if (capacity > src.length) {
+            int newCapacity = Math.max(capacity, src.length + (src.length >> 1) + 1);
+            src = Arrays.copyOf(src, newCapacity);
+            dst = Arrays.copyOf(dst, newCapacity);
+            if (values != null) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+        }
+    }
+
+    /**
+     * Adds the nodes and links collected so far to the given network. If the
+     * network is an empty {@link FastNetwork} its indexes are loaded in bulk,
+     * otherwise the nodes and links are created and added one at a time.
+     *
+     * @param network the network to be filled
+     * @return the nodes created, in index order
+     */
+    public Node[] buildInto(Network network) {
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = network.createNode();
+        }
+        if (network instanceof FastNetwork && network.getNodeCount() == 0) {
+            Link[] links = new Link[linkCount];
+            for (int i = 0; i < linkCount; i++) {
+                links[i] = createLink(network, nodes, i);
+            }
+            ((FastNetwork) network).load(nodes, links,
+                    Arrays.copyOf(src, linkCount), Arrays.copyOf(dst, linkCount));
+        } else {
+            for (Node node : nodes) {
+                network.addNode(node);
+            }
+            for (int i = 0; i < linkCount; i++) {
+                network.addLink(createLink(network, nodes, i));
+            }
+        }
+        return nodes;
+    }
+
+    private Link createLink(Network network, Node[] nodes, int i) {
+        Link link = network.createLink(nodes[src[i]], nodes[dst[i]]);
+        if (values != null) {
+            link.setValue(values[i]);
+        }
+        return link;
+    }
+
+    /**
+     * Builds a new {@link FastNetwork} with the nodes and links collected so
+     * far. Node and link ids are their indexes.
+     *
+     * @param directed true if the network is directed
+     * @return a new network
+     */
+    public FastNetwork buildFastNetwork(boolean directed) {
+        FastNetwork network = new FastNetwork(directed);
+        buildInto(network);
+        return network;
+    }
+
+    /**
+     * Builds a read-only {@link CsrNetwork} with the nodes and links collected
+     * so far, without creating an intermediate network. Node and link ids are
+     * their indexes.
+     *
+     * @param directed true if the network is directed
+     * @return a new compact network
+     */
+    public CsrNetwork buildCsrNetwork(boolean directed) {
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = new SimpleNode(i);
+        }
+        Link[] links = new Link[linkCount];
+        for (int i = 0; i < linkCount; i++) {
+            links[i] = new SimpleLink(i, nodes[src[i]], nodes[dst[i]]);
+            if (values != null) {
+                links[i].setValue(values[i]);
+            }
+        }
+        CsrNetwork network = new CsrNetwork(directed, nodes, links,
+                Arrays.copyOf(src, linkCount), Arrays.copyOf(dst, linkCount));
+        for (Node node : nodes) {
+            node.setNetwork(network);
+        }
+        for (Link link : links) {
+            link.setNetwork(network);
+        }
+        return network;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IllegalArgumentException("No node with index " + node
+                    + ", the builder has " + nodeCount + " nodes");
+        }
+    }
+
+    private void ensureValues() {
+        if (values == null) {
+            values = new double[src.length];
+        }
+    }
+}
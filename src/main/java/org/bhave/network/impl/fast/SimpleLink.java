@@ -65,6 +65,23 @@ public class SimpleLink implements Link {
         }
     }
 
+    /**
+     * Copy Constructor. Creates a copy of an existing link attached to the
+     * given nodes, used to copy links into another network.
+     *
+     * @param link a link to be copied
+     * @param from the node at the start of the copy
+     * @param to the node at the end of the copy
+     */
+    public SimpleLink(SimpleLink link, Node from, Node to) {
+        this(link.id, from, to);
+        this.value = link.value;
+
+        for (Object key : link.properties.keySet()) {
+            this.properties.put(key, link.properties.get(key));
+        }
+    }
+
     @Override
     public int getID() {
         return id;
@@ -76,6 +93,15 @@ public class SimpleLink implements Link {
 
     }
 
+    /**
+     * Returns true if any property was set on this link
+     *
+     * @return true if this link has properties
+     */
+    public boolean hasProperties() {
+        return !properties.isEmpty();
+    }
+
     @Override
     public String getProperty(String key) {
         return properties.getProperty(key);
@@ -69,6 +69,15 @@ public class SimpleNode implements Node {
 
     }
 
+    /**
+     * Returns true if any property was set on this node
+     *
+     * @return true if this node has properties
+     */
+    public boolean hasProperties() {
+        return !properties.isEmpty();
+    }
+
     @Override
     public String getProperty(String key) {
         return properties.getProperty(key);
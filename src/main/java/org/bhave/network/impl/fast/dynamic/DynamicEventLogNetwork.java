@@ -0,0 +1,584 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.fast.dynamic;
+
+import com.google.inject.Inject;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.bhave.network.api.DynamicNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.impl.primitive.PrimitiveNetwork;
+
+/**
+ * Implementation of {@link DynamicNetwork dynamic network} that records the
+ * changes made in each time instant rather than keeping a network for each
+ * of them. Adding and removing nodes and links is stored in an event log with
+ * the time instant in which it happened, so memory grows with the number of
+ * events rather than with the number of time instants.
+ *
+ * <p> Every <i>k</i> time instants the network is saved as a checkpoint, a
+ * {@link PrimitiveNetwork#fork() fork} of the last time instant. Setting the
+ * current time to an earlier time instant rebuilds its network from the
+ * closest checkpoint before it, replaying the events recorded after the
+ * checkpoint, so at most <i>k</i> time instants of events are replayed. </p>
+ *
+ * <p> Events can only be added at the end of the log: only the last time
+ * instant can be changed and the network in earlier time instants is
+ * read-only. Events record the structure of the network and the value of
+ * each link when it is added, to keep a link value set it before adding the
+ * link with {@link #addLink(Link)}. Other changes to node and link objects
+ * are not recorded. </p>
+ *
+ * @author Davide Nunes
+ */
+public class DynamicEventLogNetwork implements DynamicNetwork {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * Number of time instants between checkpoints used by default
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+    private static final byte ADD_NODE = 0;
+    private static final byte REMOVE_NODE = 1;
+    private static final byte ADD_LINK = 2;
+    private static final byte REMOVE_LINK = 3;
+    private static final int INITIAL_EVENT_CAPACITY = 1024;
+    // key of the checkpoint with the empty network
+    private static final int BEFORE_FIRST_TIME = -1;
+    private final int checkpointInterval;
+    // event log ordered by time
+    private int eventCount;
+    private int[] eventTimes;
+    private byte[] eventTypes;
+    private int[] eventIDs;
+    private int[] eventFrom;
+    private int[] eventTo;
+    private double[] eventValues;
+    // time -> network with all the events up to that time
+    private NavigableMap<Integer, Checkpoint> checkpoints;
+    private int instantsSinceCheckpoint;
+    private NavigableSet<Integer> timeInstances;
+    private int currentTime;
+    // network in the last time instant, the only one that can be changed
+    private PrimitiveNetwork last;
+    // network in the current time instant
+    private PrimitiveNetwork network;
+
+    /**
+     * Constructor
+     *
+     * Starts with a dynamic network with an initial time instant of 0 and a
+     * checkpoint every {@link #DEFAULT_CHECKPOINT_INTERVAL} time instants.
+     */
+    @Inject
+    public DynamicEventLogNetwork() {
+        this(DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Starts with a dynamic network with an initial time instant of 0 and a
+     * checkpoint every given number of time instants. Smaller intervals
+     * rebuild earlier time instants faster but keep more checkpoints.
+     *
+     * @param checkpointInterval number of time instants between checkpoints
+     */
+    public DynamicEventLogNetwork(int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive: "
+                    + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+        eventTimes = new int[INITIAL_EVENT_CAPACITY];
+        eventTypes = new byte[INITIAL_EVENT_CAPACITY];
+        eventIDs = new int[INITIAL_EVENT_CAPACITY];
+        eventFrom = new int[INITIAL_EVENT_CAPACITY];
+        eventTo = new int[INITIAL_EVENT_CAPACITY];
+        eventValues = new double[INITIAL_EVENT_CAPACITY];
+        checkpoints = new TreeMap<>();
+        checkpoints.put(BEFORE_FIRST_TIME, new Checkpoint(new PrimitiveNetwork(), 0));
+        timeInstances = new TreeSet<>();
+        timeInstances.add(0);
+        currentTime = 0;
+        last = new PrimitiveNetwork();
+        network = last;
+    }
+
+    /**
+     * Returns the number of events recorded by this network
+     *
+     * @return the number of node and link insertions and removals
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Returns the links that exist in at least one time instant between start
+     * and end, inclusive. The links are copies that do not belong to this
+     * network. A link that is removed and added again within the interval is
+     * returned once for each time it was added.
+     *
+     * @param start the first time instant of the interval
+     * @param end the last time instant of the interval
+     *
+     * @return a collection of links, empty if end < start
+     */
+    public Collection<Link> getActiveLinks(int start, int end) {
+        List<Link> result = new ArrayList<>();
+        if (end < start) {
+            return result;
+        }
+        PrimitiveNetwork replayed = networkAt(start);
+        result.addAll(replayed.getLinksView());
+        int endEvent = eventsUntil(end);
+        for (int i = eventsUntil(start); i < endEvent; i++) {
+            apply(replayed, i);
+            if (eventTypes[i] == ADD_LINK) {
+                result.add(replayed.getLink(eventIDs[i]));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        if (!lastNetwork().addNode(node)) {
+            return false;
+        }
+        record(ADD_NODE, node.getID(), 0, 0, 0);
+        return true;
+    }
+
+    @Override
+    public Link addLink(Node node1, Node node2) {
+        Link link = lastNetwork().createLink(node1, node2);
+        addLink(link);
+        return link;
+    }
+
+    @Override
+    public boolean addLink(Link link) {
+        PrimitiveNetwork target = lastNetwork();
+        if (link != null && link.from() != null && link.to() != null
+                && !target.containsLink(link.getID())) {
+            // record the nodes the link adds to the network
+            addNode(link.from());
+            addNode(link.to());
+        }
+        if (!target.addLink(link)) {
+            return false;
+        }
+        record(ADD_LINK, link.getID(), link.from().getID(), link.to().getID(),
+                link.getValue());
+        return true;
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        if (!lastNetwork().removeNode(node)) {
+            return false;
+        }
+        record(REMOVE_NODE, node.getID(), 0, 0, 0);
+        return true;
+    }
+
+    @Override
+    public boolean removeLink(Link link) {
+        if (!lastNetwork().removeLink(link)) {
+            return false;
+        }
+        record(REMOVE_LINK, link.getID(), 0, 0, 0);
+        return true;
+    }
+
+    @Override
+    public Node getNode(int id) {
+        return network.getNode(id);
+    }
+
+    @Override
+    public Link getLink(int id) {
+        return network.getLink(id);
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node1, Node node2) {
+        return network.getLinks(node1, node2);
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node) {
+        return network.getLinks(node);
+    }
+
+    @Override
+    public Collection<? extends Link> getOutLinks(Node node) {
+        return network.getOutLinks(node);
+    }
+
+    @Override
+    public Collection<? extends Link> getInLinks(Node node) {
+        return network.getInLinks(node);
+    }
+
+    @Override
+    public Collection<? extends Node> getSuccessors(Node node) {
+        return network.getSuccessors(node);
+    }
+
+    @Override
+    public Collection<? extends Node> getPredecessors(Node node) {
+        return network.getPredecessors(node);
+    }
+
+    @Override
+    public Collection<? extends Node> getNeighbours(Node node) {
+        return network.getNeighbours(node);
+    }
+
+    @Override
+    public Collection<? extends Node> getNodes() {
+        return network.getNodes();
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks() {
+        return network.getLinks();
+    }
+
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return network.getNodesView();
+    }
+
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return network.getLinksView();
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        network.forEachNeighbour(node, visitor);
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        network.forEachSuccessor(node, visitor);
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        network.forEachPredecessor(node, visitor);
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        network.forEachLink(node, visitor);
+    }
+
+    /**
+     * Creates a cursor that always works on the current time instant of this
+     * network, the time instant is checked each time the cursor is reset.
+     */
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new CurrentTimeCursor();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return network.getNodeCount();
+    }
+
+    @Override
+    public int getLinkCount() {
+        return network.getLinkCount();
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return network.containsNode(node);
+    }
+
+    @Override
+    public boolean containsLink(Link link) {
+        return network.containsLink(link);
+    }
+
+    @Override
+    public boolean containsLinks(Node node1, Node node2) {
+        return network.containsLinks(node1, node2);
+    }
+
+    /**
+     * Creates a new node with an id that is free in the last time instant
+     */
+    @Override
+    public Node createNode() {
+        return last.createNode();
+    }
+
+    /**
+     * Creates a new link with an id that is free in the last time instant
+     */
+    @Override
+    public Link createLink(Node from, Node to) {
+        return last.createLink(from, to);
+    }
+
+    /**
+     * Changes the current time instant of this dynamic network. Moving past
+     * the last time instant creates a new last time instant with the network
+     * of the previous one. Moving to an earlier time instant rebuilds its
+     * network from the event log.
+     */
+    @Override
+    public void setCurrentTime(int t) {
+        if (t < 0) {
+            return;
+        }
+        int lastTime = timeInstances.last();
+        if (t > lastTime) {
+            if (++instantsSinceCheckpoint >= checkpointInterval) {
+                checkpoints.put(lastTime, new Checkpoint(last.fork(), eventCount));
+                instantsSinceCheckpoint = 0;
+            }
+            network = last;
+        } else if (t == lastTime) {
+            network = last;
+        } else if (t != currentTime) {
+            network = networkAt(t);
+        }
+        timeInstances.add(t);
+        currentTime = t;
+    }
+
+    @Override
+    public int getCurrentTime() {
+        return currentTime;
+    }
+
+    @Override
+    public Set<? extends Integer> getTimeInstances() {
+        return timeInstances;
+    }
+
+    @Override
+    public int getLastTime() {
+        return timeInstances.last();
+    }
+
+    @Override
+    public int getFirstTime() {
+        return timeInstances.first();
+    }
+
+    /**
+     * Creates a copy of this network. The event log and the last time instant
+     * are copied, the checkpoints are never changed and are shared with the
+     * copy.
+     */
+    @Override
+    public DynamicNetwork getCopy() {
+        DynamicEventLogNetwork copy = new DynamicEventLogNetwork(checkpointInterval);
+        copy.eventCount = eventCount;
+        copy.eventTimes = eventTimes.clone();
+        copy.eventTypes = eventTypes.clone();
+        copy.eventIDs = eventIDs.clone();
+        copy.eventFrom = eventFrom.clone();
+        copy.eventTo = eventTo.clone();
+        copy.eventValues = eventValues.clone();
+        copy.checkpoints = new TreeMap<>(checkpoints);
+        copy.instantsSinceCheckpoint = instantsSinceCheckpoint;
+        copy.timeInstances = new TreeSet<>(timeInstances);
+        copy.currentTime = currentTime;
+        copy.last = last.getCopy();
+        copy.network = network == last ? copy.last : copy.networkAt(currentTime);
+        return copy;
+    }
+
+    /**
+     * Returns the network of the last time instant, fails if the current time
+     * is not the last time instant
+     */
+    private PrimitiveNetwork lastNetwork() {
+        if (network != last) {
+            throw new UnsupportedOperationException("Only the last time instant can be changed, current time: "
+                    + currentTime + ", last time: " + getLastTime());
+        }
+        return last;
+    }
+
+    /**
+     * Appends an event to the log at the current time
+     */
+    private void record(byte type, int id, int from, int to, double value) {
+        if (eventCount == eventTimes.length) {
+            int capacity = 2 * eventCount;
+            eventTimes = Arrays.copyOf(eventTimes, capacity);
+            eventTypes = Arrays.copyOf(eventTypes, capacity);
+            eventIDs = Arrays.copyOf(eventIDs, capacity);
+            eventFrom = Arrays.copyOf(eventFrom, capacity);
+            eventTo = Arrays.copyOf(eventTo, capacity);
+            eventValues = Arrays.copyOf(eventValues, capacity);
+        }
+        eventTimes[eventCount] = currentTime;
+        eventTypes[eventCount] = type;
+        eventIDs[eventCount] = id;
+        eventFrom[eventCount] = from;
+        eventTo[eventCount] = to;
+        eventValues[eventCount] = value;
+        eventCount++;
+    }
+
+    /**
+     * Returns the number of events that happened up to time t, inclusive
+     */
+    private int eventsUntil(int t) {
+        int low = 0;
+        int high = eventCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (eventTimes[middle] <= t) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Rebuilds the network of time t from the closest checkpoint before it
+     */
+    private PrimitiveNetwork networkAt(int t) {
+        Checkpoint checkpoint = checkpoints.floorEntry(Math.max(t, BEFORE_FIRST_TIME)).getValue();
+        PrimitiveNetwork result = checkpoint.network.fork();
+        int end = eventsUntil(t);
+        for (int i = checkpoint.events; i < end; i++) {
+            apply(result, i);
+        }
+        return result;
+    }
+
+    private void apply(PrimitiveNetwork target, int event) {
+        int id = eventIDs[event];
+        switch (eventTypes[event]) {
+            case ADD_NODE:
+                target.addNode(id);
+                break;
+            case REMOVE_NODE:
+                target.removeNode(id);
+                break;
+            case ADD_LINK:
+                target.addLink(id, eventFrom[event], eventTo[event]);
+                if (eventValues[event] != 0) {
+                    target.getLink(id).setValue(eventValues[event]);
+                }
+                break;
+            default:
+                target.removeLink(id);
+        }
+    }
+
+    /**
+     * Network saved with the number of events applied to it
+     */
+    private static final class Checkpoint implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        final PrimitiveNetwork network;
+        final int events;
+
+        Checkpoint(PrimitiveNetwork network, int events) {
+            this.network = network;
+            this.events = events;
+        }
+    }
+
+    /**
+     * Delegates to a cursor of the network in the current time instant
+     */
+    private class CurrentTimeCursor implements NeighbourCursor {
+
+        private Network current;
+        private NeighbourCursor cursor;
+
+        CurrentTimeCursor() {
+            update();
+        }
+
+        private void update() {
+            if (network != current) {
+                current = network;
+                cursor = network.createNeighbourCursor();
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            update();
+            cursor.reset(node);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            update();
+            cursor.resetOut(node);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            update();
+            cursor.resetIn(node);
+        }
+
+        @Override
+        public boolean next() {
+            return cursor.next();
+        }
+
+        @Override
+        public Node node() {
+            return cursor.node();
+        }
+
+        @Override
+        public Link link() {
+            return cursor.link();
+        }
+    }
+}
@@ -29,10 +29,12 @@ import java.util.Set;
 import java.util.TreeMap;
 import org.bhave.network.api.DynamicNetwork;
 import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
 import org.bhave.network.api.Network;
 import org.bhave.network.api.Node;
-import org.bhave.network.impl.fast.FastNetwork;
-import org.bhave.network.impl.fast.SimpleNode;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.impl.primitive.PrimitiveNetwork;
 
 /**
  * Implementation of {@link DynamicNetwork dynamic network}. This is a simple
@@ -40,8 +42,14 @@ import org.bhave.network.impl.fast.SimpleNode;
  * Network} objects. Each of these instances represent a moment in time in which
  * nodes or links were added.
  *
- *
- *
+ * <p> Each time instant is a {@link PrimitiveNetwork#fork() fork} of the
+ * instant before it. A new time instant shares the network structure with the
+ * previous one and only copies the parts of it that are changed, so memory
+ * grows with the changes made at each instant rather than with the size of
+ * the network. The node and link objects of the previous time instant move to
+ * the new one, so objects kept across a time change stay in the network. The
+ * previous time instant sees the objects as they were when the time changed,
+ * later changes to the objects do not reach it. </p>
  *
  * @author Davide Nunes
  *
@@ -49,7 +57,7 @@ import org.bhave.network.impl.fast.SimpleNode;
 public class DynamicFastNetwork implements DynamicNetwork {
 
     private int currentTime;
-    private NavigableMap<Integer, FastNetwork> networks; // map time instant to
+    private NavigableMap<Integer, PrimitiveNetwork> networks; // map time instant to
     // a network
 
     /**
@@ -67,22 +75,18 @@ public class DynamicFastNetwork implements DynamicNetwork {
         currentTime = 0;
 
         // initial network (moment 0)
-        FastNetwork initNetwork = new FastNetwork();
+        PrimitiveNetwork initNetwork = new PrimitiveNetwork();
         networks.put(currentTime, initNetwork);
 
     }
 
     @Override
     public boolean addNode(Node node) {
-        Network network = networks.get(currentTime);
-
-        // create a safe copy
+        PrimitiveNetwork network = networks.get(currentTime);
 
-        // we assume nodes are created by HashNetwork
-        // so we also use simple link
-        Node nodeCopy = new SimpleNode((SimpleNode) node);
-
-        return network.addNode(nodeCopy);
+        // create a safe copy, made by the network so it is not copied again
+        // when forking
+        return network.addNodeCopy(node);
     }
 
     @Override
@@ -170,6 +174,45 @@ public class DynamicFastNetwork implements DynamicNetwork {
         return network.getLinks();
     }
 
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return networks.get(currentTime).getNodesView();
+    }
+
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return networks.get(currentTime).getLinksView();
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        networks.get(currentTime).forEachNeighbour(node, visitor);
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        networks.get(currentTime).forEachSuccessor(node, visitor);
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        networks.get(currentTime).forEachPredecessor(node, visitor);
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        networks.get(currentTime).forEachLink(node, visitor);
+    }
+
+    /**
+     * Creates a cursor that always works on the current time instant of this
+     * network, the time instant is checked each time the cursor is reset.
+     */
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new CurrentTimeCursor();
+    }
+
     @Override
     public int getNodeCount() {
         return networks.get(currentTime).getNodeCount();
@@ -214,9 +257,11 @@ public class DynamicFastNetwork implements DynamicNetwork {
         if (t >= 0) {
             int previousTime = networks.floorKey(t);
             if (!networks.containsKey(t)) {
-                FastNetwork newNetwork = new FastNetwork(
-                        networks.get(previousTime));
-                networks.put(t, newNetwork);
+                // the new time instant keeps the objects handed out so far,
+                // the previous one keeps a copy of their values
+                PrimitiveNetwork previous = networks.get(previousTime);
+                networks.put(previousTime, previous.fork());
+                networks.put(t, previous);
             }
             currentTime = t;
         }
@@ -252,7 +297,7 @@ public class DynamicFastNetwork implements DynamicNetwork {
         //copy all the network instances
         for (Integer time : networks.keySet()) {
             //deep copy of the network in the current time instance
-            FastNetwork currentNetwork = this.networks.get(time).getCopy();
+            PrimitiveNetwork currentNetwork = this.networks.get(time).getCopy();
             newNetwork.networks.put(time, currentNetwork);
         }
         return newNetwork;
@@ -262,4 +307,58 @@ public class DynamicFastNetwork implements DynamicNetwork {
     public boolean addLink(Link link) {
         return networks.get(currentTime).addLink(link);
     }
+
+    /**
+     * Delegates to a cursor of the network in the current time instant
+     */
+    private class CurrentTimeCursor implements NeighbourCursor {
+
+        private Network network;
+        private NeighbourCursor cursor;
+
+        CurrentTimeCursor() {
+            update();
+        }
+
+        private void update() {
+            Network current = networks.get(currentTime);
+            if (current != network) {
+                network = current;
+                cursor = current.createNeighbourCursor();
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            update();
+            cursor.reset(node);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            update();
+            cursor.resetOut(node);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            update();
+            cursor.resetIn(node);
+        }
+
+        @Override
+        public boolean next() {
+            return cursor.next();
+        }
+
+        @Override
+        public Node node() {
+            return cursor.node();
+        }
+
+        @Override
+        public Link link() {
+            return cursor.link();
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Growable <code>int</code> array split into fixed size pages. Growing only
+ * allocates new pages, existing values are never copied, and positions in
+ * pages that were never written read as 0.
+ *
+ * <p> Pages are grouped in directories of {@link #PAGE_SIZE} pages and can be
+ * shared with copies made with {@link #fork()}. Each directory and page
+ * records the generation that owns it and one owned by another generation is
+ * copied before it is written, so a fork only costs the list of directories
+ * and each write after it copies at most one directory and one page. </p>
+ *
+ * @author Davide Nunes
+ */
+final class IntPages implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    static final int PAGE_SHIFT = 8;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+    static final int DIRECTORY_SHIFT = 2 * PAGE_SHIFT;
+    private static final AtomicInteger GENERATIONS = new AtomicInteger();
+    private Directory[] directories;
+    private int generation;
+
+    IntPages() {
+        directories = new Directory[1];
+        generation = nextGeneration();
+    }
+
+    /**
+     * Copy constructor, creates a deep copy of the given pages
+     */
+    IntPages(IntPages other) {
+        this();
+        directories = new Directory[other.directories.length];
+        for (int d = 0; d < directories.length; d++) {
+            Directory directory = other.directories[d];
+            if (directory != null) {
+                directories[d] = directory.copy(generation);
+                for (int p = 0; p < PAGE_SIZE; p++) {
+                    if (directory.pages[p] != null) {
+                        directories[d].pages[p] = directory.pages[p].clone();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new generation number, used to tell which copy owns a shared
+     * page or array
+     */
+    static int nextGeneration() {
+        return GENERATIONS.incrementAndGet();
+    }
+
+    /**
+     * Returns a copy that shares the pages with these pages. Both are given a
+     * new generation so either of them copies a shared page before writing
+     * to it.
+     *
+     * @return a copy of these pages
+     */
+    IntPages fork() {
+        IntPages copy = new IntPages();
+        copy.directories = directories.clone();
+        generation = nextGeneration();
+        return copy;
+    }
+
+    int get(int index) {
+        int d = index >>> DIRECTORY_SHIFT;
+        if (d >= directories.length || directories[d] == null) {
+            return 0;
+        }
+        int[] page = directories[d].pages[(index >>> PAGE_SHIFT) & PAGE_MASK];
+        return page == null ? 0 : page[index & PAGE_MASK];
+    }
+
+    void set(int index, int value) {
+        page(index)[index & PAGE_MASK] = value;
+    }
+
+    private int[] page(int index) {
+        int d = index >>> DIRECTORY_SHIFT;
+        if (d >= directories.length) {
+            directories = Arrays.copyOf(directories,
+                    Math.max(d + 1, 2 * directories.length));
+        }
+        Directory directory = directories[d];
+        if (directory == null) {
+            directory = new Directory(generation);
+            directories[d] = directory;
+        } else if (directory.generation != generation) {
+            directory = directory.copy(generation);
+            directories[d] = directory;
+        }
+        int p = (index >>> PAGE_SHIFT) & PAGE_MASK;
+        int[] page = directory.pages[p];
+        if (page == null) {
+            page = new int[PAGE_SIZE];
+            directory.pages[p] = page;
+            directory.owners[p] = generation;
+        } else if (directory.owners[p] != generation) {
+            page = page.clone();
+            directory.pages[p] = page;
+            directory.owners[p] = generation;
+        }
+        return page;
+    }
+
+    private static final class Directory implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        final int[][] pages;
+        // generation that owns each page
+        final int[] owners;
+        final int generation;
+
+        Directory(int generation) {
+            this(new int[PAGE_SIZE][], new int[PAGE_SIZE], generation);
+        }
+
+        private Directory(int[][] pages, int[] owners, int generation) {
+            this.pages = pages;
+            this.owners = owners;
+            this.generation = generation;
+        }
+
+        Directory copy(int generation) {
+            return new Directory(pages.clone(), owners.clone(), generation);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.primitive;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Growable array of references split into fixed size pages, the reference
+ * counterpart of {@link IntPages}. Positions in pages that were never written
+ * read as null. Pages are shared with copies made with {@link #fork()} and
+ * copied before they are written, like in {@link IntPages}, by a
+ * {@link PageCopier} if one is given.
+ *
+ * @author Davide Nunes
+ */
+final class ObjectPages<E> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private Directory[] directories;
+    private int generation;
+    private final PageCopier copier;
+
+    /**
+     * Copies a shared page before it is written. The copier may also change
+     * the shared page, which is seen by the other pages that share it.
+     */
+    interface PageCopier {
+
+        Object[] copy(Object[] shared);
+    }
+
+    ObjectPages() {
+        this((PageCopier) null);
+    }
+
+    ObjectPages(PageCopier copier) {
+        directories = new Directory[1];
+        generation = IntPages.nextGeneration();
+        this.copier = copier;
+    }
+
+    /**
+     * Copy constructor, copies the pages but not the objects in them
+     */
+    ObjectPages(ObjectPages<E> other) {
+        this(other.copier);
+        directories = new Directory[other.directories.length];
+        for (int d = 0; d < directories.length; d++) {
+            Directory directory = other.directories[d];
+            if (directory != null) {
+                directories[d] = directory.copy(generation);
+                for (int p = 0; p < IntPages.PAGE_SIZE; p++) {
+                    if (directory.pages[p] != null) {
+                        directories[d].pages[p] = directory.pages[p].clone();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy that shares the pages with these pages, see
+     * {@link IntPages#fork()}
+     *
+     * @return a copy of these pages
+     */
+    ObjectPages<E> fork() {
+        return fork(copier);
+    }
+
+    /**
+     * Returns a copy that shares the pages with these pages and copies them
+     * with the given copier
+     *
+     * @param copier the page copier of the copy
+     * @return a copy of these pages
+     */
+    ObjectPages<E> fork(PageCopier copier) {
+        ObjectPages<E> copy = new ObjectPages<>(copier);
+        copy.directories = directories.clone();
+        generation = IntPages.nextGeneration();
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        int d = index >>> IntPages.DIRECTORY_SHIFT;
+        if (d >= directories.length || directories[d] == null) {
+            return null;
+        }
+        Object[] page = directories[d].pages[(index >>> IntPages.PAGE_SHIFT) & IntPages.PAGE_MASK];
+        return page == null ? null : (E) page[index & IntPages.PAGE_MASK];
+    }
+
+    void set(int index, E value) {
+        int d = index >>> IntPages.DIRECTORY_SHIFT;
+        if (d >= directories.length) {
+            if (value == null) {
+                return;
+            }
+            directories = Arrays.copyOf(directories,
+                    Math.max(d + 1, 2 * directories.length));
+        }
+        Directory directory = directories[d];
+        if (directory == null) {
+            if (value == null) {
+                return;
+            }
+            directory = new Directory(generation);
+            directories[d] = directory;
+        } else if (directory.generation != generation) {
+            directory = directory.copy(generation);
+            directories[d] = directory;
+        }
+        int p = (index >>> IntPages.PAGE_SHIFT) & IntPages.PAGE_MASK;
+        Object[] page = directory.pages[p];
+        if (page == null) {
+            if (value == null) {
+                return;
+            }
+            page = new Object[IntPages.PAGE_SIZE];
+            directory.pages[p] = page;
+            directory.owners[p] = generation;
+        } else if (directory.owners[p] != generation) {
+            page = copy(page);
+            directory.pages[p] = page;
+            directory.owners[p] = generation;
+        }
+        page[index & IntPages.PAGE_MASK] = value;
+    }
+
+    /**
+     * Copies the page of the given index if it is shared, so the position can
+     * change without being seen by the pages that shared it
+     *
+     * @param index a position
+     */
+    void own(int index) {
+        int d = index >>> IntPages.DIRECTORY_SHIFT;
+        if (d >= directories.length || directories[d] == null) {
+            return;
+        }
+        Directory directory = directories[d];
+        int p = (index >>> IntPages.PAGE_SHIFT) & IntPages.PAGE_MASK;
+        if (directory.pages[p] == null || (directory.generation == generation
+                && directory.owners[p] == generation)) {
+            return;
+        }
+        if (directory.generation != generation) {
+            directory = directory.copy(generation);
+            directories[d] = directory;
+        }
+        directory.pages[p] = copy(directory.pages[p]);
+        directory.owners[p] = generation;
+    }
+
+    private Object[] copy(Object[] page) {
+        return copier == null ? page.clone() : copier.copy(page);
+    }
+
+    private static final class Directory implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        final Object[][] pages;
+        // generation that owns each page
+        final int[] owners;
+        final int generation;
+
+        Directory(int generation) {
+            this(new Object[IntPages.PAGE_SIZE][], new int[IntPages.PAGE_SIZE], generation);
+        }
+
+        private Directory(Object[][] pages, int[] owners, int generation) {
+            this.pages = pages;
+            this.owners = owners;
+            this.generation = generation;
+        }
+
+        Directory copy(int generation) {
+            return new Directory(pages.clone(), owners.clone(), generation);
+        }
+    }
+}
@@ -0,0 +1,1351 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.impl.primitive;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.api.UndirectedNetwork;
+import org.bhave.network.impl.fast.SimpleLink;
+import org.bhave.network.impl.fast.SimpleNode;
+
+/**
+ * <p> Implementation of {@link Network} that stores the network structure in
+ * arrays indexed by node and link ids. Each node keeps a growable
+ * <code>int</code> array with the ids of its links and each link keeps the
+ * ids of its nodes, so looking up a node or a link by id is an array access
+ * and takes no allocation. </p>
+ *
+ * <p> {@link Node} and {@link Link} objects are only created when they are
+ * requested through the {@link Network} methods. The id based methods such as
+ * {@link #addNode()}, {@link #addLink(int, int)},
+ * {@link #getNeighbours(int)} and {@link #getDegree(int)} work directly on
+ * the arrays, which keeps networks with tens of millions of links at a few
+ * tens of bytes per link. </p>
+ *
+ * <p> Ids of removed nodes and links are reused by {@link #createNode()},
+ * {@link #createLink(Node, Node)}, {@link #addNode()} and
+ * {@link #addLink(int, int)}. Node and link objects are compared by identity,
+ * so objects kept after their node or link was removed are no longer
+ * contained in the network even if their id was reused. </p>
+ *
+ * <p> {@link #fork()} creates a copy that shares the arrays with this network.
+ * Shared pages and link arrays are copied the first time either network
+ * changes them, so a fork costs little more than the nodes and links that are
+ * changed afterwards. Node and link objects are copied by the fork when they
+ * are requested. A network copies the objects it created in a shared page
+ * before the first change to one of them, so the networks that share the
+ * page keep their state. Only objects added by the caller, which can change
+ * without the network knowing, are copied when the fork is made. </p>
+ *
+ * @author Davide Nunes
+ */
+public class PrimitiveNetwork implements DirectedNetwork, UndirectedNetwork {
+
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_LINK_CAPACITY = 4;
+    private static final int[] NO_IDS = new int[0];
+    final boolean directed;
+    private int nodeCount;
+    private int linkCount;
+    private int nextNodeID;
+    private int nextLinkID;
+    // stacks of ids that can be reused
+    private IntPages freeNodeIDs;
+    private int freeNodeCount;
+    private IntPages freeLinkIDs;
+    private int freeLinkCount;
+    // node id -> node object, null until it is requested
+    private ObjectPages<Node> nodeObjects;
+    // node id -> position in nodeIDs + 1, 0 if the node does not exist
+    private IntPages nodeSlots;
+    // dense list of node ids
+    private IntPages nodeIDs;
+    // node id -> ids of the out links (all the links if undirected)
+    private ObjectPages<int[]> outLinks;
+    private IntPages outSizes;
+    // node id -> ids of the in links, only used if directed
+    private ObjectPages<int[]> inLinks;
+    private IntPages inSizes;
+    // link id -> link object, null until it is requested
+    private ObjectPages<Link> linkObjects;
+    // link id -> position in linkIDs + 1, 0 if the link does not exist
+    private IntPages linkSlots;
+    // dense list of link ids
+    private IntPages linkIDs;
+    // link id -> node ids and position of the link in their link arrays
+    private IntPages linkFrom;
+    private IntPages linkTo;
+    private IntPages fromSlots;
+    private IntPages toSlots;
+    // generation that owns the link arrays of each node, arrays owned by
+    // another generation are shared with a fork and copied before changing
+    private int generation;
+    private IntPages outOwners;
+    private IntPages inOwners;
+    // copies the pages of node and link objects shared with a fork
+    private final ObjectCopier copier = new ObjectCopier();
+    // ids of the objects added by the caller, with repetitions
+    private IntPages addedNodes;
+    private int addedNodeCount;
+    private IntPages addedLinks;
+    private int addedLinkCount;
+
+    public PrimitiveNetwork() {
+        this(false);
+    }
+
+    public PrimitiveNetwork(boolean directed) {
+        this.directed = directed;
+        freeNodeIDs = new IntPages();
+        freeLinkIDs = new IntPages();
+        nodeObjects = new ObjectPages<>(copier);
+        nodeSlots = new IntPages();
+        nodeIDs = new IntPages();
+        outLinks = new ObjectPages<>();
+        outSizes = new IntPages();
+        inLinks = new ObjectPages<>();
+        inSizes = new IntPages();
+        linkObjects = new ObjectPages<>(copier);
+        linkSlots = new IntPages();
+        linkIDs = new IntPages();
+        linkFrom = new IntPages();
+        linkTo = new IntPages();
+        fromSlots = new IntPages();
+        toSlots = new IntPages();
+        generation = IntPages.nextGeneration();
+        outOwners = new IntPages();
+        inOwners = new IntPages();
+        addedNodes = new IntPages();
+        addedLinks = new IntPages();
+    }
+
+    /**
+     * Copy constructor, creates a deep copy of the given network. The arrays
+     * and objects are shared as in {@link #fork()}.
+     *
+     * @param other the network to be copied
+     */
+    public PrimitiveNetwork(PrimitiveNetwork other) {
+        this(other.directed);
+        share(other);
+        copyAdded(other);
+    }
+
+    /**
+     * Returns a copy of this network that shares its arrays with this network
+     * until either of them changes. Only the pages and link arrays that are
+     * changed afterwards are copied, by whichever network changes them.
+     *
+     * <p> The fork copies the node and link objects of this network the first
+     * time they are requested from it, and this network copies the objects in
+     * a page before changing one of them, so later changes to the objects of
+     * this network are not visible in the fork. Objects added by the caller
+     * are copied when the fork is made. </p>
+     *
+     * @return a copy of this network
+     */
+    public PrimitiveNetwork fork() {
+        PrimitiveNetwork fork = new PrimitiveNetwork(directed);
+        fork.share(this);
+        fork.copyAdded(this);
+        return fork;
+    }
+
+    /**
+     * Replaces the objects that other got from the caller by copies, as they
+     * can change without other knowing. Ids of objects other no longer has
+     * are dropped from its list.
+     */
+    private void copyAdded(PrimitiveNetwork other) {
+        int kept = 0;
+        for (int i = 0; i < other.addedNodeCount; i++) {
+            int id = other.addedNodes.get(i);
+            Node node = nodeObjects.get(id);
+            if (node != null && node.getNetwork() == other && !other.isOwn(node)
+                    && containsNode(id)) {
+                nodeObjects.set(id, copyNode(node));
+                other.addedNodes.set(kept++, id);
+            }
+        }
+        other.addedNodeCount = kept;
+        kept = 0;
+        for (int i = 0; i < other.addedLinkCount; i++) {
+            int id = other.addedLinks.get(i);
+            Link link = linkObjects.get(id);
+            if (link != null && link.getNetwork() == other && !other.isOwn(link)
+                    && containsLink(id)) {
+                linkObjects.set(id, copyLink(link));
+                other.addedLinks.set(kept++, id);
+            }
+        }
+        other.addedLinkCount = kept;
+    }
+
+    /**
+     * Returns a copy of a node of another network attached to this network
+     */
+    private Node copyNode(Node node) {
+        Node copy;
+        if (node.getClass() == SimpleNode.class || node instanceof OwnNode) {
+            copy = new OwnNode(this, (SimpleNode) node);
+        } else {
+            copy = node.getCopy();
+            addedNodes.set(addedNodeCount++, node.getID());
+        }
+        copy.setNetwork(this);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of a link of another network attached to this network
+     */
+    private Link copyLink(Link link) {
+        Node from = nodeObject(linkFrom.get(link.getID()));
+        Node to = nodeObject(linkTo.get(link.getID()));
+        Link copy;
+        if (link.getClass() == SimpleLink.class || link instanceof OwnLink) {
+            copy = new OwnLink(this, (SimpleLink) link, from, to);
+        } else {
+            copy = link.getCopy();
+            addedLinks.set(addedLinkCount++, link.getID());
+        }
+        copy.setNetwork(this);
+        return copy;
+    }
+
+    /**
+     * Makes this network share the arrays of other
+     */
+    private void share(PrimitiveNetwork other) {
+        nodeCount = other.nodeCount;
+        linkCount = other.linkCount;
+        nextNodeID = other.nextNodeID;
+        nextLinkID = other.nextLinkID;
+        freeNodeIDs = other.freeNodeIDs.fork();
+        freeNodeCount = other.freeNodeCount;
+        freeLinkIDs = other.freeLinkIDs.fork();
+        freeLinkCount = other.freeLinkCount;
+        nodeObjects = other.nodeObjects.fork(copier);
+        nodeSlots = other.nodeSlots.fork();
+        nodeIDs = other.nodeIDs.fork();
+        outLinks = other.outLinks.fork();
+        outSizes = other.outSizes.fork();
+        inLinks = other.inLinks.fork();
+        inSizes = other.inSizes.fork();
+        linkObjects = other.linkObjects.fork(copier);
+        linkSlots = other.linkSlots.fork();
+        linkIDs = other.linkIDs.fork();
+        linkFrom = other.linkFrom.fork();
+        linkTo = other.linkTo.fork();
+        fromSlots = other.fromSlots.fork();
+        toSlots = other.toSlots.fork();
+        outOwners = other.outOwners.fork();
+        inOwners = other.inOwners.fork();
+        // the link arrays are now shared, neither network owns them
+        other.generation = IntPages.nextGeneration();
+    }
+
+    /**
+     * Returns a deep copy of this network
+     *
+     * @return a copy of this network
+     */
+    @Override
+    public PrimitiveNetwork getCopy() {
+        return new PrimitiveNetwork(this);
+    }
+
+    /**
+     * Returns true if the links in this network are treated as directed
+     *
+     * @return true if directed, false if undirected
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    // ------------------------------------------------------------------------
+    // id based methods
+    // ------------------------------------------------------------------------
+    /**
+     * Adds a new node to the network and returns its id. No node object is
+     * created.
+     *
+     * @return the id of the new node
+     */
+    public int addNode() {
+        int id = nextNodeID();
+        insertNode(id);
+        return id;
+    }
+
+    /**
+     * Adds a link between two existing nodes and returns its id. No link
+     * object is created.
+     *
+     * @param from the id of the node at the start of the link
+     * @param to the id of the node at the end of the link
+     *
+     * @return the id of the new link
+     */
+    public int addLink(int from, int to) {
+        if (!containsNode(from) || !containsNode(to)) {
+            throw new IllegalArgumentException("Can't link nodes that are not in the network: "
+                    + from + ", " + to);
+        }
+        int id = nextLinkID();
+        insertLink(id, from, to);
+        return id;
+    }
+
+    /**
+     * Adds a node with the given id. No node object is created.
+     *
+     * @param id a non-negative node id
+     * @return true if add is successful, false if the node already exists
+     */
+    public boolean addNode(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("PrimitiveNetwork requires non-negative node ids");
+        }
+        if (containsNode(id)) {
+            return false;
+        }
+        insertNode(id);
+        return true;
+    }
+
+    /**
+     * Adds a link with the given id between two existing nodes. No link
+     * object is created.
+     *
+     * @param id a non-negative link id
+     * @param from the id of the node at the start of the link
+     * @param to the id of the node at the end of the link
+     *
+     * @return true if add is successful, false if the link already exists
+     */
+    public boolean addLink(int id, int from, int to) {
+        if (id < 0) {
+            throw new IllegalArgumentException("PrimitiveNetwork requires non-negative link ids");
+        }
+        if (!containsNode(from) || !containsNode(to)) {
+            throw new IllegalArgumentException("Can't link nodes that are not in the network: "
+                    + from + ", " + to);
+        }
+        if (containsLink(id)) {
+            return false;
+        }
+        insertLink(id, from, to);
+        return true;
+    }
+
+    /**
+     * Removes the node with the given id and all the links attached to it.
+     *
+     * @param id a node id
+     * @return true if remove is successful, false if there is no such node
+     */
+    public boolean removeNode(int id) {
+        if (!containsNode(id)) {
+            return false;
+        }
+        int size;
+        while ((size = outSizes.get(id)) > 0) {
+            deleteLink(outLinks.get(id)[size - 1]);
+        }
+        while ((size = inSizes.get(id)) > 0) {
+            deleteLink(inLinks.get(id)[size - 1]);
+        }
+        outLinks.set(id, null);
+        inLinks.set(id, null);
+
+        int slot = nodeSlots.get(id) - 1;
+        int last = nodeIDs.get(nodeCount - 1);
+        nodeIDs.set(slot, last);
+        nodeSlots.set(last, slot + 1);
+        nodeSlots.set(id, 0);
+        nodeCount--;
+
+        nodeObjects.set(id, null);
+        freeNodeIDs.set(freeNodeCount++, id);
+        return true;
+    }
+
+    /**
+     * Removes the link with the given id.
+     *
+     * @param id a link id
+     * @return true if remove is successful, false if there is no such link
+     */
+    public boolean removeLink(int id) {
+        if (!containsLink(id)) {
+            return false;
+        }
+        deleteLink(id);
+        return true;
+    }
+
+    /**
+     * Returns true if there is a node with the given id in the network
+     *
+     * @param id a node id
+     * @return true if the node exists
+     */
+    public boolean containsNode(int id) {
+        return id >= 0 && nodeSlots.get(id) != 0;
+    }
+
+    /**
+     * Returns true if there is a link with the given id in the network
+     *
+     * @param id a link id
+     * @return true if the link exists
+     */
+    public boolean containsLink(int id) {
+        return id >= 0 && linkSlots.get(id) != 0;
+    }
+
+    /**
+     * Returns the id of the node at the start of the given link
+     *
+     * @param link an existing link id
+     * @return a node id
+     */
+    public int getFrom(int link) {
+        return linkFrom.get(link);
+    }
+
+    /**
+     * Returns the id of the node at the end of the given link
+     *
+     * @param link an existing link id
+     * @return a node id
+     */
+    public int getTo(int link) {
+        return linkTo.get(link);
+    }
+
+    /**
+     * Returns the id of the node at the given position, nodes are in no
+     * particular order. Together with {@link #getNodeCount()} this can be used
+     * to iterate over all the nodes.
+     *
+     * @param position 0 <= position < {@link #getNodeCount()}
+     * @return a node id
+     */
+    public int getNodeIDAt(int position) {
+        return nodeIDs.get(position);
+    }
+
+    /**
+     * Returns the id of the link at the given position, links are in no
+     * particular order. Together with {@link #getLinkCount()} this can be used
+     * to iterate over all the links.
+     *
+     * @param position 0 <= position < {@link #getLinkCount()}
+     * @return a link id
+     */
+    public int getLinkIDAt(int position) {
+        return linkIDs.get(position);
+    }
+
+    /**
+     * Returns the number of links attached to the given node. A self loop in
+     * an undirected network counts twice.
+     *
+     * @param node a node id
+     * @return the degree of the node, 0 if the node does not exist
+     */
+    public int getDegree(int node) {
+        return node < 0 ? 0 : outSizes.get(node) + inSizes.get(node);
+    }
+
+    /**
+     * Returns the number of links coming from the given node. For undirected
+     * networks this is the same as {@link #getDegree(int)}.
+     *
+     * @param node a node id
+     * @return the out degree, 0 if the node does not exist
+     */
+    public int getOutDegree(int node) {
+        return node < 0 ? 0 : outSizes.get(node);
+    }
+
+    /**
+     * Returns the number of links coming to the given node. For undirected
+     * networks this is the same as {@link #getDegree(int)}.
+     *
+     * @param node a node id
+     * @return the in degree, 0 if the node does not exist
+     */
+    public int getInDegree(int node) {
+        if (node < 0) {
+            return 0;
+        }
+        return directed ? inSizes.get(node) : outSizes.get(node);
+    }
+
+    /**
+     * Returns the ids of the nodes at the other end of each link attached to
+     * the given node. Out links come first for directed networks.
+     *
+     * @param node a node id
+     * @return an array with {@link #getDegree(int)} node ids
+     */
+    public int[] getNeighbours(int node) {
+        int[] neighbours = new int[getDegree(node)];
+        getNeighbours(node, neighbours);
+        return neighbours;
+    }
+
+    /**
+     * Copies the ids of the nodes at the other end of each link attached to
+     * the given node into the given array, which must have room for
+     * {@link #getDegree(int)} ids. This can be used to traverse the network
+     * reusing the same buffer.
+     *
+     * @param node a node id
+     * @param neighbours the array where the ids are copied to
+     * @return the number of ids copied
+     */
+    public int getNeighbours(int node, int[] neighbours) {
+        if (!containsNode(node)) {
+            return 0;
+        }
+        int count = copyOthers(node, outLinks.get(node), outSizes.get(node), neighbours, 0);
+        return copyOthers(node, inLinks.get(node), inSizes.get(node), neighbours, count);
+    }
+
+    /**
+     * Returns the ids of the nodes at the end of the links coming from the
+     * given node.
+     *
+     * @param node a node id
+     * @return an array with {@link #getOutDegree(int)} node ids
+     */
+    public int[] getSuccessors(int node) {
+        int size = getOutDegree(node);
+        int[] successors = new int[size];
+        if (size > 0) {
+            copyOthers(node, outLinks.get(node), size, successors, 0);
+        }
+        return successors;
+    }
+
+    /**
+     * Returns the ids of the nodes at the start of the links coming to the
+     * given node.
+     *
+     * @param node a node id
+     * @return an array with {@link #getInDegree(int)} node ids
+     */
+    public int[] getPredecessors(int node) {
+        if (!directed) {
+            return getSuccessors(node);
+        }
+        int size = getInDegree(node);
+        int[] predecessors = new int[size];
+        if (size > 0) {
+            copyOthers(node, inLinks.get(node), size, predecessors, 0);
+        }
+        return predecessors;
+    }
+
+    /**
+     * Returns the ids of the links attached to the given node. Out links come
+     * first for directed networks.
+     *
+     * @param node a node id
+     * @return an array with {@link #getDegree(int)} link ids
+     */
+    public int[] getLinks(int node) {
+        if (!containsNode(node)) {
+            return NO_IDS;
+        }
+        int outSize = outSizes.get(node);
+        int inSize = inSizes.get(node);
+        int[] result = new int[outSize + inSize];
+        if (outSize > 0) {
+            System.arraycopy(outLinks.get(node), 0, result, 0, outSize);
+        }
+        if (inSize > 0) {
+            System.arraycopy(inLinks.get(node), 0, result, outSize, inSize);
+        }
+        return result;
+    }
+
+    private int copyOthers(int node, int[] links, int size, int[] dest,
+            int offset) {
+        for (int i = 0; i < size; i++) {
+            dest[offset++] = other(links[i], node);
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the node at the other end of a link
+     */
+    private int other(int link, int node) {
+        int to = linkTo.get(link);
+        return to == node ? linkFrom.get(link) : to;
+    }
+
+    // ------------------------------------------------------------------------
+    // storage
+    // ------------------------------------------------------------------------
+    private int nextNodeID() {
+        while (freeNodeCount > 0) {
+            int id = freeNodeIDs.get(--freeNodeCount);
+            if (!containsNode(id)) {
+                return id;
+            }
+        }
+        return nextNodeID++;
+    }
+
+    private int nextLinkID() {
+        while (freeLinkCount > 0) {
+            int id = freeLinkIDs.get(--freeLinkCount);
+            if (!containsLink(id)) {
+                return id;
+            }
+        }
+        return nextLinkID++;
+    }
+
+    private void insertNode(int id) {
+        nodeIDs.set(nodeCount, id);
+        nodeSlots.set(id, ++nodeCount);
+        if (id >= nextNodeID) {
+            nextNodeID = id + 1;
+        }
+    }
+
+    private void insertLink(int id, int from, int to) {
+        linkIDs.set(linkCount, id);
+        linkSlots.set(id, ++linkCount);
+        if (id >= nextLinkID) {
+            nextLinkID = id + 1;
+        }
+        linkFrom.set(id, from);
+        linkTo.set(id, to);
+        fromSlots.set(id, append(outLinks, outSizes, outOwners, from, id));
+        if (directed) {
+            toSlots.set(id, append(inLinks, inSizes, inOwners, to, id));
+        } else {
+            toSlots.set(id, append(outLinks, outSizes, outOwners, to, id));
+        }
+    }
+
+    private void deleteLink(int id) {
+        int from = linkFrom.get(id);
+        int to = linkTo.get(id);
+        removeEntry(outLinks, outSizes, outOwners, from, fromSlots.get(id), true);
+        if (directed) {
+            removeEntry(inLinks, inSizes, inOwners, to, toSlots.get(id), false);
+        } else {
+            // read the slot again, removing a self loop may have moved it
+            removeEntry(outLinks, outSizes, outOwners, to, toSlots.get(id), false);
+        }
+
+        int slot = linkSlots.get(id) - 1;
+        int last = linkIDs.get(linkCount - 1);
+        linkIDs.set(slot, last);
+        linkSlots.set(last, slot + 1);
+        linkSlots.set(id, 0);
+        linkCount--;
+
+        linkObjects.set(id, null);
+        freeLinkIDs.set(freeLinkCount++, id);
+    }
+
+    /**
+     * Appends a link to the link array of a node and returns its position
+     */
+    private int append(ObjectPages<int[]> links, IntPages sizes,
+            IntPages owners, int node, int link) {
+        int size = sizes.get(node);
+        int[] entries = links.get(node);
+        if (entries == null) {
+            entries = new int[INITIAL_LINK_CAPACITY];
+            links.set(node, entries);
+            owners.set(node, generation);
+        } else if (size == entries.length || owners.get(node) != generation) {
+            entries = Arrays.copyOf(entries, size == entries.length ? 2 * size : entries.length);
+            links.set(node, entries);
+            owners.set(node, generation);
+        }
+        entries[size] = link;
+        sizes.set(node, size + 1);
+        return size;
+    }
+
+    /**
+     * Removes the entry at the given position of the link array of a node by
+     * moving the last entry into its place.
+     *
+     * @param out for directed networks, true if this is an out link array
+     */
+    private void removeEntry(ObjectPages<int[]> links, IntPages sizes,
+            IntPages owners, int node, int slot, boolean out) {
+        int last = sizes.get(node) - 1;
+        int[] entries = links.get(node);
+        if (slot < last) {
+            if (owners.get(node) != generation) {
+                entries = entries.clone();
+                links.set(node, entries);
+                owners.set(node, generation);
+            }
+            int moved = entries[last];
+            entries[slot] = moved;
+            boolean movedFrom = directed ? out
+                    : (linkFrom.get(moved) == node && fromSlots.get(moved) == last);
+            if (movedFrom) {
+                fromSlots.set(moved, slot);
+            } else {
+                toSlots.set(moved, slot);
+            }
+        }
+        sizes.set(node, last);
+    }
+
+    /**
+     * Returns the node object for an existing node id, creating it if needed.
+     * Objects of another network, inherited from a fork, are replaced by a
+     * copy.
+     */
+    private Node nodeObject(int id) {
+        Node node = nodeObjects.get(id);
+        if (node == null) {
+            node = new OwnNode(this, id);
+            node.setNetwork(this);
+            nodeObjects.set(id, node);
+        } else if (node.getNetwork() != this) {
+            node = copyNode(node);
+            nodeObjects.set(id, node);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the link object for an existing link id, creating it if needed.
+     * Objects of another network, inherited from a fork, are replaced by a
+     * copy.
+     */
+    private Link linkObject(int id) {
+        Link link = linkObjects.get(id);
+        if (link == null) {
+            link = new OwnLink(this, id, nodeObject(linkFrom.get(id)), nodeObject(linkTo.get(id)));
+            link.setNetwork(this);
+            linkObjects.set(id, link);
+        } else if (link.getNetwork() != this) {
+            link = copyLink(link);
+            linkObjects.set(id, link);
+        }
+        return link;
+    }
+
+    /**
+     * Copies the pages of node and link objects shared with other networks.
+     * The objects of this network are replaced in the shared page by frozen
+     * copies, so the other networks do not see the changes this network is
+     * about to make. Objects of other networks are replaced in the new page,
+     * since their networks no longer copy them before changing them. Frozen
+     * copies have no network, are never handed out and are left as they are,
+     * objects with no state are replaced by null.
+     */
+    private final class ObjectCopier implements ObjectPages.PageCopier, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object[] copy(Object[] shared) {
+            Object[] page = shared.clone();
+            for (int i = 0; i < page.length; i++) {
+                Object object = shared[i];
+                if (object == null) {
+                    continue;
+                }
+                Network network = object instanceof Node
+                        ? ((Node) object).getNetwork() : ((Link) object).getNetwork();
+                if (network == PrimitiveNetwork.this) {
+                    shared[i] = freeze(object);
+                } else if (network != null) {
+                    page[i] = freeze(object);
+                }
+            }
+            return page;
+        }
+
+        private Object freeze(Object object) {
+            if (object instanceof Node) {
+                Node node = (Node) object;
+                if (node.getClass() == SimpleNode.class || node instanceof OwnNode) {
+                    return ((SimpleNode) node).hasProperties()
+                            ? new OwnNode(null, (SimpleNode) node) : null;
+                }
+                Node copy = node.getCopy();
+                copy.setNetwork(null);
+                return copy;
+            }
+            Link link = (Link) object;
+            if (link.getClass() == SimpleLink.class || link instanceof OwnLink) {
+                return link.getValue() != 0 || ((SimpleLink) link).hasProperties()
+                        ? new OwnLink(null, (SimpleLink) link, null, null) : null;
+            }
+            Link copy = link.getCopy();
+            copy.setNetwork(null);
+            return copy;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Network
+    // ------------------------------------------------------------------------
+    @Override
+    public boolean addNode(Node node) {
+        if (node == null || containsNode(node.getID())) {
+            return false;
+        }
+        if (node.getID() < 0) {
+            throw new IllegalArgumentException("PrimitiveNetwork requires non-negative node ids");
+        }
+        node.setNetwork(this);
+        insertNode(node.getID());
+        nodeObjects.set(node.getID(), node);
+        if (!isOwn(node)) {
+            addedNodes.set(addedNodeCount++, node.getID());
+        }
+        return true;
+    }
+
+    /**
+     * Adds a copy of the given node, made by this network. Unlike a node
+     * added with {@link #addNode(Node)}, the copy is not copied again by each
+     * {@link #fork()}.
+     *
+     * @param node the node to be copied
+     * @return true if add is successful, false if the node already exists
+     */
+    public boolean addNodeCopy(Node node) {
+        if (node == null || !addNode(node.getID())) {
+            return false;
+        }
+        if (node.getClass() != SimpleNode.class && !(node instanceof OwnNode)) {
+            nodeObjects.set(node.getID(), copyNode(node));
+        } else if (((SimpleNode) node).hasProperties()) {
+            // nodes with no properties are created when they are requested
+            Node copy = new OwnNode(this, (SimpleNode) node);
+            copy.setNetwork(this);
+            nodeObjects.set(node.getID(), copy);
+        }
+        return true;
+    }
+
+    @Override
+    public Link addLink(Node node1, Node node2) {
+        Link newLink = createLink(node1, node2);
+        addLink(newLink);
+        return newLink;
+    }
+
+    @Override
+    public boolean addLink(Link link) {
+        if (link == null) {
+            throw new RuntimeException("Can't add a null Link to the network");
+        }
+        if (link.from() == null || link.to() == null) {
+            throw new RuntimeException("The link is not connecting anything.");
+        }
+        int id = link.getID();
+        if (id < 0) {
+            throw new IllegalArgumentException("PrimitiveNetwork requires non-negative link ids");
+        }
+        if (containsLink(id)) {
+            return false;
+        }
+        addNode(link.from());
+        addNode(link.to());
+
+        link.setNetwork(this);
+        insertLink(id, link.from().getID(), link.to().getID());
+        linkObjects.set(id, link);
+        if (!isOwn(link)) {
+            addedLinks.set(addedLinkCount++, id);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        return containsNode(node) && removeNode(node.getID());
+    }
+
+    @Override
+    public boolean removeLink(Link link) {
+        return containsLink(link) && removeLink(link.getID());
+    }
+
+    @Override
+    public Node getNode(int id) {
+        return containsNode(id) ? nodeObject(id) : null;
+    }
+
+    @Override
+    public Link getLink(int id) {
+        return containsLink(id) ? linkObject(id) : null;
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node1, Node node2) {
+        Set<Link> result = new HashSet<>();
+        if (containsNode(node1) && containsNode(node2)) {
+            int from = node1.getID();
+            int to = node2.getID();
+            int[] links = outLinks.get(from);
+            int size = outSizes.get(from);
+            for (int i = 0; i < size; i++) {
+                if (other(links[i], from) == to) {
+                    result.add(linkObject(links[i]));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node) {
+        Set<Link> result = new HashSet<>();
+        if (containsNode(node)) {
+            int id = node.getID();
+            addLinks(outLinks.get(id), outSizes.get(id), result);
+            addLinks(inLinks.get(id), inSizes.get(id), result);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getOutLinks(Node node) {
+        Set<Link> result = new HashSet<>();
+        if (containsNode(node)) {
+            int id = node.getID();
+            addLinks(outLinks.get(id), outSizes.get(id), result);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getInLinks(Node node) {
+        Set<Link> result = new HashSet<>();
+        if (containsNode(node)) {
+            int id = node.getID();
+            if (directed) {
+                addLinks(inLinks.get(id), inSizes.get(id), result);
+            } else {
+                addLinks(outLinks.get(id), outSizes.get(id), result);
+            }
+        }
+        return result;
+    }
+
+    private void addLinks(int[] links, int size, Set<Link> result) {
+        for (int i = 0; i < size; i++) {
+            result.add(linkObject(links[i]));
+        }
+    }
+
+    @Override
+    public Collection<? extends Node> getSuccessors(Node node) {
+        Set<Node> result = new HashSet<>();
+        if (containsNode(node)) {
+            int id = node.getID();
+            addOthers(id, outLinks.get(id), outSizes.get(id), result);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Node> getPredecessors(Node node) {
+        Set<Node> result = new HashSet<>();
+        if (containsNode(node)) {
+            int id = node.getID();
+            if (directed) {
+                addOthers(id, inLinks.get(id), inSizes.get(id), result);
+            } else {
+                addOthers(id, outLinks.get(id), outSizes.get(id), result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Node> getNeighbours(Node node) {
+        Set<Node> result = new HashSet<>();
+        if (containsNode(node)) {
+            int id = node.getID();
+            addOthers(id, outLinks.get(id), outSizes.get(id), result);
+            addOthers(id, inLinks.get(id), inSizes.get(id), result);
+        }
+        return result;
+    }
+
+    private void addOthers(int node, int[] links, int size, Set<Node> result) {
+        for (int i = 0; i < size; i++) {
+            result.add(nodeObject(other(links[i], node)));
+        }
+    }
+
+    @Override
+    public Collection<? extends Node> getNodes() {
+        List<Node> result = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            result.add(nodeObject(nodeIDs.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks() {
+        List<Link> result = new ArrayList<>(linkCount);
+        for (int i = 0; i < linkCount; i++) {
+            result.add(linkObject(linkIDs.get(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return new AbstractList<Node>() {
+            @Override
+            public Node get(int index) {
+                if (index < 0 || index >= nodeCount) {
+                    throw new IndexOutOfBoundsException("Index: " + index);
+                }
+                return nodeObject(nodeIDs.get(index));
+            }
+
+            @Override
+            public int size() {
+                return nodeCount;
+            }
+        };
+    }
+
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return new AbstractList<Link>() {
+            @Override
+            public Link get(int index) {
+                if (index < 0 || index >= linkCount) {
+                    throw new IndexOutOfBoundsException("Index: " + index);
+                }
+                return linkObject(linkIDs.get(index));
+            }
+
+            @Override
+            public int size() {
+                return linkCount;
+            }
+        };
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        if (containsNode(node)) {
+            int id = node.getID();
+            if (visitOthers(id, outLinks.get(id), outSizes.get(id), visitor)) {
+                visitOthers(id, inLinks.get(id), inSizes.get(id), visitor);
+            }
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        if (containsNode(node)) {
+            int id = node.getID();
+            visitOthers(id, outLinks.get(id), outSizes.get(id), visitor);
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        if (containsNode(node)) {
+            int id = node.getID();
+            if (directed) {
+                visitOthers(id, inLinks.get(id), inSizes.get(id), visitor);
+            } else {
+                visitOthers(id, outLinks.get(id), outSizes.get(id), visitor);
+            }
+        }
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        if (containsNode(node)) {
+            int id = node.getID();
+            if (visitLinks(outLinks.get(id), outSizes.get(id), visitor)) {
+                visitLinks(inLinks.get(id), inSizes.get(id), visitor);
+            }
+        }
+    }
+
+    private boolean visitOthers(int node, int[] links, int size,
+            NodeVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            if (!visitor.visit(nodeObject(other(links[i], node)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visitLinks(int[] links, int size, LinkVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            if (!visitor.visit(linkObject(links[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new LinkArrayCursor();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return node != null && node.getNetwork() == this
+                && containsNode(node.getID())
+                && nodeObjects.get(node.getID()) == node;
+    }
+
+    @Override
+    public boolean containsLink(Link link) {
+        return link != null && link.getNetwork() == this
+                && containsLink(link.getID())
+                && linkObjects.get(link.getID()) == link;
+    }
+
+    @Override
+    public boolean containsLinks(Node node1, Node node2) {
+        if (!containsNode(node1) || !containsNode(node2)) {
+            return false;
+        }
+        int from = node1.getID();
+        int to = node2.getID();
+        // scan the shorter of the out links of from and the in links of to
+        if (directed) {
+            return inSizes.get(to) < outSizes.get(from)
+                    ? hasLinkTo(to, inLinks.get(to), inSizes.get(to), from)
+                    : hasLinkTo(from, outLinks.get(from), outSizes.get(from), to);
+        }
+        return outSizes.get(to) < outSizes.get(from)
+                ? hasLinkTo(to, outLinks.get(to), outSizes.get(to), from)
+                : hasLinkTo(from, outLinks.get(from), outSizes.get(from), to);
+    }
+
+    private boolean hasLinkTo(int node, int[] links, int size, int other) {
+        for (int i = 0; i < size; i++) {
+            if (other(links[i], node) == other) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Node createNode() {
+        return new OwnNode(this, nextNodeID());
+    }
+
+    @Override
+    public Link createLink(Node from, Node to) {
+        return new OwnLink(this, nextLinkID(), from, to);
+    }
+
+    /**
+     * Returns true if the object was created by this network, so it copies
+     * shared pages before it changes
+     */
+    private boolean isOwn(Object object) {
+        return (object instanceof OwnNode && ((OwnNode) object).owner == this)
+                || (object instanceof OwnLink && ((OwnLink) object).owner == this);
+    }
+
+    /**
+     * Node created by the network, which makes the page of node objects of
+     * its network private before it changes
+     */
+    private static final class OwnNode extends SimpleNode {
+
+        final PrimitiveNetwork owner;
+
+        OwnNode(PrimitiveNetwork owner, int id) {
+            super(id);
+            this.owner = owner;
+        }
+
+        OwnNode(PrimitiveNetwork owner, SimpleNode node) {
+            super(node);
+            this.owner = owner;
+        }
+
+        @Override
+        public void setProperty(String key, String value) {
+            owner.nodeObjects.own(getID());
+            super.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Link created by the network, which makes the page of link objects of
+     * its network private before it changes
+     */
+    private static final class OwnLink extends SimpleLink {
+
+        final PrimitiveNetwork owner;
+
+        OwnLink(PrimitiveNetwork owner, int id, Node from, Node to) {
+            super(id, from, to);
+            this.owner = owner;
+        }
+
+        OwnLink(PrimitiveNetwork owner, SimpleLink link, Node from, Node to) {
+            super(link, from, to);
+            this.owner = owner;
+        }
+
+        @Override
+        public void setValue(double value) {
+            owner.linkObjects.own(getID());
+            super.setValue(value);
+        }
+
+        @Override
+        public void setProperty(String key, String value) {
+            owner.linkObjects.own(getID());
+            super.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Cursor over the link arrays of a node
+     */
+    private class LinkArrayCursor implements NeighbourCursor {
+
+        private int origin;
+        private int[] first;
+        private int firstSize;
+        private int[] second;
+        private int secondSize;
+        private int position;
+        private int current;
+
+        private void reset(Node node, boolean out, boolean in) {
+            first = second = null;
+            firstSize = secondSize = 0;
+            position = -1;
+            if (containsNode(node)) {
+                origin = node.getID();
+                if (out || !directed) {
+                    first = outLinks.get(origin);
+                    firstSize = outSizes.get(origin);
+                    if (in && directed) {
+                        second = inLinks.get(origin);
+                        secondSize = inSizes.get(origin);
+                    }
+                } else {
+                    first = inLinks.get(origin);
+                    firstSize = inSizes.get(origin);
+                }
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            reset(node, true, true);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            reset(node, true, false);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            reset(node, false, true);
+        }
+
+        @Override
+        public boolean next() {
+            position++;
+            if (position >= firstSize && secondSize > 0) {
+                first = second;
+                firstSize = secondSize;
+                second = null;
+                secondSize = 0;
+                position = 0;
+            }
+            if (position >= firstSize) {
+                return false;
+            }
+            current = first[position];
+            return true;
+        }
+
+        @Override
+        public Node node() {
+            return nodeObject(other(current, origin));
+        }
+
+        @Override
+        public Link link() {
+            return linkObject(current);
+        }
+    }
+}
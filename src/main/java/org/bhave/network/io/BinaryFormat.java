@@ -0,0 +1,86 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.io;
+
+import java.nio.ByteOrder;
+
+/**
+ * <p> Layout of the binary network files written by
+ * {@link BinaryNetworkWriter} and read by {@link MappedNetwork}. All values
+ * are little-endian. </p>
+ *
+ * <p> The file starts with a header of eight ints: magic, version, flags,
+ * number of sections, node count, link count, number of node property keys
+ * and number of link property keys. It is followed by the section table, an
+ * (offset, length) pair of longs per section, in bytes. Sections start at
+ * offsets aligned to 8 bytes and can be mapped directly as arrays: </p>
+ *
+ * <ul> <li>node and link ids, sorted, an int per node or link;</li>
+ * <li>the index of the source and target node of each link, ints;</li>
+ * <li>the out and in adjacency as in {@link org.bhave.network.impl.fast.CsrNetwork},
+ * with n + 1 long offsets and int targets and link indexes per row. The in
+ * adjacency is empty for undirected networks;</li> <li>link values, a double
+ * per link, only if the flag is set;</li> <li>node and link properties, a
+ * column of string indexes (or -1 if there is no value) per property
+ * key;</li> <li>the string dictionary, with the property keys first (node
+ * keys, then link keys) followed by each distinct property value, as long
+ * offsets into the UTF-8 bytes of the strings section.</li> </ul>
+ *
+ * @author Davide Nunes
+ */
+final class BinaryFormat {
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    // "BHNG" in little-endian
+    static final int MAGIC = 0x474E4842;
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 8;
+    static final int FLAG_DIRECTED = 1;
+    static final int FLAG_LINK_VALUES = 1 << 1;
+    static final int FLAG_DENSE_NODE_IDS = 1 << 2;
+    static final int FLAG_DENSE_LINK_IDS = 1 << 3;
+    // sections, in the order they are written
+    static final int NODE_IDS = 0;
+    static final int LINK_IDS = 1;
+    static final int LINK_SOURCES = 2;
+    static final int LINK_TARGETS = 3;
+    static final int OUT_OFFSETS = 4;
+    static final int OUT_TARGETS = 5;
+    static final int OUT_LINKS = 6;
+    static final int IN_OFFSETS = 7;
+    static final int IN_TARGETS = 8;
+    static final int IN_LINKS = 9;
+    static final int LINK_VALUES = 10;
+    static final int NODE_PROPERTIES = 11;
+    static final int LINK_PROPERTIES = 12;
+    static final int STRING_OFFSETS = 13;
+    static final int STRINGS = 14;
+    static final int SECTIONS = 15;
+
+    static int headerSize(int sections) {
+        return HEADER_INTS * 4 + sections * 16;
+    }
+
+    private BinaryFormat() {
+    }
+}
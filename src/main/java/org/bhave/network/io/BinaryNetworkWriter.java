@@ -0,0 +1,354 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+
+import static org.bhave.network.io.BinaryFormat.*;
+
+/**
+ * <p> Writes networks in a compact binary format that is opened with
+ * {@link MappedNetwork#open(Path)} without parsing or copying it. The file
+ * has the CSR adjacency of the network, the node and link ids, the link
+ * values if any link has a value other than 0 and the properties with the
+ * keys given to the writer. </p>
+ *
+ * <p> {@link Node} and {@link Link} have no way to list their properties, so
+ * only the properties with the keys set with {@link #setNodeProperties} and
+ * {@link #setLinkProperties} are written. </p>
+ *
+ * <pre>
+ * BinaryNetworkWriter writer = new BinaryNetworkWriter();
+ * writer.setNodeProperties("name");
+ * writer.write(network.freeze(), path);
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class BinaryNetworkWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private String[] nodeKeys = new String[0];
+    private String[] linkKeys = new String[0];
+
+    /**
+     * Sets the keys of the node properties to be written
+     *
+     * @param keys property keys
+     */
+    public void setNodeProperties(String... keys) {
+        this.nodeKeys = keys.clone();
+    }
+
+    /**
+     * Sets the keys of the link properties to be written
+     *
+     * @param keys property keys
+     */
+    public void setLinkProperties(String... keys) {
+        this.linkKeys = keys.clone();
+    }
+
+    /**
+     * Writes a network to the given file, which is replaced if it exists.
+     * The network is compacted with {@link CsrNetwork#of(Network, boolean)}.
+     *
+     * @param network the network to write
+     * @param directed true if the links should be taken as directed, ignored
+     * if the network has its own direction
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Network network, boolean directed, Path path)
+            throws IOException {
+        write(CsrNetwork.of(network, directed), path);
+    }
+
+    /**
+     * Writes a network to the given file, which is replaced if it exists.
+     *
+     * @param network the network to write
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(CsrNetwork network, Path path) throws IOException {
+        int n = network.getNodeCount();
+        int m = network.getLinkCount();
+
+        List<byte[]> strings = new ArrayList<>();
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (String key : nodeKeys) {
+            strings.add(key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (String key : linkKeys) {
+            strings.add(key.getBytes(StandardCharsets.UTF_8));
+        }
+        int[][] nodeColumns = new int[nodeKeys.length][n];
+        for (int k = 0; k < nodeKeys.length; k++) {
+            for (int i = 0; i < n; i++) {
+                nodeColumns[k][i] = intern(network.getNodeAt(i).getProperty(nodeKeys[k]),
+                        dictionary, strings);
+            }
+        }
+        int[][] linkColumns = new int[linkKeys.length][m];
+        boolean values = false;
+        for (int l = 0; l < m; l++) {
+            Link link = network.getLinkAt(l);
+            values |= link.getValue() != 0;
+            for (int k = 0; k < linkKeys.length; k++) {
+                linkColumns[k][l] = intern(link.getProperty(linkKeys[k]), dictionary, strings);
+            }
+        }
+
+        int flags = 0;
+        if (network.isDirected()) {
+            flags |= FLAG_DIRECTED;
+        }
+        if (values) {
+            flags |= FLAG_LINK_VALUES;
+        }
+        boolean denseNodes = true;
+        for (int i = 0; i < n && denseNodes; i++) {
+            denseNodes = network.getNodeAt(i).getID() == i;
+        }
+        boolean denseLinks = true;
+        for (int l = 0; l < m && denseLinks; l++) {
+            denseLinks = network.getLinkAt(l).getID() == l;
+        }
+        if (denseNodes) {
+            flags |= FLAG_DENSE_NODE_IDS;
+        }
+        if (denseLinks) {
+            flags |= FLAG_DENSE_LINK_IDS;
+        }
+
+        try (Output out = new Output(path)) {
+            out.begin(NODE_IDS);
+            for (int i = 0; i < n; i++) {
+                out.putInt(network.getNodeAt(i).getID());
+            }
+            out.end(NODE_IDS);
+            out.begin(LINK_IDS);
+            for (int l = 0; l < m; l++) {
+                out.putInt(network.getLinkAt(l).getID());
+            }
+            out.end(LINK_IDS);
+            out.begin(LINK_SOURCES);
+            for (int l = 0; l < m; l++) {
+                out.putInt(network.getNodeIndex(network.getLinkAt(l).from()));
+            }
+            out.end(LINK_SOURCES);
+            out.begin(LINK_TARGETS);
+            for (int l = 0; l < m; l++) {
+                out.putInt(network.getNodeIndex(network.getLinkAt(l).to()));
+            }
+            out.end(LINK_TARGETS);
+
+            writeRows(out, OUT_OFFSETS, network.getOutOffsets(),
+                    network.getOutTargets(), network.getOutLinkIndexes());
+            if (network.isDirected()) {
+                writeRows(out, IN_OFFSETS, network.getInOffsets(),
+                        network.getInTargets(), network.getInLinkIndexes());
+            } else {
+                writeRows(out, IN_OFFSETS, new int[0], new int[0], new int[0]);
+            }
+
+            out.begin(LINK_VALUES);
+            for (int l = 0; l < m && values; l++) {
+                out.putDouble(network.getLinkAt(l).getValue());
+            }
+            out.end(LINK_VALUES);
+            writeColumns(out, NODE_PROPERTIES, nodeColumns);
+            writeColumns(out, LINK_PROPERTIES, linkColumns);
+
+            out.begin(STRING_OFFSETS);
+            long offset = 0;
+            out.putLong(offset);
+            for (byte[] string : strings) {
+                offset += string.length;
+                out.putLong(offset);
+            }
+            out.end(STRING_OFFSETS);
+            out.begin(STRINGS);
+            for (byte[] string : strings) {
+                out.putBytes(string);
+            }
+            out.end(STRINGS);
+            out.writeHeader(flags, n, m, nodeKeys.length, linkKeys.length);
+        }
+    }
+
+    private static int intern(String value, Map<String, Integer> dictionary,
+            List<byte[]> strings) {
+        if (value == null) {
+            return -1;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+            dictionary.put(value, index);
+        }
+        return index;
+    }
+
+    private static void writeRows(Output out, int offsetsSection, int[] offsets,
+            int[] targets, int[] linkIndexes) throws IOException {
+        out.begin(offsetsSection);
+        for (int offset : offsets) {
+            out.putLong(offset);
+        }
+        out.end(offsetsSection);
+        out.begin(offsetsSection + 1);
+        int entries = offsets.length == 0 ? 0 : offsets[offsets.length - 1];
+        for (int k = 0; k < entries; k++) {
+            out.putInt(targets[k]);
+        }
+        out.end(offsetsSection + 1);
+        out.begin(offsetsSection + 2);
+        for (int k = 0; k < entries; k++) {
+            out.putInt(linkIndexes[k]);
+        }
+        out.end(offsetsSection + 2);
+    }
+
+    private static void writeColumns(Output out, int section, int[][] columns)
+            throws IOException {
+        out.begin(section);
+        for (int[] column : columns) {
+            for (int value : column) {
+                out.putInt(value);
+            }
+        }
+        out.end(section);
+    }
+
+    /**
+     * Buffered output that keeps track of the position and size of each
+     * section, the header is written last once they are known.
+     */
+    private static final class Output implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+        private final long[] sections = new long[2 * SECTIONS];
+        private long position = headerSize(SECTIONS);
+
+        Output(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            channel.position(position);
+        }
+
+        void begin(int section) throws IOException {
+            // pads the previous section so every section is 8 byte aligned
+            while ((position & 7) != 0) {
+                ensureRemaining(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+            sections[2 * section] = position;
+        }
+
+        void end(int section) {
+            sections[2 * section + 1] = position - sections[2 * section];
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRemaining(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensureRemaining(8);
+            buffer.putDouble(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int done = 0;
+            while (done < bytes.length) {
+                ensureRemaining(1);
+                int count = Math.min(bytes.length - done, buffer.remaining());
+                buffer.put(bytes, done, count);
+                done += count;
+            }
+            position += bytes.length;
+        }
+
+        void writeHeader(int flags, int nodeCount, int linkCount,
+                int nodeKeyCount, int linkKeyCount) throws IOException {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(headerSize(SECTIONS)).order(ORDER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(SECTIONS);
+            header.putInt(nodeCount).putInt(linkCount).putInt(nodeKeyCount).putInt(linkKeyCount);
+            for (long value : sections) {
+                header.putLong(value);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
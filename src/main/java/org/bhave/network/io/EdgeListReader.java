@@ -0,0 +1,316 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.algorithms.Parallel.RangeTask;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.impl.fast.NetworkBuilder;
+
+/**
+ * <p> Reads networks from edge list files, with a link per line given by the
+ * indexes of the nodes it connects. Indexes are non-negative integers
+ * separated by spaces, tabs, commas or semicolons, so CSV files can be read
+ * as well. Further columns are ignored. Lines that do not start with a digit
+ * or a minus sign, such as comments or CSV headers, are skipped. </p>
+ *
+ * <p> The network has as many nodes as the largest index + 1, or more if a
+ * comment line has a <code>Nodes: n</code> header as written by
+ * {@link EdgeListWriter} and found in SNAP datasets. </p>
+ *
+ * <p> The file is memory-mapped and split in chunks of lines which are
+ * parsed in parallel, without creating objects for each line. </p>
+ *
+ * <pre>
+ * NetworkBuilder builder = new EdgeListReader().read(path);
+ * FastNetwork network = builder.buildFastNetwork(false);
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class EdgeListReader {
+
+    // chunks are at least this large, unless the file is smaller
+    private static final long MIN_CHUNK = 1 << 22;
+    // and at most this large, a mapped buffer must fit in an int
+    private static final long MAX_CHUNK = 1 << 30;
+    private static final byte[] NODES_HEADER = {'N', 'o', 'd', 'e', 's', ':'};
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a reader that parses files on the
+     * {@link Parallel#defaultPool() default pool}
+     */
+    public EdgeListReader() {
+        this(Parallel.defaultPool());
+    }
+
+    /**
+     * Creates a reader that parses files on the given pool
+     *
+     * @param pool the pool that parses the chunks of the files
+     */
+    public EdgeListReader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reads the network in the given file into a new builder
+     *
+     * @param path the edge list file
+     * @return a builder with the nodes and links in the file
+     * @throws IOException if the file cannot be read or has invalid links
+     */
+    public NetworkBuilder read(Path path) throws IOException {
+        NetworkBuilder builder = new NetworkBuilder(0);
+        read(path, builder);
+        return builder;
+    }
+
+    /**
+     * Reads the network in the given file and passes it to the given sink.
+     * The whole file is parsed before the sink is called, links are passed
+     * in the order of the file.
+     *
+     * @param path the edge list file
+     * @param sink the sink that receives the nodes and links
+     * @throws IOException if the file cannot be read or has invalid links
+     */
+    public void read(Path path, EdgeSink sink) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long[] bounds = chunkBounds(channel);
+            final Chunk[] chunks = new Chunk[bounds.length - 1];
+            Parallel.forRange(pool, 0, chunks.length, 1, new RangeTask() {
+                @Override
+                public long run(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        chunks[i] = new Chunk(bounds[i]);
+                        try {
+                            chunks[i].parse(channel.map(FileChannel.MapMode.READ_ONLY,
+                                    bounds[i], bounds[i + 1] - bounds[i]));
+                        } catch (IOException e) {
+                            chunks[i].error = e;
+                        }
+                    }
+                    return 0;
+                }
+            });
+
+            int nodes = 0;
+            int links = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                nodes = Math.max(nodes, chunk.nodes);
+                links += chunk.count;
+            }
+            sink.onNodes(nodes);
+            if (sink instanceof NetworkBuilder) {
+                ((NetworkBuilder) sink).ensureLinkCapacity(
+                        ((NetworkBuilder) sink).getLinkCount() + links);
+            }
+            for (int i = 0; i < chunks.length; i++) {
+                Chunk chunk = chunks[i];
+                if (sink instanceof NetworkBuilder) {
+                    ((NetworkBuilder) sink).addLinks(chunk.from, chunk.to, null, chunk.count);
+                } else {
+                    for (int j = 0; j < chunk.count; j++) {
+                        sink.accept(chunk.from[j], chunk.to[j]);
+                    }
+                }
+                chunks[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Splits the file in chunks, each starting at the beginning of a line
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = size / (4L * pool.getParallelism());
+        chunkSize = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, chunkSize));
+        int count = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+
+        long[] bounds = new long[count + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+        int chunks = 0;
+        long position = 0;
+        while (position < size) {
+            bounds[chunks++] = position;
+            position = nextLine(channel, Math.min(size, position + chunkSize), buffer);
+        }
+        bounds[chunks] = size;
+        return Arrays.copyOf(bounds, chunks + 1);
+    }
+
+    /**
+     * Returns the position after the first new line at or after the given
+     * position, or the size of the file
+     */
+    private static long nextLine(FileChannel channel, long position,
+            ByteBuffer buffer) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * The links parsed from a chunk of the file
+     */
+    private static final class Chunk {
+
+        private final long offset;
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private int count;
+        // largest node index + 1 or the nodes in a header
+        private int nodes;
+        private IOException error;
+
+        Chunk(long offset) {
+            this.offset = offset;
+        }
+
+        void parse(MappedByteBuffer buffer) throws IOException {
+            int end = buffer.limit();
+            int pos = 0;
+            while (pos < end) {
+                pos = skipBlanks(buffer, pos, end);
+                if (pos < end && isDigit(buffer.get(pos))) {
+                    int lineStart = pos;
+                    byte b = 0;
+                    long value = 0;
+                    while (pos < end && isDigit(b = buffer.get(pos))) {
+                        value = value * 10 + (b - '0');
+                        if (value > Integer.MAX_VALUE) {
+                            throw invalid(lineStart);
+                        }
+                        pos++;
+                    }
+                    int first = (int) value;
+                    while (pos < end && isSeparator(b = buffer.get(pos))) {
+                        pos++;
+                    }
+                    if (pos == end || !isDigit(b)) {
+                        throw invalid(lineStart);
+                    }
+                    value = 0;
+                    while (pos < end && isDigit(b = buffer.get(pos))) {
+                        value = value * 10 + (b - '0');
+                        if (value > Integer.MAX_VALUE) {
+                            throw invalid(lineStart);
+                        }
+                        pos++;
+                    }
+                    add(first, (int) value);
+                } else if (pos < end && buffer.get(pos) == '-') {
+                    throw invalid(pos);
+                } else if (pos < end && buffer.get(pos) != '\n') {
+                    readComment(buffer, pos, end);
+                }
+                while (pos < end && buffer.get(pos) != '\n') {
+                    pos++;
+                }
+                pos++;
+            }
+        }
+
+        private void add(int first, int second) {
+            if (count == from.length) {
+                from = Arrays.copyOf(from, 2 * count);
+                to = Arrays.copyOf(to, 2 * count);
+            }
+            from[count] = first;
+            to[count] = second;
+            count++;
+            nodes = Math.max(nodes, Math.max(first, second) + 1);
+        }
+
+        /**
+         * Looks for a node count header in a comment line
+         */
+        private void readComment(MappedByteBuffer buffer, int pos, int end) {
+            int matched = 0;
+            while (pos < end && buffer.get(pos) != '\n') {
+                byte b = buffer.get(pos++);
+                matched = b == NODES_HEADER[matched] ? matched + 1
+                        : (b == NODES_HEADER[0] ? 1 : 0);
+                if (matched == NODES_HEADER.length) {
+                    pos = skipBlanks(buffer, pos, end);
+                    long value = 0;
+                    while (pos < end && isDigit(b = buffer.get(pos))
+                            && value <= Integer.MAX_VALUE) {
+                        value = value * 10 + (b - '0');
+                        pos++;
+                    }
+                    if (value <= Integer.MAX_VALUE) {
+                        nodes = Math.max(nodes, (int) value);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private IOException invalid(int lineStart) {
+            return new IOException("Invalid link in line at byte " + (offset + lineStart));
+        }
+    }
+
+    private static int skipBlanks(MappedByteBuffer buffer, int pos, int end) {
+        byte b;
+        while (pos < end && ((b = buffer.get(pos)) == ' ' || b == '\t' || b == '\r')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == ';';
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+
+/**
+ * <p> Writes networks as edge lists that can be read with
+ * {@link EdgeListReader}: a <code># Nodes: n</code> header followed by a
+ * line for each link with the indexes of the nodes it connects, separated by
+ * a tab. </p>
+ *
+ * <p> The writer is an {@link EdgeSink}, so network models can generate
+ * their networks directly into a file. As with {@link java.io.PrintStream},
+ * errors while writing links are not thrown by
+ * {@link #accept(int, int)} but by {@link #flush()} or {@link #close()}. </p>
+ *
+ * <pre>
+ * try (EdgeListWriter writer = new EdgeListWriter(path)) {
+ *     model.generate(writer);
+ * }
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class EdgeListWriter implements EdgeSink, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    // the longest line has two ints with sign, a separator and a new line
+    private static final int MAX_LINE = 2 * 11 + 2;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte separator;
+    private IOException error;
+
+    /**
+     * Creates a writer to the given file, which is replaced if it exists
+     *
+     * @param path the edge list file
+     * @throws IOException if the file cannot be opened
+     */
+    public EdgeListWriter(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Creates a writer to the given channel, with nodes separated by tabs
+     *
+     * @param channel the channel to write to, closed with the writer
+     */
+    public EdgeListWriter(WritableByteChannel channel) {
+        this(channel, '\t');
+    }
+
+    /**
+     * Creates a writer to the given channel
+     *
+     * @param channel the channel to write to, closed with the writer
+     * @param separator the character between the nodes of each link, such
+     * as a tab, a space or a comma
+     */
+    public EdgeListWriter(WritableByteChannel channel, char separator) {
+        this.channel = channel;
+        this.separator = (byte) separator;
+    }
+
+    /**
+     * Writes the node count header.
+     */
+    @Override
+    public void onNodes(int n) {
+        ensureRemaining(MAX_LINE + 16);
+        putAscii("# Nodes: ");
+        putInt(n);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes a line with the given link.
+     */
+    @Override
+    public void accept(int from, int to) {
+        ensureRemaining(MAX_LINE);
+        putInt(from);
+        buffer.put(separator);
+        putInt(to);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes the links of the given network, identifying nodes by their ids.
+     * The node count header is the largest id + 1.
+     *
+     * @param network the network to write
+     * @throws IOException if the network cannot be written
+     */
+    public void write(Network network) throws IOException {
+        int maxId = -1;
+        for (Node node : network.getNodesView()) {
+            maxId = Math.max(maxId, node.getID());
+        }
+        onNodes(maxId + 1);
+        for (Link link : network.getLinksView()) {
+            accept(link.from().getID(), link.to().getID());
+        }
+        flush();
+    }
+
+    /**
+     * Writes the buffered links to the channel
+     *
+     * @throws IOException if any link could not be written
+     */
+    public void flush() throws IOException {
+        if (error == null) {
+            writeBuffer();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining() && error == null) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        // after an error links are discarded
+        buffer.clear();
+    }
+
+    private void putAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void putInt(int value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Integer.MIN_VALUE) {
+                putAscii("2147483648");
+                return;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (int limit = 10; digits < 10 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        int position = buffer.position();
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(position + digits);
+    }
+}
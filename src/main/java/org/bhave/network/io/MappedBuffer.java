@@ -0,0 +1,106 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only region of a file mapped in segments, so regions larger than
+ * the 2 GB a single mapped buffer can address are read through long indexes.
+ * Values are read at their natural alignment from the start of the region,
+ * which keeps each of them within a segment.
+ *
+ * @author Davide Nunes
+ */
+final class MappedBuffer {
+
+    static final int SEGMENT_SHIFT = 30;
+    private final ByteBuffer[] segments;
+    private final int shift;
+    private final long mask;
+    private final long size;
+
+    private MappedBuffer(ByteBuffer[] segments, int shift, long size) {
+        this.segments = segments;
+        this.shift = shift;
+        this.mask = (1L << shift) - 1;
+        this.size = size;
+    }
+
+    static MappedBuffer map(FileChannel channel, long offset, long size)
+            throws IOException {
+        return map(channel, offset, size, SEGMENT_SHIFT);
+    }
+
+    /**
+     * Maps a region of the channel in segments of 2^shift bytes, shift must
+     * be at least 3 so longs and doubles do not cross segments.
+     */
+    static MappedBuffer map(FileChannel channel, long offset, long size,
+            int shift) throws IOException {
+        long segmentSize = 1L << shift;
+        ByteBuffer[] segments = new ByteBuffer[(int) ((size + segmentSize - 1) >>> shift)];
+        for (int s = 0; s < segments.length; s++) {
+            long start = (long) s << shift;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start,
+                    Math.min(segmentSize, size - start)).order(BinaryFormat.ORDER);
+        }
+        return new MappedBuffer(segments, shift, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    int getInt(long index) {
+        long position = index << 2;
+        return segments[(int) (position >>> shift)].getInt((int) (position & mask));
+    }
+
+    long getLong(long index) {
+        long position = index << 3;
+        return segments[(int) (position >>> shift)].getLong((int) (position & mask));
+    }
+
+    double getDouble(long index) {
+        long position = index << 3;
+        return segments[(int) (position >>> shift)].getDouble((int) (position & mask));
+    }
+
+    /**
+     * Copies bytes starting at the given position, across segments if needed
+     */
+    void get(long position, byte[] dst) {
+        int done = 0;
+        while (done < dst.length) {
+            ByteBuffer segment = segments[(int) (position >>> shift)].duplicate();
+            segment.position((int) (position & mask));
+            int count = Math.min(dst.length - done, segment.remaining());
+            segment.get(dst, done, count);
+            done += count;
+            position += count;
+        }
+    }
+}
@@ -0,0 +1,1165 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.io;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.apache.commons.lang3.tuple.Pair;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.api.UndirectedNetwork;
+import org.bhave.network.impl.fast.SimpleLink;
+import org.bhave.network.impl.fast.SimpleNode;
+
+import static org.bhave.network.io.BinaryFormat.*;
+
+/**
+ * <p> Read-only {@link Network} backed by a memory-mapped file written by
+ * {@link BinaryNetworkWriter}. Opening the network only reads the header and
+ * the property keys, the adjacency is read from the mapped file as it is
+ * used and paged in by the operating system. Files larger than 2 GB are
+ * mapped in several segments. </p>
+ *
+ * <p> The structure is the same as in
+ * {@link org.bhave.network.impl.fast.CsrNetwork}: nodes and links have an
+ * index following the order of their ids and each node has a sorted row of
+ * neighbour indexes. The {@link Node} and {@link Link} objects are small
+ * views created on demand, so the same node may be returned as different
+ * but equal objects. Nodes and links are looked up by their ids, which means
+ * the nodes of the network that was written can be used to query this one.
+ * Any method that would change the network, its nodes or its links throws an
+ * {@link UnsupportedOperationException}. </p>
+ *
+ * <pre>
+ * MappedNetwork network = MappedNetwork.open(path);
+ * Node node = network.getNode(42);
+ * Collection&lt;? extends Node&gt; neighbours = network.getNeighbours(node);
+ * </pre>
+ *
+ * @author Davide Nunes
+ */
+public class MappedNetwork implements DirectedNetwork, UndirectedNetwork {
+
+    private static final long serialVersionUID = 1L;
+    // serialized instead of the mapped buffers, which are mapped again
+    private final String file;
+    private final transient boolean directed;
+    private final transient boolean denseNodeIds;
+    private final transient boolean denseLinkIds;
+    private final transient int nodeCount;
+    private final transient int linkCount;
+    private final transient MappedBuffer nodeIds;
+    private final transient MappedBuffer linkIds;
+    private final transient MappedBuffer linkSources;
+    private final transient MappedBuffer linkTargets;
+    private final transient MappedBuffer outOffsets;
+    private final transient MappedBuffer outTargets;
+    private final transient MappedBuffer outLinks;
+    // same buffers as the out adjacency if undirected
+    private final transient MappedBuffer inOffsets;
+    private final transient MappedBuffer inTargets;
+    private final transient MappedBuffer inLinks;
+    // null if the links have no values
+    private final transient MappedBuffer linkValues;
+    private final transient MappedBuffer nodeProperties;
+    private final transient MappedBuffer linkProperties;
+    private final transient MappedBuffer stringOffsets;
+    private final transient MappedBuffer strings;
+    // property key -> column
+    private final transient Map<String, Integer> nodeKeys;
+    private final transient Map<String, Integer> linkKeys;
+
+    private MappedNetwork(Path path, FileChannel channel) throws IOException {
+        this.file = path.toString();
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_INTS * 4).order(ORDER);
+        readFully(channel, header, 0, "header");
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a binary network file");
+        }
+        int version = header.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary network version " + version);
+        }
+        int flags = header.getInt(8);
+        int sectionCount = header.getInt(12);
+        nodeCount = header.getInt(16);
+        linkCount = header.getInt(20);
+        int nodeKeyCount = header.getInt(24);
+        int linkKeyCount = header.getInt(28);
+        if (sectionCount < SECTIONS || nodeCount < 0 || linkCount < 0
+                || nodeKeyCount < 0 || linkKeyCount < 0) {
+            throw new IOException("Corrupt binary network header");
+        }
+        directed = (flags & FLAG_DIRECTED) != 0;
+        denseNodeIds = (flags & FLAG_DENSE_NODE_IDS) != 0;
+        denseLinkIds = (flags & FLAG_DENSE_LINK_IDS) != 0;
+
+        ByteBuffer table = ByteBuffer.allocate(SECTIONS * 16).order(ORDER);
+        readFully(channel, table, HEADER_INTS * 4, "section table");
+        MappedBuffer[] sections = new MappedBuffer[SECTIONS];
+        for (int s = 0; s < SECTIONS; s++) {
+            long offset = table.getLong(16 * s);
+            long length = table.getLong(16 * s + 8);
+            if (offset < 0 || length < 0 || offset > fileSize - length) {
+                throw new IOException("Corrupt binary network section " + s);
+            }
+            sections[s] = MappedBuffer.map(channel, offset, length);
+        }
+
+        long entries = directed ? linkCount : 2L * linkCount;
+        long columns = (long) nodeKeyCount * nodeCount;
+        long linkColumns = (long) linkKeyCount * linkCount;
+        checkSize(sections, NODE_IDS, 4L * nodeCount);
+        checkSize(sections, LINK_IDS, 4L * linkCount);
+        checkSize(sections, LINK_SOURCES, 4L * linkCount);
+        checkSize(sections, LINK_TARGETS, 4L * linkCount);
+        checkSize(sections, OUT_OFFSETS, 8L * (nodeCount + 1));
+        checkSize(sections, NODE_PROPERTIES, 4L * columns);
+        checkSize(sections, LINK_PROPERTIES, 4L * linkColumns);
+        checkSize(sections, LINK_VALUES,
+                (flags & FLAG_LINK_VALUES) != 0 ? 8L * linkCount : 0);
+        nodeIds = sections[NODE_IDS];
+        linkIds = sections[LINK_IDS];
+        linkSources = sections[LINK_SOURCES];
+        linkTargets = sections[LINK_TARGETS];
+        outOffsets = sections[OUT_OFFSETS];
+        outTargets = sections[OUT_TARGETS];
+        outLinks = sections[OUT_LINKS];
+        if (directed) {
+            checkSize(sections, IN_OFFSETS, 8L * (nodeCount + 1));
+            inOffsets = sections[IN_OFFSETS];
+            inTargets = sections[IN_TARGETS];
+            inLinks = sections[IN_LINKS];
+            checkRows(inOffsets, inTargets, inLinks, entries);
+        } else {
+            inOffsets = outOffsets;
+            inTargets = outTargets;
+            inLinks = outLinks;
+        }
+        // undirected rows have less entries than 2m if there are self loops
+        checkRows(outOffsets, outTargets, outLinks, entries);
+        linkValues = sections[LINK_VALUES].size() == 0 ? null : sections[LINK_VALUES];
+        nodeProperties = sections[NODE_PROPERTIES];
+        linkProperties = sections[LINK_PROPERTIES];
+        stringOffsets = sections[STRING_OFFSETS];
+        strings = sections[STRINGS];
+        if (stringOffsets.size() < 8L * (nodeKeyCount + linkKeyCount + 1)) {
+            throw new IOException("Corrupt binary network string dictionary");
+        }
+
+        nodeKeys = new HashMap<>();
+        for (int k = 0; k < nodeKeyCount; k++) {
+            nodeKeys.put(getString(k), k);
+        }
+        linkKeys = new HashMap<>();
+        for (int k = 0; k < linkKeyCount; k++) {
+            linkKeys.put(getString(nodeKeyCount + k), k);
+        }
+    }
+
+    /**
+     * Opens a network written by {@link BinaryNetworkWriter}. The file is
+     * mapped and can be changed by other processes, but not while the
+     * network is in use.
+     *
+     * @param path the network file
+     * @return a read-only network
+     * @throws IOException if the file cannot be read or is not a valid
+     * binary network file
+     */
+    public static MappedNetwork open(Path path) throws IOException {
+        // mapped buffers stay valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedNetwork(path, channel);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer,
+            long position, String what) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Truncated binary network " + what);
+            }
+        }
+    }
+
+    private static void checkSize(MappedBuffer[] sections, int section,
+            long size) throws IOException {
+        if (sections[section].size() != size) {
+            throw new IOException("Corrupt binary network section " + section);
+        }
+    }
+
+    private void checkRows(MappedBuffer offsets, MappedBuffer targets,
+            MappedBuffer linkIndexes, long maxEntries) throws IOException {
+        long entries = offsets.getLong(nodeCount);
+        if (offsets.getLong(0) != 0 || entries > maxEntries
+                || targets.size() != 4 * entries || linkIndexes.size() != 4 * entries) {
+            throw new IOException("Corrupt binary network adjacency");
+        }
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        try {
+            return open(Paths.get(file));
+        } catch (IOException e) {
+            InvalidObjectException invalid = new InvalidObjectException(
+                    "Cannot open " + file);
+            invalid.initCause(e);
+            throw invalid;
+        }
+    }
+
+    private String getString(int index) {
+        long from = stringOffsets.getLong(index);
+        byte[] bytes = new byte[(int) (stringOffsets.getLong(index + 1) - from)];
+        strings.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the index of the first position in [from, to) of a sorted row
+     * with a value >= key.
+     */
+    private static long lowerBound(MappedBuffer a, long from, long to, int key) {
+        long lo = from, hi = to;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (a.getInt(mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int search(MappedBuffer ids, int count, int id) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midId = ids.getInt(mid);
+            if (midId < id) {
+                lo = mid + 1;
+            } else if (midId > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the links in this network are treated as directed
+     *
+     * @return true if directed, false if undirected
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the index of the node with the given id or -1 if there is no
+     * such node. Indexes go from 0 to {@link #getNodeCount()} - 1 following the
+     * order of the node ids.
+     *
+     * @param id a node id
+     * @return the node index or -1
+     */
+    public int getNodeIndex(int id) {
+        if (denseNodeIds) {
+            return (id >= 0 && id < nodeCount) ? id : -1;
+        }
+        return search(nodeIds, nodeCount, id);
+    }
+
+    /**
+     * Returns the index of the node with the id of the given node or -1 if
+     * there is no such node in this network.
+     *
+     * @param node a node
+     * @return the node index or -1
+     */
+    public int getNodeIndex(Node node) {
+        if (node == null) {
+            return -1;
+        }
+        if (node instanceof MappedNode && ((MappedNode) node).getNetwork() == this) {
+            return ((MappedNode) node).index;
+        }
+        return getNodeIndex(node.getID());
+    }
+
+    /**
+     * Returns the index of the link with the given id or -1 if there is no
+     * such link. Indexes go from 0 to {@link #getLinkCount()} - 1 following the
+     * order of the link ids.
+     *
+     * @param id a link id
+     * @return the link index or -1
+     */
+    public int getLinkIndex(int id) {
+        if (denseLinkIds) {
+            return (id >= 0 && id < linkCount) ? id : -1;
+        }
+        return search(linkIds, linkCount, id);
+    }
+
+    /**
+     * Returns the index of the link with the id of the given link or -1 if
+     * there is no such link in this network.
+     *
+     * @param link a link
+     * @return the link index or -1
+     */
+    public int getLinkIndex(Link link) {
+        if (link == null) {
+            return -1;
+        }
+        if (link instanceof MappedLink && ((MappedLink) link).getNetwork() == this) {
+            return ((MappedLink) link).index;
+        }
+        return getLinkIndex(link.getID());
+    }
+
+    /**
+     * Returns the node with the given index
+     *
+     * @param index a node index, 0 <= index < {@link #getNodeCount()}
+     * @return a node
+     */
+    public Node getNodeAt(int index) {
+        if (index < 0 || index >= nodeCount) {
+            throw new IndexOutOfBoundsException("Node index: " + index);
+        }
+        return new MappedNode(index);
+    }
+
+    /**
+     * Returns the link with the given index
+     *
+     * @param index a link index, 0 <= index < {@link #getLinkCount()}
+     * @return a link
+     */
+    public Link getLinkAt(int index) {
+        if (index < 0 || index >= linkCount) {
+            throw new IndexOutOfBoundsException("Link index: " + index);
+        }
+        return new MappedLink(index);
+    }
+
+    /**
+     * Returns the index of the node at the start of the given link
+     *
+     * @param index a link index
+     * @return a node index
+     */
+    public int getLinkSource(int index) {
+        return linkSources.getInt(index);
+    }
+
+    /**
+     * Returns the index of the node at the end of the given link
+     *
+     * @param index a link index
+     * @return a node index
+     */
+    public int getLinkTarget(int index) {
+        return linkTargets.getInt(index);
+    }
+
+    /**
+     * Returns the number of entries in the out row of the given node index.
+     * For undirected networks this is the number of links attached to the
+     * node.
+     *
+     * @param index a node index
+     * @return the out degree
+     */
+    public int getOutDegree(int index) {
+        return (int) (outOffsets.getLong(index + 1) - outOffsets.getLong(index));
+    }
+
+    /**
+     * Returns the number of entries in the in row of the given node index.
+     * For undirected networks this is the same as
+     * {@link #getOutDegree(int)}.
+     *
+     * @param index a node index
+     * @return the in degree
+     */
+    public int getInDegree(int index) {
+        return (int) (inOffsets.getLong(index + 1) - inOffsets.getLong(index));
+    }
+
+    /**
+     * Returns the position of the out row of the given node. The row is the
+     * range [getOutOffset(i), getOutOffset(i + 1)) of positions for
+     * {@link #getOutTarget(long)} and {@link #getOutLinkIndex(long)}.
+     *
+     * @param index a node index, 0 <= index <= {@link #getNodeCount()}
+     * @return the position of the first entry of the row
+     */
+    public long getOutOffset(int index) {
+        return outOffsets.getLong(index);
+    }
+
+    /**
+     * Returns the node index at a position of the out adjacency
+     *
+     * @param position a position in a row
+     * @return a node index
+     */
+    public int getOutTarget(long position) {
+        return outTargets.getInt(position);
+    }
+
+    /**
+     * Returns the link index at a position of the out adjacency
+     *
+     * @param position a position in a row
+     * @return a link index
+     */
+    public int getOutLinkIndex(long position) {
+        return outLinks.getInt(position);
+    }
+
+    /**
+     * Returns the position of the in row of the given node. For undirected
+     * networks this is the same as {@link #getOutOffset(int)}.
+     *
+     * @param index a node index, 0 <= index <= {@link #getNodeCount()}
+     * @return the position of the first entry of the row
+     */
+    public long getInOffset(int index) {
+        return inOffsets.getLong(index);
+    }
+
+    /**
+     * Returns the node index at a position of the in adjacency
+     *
+     * @param position a position in a row
+     * @return a node index
+     */
+    public int getInTarget(long position) {
+        return inTargets.getInt(position);
+    }
+
+    /**
+     * Returns the link index at a position of the in adjacency
+     *
+     * @param position a position in a row
+     * @return a link index
+     */
+    public int getInLinkIndex(long position) {
+        return inLinks.getInt(position);
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public Link addLink(Node node1, Node node2) {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public boolean addLink(Link link) {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public boolean removeLink(Link link) {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public Node createNode() {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public Link createLink(Node from, Node to) {
+        throw new UnsupportedOperationException("MappedNetwork is read-only");
+    }
+
+    @Override
+    public Node getNode(int id) {
+        int index = getNodeIndex(id);
+        return index < 0 ? null : new MappedNode(index);
+    }
+
+    @Override
+    public Link getLink(int id) {
+        int index = getLinkIndex(id);
+        return index < 0 ? null : new MappedLink(index);
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node1, Node node2) {
+        int i = getNodeIndex(node1);
+        int j = getNodeIndex(node2);
+        if (i < 0 || j < 0) {
+            return Collections.<Link>emptySet();
+        }
+        long end = outOffsets.getLong(i + 1);
+        long from = lowerBound(outTargets, outOffsets.getLong(i), end, j);
+        long to = lowerBound(outTargets, from, end, j + 1);
+        return new LinkRow(outTargets, outLinks, from, to);
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Link>emptySet();
+        }
+        if (!directed) {
+            return new LinkRow(outTargets, outLinks, outOffsets.getLong(i),
+                    outOffsets.getLong(i + 1));
+        }
+        return new LinkRow(outTargets, outLinks, outOffsets.getLong(i), outOffsets.getLong(i + 1),
+                inTargets, inLinks, inOffsets.getLong(i), inOffsets.getLong(i + 1));
+    }
+
+    @Override
+    public Collection<? extends Link> getOutLinks(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Link>emptySet();
+        }
+        return new LinkRow(outTargets, outLinks, outOffsets.getLong(i),
+                outOffsets.getLong(i + 1));
+    }
+
+    @Override
+    public Collection<? extends Link> getInLinks(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Link>emptySet();
+        }
+        return new LinkRow(inTargets, inLinks, inOffsets.getLong(i),
+                inOffsets.getLong(i + 1));
+    }
+
+    @Override
+    public Collection<? extends Node> getSuccessors(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Node>emptySet();
+        }
+        return new NodeRow(outTargets, outLinks, outOffsets.getLong(i),
+                outOffsets.getLong(i + 1));
+    }
+
+    @Override
+    public Collection<? extends Node> getPredecessors(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Node>emptySet();
+        }
+        return new NodeRow(inTargets, inLinks, inOffsets.getLong(i),
+                inOffsets.getLong(i + 1));
+    }
+
+    @Override
+    public Collection<? extends Node> getNeighbours(Node node) {
+        int i = getNodeIndex(node);
+        if (i < 0) {
+            return Collections.<Node>emptySet();
+        }
+        if (!directed) {
+            return new NodeRow(outTargets, outLinks, outOffsets.getLong(i),
+                    outOffsets.getLong(i + 1));
+        }
+        return new NodeRow(outTargets, outLinks, outOffsets.getLong(i), outOffsets.getLong(i + 1),
+                inTargets, inLinks, inOffsets.getLong(i), inOffsets.getLong(i + 1));
+    }
+
+    @Override
+    public Collection<? extends Node> getNodes() {
+        return new AbstractList<Node>() {
+            @Override
+            public Node get(int index) {
+                return getNodeAt(index);
+            }
+
+            @Override
+            public int size() {
+                return nodeCount;
+            }
+        };
+    }
+
+    @Override
+    public Collection<? extends Link> getLinks() {
+        return new AbstractList<Link>() {
+            @Override
+            public Link get(int index) {
+                return getLinkAt(index);
+            }
+
+            @Override
+            public int size() {
+                return linkCount;
+            }
+        };
+    }
+
+    @Override
+    public Collection<? extends Node> getNodesView() {
+        return getNodes();
+    }
+
+    @Override
+    public Collection<? extends Link> getLinksView() {
+        return getLinks();
+    }
+
+    @Override
+    public void forEachNeighbour(Node node, NodeVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0 && visitNodes(outTargets, outOffsets.getLong(i), outOffsets.getLong(i + 1), visitor)
+                && directed) {
+            visitNodes(inTargets, inOffsets.getLong(i), inOffsets.getLong(i + 1), visitor);
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, NodeVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0) {
+            visitNodes(outTargets, outOffsets.getLong(i), outOffsets.getLong(i + 1), visitor);
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, NodeVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0) {
+            visitNodes(inTargets, inOffsets.getLong(i), inOffsets.getLong(i + 1), visitor);
+        }
+    }
+
+    @Override
+    public void forEachLink(Node node, LinkVisitor visitor) {
+        int i = getNodeIndex(node);
+        if (i >= 0 && visitLinks(outLinks, outOffsets.getLong(i), outOffsets.getLong(i + 1), visitor)
+                && directed) {
+            visitLinks(inLinks, inOffsets.getLong(i), inOffsets.getLong(i + 1), visitor);
+        }
+    }
+
+    private boolean visitNodes(MappedBuffer targets, long from, long to,
+            NodeVisitor visitor) {
+        for (long k = from; k < to; k++) {
+            if (!visitor.visit(new MappedNode(targets.getInt(k)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visitLinks(MappedBuffer linkIndexes, long from, long to,
+            LinkVisitor visitor) {
+        for (long k = from; k < to; k++) {
+            if (!visitor.visit(new MappedLink(linkIndexes.getInt(k)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public NeighbourCursor createNeighbourCursor() {
+        return new RowCursor();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    @Override
+    public boolean containsNode(Node node) {
+        return getNodeIndex(node) >= 0;
+    }
+
+    @Override
+    public boolean containsLink(Link link) {
+        return getLinkIndex(link) >= 0;
+    }
+
+    @Override
+    public boolean containsLinks(Node node1, Node node2) {
+        int i = getNodeIndex(node1);
+        int j = getNodeIndex(node2);
+        if (i < 0 || j < 0) {
+            return false;
+        }
+        long to = outOffsets.getLong(i + 1);
+        long k = lowerBound(outTargets, outOffsets.getLong(i), to, j);
+        return k < to && outTargets.getInt(k) == j;
+    }
+
+    /**
+     * This network is immutable so the copy is the network itself.
+     *
+     * @return this network
+     */
+    @Override
+    public MappedNetwork getCopy() {
+        return this;
+    }
+
+    /**
+     * View of a node of the mapped network
+     */
+    private final class MappedNode implements Node {
+
+        private final int index;
+
+        MappedNode(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getID() {
+            return nodeIds.getInt(index);
+        }
+
+        @Override
+        public void setProperty(String key, String value) {
+            throw new UnsupportedOperationException("MappedNetwork is read-only");
+        }
+
+        @Override
+        public String getProperty(String key) {
+            Integer column = nodeKeys.get(key);
+            if (column == null) {
+                return null;
+            }
+            int value = nodeProperties.getInt((long) column * nodeCount + index);
+            return value < 0 ? null : getString(value);
+        }
+
+        /**
+         * Returns a {@link SimpleNode} with the id and properties of this node
+         */
+        @Override
+        public Node getCopy() {
+            Node copy = new SimpleNode(getID());
+            for (String key : nodeKeys.keySet()) {
+                String value = getProperty(key);
+                if (value != null) {
+                    copy.setProperty(key, value);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public Network getNetwork() {
+            return MappedNetwork.this;
+        }
+
+        @Override
+        public void setNetwork(Network network) {
+            throw new UnsupportedOperationException("MappedNetwork is read-only");
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MappedNode)) {
+                return false;
+            }
+            MappedNode other = (MappedNode) obj;
+            return index == other.index && getNetwork() == other.getNetwork();
+        }
+
+        @Override
+        public String toString() {
+            return "MappedNode [id=" + getID() + "]";
+        }
+    }
+
+    /**
+     * View of a link of the mapped network
+     */
+    private final class MappedLink implements Link {
+
+        private final int index;
+
+        MappedLink(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getID() {
+            return linkIds.getInt(index);
+        }
+
+        @Override
+        public double getValue() {
+            return linkValues == null ? 0 : linkValues.getDouble(index);
+        }
+
+        @Override
+        public void setValue(double value) {
+            throw new UnsupportedOperationException("MappedNetwork is read-only");
+        }
+
+        @Override
+        public void setProperty(String key, String value) {
+            throw new UnsupportedOperationException("MappedNetwork is read-only");
+        }
+
+        @Override
+        public String getProperty(String key) {
+            Integer column = linkKeys.get(key);
+            if (column == null) {
+                return null;
+            }
+            int value = linkProperties.getInt((long) column * linkCount + index);
+            return value < 0 ? null : getString(value);
+        }
+
+        @Override
+        public Node from() {
+            return new MappedNode(linkSources.getInt(index));
+        }
+
+        @Override
+        public Node to() {
+            return new MappedNode(linkTargets.getInt(index));
+        }
+
+        @Override
+        public Pair<Node, Node> nodes() {
+            return Pair.of(from(), to());
+        }
+
+        /**
+         * Returns a {@link SimpleLink} with the id, value and properties of
+         * this link, between copies of its nodes
+         */
+        @Override
+        public Link getCopy() {
+            Link copy = new SimpleLink(getID(), from().getCopy(), to().getCopy());
+            copy.setValue(getValue());
+            for (String key : linkKeys.keySet()) {
+                String value = getProperty(key);
+                if (value != null) {
+                    copy.setProperty(key, value);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public Network getNetwork() {
+            return MappedNetwork.this;
+        }
+
+        @Override
+        public void setNetwork(Network network) {
+            throw new UnsupportedOperationException("MappedNetwork is read-only");
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MappedLink)) {
+                return false;
+            }
+            MappedLink other = (MappedLink) obj;
+            return index == other.index && getNetwork() == other.getNetwork();
+        }
+
+        @Override
+        public String toString() {
+            return "MappedLink [id=" + getID() + "]";
+        }
+    }
+
+    /**
+     * Cursor over one or two adjacency rows
+     */
+    private final class RowCursor implements NeighbourCursor {
+
+        private MappedBuffer targets;
+        private MappedBuffer linkIndexes;
+        private long position;
+        private long end;
+        // second row, only used for the in links of directed networks
+        private long nextFrom;
+        private long nextTo;
+
+        private void reset(Node node, boolean out, boolean in) {
+            int i = getNodeIndex(node);
+            position = -1;
+            end = 0;
+            nextFrom = nextTo = 0;
+            if (i < 0) {
+                return;
+            }
+            if (out || !directed) {
+                targets = outTargets;
+                linkIndexes = outLinks;
+                position = outOffsets.getLong(i) - 1;
+                end = outOffsets.getLong(i + 1);
+                if (in && directed) {
+                    nextFrom = inOffsets.getLong(i);
+                    nextTo = inOffsets.getLong(i + 1);
+                }
+            } else {
+                targets = inTargets;
+                linkIndexes = inLinks;
+                position = inOffsets.getLong(i) - 1;
+                end = inOffsets.getLong(i + 1);
+            }
+        }
+
+        @Override
+        public void reset(Node node) {
+            reset(node, true, true);
+        }
+
+        @Override
+        public void resetOut(Node node) {
+            reset(node, true, false);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            reset(node, false, true);
+        }
+
+        @Override
+        public boolean next() {
+            position++;
+            if (position >= end && nextFrom < nextTo) {
+                targets = inTargets;
+                linkIndexes = inLinks;
+                position = nextFrom;
+                end = nextTo;
+                nextFrom = nextTo = 0;
+            }
+            return position < end;
+        }
+
+        @Override
+        public Node node() {
+            return new MappedNode(targets.getInt(position));
+        }
+
+        @Override
+        public Link link() {
+            return new MappedLink(linkIndexes.getInt(position));
+        }
+    }
+
+    /**
+     * Read-only collection over one or two adjacency rows. Rows are merged by
+     * (neighbour, link) and repeated elements are skipped, which is what
+     * removes the duplicates of a set without building one.
+     */
+    private abstract class Row<E> extends AbstractCollection<E> {
+
+        private final MappedBuffer targetsA;
+        private final MappedBuffer linksA;
+        private final long fromA;
+        private final long toA;
+        private final MappedBuffer targetsB;
+        private final MappedBuffer linksB;
+        private final long fromB;
+        private final long toB;
+        // if false, elements with the same neighbour are repeated
+        private final boolean byLink;
+
+        Row(boolean byLink, MappedBuffer targetsA, MappedBuffer linksA, long fromA, long toA,
+                MappedBuffer targetsB, MappedBuffer linksB, long fromB, long toB) {
+            this.byLink = byLink;
+            this.targetsA = targetsA;
+            this.linksA = linksA;
+            this.fromA = fromA;
+            this.toA = toA;
+            this.targetsB = targetsB;
+            this.linksB = linksB;
+            this.fromB = fromB;
+            this.toB = toB;
+        }
+
+        abstract E element(int target, int link);
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private long i = fromA;
+                private long j = fromB;
+                private int lastTarget = -1;
+                private int lastLink = -1;
+                private boolean ready = false;
+
+                @Override
+                public boolean hasNext() {
+                    if (!ready) {
+                        ready = advance();
+                    }
+                    return ready;
+                }
+
+                private boolean advance() {
+                    while (i < toA || j < toB) {
+                        int target, link;
+                        int targetA = i < toA ? targetsA.getInt(i) : 0;
+                        int targetB = j < toB ? targetsB.getInt(j) : 0;
+                        if (j >= toB || (i < toA && (targetA < targetB
+                                || (targetA == targetB && linksA.getInt(i) <= linksB.getInt(j))))) {
+                            target = targetA;
+                            link = linksA.getInt(i);
+                            i++;
+                        } else {
+                            target = targetB;
+                            link = linksB.getInt(j);
+                            j++;
+                        }
+                        if (target == lastTarget && (!byLink || link == lastLink)) {
+                            continue;
+                        }
+                        lastTarget = target;
+                        lastLink = link;
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ready = false;
+                    return element(lastTarget, lastLink);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("MappedNetwork is read-only");
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Iterator<E> it = iterator(); it.hasNext(); it.next()) {
+                size++;
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return fromA >= toA && fromB >= toB;
+        }
+    }
+
+    private final class NodeRow extends Row<Node> {
+
+        NodeRow(MappedBuffer targets, MappedBuffer links, long from, long to) {
+            super(false, targets, links, from, to, targets, links, 0, 0);
+        }
+
+        NodeRow(MappedBuffer targetsA, MappedBuffer linksA, long fromA, long toA,
+                MappedBuffer targetsB, MappedBuffer linksB, long fromB, long toB) {
+            super(false, targetsA, linksA, fromA, toA, targetsB, linksB, fromB, toB);
+        }
+
+        @Override
+        Node element(int target, int link) {
+            return new MappedNode(target);
+        }
+    }
+
+    private final class LinkRow extends Row<Link> {
+
+        LinkRow(MappedBuffer targets, MappedBuffer links, long from, long to) {
+            super(true, targets, links, from, to, targets, links, 0, 0);
+        }
+
+        LinkRow(MappedBuffer targetsA, MappedBuffer linksA, long fromA, long toA,
+                MappedBuffer targetsB, MappedBuffer linksB, long fromB, long toB) {
+            super(true, targetsA, linksA, fromA, toA, targetsB, linksB, fromB, toB);
+        }
+
+        @Override
+        Link element(int target, int link) {
+            return new MappedLink(link);
+        }
+    }
+}
@@ -44,7 +44,13 @@ import org.apache.commons.configuration.ConfigurationException;
  * added. <br>
  *
  * <b>seed</b> - The seed to be used with the random number generator of this
- * network model </p>
+ * network model <br>
+ *
+ * <b>compatible</b> - optional, false by default. Networks are generated from
+ * a pool with an entry per link end, which takes linear time. If true, nodes
+ * are selected from their cumulative degrees instead, which is slower but
+ * generates the same network as previous versions of this library for the
+ * same seed. Both follow the same distribution. </p>
  *
  * <h2>Working with a model instance</h2> <code>
  * Injector injector = Guice.createInjector(new NetworkModule());<br>
@@ -70,6 +76,7 @@ public interface BAModel extends NetworkModel {
 
     public static final String P_NUM_NODES = "numNodes";
     public static final String P_D = "d";
+    public static final String P_COMPATIBLE = "compatible";
 
     /**
      * Configures the model to be executed with a given number of nodes and a
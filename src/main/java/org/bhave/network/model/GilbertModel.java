@@ -25,6 +25,25 @@ package org.bhave.network.model;
 import org.apache.commons.configuration.ConfigurationException;
 
 /**
+ * <p>
+ * Defines an interface for the Gilbert G(n,p) random network model, where
+ * each pair of nodes is linked with probability p.
+ * </p>
+ *
+ * <h3>Model Parameters</h3> <b>numNodes</b> - number of nodes in the network
+ * <br>
+ *
+ * <b>p</b> - probability of linking each pair of nodes <br>
+ *
+ * <b>seed</b> - The seed to be used with the random number generator of this
+ * network model <br>
+ *
+ * <b>threads</b> - optional, 0 by default. If 0 links are sampled in a single
+ * thread from the random number generator of the model, as in previous
+ * versions of this library. Otherwise the pairs of nodes are split in blocks
+ * of rows sampled by the given number of threads, each with a generator
+ * derived from the seed. The network generated then depends only on the
+ * seed, the number of nodes and p, not on the number of threads. <br>
  *
  * @author Davide Nunes
  *
@@ -33,6 +52,7 @@ public interface GilbertModel extends NetworkModel {
 
     public static final String P_NUM_NODES = "numNodes";
     public static final String P_P = "p";
+    public static final String P_THREADS = "threads";
 
     void configure(int numNodes, double p, long seed) throws ConfigurationException;
 }
@@ -27,6 +27,7 @@ package org.bhave.network.model;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
 
 /**
@@ -123,4 +124,17 @@ public interface NetworkModel {
 	 * @return network a network instance
 	 */
 	Network generate();
+
+	/**
+	 * Generates a network and passes its nodes and links to the given sink as
+	 * they are generated, without creating a {@link Network} instance. For the
+	 * same configuration the sink receives the network returned by
+	 * {@link #generate()}: node indexes follow the order in which its nodes
+	 * are created and links are accepted in the order they are added to it.
+	 * The sink is called from the thread that calls this method.
+	 * 
+	 * @param sink
+	 *            the sink that receives the nodes and links
+	 */
+	void generate(EdgeSink sink);
 }
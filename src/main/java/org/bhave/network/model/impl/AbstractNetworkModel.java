@@ -24,7 +24,11 @@ package org.bhave.network.model.impl;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.NetworkProvider;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
 import org.bhave.network.model.NetworkModel;
 import com.google.inject.Provider;
 import org.apache.commons.configuration.PropertiesConfiguration;
@@ -57,12 +61,25 @@ public abstract class AbstractNetworkModel implements NetworkModel {
     public Network generate() {
         resetModel();
 
-        generateNetwork();
+        NetworkBuilder builder = new NetworkBuilder(expectedLinks());
+        generateNetwork(builder);
+        builder.buildInto(network);
 
         return network;
     }
 
-    abstract void generateNetwork();
+    public void generate(EdgeSink sink) {
+        this.random.setSeed(config.getLong(PARAM_SEED));
+        generateNetwork(sink);
+    }
+
+    /**
+     * Generates the nodes and then the links of a network into the given
+     * sink. The random number generator is seeded before this is called.
+     *
+     * @param sink the sink that receives the network
+     */
+    abstract void generateNetwork(EdgeSink sink);
 
     /**
      * Resets the model so it can be called again to produce a new network
@@ -71,6 +88,40 @@ public abstract class AbstractNetworkModel implements NetworkModel {
     protected void resetModel() {
         this.random.setSeed(config.getLong(PARAM_SEED));
         this.network = networkProvider.get();
+        if (network instanceof FastNetwork) {
+            ((FastNetwork) network).ensureCapacity(expectedNodes(),
+                    expectedLinks());
+        }
+    }
+
+    /**
+     * Returns the number of nodes the model is expected to generate with its
+     * current configuration, used to presize the network. Reads the
+     * <b>numNodes</b> parameter by default.
+     *
+     * @return the expected number of nodes
+     */
+    protected int expectedNodes() {
+        return config.getInt(NetworkProvider.P_NUM_NODES, 0);
+    }
+
+    /**
+     * Returns the number of links the model is expected to generate with its
+     * current configuration, used to presize the network. Reads the
+     * <b>numLinks</b> parameter by default, models without this parameter
+     * should estimate it from the other parameters.
+     *
+     * @return the expected number of links
+     */
+    protected int expectedLinks() {
+        return config.getInt(NetworkProvider.P_NUM_LINKS, 0);
+    }
+
+    /**
+     * Converts an estimated size to a capacity that can be allocated
+     */
+    static int toCapacity(double expected) {
+        return (int) Math.max(0, Math.min(expected, 1 << 30));
     }
 
     abstract Configuration defaultConfiguration(Configuration config);
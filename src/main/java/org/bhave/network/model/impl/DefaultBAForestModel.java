@@ -26,8 +26,8 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
-import org.bhave.network.api.Node;
 import org.bhave.network.model.BAForestModel;
 
 import com.google.inject.Inject;
@@ -63,8 +63,7 @@ public class DefaultBAForestModel extends AbstractNetworkModel implements
     }
 
     @Override
-    public void generateNetwork() {
-        resetModel();
+    public void generateNetwork(EdgeSink sink) {
         // get configuration values
         int n = config.getInt(PARAM_NUM_NODES);
 
@@ -87,26 +86,22 @@ public class DefaultBAForestModel extends AbstractNetworkModel implements
             numLinks++;
         }
 
-        Node[] nodes = new Node[n];
-        // add nodes to the network
-        for (int i = 0; i < n; i++) {
-            Node newNode = network.createNode();
-            network.addNode(newNode);
-            nodes[i] = newNode;
-        }
         // use the existing random number generator to shuffle our nodes
         RandomDataGenerator randomPerm = new RandomDataGenerator(random);
         int[] perm = randomPerm.nextPermutation(n, n);
 
         // add links to the Network
+        sink.onNodes(n);
         for (int i = 0; i < linkPool.length; i += 2) {
-            Node node1 = nodes[perm[linkPool[i]]];
-
-            Node node2 = nodes[perm[linkPool[i + 1]]];
-            network.addLink(node1, node2);
+            sink.accept(perm[linkPool[i]], perm[linkPool[i + 1]]);
         }
     }
 
+    @Override
+    protected int expectedLinks() {
+        return Math.max(0, config.getInt(PARAM_NUM_NODES) - 1);
+    }
+
     @Override
     public void configure(int numNodes, long seed)
             throws ConfigurationException {
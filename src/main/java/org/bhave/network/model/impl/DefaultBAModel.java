@@ -22,16 +22,14 @@
  */
 package org.bhave.network.model.impl;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
-import org.bhave.network.api.Node;
 import org.bhave.network.model.BAModel;
+import org.bhave.network.model.utils.FenwickTree;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -40,6 +38,15 @@ import com.google.inject.Provider;
  * Efficient implementation of Preferential Attachment for the
  * {@link DefaultBAModel}.
  *
+ * <p> Each new node is linked to d distinct existing nodes selected with a
+ * probability proportional to their degree before the node was added. By
+ * default nodes are drawn from a pool with an entry per link end (as in
+ * {@link DefaultBAForestModel}), drawing again when a node was already
+ * selected, which takes O(n d) time. In <b>compatible</b> mode nodes are
+ * selected from the cumulative degrees kept in a {@link FenwickTree}, in
+ * O(n d log n), consuming the random numbers exactly like previous versions
+ * of this model. </p>
+ *
  * @author Davide Nunes
  *
  */
@@ -47,6 +54,7 @@ public class DefaultBAModel extends AbstractNetworkModel implements BAModel {
 
     private static final String PARAM_NUM_NODES = P_NUM_NODES;
     private static final String PARAM_MIN_DEG = P_D;
+    private static final String PARAM_COMPATIBLE = P_COMPATIBLE;
 
     @Inject
     public DefaultBAModel(Configuration config, RandomGenerator random,
@@ -56,93 +64,131 @@ public class DefaultBAModel extends AbstractNetworkModel implements BAModel {
     }
 
     @Override
-    public void generateNetwork() {
+    public void generateNetwork(EdgeSink sink) {
         // get configuration values
         int n = config.getInt(PARAM_NUM_NODES);
         int d = config.getInt(PARAM_MIN_DEG);
 
-        Node[] nodes = new Node[n];
-        // add nodes to the network
-        for (int i = 0; i < n; i++) {
-            Node newNode = network.createNode();
-            network.addNode(newNode);
-            nodes[i] = newNode;
-        }
+        sink.onNodes(n);
 
         // use the existing random number generator to shuffle our nodeArray
         RandomDataGenerator randomPerm = new RandomDataGenerator(random);
         int[] perm = randomPerm.nextPermutation(n, n);
-		// from now on instead of using nodes[i] you use nodes[perm[i]] to get
+        // from now on instead of using node i you use node perm[i] to get
         // the node indicated by the permutation
 
+        if (config.getBoolean(PARAM_COMPATIBLE, false)) {
+            cumulativeAttachment(sink, perm, n, d);
+        } else {
+            poolAttachment(sink, perm, n, d);
+        }
+    }
+
+    /**
+     * Selects the nodes from a pool with an entry for each end of each link,
+     * so each node appears as many times as its degree
+     */
+    private void poolAttachment(EdgeSink sink, int[] perm, int n, int d) {
+        long numLinks = linkCount(n, d);
+        if (2 * numLinks > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many links for the link pool: " + numLinks);
+        }
+        int[] linkPool = new int[(int) (2 * numLinks)];
+        int[] current = new int[d];
+
+        // add 2 nodes
+        sink.accept(perm[0], perm[1]);
+        linkPool[0] = 0;
+        linkPool[1] = 1;
+        int poolSize = 2;
+
+        // add the rest of the nodes
+        for (int v = 2; v < n; v++) {
+            // only the links before node v count for its selection
+            int maxLimit = poolSize;
+            int links = Math.min(d, v);
+            for (int i = 0; i < links; i++) {
+                int p;
+                do {
+                    p = linkPool[random.nextInt(maxLimit)];
+                } while (contains(current, i, p));
+                current[i] = p;
+                sink.accept(perm[v], perm[p]);
+                linkPool[poolSize++] = v;
+                linkPool[poolSize++] = p;
+            }
+        }
+    }
+
+    /**
+     * Selects the nodes from the cumulative distribution of the node scores.
+     * Selected nodes are excluded by setting their score to 0 until all the
+     * links of the new node are added.
+     */
+    private void cumulativeAttachment(EdgeSink sink, int[] perm, int n,
+            int d) {
         // pool for node scores
         int[] scores = new int[n];
-        int numLinks = 0;
+        FenwickTree cumulativeScores = new FenwickTree(n);
+        int[] current = new int[d];
 
         // add 2 nodes
-        network.addLink(nodes[perm[0]], nodes[perm[1]]);
+        sink.accept(perm[0], perm[1]);
         scores[0] = 1;
         scores[1] = 1;
-        numLinks = 1;
+        cumulativeScores.add(0, 1);
+        cumulativeScores.add(1, 1);
 
         // add the rest of the nodes
         for (int v = 2; v < n; v++) {
-
-            // current nodes involved
-            HashSet<Integer> current = new HashSet<>();
-
-            int maxLimit = numLinks * 2;
-            int i = 0;
+            int i;
             // add d nodes
             for (i = 0; i < d && i < v; i++) {
-                int tempMaxLimit = maxLimit;
-                for (Integer e : current) {
-                    tempMaxLimit -= scores[e];
-                }
-                int r = random.nextInt(tempMaxLimit);
-
-                int p = preferentialAttachment(scores, r, tempMaxLimit, current);
-                network.addLink(nodes[perm[v]], nodes[perm[p]]);
-                numLinks++;
-                current.add(p);
+                int r = random.nextInt(cumulativeScores.total());
+                int p = cumulativeScores.find(r);
+                sink.accept(perm[v], perm[p]);
+                cumulativeScores.add(p, -scores[p]);
+                current[i] = p;
             }
-            scores[v] += i;
-            for (Integer e : current) {
-                scores[e]++;
+            for (int j = 0; j < i; j++) {
+                int p = current[j];
+                scores[p]++;
+                cumulativeScores.add(p, scores[p]);
             }
+            scores[v] += i;
+            cumulativeScores.add(v, i);
+        }
+    }
 
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
-     * Select Partner according to a cumulative distribution of the node scores
-     *
-     * @param scores node degree scores
-     * @param r a random number uniformly selected between 0 and the sum of all
-     * node degrees
-     * @param maxScore
-     *
-     * @param exclude
-     *
-     * @return a node according to the preferential attachment mechanism
+     * Number of links generated, one for the first 2 nodes and d for each of
+     * the others, or as many as there are nodes before them
      */
-    private int preferentialAttachment(int[] scores, int r, int maxScore,
-            Set<Integer> exclude) {
-
-        int currentScore = 0;
-        int i = 0;
-        do {
-            // skip excluded
-            if (!exclude.contains(i)) {
-                currentScore += scores[i];
-                if (r < currentScore) {
-                    return i;
-                }
+    private static long linkCount(int n, int d) {
+        long links = 1;
+        for (long v = 2; v < n; v++) {
+            if (v >= d) {
+                return links + (n - v) * (long) d;
             }
-            i++;
-        } while (currentScore < maxScore);
+            links += v;
+        }
+        return links;
+    }
 
-        return -1;
+    @Override
+    protected int expectedLinks() {
+        int n = config.getInt(PARAM_NUM_NODES);
+        int d = config.getInt(PARAM_MIN_DEG);
+        return toCapacity(linkCount(n, d));
     }
 
     @Override
@@ -175,6 +221,7 @@ public class DefaultBAModel extends AbstractNetworkModel implements BAModel {
     Configuration defaultConfiguration(Configuration config) {
         config.setProperty(PARAM_NUM_NODES, 2);
         config.setProperty(PARAM_MIN_DEG, 1);
+        config.setProperty(PARAM_COMPATIBLE, false);
         config.setProperty(PARAM_SEED, System.currentTimeMillis());
         return config;
     }
@@ -26,8 +26,8 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
-import org.bhave.network.api.Node;
 import org.bhave.network.model.KRegularModel;
 
 import com.google.inject.Inject;
@@ -77,18 +77,12 @@ public class DefaultKRegularModel extends AbstractNetworkModel implements
 	}
 
 	@Override
-	public void generateNetwork() {
+	public void generateNetwork(EdgeSink sink) {
 
 		int numNodes = config.getInt(NUM_NODES_PARAM);
 		int k = config.getInt(K_PARAM);
 
-		Node[] nodes = new Node[numNodes];
-		// add nodes to the network
-		for (int i = 0; i < numNodes; i++) {
-			Node newNode = network.createNode();
-			network.addNode(newNode);
-			nodes[i] = newNode;
-		}
+		sink.onNodes(numNodes);
 
 		// use the existing random number generator to shuffle our nodeArray
 		RandomDataGenerator randomPerm = new RandomDataGenerator(random);
@@ -97,13 +91,12 @@ public class DefaultKRegularModel extends AbstractNetworkModel implements
 		// create the regular network
 		for (int i = 0; i < numNodes; i++) {
 			int j = 1;
-			// add links to the next k neighbours without duplicated links
+			// add links to the next k neighbours without duplicated links,
+			// the pairs (i, i + j) only repeat if j == numNodes / 2 and then
+			// (i, i + j) is the same as (i + j, i + 2j)
 			while (j <= k) {
-				Node n1 = nodes[perm[i]];
-				Node n2 = nodes[perm[(i + j) % numNodes]];
-
-				if (!network.containsLinks(n1, n2)) {
-					network.addLink(n1, n2);
+				if (2 * j != numNodes || i < j) {
+					sink.accept(perm[i], perm[(i + j) % numNodes]);
 				}
 				j++;
 			}
@@ -111,6 +104,12 @@ public class DefaultKRegularModel extends AbstractNetworkModel implements
 
 	}
 
+	@Override
+	protected int expectedLinks() {
+		return toCapacity((double) config.getInt(NUM_NODES_PARAM)
+				* config.getInt(K_PARAM));
+	}
+
 	@Override
 	public void configure(int numNodes, int k, long seed)
 			throws ConfigurationException {
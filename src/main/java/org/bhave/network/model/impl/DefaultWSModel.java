@@ -3,24 +3,25 @@
  */
 package org.bhave.network.model.impl;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
-import org.bhave.network.api.Link;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
-import org.bhave.network.api.Node;
-import org.bhave.network.model.KRegularModel;
 import org.bhave.network.model.WSModel;
-import org.bhave.network.model.utils.NetworkModelUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 /**
+ * Default implementation of {@link WSModel}. The ring lattice is generated as
+ * by {@link org.bhave.network.model.KRegularModel} and rewired on sorted
+ * neighbour arrays of the nodes before the network is built in a single
+ * pass.
+ *
  * @author Davide Nunes
  *
  */
@@ -29,56 +30,127 @@ public class DefaultWSModel extends AbstractNetworkModel implements WSModel {
     private static final String PARAM_NUM_NODES = P_NUM_NODES;
     private static final String PARAM_DEGREE = P_D;
     private static final String PARAM_REATTACHP = P_P;
-    private final KRegularModel regularModel;
-
     @Inject
     public DefaultWSModel(Configuration config, RandomGenerator random,
-            Provider<Network> networkProvider, KRegularModel regularModel) {
+            Provider<Network> networkProvider) {
         super(config, random, networkProvider);
-        this.regularModel = regularModel;
     }
 
     @Override
-    void generateNetwork() {
+    void generateNetwork(EdgeSink sink) {
         int n = config.getInt(PARAM_NUM_NODES);
+        int d = config.getInt(PARAM_DEGREE);
         double p = config.getDouble(PARAM_REATTACHP);
 
-        // regular model was already configured and is ready to be used
-        network = regularModel.generate();
-
-        ArrayList<Link> links = new ArrayList<>(network.getLinks());
+        // ring lattice over a random permutation of the nodes, each node
+        // linked to the next d nodes
+        int[] perm = new RandomDataGenerator(random).nextPermutation(n, n);
+        int m = n * d;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        for (int i = 0, l = 0; i < n; i++) {
+            for (int j = 1; j <= d; j++, l++) {
+                from[l] = perm[i];
+                to[l] = perm[(i + j) % n];
+            }
+        }
 
         if (p > 0) {
-            for (int l = 0; l < links.size(); l++) {
+            // restarts the same generator on purpose, the rewiring replays the
+            // numbers used by the permutation to give the same networks as
+            // building the lattice with a KRegularModel and rewiring it with
+            // another generator, both seeded with the same seed
+            random.setSeed(config.getLong(PARAM_SEED));
+
+            int[][] neighbours = new int[n][2 * d];
+            int[] degree = new int[n];
+            for (int l = 0; l < m; l++) {
+                neighbours[from[l]][degree[from[l]]++] = to[l];
+                neighbours[to[l]][degree[to[l]]++] = from[l];
+            }
+            for (int v = 0; v < n; v++) {
+                Arrays.sort(neighbours[v]);
+            }
+
+            for (int l = 0; l < m; l++) {
                 double r = random.nextDouble();
                 // re-wire the current link
-                if (r < p) {
-                    Pair<Node, Node> nodes = links.get(l).nodes();
-                    // get a random node excluding its current neighbours
-
-                    ArrayList<Integer> toExclude = new ArrayList<>();
-                    // the first node is to be excluded
-                    toExclude.add(nodes.getLeft().getID());
-                    for (Node neighbour : network
-                            .getNeighbours(nodes.getLeft())) {
-                        toExclude.add(neighbour.getID());
-                    }
-                    Collections.sort(toExclude);
-
-                    int[] exclude = new int[toExclude.size()];
-                    for (int i = 0; i < toExclude.size(); i++) {
-                        exclude[i] = toExclude.get(i);
-                    }
-                    int newPartner = NetworkModelUtils.getRandomNode(random, n,
-                            exclude);
-
-                    network.removeLink(links.get(l));
-                    network.addLink(nodes.getLeft(),
-                            network.getNode(newPartner));
+                int u = from[l];
+                if (r < p && degree[u] < n - 1) {
+                    // a random node that is not u or one of its neighbours
+                    int w = nthFree(neighbours[u], degree[u], u,
+                            random.nextInt(n - degree[u] - 1));
+
+                    remove(neighbours, degree, u, to[l]);
+                    remove(neighbours, degree, to[l], u);
+                    insert(neighbours, degree, u, w);
+                    insert(neighbours, degree, w, u);
+                    to[l] = w;
+                }
+            }
+        }
+
+        sink.onNodes(n);
+        for (int l = 0; l < m; l++) {
+            sink.accept(from[l], to[l]);
+        }
+    }
+
+    /**
+     * Returns the node with index r among the nodes that are neither the
+     * given node nor one of its sorted neighbours.
+     */
+    private static int nthFree(int[] sorted, int count, int node, int r) {
+        boolean nodeSkipped = false;
+        for (int i = 0; i < count; i++) {
+            if (!nodeSkipped && node < sorted[i]) {
+                if (r < node) {
+                    return r;
                 }
+                r++;
+                nodeSkipped = true;
             }
+            if (r < sorted[i]) {
+                return r;
+            }
+            r++;
+        }
+        if (!nodeSkipped && r >= node) {
+            r++;
         }
+        return r;
+    }
 
+    private static void insert(int[][] neighbours, int[] degree, int node,
+            int neighbour) {
+        int[] sorted = neighbours[node];
+        int count = degree[node];
+        if (count == sorted.length) {
+            sorted = Arrays.copyOf(sorted, 2 * count + 1);
+            neighbours[node] = sorted;
+        }
+        int i = count;
+        while (i > 0 && sorted[i - 1] > neighbour) {
+            sorted[i] = sorted[i - 1];
+            i--;
+        }
+        sorted[i] = neighbour;
+        degree[node]++;
+    }
+
+    private static void remove(int[][] neighbours, int[] degree, int node,
+            int neighbour) {
+        int[] sorted = neighbours[node];
+        int count = degree[node];
+        int i = Arrays.binarySearch(sorted, 0, count, neighbour);
+        System.arraycopy(sorted, i + 1, sorted, i, count - i - 1);
+        degree[node]--;
+    }
+
+    @Override
+    protected int expectedLinks() {
+        return toCapacity((double) config.getInt(PARAM_NUM_NODES)
+                * config.getInt(PARAM_DEGREE));
     }
 
     @Override
@@ -87,7 +159,6 @@ public class DefaultWSModel extends AbstractNetworkModel implements WSModel {
         int numNodes = configuration.getInt(PARAM_NUM_NODES);
         int d = configuration.getInt(PARAM_DEGREE);
         double p = configuration.getDouble(PARAM_REATTACHP);
-        long seed = config.getLong(PARAM_SEED);
 
         if (numNodes < 0) {
             throw new ConfigurationException(PARAM_NUM_NODES
@@ -103,9 +174,6 @@ public class DefaultWSModel extends AbstractNetworkModel implements WSModel {
                     + "must be within: 0 <= p < 1");
         }
 
-        // also configures the kRegular network model
-        regularModel.configure(numNodes, d, seed);
-
     }
 
     @Override
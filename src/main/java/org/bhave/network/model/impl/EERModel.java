@@ -2,19 +2,22 @@ package org.bhave.network.model.impl;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
-import org.bhave.network.api.Node;
 import org.bhave.network.model.ERModel;
-import org.bhave.network.model.utils.NetworkModelUtils;
+import org.bhave.network.model.utils.LongHashSet;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 /**
- * Efficient Implementation for the {@link ERModel}.
- *
+ * Efficient Implementation for the {@link ERModel}. The pairs of nodes are
+ * numbered with <code>long</code> indexes and the m indexes linked are drawn
+ * with Floyd's algorithm, which takes exactly one random number per link.
+ * Networks with more than half of the possible links are generated from the
+ * pairs left unlinked instead, so the number of draws is never larger than
+ * half the number of pairs.
  *
  * @author Davide Nunes
  *
@@ -40,33 +43,82 @@ public class EERModel extends AbstractNetworkModel implements ERModel {
     }
 
     @Override
-    public void generateNetwork() {
+    public void generateNetwork(EdgeSink sink) {
         int n = config.getInt(PARAM_NUM_NODES);
         int m = config.getInt(PARAM_NUM_LINKS);
+        long pairs = pairCount(n);
+
+        sink.onNodes(n);
+
+        if (m <= pairs / 2) {
+            // links are added as their pairs are drawn
+            LongHashSet linked = new LongHashSet(m);
+            for (long j = pairs - m; j < pairs; j++) {
+                long index = nextLong(random, j + 1);
+                if (!linked.add(index)) {
+                    index = j;
+                    linked.add(j);
+                }
+                addPair(sink, index);
+            }
+        } else {
+            // pairs is at most 2m, so all the pairs can be scanned
+            long excluded = pairs - m;
+            LongHashSet unlinked = new LongHashSet((int) excluded);
+            for (long j = pairs - excluded; j < pairs; j++) {
+                if (!unlinked.add(nextLong(random, j + 1))) {
+                    unlinked.add(j);
+                }
+            }
+            long index = 0;
+            for (int v = 1; v < n; v++) {
+                for (int w = 0; w < v; w++, index++) {
+                    if (!unlinked.contains(index)) {
+                        sink.accept(v, w);
+                    }
+                }
+            }
+        }
+    }
 
-        Node[] nodes = new Node[n];
-        // add nodes to the network
-        for (int i = 0; i < n; i++) {
-            Node newNode = network.createNode();
-            network.addNode(newNode);
-            nodes[i] = newNode;
+    /**
+     * Number of pairs of distinct nodes in a network with n nodes
+     */
+    static long pairCount(int n) {
+        return (long) n * (n - 1) / 2;
+    }
+
+    /**
+     * Adds the link of the pair with the given index. Pairs (v, w) with w &lt;
+     * v are numbered by v and then by w, so the pairs of node v start at
+     * v * (v - 1) / 2.
+     */
+    private static void addPair(EdgeSink sink, long index) {
+        int v = (int) ((1 + Math.sqrt(1 + 8.0 * index)) / 2);
+        // the square root is not exact for large indexes
+        while ((long) v * (v - 1) / 2 > index) {
+            v--;
+        }
+        while ((long) v * (v + 1) / 2 <= index) {
+            v++;
         }
+        sink.accept(v, (int) (index - (long) v * (v - 1) / 2));
+    }
 
-        for (int i = 0; i < m; i++) {
-            int r = 0;
-            Node node1 = null;
-            Node node2 = null;
-            do {
-                // n * (n-1) / 2 = number of possible links
-                r = random.nextInt(n * (n - 1) / 2);
-                Pair<Integer, Integer> link = NetworkModelUtils.getLink(r, n);
-                node1 = nodes[link.getLeft()];
-                node2 = nodes[link.getRight()];
-            } while (network.containsLinks(node1, node2));
-
-            network.addLink(node1, node2);
+    /**
+     * Draws a long uniformly from 0 (inclusive) to bound (exclusive)
+     */
+    private static long nextLong(RandomGenerator random, long bound) {
+        if (bound <= Integer.MAX_VALUE) {
+            return random.nextInt((int) bound);
         }
-        // done
+        long bits, value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+            // rejects the last incomplete range of values, as Random.nextInt
+        } while (bits - value + (bound - 1) < 0);
+        return value;
     }
 
     @Override
@@ -85,7 +137,7 @@ public class EERModel extends AbstractNetworkModel implements ERModel {
         int numNodes = config.getInt(PARAM_NUM_NODES);
         int numLinks = config.getInt(PARAM_NUM_LINKS);
 
-        long maxNumLink = numNodes * (numNodes - 1) / 2;
+        long maxNumLink = pairCount(numNodes);
 
         if (numNodes < 0) {
             throw new ConfigurationException(PARAM_NUM_NODES + " must be >= 0");
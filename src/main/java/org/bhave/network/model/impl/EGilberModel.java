@@ -22,13 +22,17 @@
  */
 package org.bhave.network.model.impl;
 
+import java.util.concurrent.ForkJoinPool;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.util.FastMath;
+import org.bhave.network.algorithms.Parallel;
+import org.bhave.network.api.EdgeSink;
 import org.bhave.network.api.Network;
-import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.NetworkBuilder;
 import org.bhave.network.model.GilbertModel;
+import org.bhave.network.model.utils.SplitMixRandom;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -43,6 +47,12 @@ public class EGilberModel extends AbstractNetworkModel implements GilbertModel {
 
     private static final String PARAM_NUM_NODES = P_NUM_NODES;
     private static final String PARA_ATTACH_P = P_P;
+    private static final String PARAM_THREADS = P_THREADS;
+    // expected number of links sampled by each block of rows
+    private static final int BLOCK_LINKS = 1 << 16;
+    private static final int MAX_BLOCKS = 1 << 10;
+    // blocks sampled by each thread before their links are passed on
+    private static final int BATCH_BLOCKS = 4;
 
     @Inject
     public EGilberModel(Configuration config, RandomGenerator random,
@@ -54,6 +64,7 @@ public class EGilberModel extends AbstractNetworkModel implements GilbertModel {
     Configuration defaultConfiguration(Configuration config) {
         config.setProperty(PARAM_NUM_NODES, 10);
         config.setProperty(PARA_ATTACH_P, 0.5);
+        config.setProperty(PARAM_THREADS, 0);
         config.setProperty(PARAM_SEED, System.currentTimeMillis());
         return config;
     }
@@ -72,35 +83,120 @@ public class EGilberModel extends AbstractNetworkModel implements GilbertModel {
             throw new ConfigurationException(PARA_ATTACH_P
                     + " must be within: 0 < p < 1");
         }
+
+        if (config.getInt(PARAM_THREADS, 0) < 0) {
+            throw new ConfigurationException(PARAM_THREADS + " must be >= 0");
+        }
     }
 
     @Override
-    public void generateNetwork() {
+    public void generateNetwork(EdgeSink sink) {
         int n = config.getInt(PARAM_NUM_NODES);
         double p = config.getDouble(PARA_ATTACH_P);
+        int threads = config.getInt(PARAM_THREADS, 0);
 
-        Node[] nodes = new Node[n];
-        // add nodes to the network
-        for (int i = 0; i < n; i++) {
-            Node newNode = network.createNode();
-            network.addNode(newNode);
-            nodes[i] = newNode;
+        sink.onNodes(n);
+        if (p > 0) {
+            if (threads == 0) {
+                sampleRows(random, p, 1, n, sink);
+            } else {
+                sampleBlocks(n, p, threads, sink);
+            }
         }
+    }
+
+    /**
+     * Samples the pairs of nodes in blocks of consecutive rows, where the row
+     * of node v holds the pairs (v, w) with w < v. The number of blocks and
+     * the generator of each block depend only on the configuration, so the
+     * links are the same for any number of threads. Blocks are sampled in
+     * batches, only the links of the current batch are kept in memory.
+     */
+    private void sampleBlocks(final int n, final double p, int threads,
+            EdgeSink sink) {
+        final long seed = config.getLong(PARAM_SEED);
+        double pairs = (double) n * (n - 1) / 2;
+        int blocks = (int) Math.min(Math.min(MAX_BLOCKS, n),
+                Math.max(1, Math.ceil(p * pairs / BLOCK_LINKS)));
+        final int[] rows = blockRows(n, blocks);
+        final NetworkBuilder[] blockBuilders = new NetworkBuilder[blocks];
 
-        int v = 1, w = -1;
-        while (v < n) {
+        Parallel.RangeTask sampleBlock = new Parallel.RangeTask() {
+            @Override
+            public long run(int from, int to) {
+                for (int k = from; k < to; k++) {
+                    double rowPairs = ((double) rows[k + 1] * (rows[k + 1] - 1)
+                            - (double) rows[k] * (rows[k] - 1)) / 2;
+                    NetworkBuilder block = new NetworkBuilder(toCapacity(p * rowPairs));
+                    block.addNodes(n);
+                    sampleRows(SplitMixRandom.stream(seed, k), p,
+                            rows[k], rows[k + 1], block);
+                    blockBuilders[k] = block;
+                }
+                return 0;
+            }
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int batch = BATCH_BLOCKS * threads;
+            for (int first = 0; first < blocks; first += batch) {
+                int end = Math.min(blocks, first + batch);
+                Parallel.forRange(pool, first, end, 1, sampleBlock);
+                for (int k = first; k < end; k++) {
+                    blockBuilders[k].forEachLink(sink);
+                    blockBuilders[k] = null;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the first row of each block and n at the end. Row v holds v
+     * pairs, so the boundaries grow with the square root of the block index
+     * to give each block about the same number of pairs.
+     */
+    private static int[] blockRows(int n, int blocks) {
+        int[] rows = new int[blocks + 1];
+        for (int k = 1; k < blocks; k++) {
+            rows[k] = (int) (n * Math.sqrt((double) k / blocks));
+        }
+        rows[blocks] = n;
+        return rows;
+    }
+
+    /**
+     * Links each pair (v, w), with firstRow <= v < endRow and w < v, with
+     * probability p. Rather than drawing a number per pair, draws the number
+     * of pairs skipped until the next link from a geometric distribution.
+     */
+    private static void sampleRows(RandomGenerator random, double p,
+            int firstRow, int endRow, EdgeSink sink) {
+        double logQ = FastMath.log(1 - p);
+        int v = firstRow;
+        long w = -1;
+        while (v < endRow) {
             double r = random.nextDouble();
-            w += 1 + (FastMath.log(1 - r) / FastMath.log(1 - p));
-            while (w >= v && v < n) {
+            w += 1 + (FastMath.log(1 - r) / logQ);
+            while (w >= v && v < endRow) {
                 w = w - v;
                 v++;
             }
-            if (v < n) {
-                network.addLink(nodes[v], nodes[w]);
+            if (v < endRow) {
+                sink.accept(v, (int) w);
             }
         }
     }
 
+    @Override
+    protected int expectedLinks() {
+        int n = config.getInt(PARAM_NUM_NODES);
+        double p = config.getDouble(PARA_ATTACH_P);
+        return toCapacity(p * ((double) n * (n - 1) / 2));
+    }
+
     @Override
     public void configure(int numNodes, double p, long seed)
             throws ConfigurationException {
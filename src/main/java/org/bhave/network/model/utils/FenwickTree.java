@@ -0,0 +1,118 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.model.utils;
+
+/**
+ * Array of non-negative <code>int</code> weights that keeps their prefix sums
+ * (a Fenwick or binary indexed tree). Changing a weight and finding the
+ * position of a cumulative weight both take O(log n), which lets the network
+ * models sample positions proportionally to their weights.
+ *
+ * @author Davide Nunes
+ */
+public class FenwickTree {
+
+    // tree[i] holds the sum of the weights in (i - lowbit(i), i], 1-based
+    private final int[] tree;
+    private final int size;
+    private final int topStep;
+    private int total;
+
+    /**
+     * Creates a tree with the given number of positions, all with weight 0
+     *
+     * @param size the number of positions
+     */
+    public FenwickTree(int size) {
+        this.size = size;
+        this.tree = new int[size + 1];
+        this.topStep = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    /**
+     * Returns the number of positions
+     *
+     * @return the size of the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a value to the weight of a position, weights must remain
+     * non-negative
+     *
+     * @param index a position
+     * @param delta the value to be added
+     */
+    public void add(int index, int delta) {
+        total += delta;
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the sum of the weights of the positions from 0 to index,
+     * inclusive
+     *
+     * @param index a position
+     * @return a cumulative weight
+     */
+    public int prefixSum(int index) {
+        int sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of all the weights
+     *
+     * @return the total weight
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Returns the first position whose cumulative weight is larger than the
+     * given value. For a value drawn uniformly from [0, {@link #total()}) each
+     * position is returned with a probability proportional to its weight.
+     *
+     * @param value a value in [0, {@link #total()})
+     * @return a position with a weight larger than 0
+     */
+    public int find(int value) {
+        int position = 0;
+        for (int step = topStep; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= size && tree[next] <= value) {
+                position = next;
+                value -= tree[next];
+            }
+        }
+        return position;
+    }
+}
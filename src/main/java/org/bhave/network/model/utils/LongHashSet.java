@@ -0,0 +1,144 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.model.utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of <code>long</code> values backed by an open addressing table. Used
+ * by the network models to keep track of which node pairs already have a link
+ * without boxing each pair.
+ *
+ * @author Davide Nunes
+ */
+public class LongHashSet {
+
+    // marks free slots, stored separately if it is added to the set
+    private static final long FREE = Long.MIN_VALUE;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // the table is kept at most half full
+    private static final int MAX_SIZE = MAX_CAPACITY / 2;
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsFree;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Creates a set with room for the given number of values
+     *
+     * @param expectedSize the number of values expected
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity / 2 < expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        Arrays.fill(table, FREE);
+        mask = capacity - 1;
+    }
+
+    private int slot(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return (int) value & mask;
+    }
+
+    /**
+     * Adds a value to the set
+     *
+     * @param value the value to add
+     * @return true if the value was not in the set
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            checkSize();
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int i = slot(value);
+        while (table[i] != FREE) {
+            if (table[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        checkSize();
+        table[i] = value;
+        if (++size > (mask + 1) / 2) {
+            rehash();
+        }
+        return true;
+    }
+
+    private void checkSize() {
+        if (size == MAX_SIZE) {
+            throw new IllegalStateException("LongHashSet can't hold more than " + MAX_SIZE + " values");
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        int i = slot(value);
+        while (table[i] != FREE) {
+            if (table[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] old = table;
+        allocate(2 * old.length);
+        for (long value : old) {
+            if (value != FREE) {
+                int i = slot(value);
+                while (table[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+}
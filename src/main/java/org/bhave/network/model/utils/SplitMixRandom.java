@@ -0,0 +1,106 @@
+/**
+ * Copyright 2013 Davide Nunes Authors : Davide Nunes <davex.pt@gmail.com>
+ * Website : http://davidenunes.com
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * This file is part of the b-have network library.
+ *
+ * The b-have network library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ *
+ * The b-have network library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * the b-have network library. If not, see
+ * <http://www.gnu.org/licenses/gpl.html>.
+ */
+package org.bhave.network.model.utils;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**
+ * Random generator based on SplitMix64 (Steele, Lea and Flood 2014). Its
+ * state is a single <code>long</code>, so it is cheap to create one generator
+ * for each of many parallel tasks. {@link #stream(long, long)} derives the
+ * generator of a task from a seed and the index of the task, which makes
+ * the numbers drawn by each task depend only on the seed and not on the
+ * order or the threads in which the tasks run.
+ *
+ * @author Davide Nunes
+ */
+public class SplitMixRandom extends BitsStreamGenerator {
+
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private long state;
+
+    /**
+     * Creates a generator with the given seed
+     *
+     * @param seed the initial state
+     */
+    public SplitMixRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Returns the generator for the stream with the given index. The seed of
+     * each stream is the output of a SplitMix64 generator seeded with the
+     * given seed at the position of the index.
+     *
+     * @param seed the seed shared by all the streams
+     * @param index the index of the stream
+     * @return a new generator
+     */
+    public static SplitMixRandom stream(long seed, long index) {
+        return new SplitMixRandom(mix(seed + (index + 1) * GOLDEN_GAMMA));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        setSeed((long) seed);
+    }
+
+    @Override
+    public void setSeed(int[] seed) {
+        long combined = 0;
+        for (int value : seed) {
+            combined = combined * GOLDEN_GAMMA + value;
+        }
+        setSeed(combined);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state = seed;
+        clear();
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+}
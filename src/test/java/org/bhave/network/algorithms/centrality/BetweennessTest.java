@@ -0,0 +1,209 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class BetweennessTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testPathAndStar() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(4);
+        builder.addLink(0, 1);
+        builder.addLink(1, 2);
+        builder.addLink(2, 3);
+        Centrality path = new Betweenness(builder.buildCsrNetwork(false), pool).compute();
+        assertArrayEquals(new double[]{0, 2, 2, 0}, path.getValues(), 1e-12);
+        assertEquals(4, path.getIterations());
+
+        builder = new NetworkBuilder();
+        builder.addNodes(6);
+        for (int i = 1; i < 6; i++) {
+            builder.addLink(0, i);
+        }
+        Betweenness betweenness = new Betweenness(builder.buildCsrNetwork(false), pool);
+        assertEquals(10, betweenness.compute().getValue(0), 1e-12);
+        betweenness.setNormalized(true);
+        assertArrayEquals(new double[]{1, 0, 0, 0, 0, 0},
+                betweenness.compute().getValues(), 1e-12);
+    }
+
+    @Test
+    public void testUndirected() {
+        CsrNetwork network = randomNetwork(80, 160, false, false, 1);
+        assertArrayEquals(reference(network, false),
+                new Betweenness(network, pool).compute().getValues(), 1e-9);
+    }
+
+    @Test
+    public void testDirectedWeighted() {
+        CsrNetwork network = randomNetwork(80, 320, true, true, 2);
+        Betweenness betweenness = new Betweenness(network, pool);
+        betweenness.setWeighted(true);
+        assertArrayEquals(reference(network, true), betweenness.compute().getValues(), 1e-9);
+    }
+
+    @Test
+    public void testUndirectedWeighted() {
+        CsrNetwork network = randomNetwork(80, 200, false, true, 3);
+        Betweenness betweenness = new Betweenness(network, pool);
+        betweenness.setWeighted(true);
+        assertArrayEquals(reference(network, true), betweenness.compute().getValues(), 1e-9);
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        CsrNetwork network = randomNetwork(3000, 9000, true, false, 4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertArrayEquals(new Betweenness(network, single).compute().getValues(),
+                    new Betweenness(network, pool).compute().getValues(), 1e-6);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testSampling() {
+        CsrNetwork network = randomNetwork(2000, 8000, false, false, 5);
+        double[] exact = new Betweenness(network, pool).compute().getValues();
+
+        Betweenness betweenness = new Betweenness(network, pool);
+        betweenness.setSampling(network.getNodeCount(), 0);
+        assertEquals(0, betweenness.getErrorBound(0.01), 0);
+        assertArrayEquals(exact, betweenness.compute().getValues(), 1e-6);
+
+        betweenness.setSampling(200, 7);
+        Centrality estimate = betweenness.compute();
+        assertEquals(200, estimate.getIterations());
+        double bound = betweenness.getErrorBound(0.01);
+        assertTrue(bound > 0);
+        double error = 0;
+        for (int i = 0; i < exact.length; i++) {
+            error = Math.max(error, Math.abs(exact[i] - estimate.getValue(i)));
+        }
+        assertTrue(error + " > " + bound, error <= bound);
+        // the same seed picks the same sources
+        assertArrayEquals(estimate.getValues(), betweenness.compute().getValues(), 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveLength() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2);
+        builder.addLink(0, 1, 0);
+        Betweenness betweenness = new Betweenness(builder.buildCsrNetwork(true), pool);
+        betweenness.setWeighted(true);
+        betweenness.compute();
+    }
+
+    /**
+     * Random network with integer lengths, so sums of lengths are exact
+     */
+    private static CsrNetwork randomNetwork(int n, int m, boolean directed,
+            boolean values, long seed) {
+        Random random = new Random(seed);
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(n);
+        for (int l = 0; l < m; l++) {
+            if (values) {
+                builder.addLink(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(4));
+            } else {
+                builder.addLink(random.nextInt(n), random.nextInt(n));
+            }
+        }
+        return builder.buildCsrNetwork(directed);
+    }
+
+    /**
+     * Betweenness from the definition, with distances and path counts of all
+     * pairs: v is on sigma(s, v) * sigma(v, t) shortest paths from s to t if
+     * d(s, v) + d(v, t) = d(s, t)
+     */
+    private static double[] reference(CsrNetwork network, boolean weighted) {
+        int n = network.getNodeCount();
+        double[][] distance = new double[n][];
+        double[][] paths = new double[n][];
+        for (int s = 0; s < n; s++) {
+            distance[s] = new double[n];
+            paths[s] = new double[n];
+            Arrays.fill(distance[s], Double.POSITIVE_INFINITY);
+            distance[s][s] = 0;
+            paths[s][s] = 1;
+            boolean[] settled = new boolean[n];
+            while (true) {
+                int v = -1;
+                for (int i = 0; i < n; i++) {
+                    if (!settled[i] && distance[s][i] < Double.POSITIVE_INFINITY
+                            && (v < 0 || distance[s][i] < distance[s][v])) {
+                        v = i;
+                    }
+                }
+                if (v < 0) {
+                    break;
+                }
+                settled[v] = true;
+                for (Link link : network.getLinks()) {
+                    int from = network.getNodeIndex(link.from());
+                    int to = network.getNodeIndex(link.to());
+                    double length = weighted ? link.getValue() : 1;
+                    for (int side = 0; side < (network.isDirected() ? 1 : 2); side++) {
+                        int a = side == 0 ? from : to;
+                        int b = side == 0 ? to : from;
+                        if (a != v || a == b) {
+                            continue;
+                        }
+                        if (distance[s][v] + length < distance[s][b]) {
+                            distance[s][b] = distance[s][v] + length;
+                            paths[s][b] = paths[s][v];
+                        } else if (distance[s][v] + length == distance[s][b]) {
+                            paths[s][b] += paths[s][v];
+                        }
+                    }
+                }
+            }
+        }
+        double[] betweenness = new double[n];
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                if (s == t || distance[s][t] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int v = 0; v < n; v++) {
+                    if (v != s && v != t && distance[s][v] + distance[v][t] == distance[s][t]) {
+                        betweenness[v] += paths[s][v] * paths[v][t] / paths[s][t];
+                    }
+                }
+            }
+        }
+        if (!network.isDirected()) {
+            for (int v = 0; v < n; v++) {
+                betweenness[v] /= 2;
+            }
+        }
+        return betweenness;
+    }
+}
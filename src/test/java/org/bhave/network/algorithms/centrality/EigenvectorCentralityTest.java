@@ -0,0 +1,83 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class EigenvectorCentralityTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testStar() {
+        // the star is bipartite, plain power iteration would oscillate
+        int leaves = 16;
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(leaves + 1);
+        for (int i = 1; i <= leaves; i++) {
+            builder.addLink(0, i);
+        }
+        EigenvectorCentrality centrality = new EigenvectorCentrality(
+                builder.buildCsrNetwork(false), pool);
+        centrality.setTolerance(1e-12);
+        centrality.setMaxIterations(1000);
+        Centrality values = centrality.compute();
+
+        assertTrue(values.isConverged());
+        // the eigenvalue is sqrt(leaves), the center has sqrt(leaves) times
+        // the centrality of each leaf
+        double leaf = values.getValue(1);
+        assertEquals(Math.sqrt(leaves) * leaf, values.getValue(0), 1e-9);
+        assertEquals(1, values.getValue(0) * values.getValue(0) + leaves * leaf * leaf, 1e-9);
+    }
+
+    @Test
+    public void testWeighted() {
+        // a directed cycle 0 -> 1 -> 2 -> 0 and a heavy link 0 -> 3 -> 0
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(4);
+        builder.addLink(0, 1, 1);
+        builder.addLink(1, 2, 1);
+        builder.addLink(2, 0, 1);
+        builder.addLink(0, 3, 4);
+        builder.addLink(3, 0, 4);
+        EigenvectorCentrality centrality = new EigenvectorCentrality(
+                builder.buildCsrNetwork(true), pool);
+        centrality.setWeighted(true);
+        centrality.setTolerance(1e-12);
+        centrality.setMaxIterations(1000);
+        double[] values = centrality.compute().getValues();
+
+        assertTrue(values[3] > values[1]);
+        assertTrue(values[0] > values[3]);
+        // x3 = 4 x0 / (lambda - 1) with the shift, x1 = x0 / (lambda - 1)
+        assertEquals(4 * values[1], values[3], 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNWeight() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2);
+        builder.addLink(0, 1, Double.NaN);
+        EigenvectorCentrality centrality = new EigenvectorCentrality(
+                builder.buildCsrNetwork(false), pool);
+        centrality.setWeighted(true);
+        centrality.compute();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.centrality;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class PageRankTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDirected() {
+        CsrNetwork network = randomNetwork(5000, 15000, true, false, 1);
+        PageRank pageRank = new PageRank(network, pool);
+        pageRank.setTolerance(1e-15);
+        pageRank.setMaxIterations(1000);
+        Centrality ranks = pageRank.compute();
+
+        assertTrue(ranks.isConverged());
+        assertEquals(1, sum(ranks.getValues()), 1e-9);
+        assertArrayEquals(reference(network, 0.85, false, null), ranks.getValues(), 1e-9);
+    }
+
+    @Test
+    public void testUndirectedRing() {
+        int n = 100;
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(n);
+        for (int i = 0; i < n; i++) {
+            builder.addLink(i, (i + 1) % n);
+        }
+        Centrality ranks = new PageRank(builder.buildCsrNetwork(false), pool).compute();
+        for (double rank : ranks.getValues()) {
+            assertEquals(1.0 / n, rank, 1e-12);
+        }
+    }
+
+    @Test
+    public void testWeightedAndPersonalized() {
+        CsrNetwork network = randomNetwork(3000, 9000, true, true, 2);
+        double[] personalization = new double[network.getNodeCount()];
+        for (int i = 0; i < personalization.length; i += 3) {
+            personalization[i] = i % 7 + 1;
+        }
+        PageRank pageRank = new PageRank(network, pool);
+        pageRank.setDamping(0.7);
+        pageRank.setWeighted(true);
+        pageRank.setPersonalization(personalization);
+        pageRank.setTolerance(1e-15);
+        pageRank.setMaxIterations(1000);
+        Centrality ranks = pageRank.compute();
+
+        assertEquals(1, sum(ranks.getValues()), 1e-9);
+        assertArrayEquals(reference(network, 0.7, true, personalization),
+                ranks.getValues(), 1e-9);
+    }
+
+    @Test
+    public void testDangling() {
+        // 0 -> 1, 1 is dangling and sends its rank back to 0
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2);
+        builder.addLink(0, 1);
+        PageRank pageRank = new PageRank(builder.buildCsrNetwork(true), pool);
+        pageRank.setDamping(0.5);
+        pageRank.setDangling(new double[]{1, 0});
+        pageRank.setTolerance(1e-12);
+        Centrality ranks = pageRank.compute();
+        // r0 = 0.25 + 0.5 r1, r1 = 0.25 + 0.5 r0
+        assertEquals(0.5, ranks.getValue(0), 1e-9);
+        assertEquals(0.5, ranks.getValue(1), 1e-9);
+    }
+
+    @Test
+    public void testThreads() {
+        CsrNetwork network = randomNetwork(10000, 40000, false, false, 3);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertTrue(Arrays.equals(new PageRank(network, single).compute().getValues(),
+                    new PageRank(network, pool).compute().getValues()));
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testWriteProperties() {
+        FastNetwork network = new FastNetwork(true);
+        Node[] nodes = new Node[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        network.addLink(nodes[0], nodes[2]);
+        network.addLink(nodes[1], nodes[2]);
+        Centrality ranks = new PageRank(network).compute();
+        ranks.writeProperties("pagerank");
+
+        double rank = Double.parseDouble(nodes[2].getProperty("pagerank"));
+        assertEquals(ranks.getValue(ranks.getValues().length - 1), rank, 0);
+        assertTrue(rank > Double.parseDouble(nodes[0].getProperty("pagerank")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPersonalization() {
+        CsrNetwork network = randomNetwork(10, 10, true, false, 4);
+        new PageRank(network, pool).setPersonalization(new double[10]);
+    }
+
+    private static CsrNetwork randomNetwork(int n, int m, boolean directed,
+            boolean values, long seed) {
+        Random random = new Random(seed);
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(n);
+        for (int l = 0; l < m; l++) {
+            if (values) {
+                builder.addLink(random.nextInt(n), random.nextInt(n), random.nextDouble());
+            } else {
+                builder.addLink(random.nextInt(n), random.nextInt(n));
+            }
+        }
+        return builder.buildCsrNetwork(directed);
+    }
+
+    /**
+     * Textbook power iteration pushing rank along the links
+     */
+    private static double[] reference(CsrNetwork network, double damping,
+            boolean weighted, double[] personalization) {
+        int n = network.getNodeCount();
+        double[] jump = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            jump[i] = personalization == null ? 1 : personalization[i];
+            total += jump[i];
+        }
+        for (int i = 0; i < n; i++) {
+            jump[i] /= total;
+        }
+        double[] out = new double[n];
+        for (Link link : network.getLinks()) {
+            double w = weighted ? link.getValue() : 1;
+            int from = network.getNodeIndex(link.from());
+            int to = network.getNodeIndex(link.to());
+            out[from] += w;
+            if (!network.isDirected() && from != to) {
+                out[to] += w;
+            }
+        }
+        double[] rank = jump.clone();
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            double[] next = new double[n];
+            double dangling = 0;
+            for (int i = 0; i < n; i++) {
+                if (out[i] == 0) {
+                    dangling += rank[i];
+                }
+            }
+            for (Link link : network.getLinks()) {
+                double w = weighted ? link.getValue() : 1;
+                int from = network.getNodeIndex(link.from());
+                int to = network.getNodeIndex(link.to());
+                next[to] += damping * rank[from] * w / out[from];
+                if (!network.isDirected() && from != to) {
+                    next[from] += damping * rank[to] * w / out[to];
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                next[i] += (1 - damping) * jump[i] + damping * dangling * jump[i];
+            }
+            rank = next;
+        }
+        return rank;
+    }
+
+    private static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.clustering;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.bhave.network.model.WSModel;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class TrianglesTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testComplete() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(5);
+        for (int i = 0; i < 5; i++) {
+            for (int j = i + 1; j < 5; j++) {
+                builder.addLink(i, j);
+            }
+        }
+        Clustering clustering = new Triangles(builder.buildCsrNetwork(false), pool).compute();
+        assertEquals(10, clustering.getTriangleCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(6, clustering.getTriangles(i));
+            assertEquals(4, clustering.getDegree(i));
+            assertEquals(1, clustering.getLocalCoefficient(i), 0);
+        }
+        assertEquals(1, clustering.getAverageCoefficient(), 0);
+        assertEquals(1, clustering.getGlobalCoefficient(), 0);
+    }
+
+    @Test
+    public void testRingLattice() throws ConfigurationException {
+        // without rewiring every node has 2d neighbours and the same clustering
+        int d = 3;
+        WSModel model = injector.getInstance(WSModel.class);
+        model.configure(1000, d, 0, 0);
+        Clustering clustering = new Triangles((FastNetwork) model.generate()).compute();
+        double expected = 3.0 * (2 * d - 2) / (4.0 * (2 * d - 1));
+        assertEquals(expected, clustering.getAverageCoefficient(), 1e-12);
+        assertEquals(expected, clustering.getGlobalCoefficient(), 1e-12);
+        assertEquals(1000 * 3 * (d - 1) * d / 2 / 3, clustering.getTriangleCount());
+    }
+
+    @Test
+    public void testUndirectedMultigraph() {
+        // repeated links and self loops do not count
+        CsrNetwork network = randomNetwork(300, 3000, false, 1);
+        assertMatchesReference(network, new Triangles(network, pool).compute());
+    }
+
+    @Test
+    public void testDirected() {
+        // direction is ignored
+        CsrNetwork network = randomNetwork(300, 3000, true, 2);
+        assertMatchesReference(network, new Triangles(network, pool).compute());
+    }
+
+    private static CsrNetwork randomNetwork(int n, int m, boolean directed, long seed) {
+        Random random = new Random(seed);
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(n);
+        for (int l = 0; l < m; l++) {
+            // skewed so some nodes have many more links than others
+            int from = (int) (n * Math.pow(random.nextDouble(), 3));
+            builder.addLink(from, random.nextInt(n));
+        }
+        return builder.buildCsrNetwork(directed);
+    }
+
+    /**
+     * Counts triangles from the neighbours of each node and the links between
+     * them
+     */
+    private static void assertMatchesReference(CsrNetwork network, Clustering clustering) {
+        long total = 0;
+        for (int u = 0; u < network.getNodeCount(); u++) {
+            Node node = network.getNodeAt(u);
+            Set<Node> neighbours = new HashSet<>(network.getNeighbours(node));
+            neighbours.remove(node);
+            long triangles = 0;
+            for (Node v : neighbours) {
+                for (Node w : neighbours) {
+                    if (network.getNodeIndex(v) < network.getNodeIndex(w)
+                            && (network.containsLinks(v, w) || network.containsLinks(w, v))) {
+                        triangles++;
+                    }
+                }
+            }
+            assertEquals(neighbours.size(), clustering.getDegree(u));
+            assertEquals(triangles, clustering.getTriangles(u));
+            total += triangles;
+        }
+        assertTrue(total > 0);
+        assertEquals(total, 3 * clustering.getTriangleCount());
+    }
+}
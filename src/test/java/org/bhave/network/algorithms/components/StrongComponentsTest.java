@@ -0,0 +1,92 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.components;
+
+import java.util.Random;
+import org.bhave.network.algorithms.traversal.BreadthFirstSearch;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class StrongComponentsTest {
+
+    @Test
+    public void testSmall() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(6);
+        builder.addLink(0, 1);
+        builder.addLink(1, 2);
+        builder.addLink(2, 0);
+        builder.addLink(2, 3);
+        builder.addLink(3, 4);
+        builder.addLink(4, 3);
+        FastNetwork network = builder.buildFastNetwork(true);
+
+        Components components = new StrongComponents(network).compute();
+        assertEquals(3, components.getCount());
+        assertTrue(components.connected(0, 2));
+        assertTrue(components.connected(3, 4));
+        assertFalse(components.connected(2, 3));
+        assertEquals(3, components.getSize(components.getComponent(1)));
+        assertEquals(1, components.getSize(components.getComponent(5)));
+        // links between components go to lower ids
+        assertTrue(components.getComponent(2) > components.getComponent(3));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(11);
+        NetworkBuilder builder = new NetworkBuilder();
+        int n = 300;
+        builder.addNodes(n);
+        for (int i = 0; i < 400; i++) {
+            builder.addLink(random.nextInt(n), random.nextInt(n));
+        }
+        CsrNetwork network = builder.buildCsrNetwork(true);
+
+        Components components = new StrongComponents(network).compute();
+        BreadthFirstSearch bfs = new BreadthFirstSearch(network);
+        int[][] distances = new int[n][];
+        for (int node = 0; node < n; node++) {
+            distances[node] = bfs.search(node).getDistances();
+        }
+        int[] offsets = network.getOutOffsets();
+        int[] targets = network.getOutTargets();
+        for (int node = 0; node < n; node++) {
+            for (int other = 0; other < n; other++) {
+                boolean strong = distances[node][other] != BreadthFirstSearch.UNREACHED
+                        && distances[other][node] != BreadthFirstSearch.UNREACHED;
+                assertEquals(strong, components.connected(node, other));
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                assertTrue(components.getComponent(node) >= components.getComponent(targets[e]));
+            }
+        }
+    }
+
+    @Test
+    public void testLongCycle() {
+        // deep enough to overflow a recursive implementation
+        NetworkBuilder builder = new NetworkBuilder();
+        int n = 1000000;
+        builder.addNodes(n);
+        for (int i = 1; i < n; i++) {
+            builder.addLink(i - 1, i);
+        }
+        builder.addLink(n - 1, 0);
+        builder.addLink(n - 1, builder.addNodes(1));
+
+        Components components = new StrongComponents(builder.buildCsrNetwork(true)).compute();
+        assertEquals(2, components.getCount());
+        assertEquals(n, components.getSize(components.getLargest()));
+    }
+}
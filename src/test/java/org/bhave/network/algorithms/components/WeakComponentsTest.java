@@ -0,0 +1,132 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.components;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.algorithms.traversal.BreadthFirstSearch;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.bhave.network.model.BAForestModel;
+import org.bhave.network.model.GilbertModel;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class WeakComponentsTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testForest() throws ConfigurationException {
+        BAForestModel model = injector.getInstance(BAForestModel.class);
+        model.configure(5000, 0);
+        FastNetwork network = (FastNetwork) model.generate();
+
+        Components components = new WeakComponents(network.freeze(), pool).compute();
+        // a network without cycles has one component per tree
+        assertEquals(network.getNodeCount() - network.getLinkCount(), components.getCount());
+        assertEquals(network.getNodeCount(), sum(components.getSizes()));
+    }
+
+    @Test
+    public void testGilbert() throws ConfigurationException {
+        GilbertModel model = injector.getInstance(GilbertModel.class);
+        model.configure(20000, 1.0 / 20000, 0);
+        CsrNetwork network = ((FastNetwork) model.generate()).freeze();
+
+        Components components = new WeakComponents(network, pool).compute();
+        assertComponents(network, components);
+    }
+
+    @Test
+    public void testDirected() {
+        Random random = new Random(3);
+        NetworkBuilder builder = new NetworkBuilder();
+        int n = 30000;
+        builder.addNodes(n);
+        for (int i = 0; i < n / 2; i++) {
+            builder.addLink(random.nextInt(n), random.nextInt(n));
+        }
+        CsrNetwork directed = builder.buildCsrNetwork(true);
+        CsrNetwork undirected = builder.buildCsrNetwork(false);
+
+        Components components = new WeakComponents(directed, pool).compute();
+        assertComponents(undirected, components);
+        assertArrayEquals(new WeakComponents(undirected, pool).compute().getComponentIds(),
+                components.getComponentIds());
+    }
+
+    @Test
+    public void testEmpty() {
+        Components components = new WeakComponents(new NetworkBuilder().buildCsrNetwork(false)).compute();
+        assertEquals(0, components.getCount());
+        assertEquals(-1, components.getLargest());
+    }
+
+    /**
+     * Compares the components with the nodes reached by a search from each
+     * component
+     */
+    private static void assertComponents(CsrNetwork undirected,
+            Components components) {
+        int n = undirected.getNodeCount();
+        BreadthFirstSearch bfs = new BreadthFirstSearch(undirected, pool);
+        boolean[] seen = new boolean[components.getCount()];
+        int previous = -1;
+        for (int node = 0; node < n; node++) {
+            int component = components.getComponent(node);
+            if (seen[component]) {
+                continue;
+            }
+            // components are numbered by their smallest node
+            assertEquals(previous + 1, component);
+            previous = component;
+            seen[component] = true;
+
+            int[] distances = bfs.search(node).getDistances();
+            int size = 0;
+            for (int other = 0; other < n; other++) {
+                boolean reached = distances[other] != BreadthFirstSearch.UNREACHED;
+                assertEquals(reached, components.connected(node, other));
+                if (reached) {
+                    size++;
+                }
+            }
+            assertEquals(size, components.getSize(component));
+        }
+        assertEquals(components.getCount(), previous + 1);
+        int largest = components.getLargest();
+        int[] sizes = components.getSizes().clone();
+        Arrays.sort(sizes);
+        assertEquals(sizes[sizes.length - 1], components.getSize(largest));
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class AllPairsShortestPathsTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testAllPairs() {
+        CsrNetwork network = DijkstraTest.randomNetwork(300, 900, true, 1);
+        Dijkstra dijkstra = new Dijkstra(network);
+        double sum = 0;
+        double max = 0;
+        long pairs = 0;
+        for (int s = 0; s < network.getNodeCount(); s++) {
+            ShortestPaths paths = dijkstra.search(s);
+            for (int t = 0; t < network.getNodeCount(); t++) {
+                double distance = paths.getDistance(t);
+                if (t != s && distance < Double.POSITIVE_INFINITY) {
+                    sum += distance;
+                    max = Math.max(max, distance);
+                    pairs++;
+                }
+            }
+        }
+        DistanceStatistics statistics = new AllPairsShortestPaths(network, pool).compute();
+        assertEquals(network.getNodeCount(), statistics.getSourceCount());
+        assertEquals(pairs, statistics.getPairCount());
+        assertEquals(sum, statistics.getDistanceSum(), 1e-9);
+        assertEquals(max, statistics.getMaxDistance(), 0);
+        assertEquals(sum / pairs, statistics.getAverageDistance(), 1e-12);
+        assertTrue(statistics.getReachability() > 0 && statistics.getReachability() < 1);
+    }
+
+    @Test
+    public void testSampling() {
+        CsrNetwork network = DijkstraTest.randomNetwork(5000, 20000, false, 2);
+        DistanceStatistics exact = new AllPairsShortestPaths(network, pool).compute();
+
+        AllPairsShortestPaths allPairs = new AllPairsShortestPaths(network, pool);
+        allPairs.setSampling(200, 3);
+        DistanceStatistics sampled = allPairs.compute();
+        assertEquals(200, sampled.getSourceCount());
+        assertTrue(sampled.getMaxDistance() <= exact.getMaxDistance());
+        assertEquals(exact.getAverageDistance(), sampled.getAverageDistance(),
+                0.05 * exact.getAverageDistance());
+        // the same seed picks the same sources, sums do not depend on threads
+        assertEquals(sampled.getDistanceSum(), allPairs.compute().getDistanceSum(), 0);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.concurrent.ForkJoinPool;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class DeltaSteppingTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testMatchesDijkstra() {
+        for (boolean directed : new boolean[]{true, false}) {
+            CsrNetwork network = DijkstraTest.randomNetwork(20000, 80000, directed, 1);
+            Dijkstra dijkstra = new Dijkstra(network);
+            DeltaStepping deltaStepping = new DeltaStepping(network, pool);
+            for (double delta : new double[]{deltaStepping.getDelta(), 0.01, 10}) {
+                deltaStepping.setDelta(delta);
+                ShortestPaths expected = dijkstra.search(0);
+                ShortestPaths paths = deltaStepping.search(0);
+                assertArrayEquals(expected.getDistances(), paths.getDistances(), 0);
+                assertEquals(expected.getReachedCount(), paths.getReachedCount());
+                DijkstraTest.assertParents(network, paths);
+            }
+        }
+    }
+
+    @Test
+    public void testZeroLengthCycle() {
+        // 1 and 2 are only reached through links of length 0 between them
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(4);
+        builder.addLink(0, 3, 1);
+        builder.addLink(3, 1, 0);
+        builder.addLink(1, 2, 0);
+        builder.addLink(2, 1, 0);
+        CsrNetwork network = builder.buildCsrNetwork(true);
+        ShortestPaths paths = new DeltaStepping(network, pool).search(0);
+        assertArrayEquals(new double[]{0, 1, 1, 1}, paths.getDistances(), 0);
+        assertArrayEquals(new int[]{0, 3, 1, 2}, paths.getPath(2));
+        DijkstraTest.assertParents(network, paths);
+    }
+
+    @Test
+    public void testLengthLostInRounding() {
+        // 1e20 + 1 rounds to 1e20, so 1 and 2 are at the same distance
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(3);
+        builder.addLink(0, 1, 1e20);
+        builder.addLink(1, 2, 1);
+        CsrNetwork network = builder.buildCsrNetwork(true);
+        ShortestPaths paths = new DeltaStepping(network, pool).search(0);
+        assertArrayEquals(new Dijkstra(network).search(0).getDistances(),
+                paths.getDistances(), 0);
+        assertArrayEquals(new int[]{0, 1, 2}, paths.getPath(2));
+        DijkstraTest.assertParents(network, paths);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDelta() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(1);
+        new DeltaStepping(builder.buildCsrNetwork(true), pool).setDelta(0);
+    }
+}
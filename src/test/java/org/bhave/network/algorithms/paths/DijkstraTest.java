@@ -0,0 +1,152 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.paths;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.bhave.network.algorithms.traversal.BreadthFirstSearch;
+import org.bhave.network.api.Link;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class DijkstraTest {
+
+    @Test
+    public void testUnitLengths() {
+        Random random = new Random(1);
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2000);
+        for (int l = 0; l < 6000; l++) {
+            builder.addLink(random.nextInt(2000), random.nextInt(2000), 1);
+        }
+        CsrNetwork network = builder.buildCsrNetwork(true);
+        ShortestPaths paths = new Dijkstra(network).search(0);
+        BreadthFirstSearch.Result bfs = new BreadthFirstSearch(network).search(0);
+        int reached = 0;
+        for (int i = 0; i < network.getNodeCount(); i++) {
+            if (bfs.getDistances()[i] == BreadthFirstSearch.UNREACHED) {
+                assertEquals(Double.POSITIVE_INFINITY, paths.getDistance(i), 0);
+                assertEquals(0, paths.getPath(i).length);
+            } else {
+                assertEquals(bfs.getDistances()[i], paths.getDistance(i), 0);
+                reached++;
+            }
+        }
+        assertEquals(bfs.getVisitedCount(), reached);
+        assertEquals(reached, paths.getReachedCount());
+    }
+
+    @Test
+    public void testWeighted() {
+        for (boolean directed : new boolean[]{true, false}) {
+            CsrNetwork network = randomNetwork(500, 2500, directed, 2);
+            Dijkstra dijkstra = new Dijkstra(network);
+            for (int source = 0; source < 5; source++) {
+                ShortestPaths paths = dijkstra.search(source);
+                assertArrayEquals(bellmanFord(network, source), paths.getDistances(), 1e-9);
+                assertParents(network, paths);
+            }
+            assertEquals(dijkstra.search(3).getDistance(7), dijkstra.distance(3, 7), 0);
+        }
+    }
+
+    @Test
+    public void testResetAfterTarget() {
+        CsrNetwork network = randomNetwork(500, 2500, true, 3);
+        Dijkstra dijkstra = new Dijkstra(network);
+        Dijkstra.Search search = dijkstra.new Search();
+        search.run(0, 1);
+        search.reset();
+        search.run(2, -1);
+        assertArrayEquals(dijkstra.search(2).getDistances(), search.distances, 0);
+    }
+
+    @Test
+    public void testPath() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(4);
+        builder.addLink(0, 1, 1);
+        builder.addLink(1, 2, 1);
+        builder.addLink(0, 2, 3);
+        builder.addLink(2, 3, 0);
+        ShortestPaths paths = new Dijkstra(builder.buildCsrNetwork(true)).search(0);
+        assertArrayEquals(new double[]{0, 1, 2, 2}, paths.getDistances(), 0);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, paths.getPath(3));
+        assertArrayEquals(new int[]{0}, paths.getPath(0));
+        assertEquals(ShortestPaths.NONE, paths.getParents()[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLength() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2);
+        builder.addLink(0, 1, -1);
+        new Dijkstra(builder.buildCsrNetwork(true));
+    }
+
+    /**
+     * Random network with lengths in [0, 1), some of them 0
+     */
+    static CsrNetwork randomNetwork(int n, int m, boolean directed, long seed) {
+        Random random = new Random(seed);
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(n);
+        for (int l = 0; l < m; l++) {
+            double length = random.nextInt(10) == 0 ? 0 : random.nextDouble();
+            builder.addLink(random.nextInt(n), random.nextInt(n), length);
+        }
+        return builder.buildCsrNetwork(directed);
+    }
+
+    static double[] bellmanFord(CsrNetwork network, int source) {
+        double[] distances = new double[network.getNodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Link link : network.getLinks()) {
+                int from = network.getNodeIndex(link.from());
+                int to = network.getNodeIndex(link.to());
+                for (int side = 0; side < (network.isDirected() ? 1 : 2); side++) {
+                    int a = side == 0 ? from : to;
+                    int b = side == 0 ? to : from;
+                    if (distances[a] + link.getValue() < distances[b]) {
+                        distances[b] = distances[a] + link.getValue();
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Every reached node other than the source has a parent link whose
+     * length leads to its distance, and following parents gets to the source
+     */
+    static void assertParents(CsrNetwork network, ShortestPaths paths) {
+        for (int v = 0; v < network.getNodeCount(); v++) {
+            if (v == paths.getSource() || paths.getDistance(v) == Double.POSITIVE_INFINITY) {
+                assertEquals(ShortestPaths.NONE, paths.getParents()[v]);
+                continue;
+            }
+            int u = paths.getParents()[v];
+            Link link = network.getLinkAt(paths.getParentLinks()[v]);
+            assertTrue(network.getNodeIndex(link.to()) == v || !network.isDirected());
+            assertEquals(paths.getDistance(v), paths.getDistance(u) + link.getValue(), 0);
+            int[] path = paths.getPath(v);
+            assertEquals(paths.getSource(), path[0]);
+            assertEquals(v, path[path.length - 1]);
+        }
+    }
+}
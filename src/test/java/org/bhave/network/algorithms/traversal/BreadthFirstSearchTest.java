@@ -0,0 +1,144 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.algorithms.traversal;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.algorithms.traversal.BreadthFirstSearch.Result;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.bhave.network.model.BAModel;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class BreadthFirstSearchTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testUndirected() throws ConfigurationException {
+        BAModel model = injector.getInstance(BAModel.class);
+        model.configure(50000, 3, 0);
+        CsrNetwork network = ((FastNetwork) model.generate()).freeze();
+
+        BreadthFirstSearch bfs = new BreadthFirstSearch(network, pool);
+        for (int source : new int[]{0, 100, 49999}) {
+            Result result = bfs.search(source);
+            assertSearch(network, source, result);
+            assertEquals(network.getNodeCount(), result.getVisitedCount());
+        }
+    }
+
+    @Test
+    public void testDirected() {
+        Random random = new Random(7);
+        NetworkBuilder builder = new NetworkBuilder();
+        int n = builder.addNodes(40000) + 40000;
+        for (int i = 0; i < 200000; i++) {
+            builder.addLink(random.nextInt(n), random.nextInt(n));
+        }
+        CsrNetwork network = builder.buildCsrNetwork(true);
+
+        BreadthFirstSearch bfs = new BreadthFirstSearch(network, pool);
+        for (int source = 0; source < 5; source++) {
+            assertSearch(network, source, bfs.search(source));
+        }
+    }
+
+    @Test
+    public void testPath() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(3000);
+        for (int i = 1; i < 2000; i++) {
+            builder.addLink(i - 1, i);
+        }
+        FastNetwork network = builder.buildFastNetwork(false);
+
+        BreadthFirstSearch bfs = new BreadthFirstSearch(network);
+        Result result = bfs.search(network.getNode(1000));
+        int source = bfs.getNetwork().getNodeIndex(network.getNode(1000));
+        assertSearch(bfs.getNetwork(), source, result);
+        assertEquals(2000, result.getVisitedCount());
+        assertEquals(1000, result.getDepth());
+        assertEquals(BreadthFirstSearch.UNREACHED, result.getDistances()[2500]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSource() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(3);
+        new BreadthFirstSearch(builder.buildCsrNetwork(false)).search(3);
+    }
+
+    /**
+     * Compares a search with a sequential search and checks the parents
+     */
+    private static void assertSearch(CsrNetwork network, int source,
+            Result result) {
+        int[] expected = distances(network, source);
+        int[] distances = result.getDistances();
+        int[] parents = result.getParents();
+        assertArrayEquals(expected, distances);
+
+        int depth = 0;
+        int[] offsets = network.getOutOffsets();
+        int[] targets = network.getOutTargets();
+        for (int node = 0; node < distances.length; node++) {
+            depth = Math.max(depth, distances[node]);
+            int parent = parents[node];
+            if (node == source || distances[node] == BreadthFirstSearch.UNREACHED) {
+                assertEquals(BreadthFirstSearch.UNREACHED, parent);
+            } else {
+                assertEquals(distances[node] - 1, distances[parent]);
+                int row = Arrays.binarySearch(targets, offsets[parent],
+                        offsets[parent + 1], node);
+                assertTrue(row >= 0);
+            }
+        }
+        assertEquals(depth, result.getDepth());
+    }
+
+    private static int[] distances(CsrNetwork network, int source) {
+        int n = network.getNodeCount();
+        int[] offsets = network.getOutOffsets();
+        int[] targets = network.getOutTargets();
+        int[] distances = new int[n];
+        Arrays.fill(distances, BreadthFirstSearch.UNREACHED);
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        distances[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if (distances[targets[e]] == BreadthFirstSearch.UNREACHED) {
+                    distances[targets[e]] = distances[node] + 1;
+                    queue[tail++] = targets[e];
+                }
+            }
+        }
+        return distances;
+    }
+}
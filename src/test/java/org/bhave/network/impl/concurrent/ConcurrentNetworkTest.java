@@ -0,0 +1,294 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.concurrent;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.model.BAModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class ConcurrentNetworkTest {
+
+    @Test
+    public void testUndirected() {
+        ConcurrentNetwork network = new ConcurrentNetwork();
+        Node[] nodes = addNodes(network, 4);
+        Link l01 = network.addLink(nodes[0], nodes[1]);
+        Link l12 = network.addLink(nodes[1], nodes[2]);
+        Link l11 = network.addLink(nodes[1], nodes[1]);
+
+        assertEquals(4, network.getNodeCount());
+        assertEquals(3, network.getLinkCount());
+        assertEquals(set(nodes[0], nodes[1], nodes[2]), set(network.getNeighbours(nodes[1])));
+        assertEquals(set(l01, l12, l11), set(network.getInLinks(nodes[1])));
+        assertTrue(network.containsLinks(nodes[1], nodes[0]));
+        assertTrue(network.containsLinks(nodes[0], nodes[1]));
+        assertFalse(network.containsLinks(nodes[0], nodes[2]));
+        assertEquals(set(l11), set(network.getLinks(nodes[1], nodes[1])));
+        assertSame(l12, network.getLink(l12.getID()));
+        assertFalse(network.addLink(l12));
+
+        // self loops are visited once
+        NeighbourCursor cursor = network.createNeighbourCursor();
+        cursor.reset(nodes[1]);
+        int count = 0;
+        while (cursor.next()) {
+            count++;
+        }
+        assertEquals(3, count);
+
+        assertTrue(network.removeLink(l11));
+        assertFalse(network.removeLink(l11));
+        assertFalse(network.containsLink(l11));
+        assertTrue(network.removeNode(nodes[1]));
+        assertFalse(network.containsNode(nodes[1]));
+        assertNull(network.getNode(nodes[1].getID()));
+        assertEquals(0, network.getLinkCount());
+        assertTrue(network.getNeighbours(nodes[0]).isEmpty());
+        assertFalse(network.containsLinks(nodes[0], nodes[1]));
+    }
+
+    @Test
+    public void testDirected() {
+        ConcurrentNetwork network = new ConcurrentNetwork(true);
+        Node[] nodes = addNodes(network, 3);
+        Link l01 = network.addLink(nodes[0], nodes[1]);
+        Link l21 = network.addLink(nodes[2], nodes[1]);
+        network.addLink(nodes[1], nodes[2]);
+
+        assertTrue(network.containsLinks(nodes[0], nodes[1]));
+        assertFalse(network.containsLinks(nodes[1], nodes[0]));
+        assertEquals(set(l01, l21), set(network.getInLinks(nodes[1])));
+        assertEquals(set(nodes[2]), set(network.getSuccessors(nodes[1])));
+        assertEquals(set(nodes[0], nodes[2]), set(network.getPredecessors(nodes[1])));
+        assertEquals(set(nodes[0], nodes[2]), set(network.getNeighbours(nodes[1])));
+        assertEquals(3, network.getLinks(nodes[1]).size());
+
+        // links added with nodes that are not in the network add them
+        Node node = network.createNode();
+        network.addLink(network.createLink(node, nodes[0]));
+        assertTrue(network.containsNode(node));
+        assertEquals(4, network.getNodeCount());
+    }
+
+    @Test
+    public void testModule() throws ConfigurationException {
+        Injector injector = Guice.createInjector(new NetworkModule(0, 0, true));
+        assertTrue(injector.getInstance(Network.class) instanceof ConcurrentNetwork);
+        assertTrue(injector.getInstance(DirectedNetwork.class) instanceof ConcurrentNetwork);
+
+        BAModel model = injector.getInstance(BAModel.class);
+        model.configure(1000, 3, 0);
+        Network network = model.generate();
+        assertTrue(network instanceof ConcurrentNetwork);
+
+        BAModel fastModel = Guice.createInjector(new NetworkModule()).getInstance(BAModel.class);
+        fastModel.configure(1000, 3, 0);
+        Network fast = fastModel.generate();
+        assertEquals(fast.getNodeCount(), network.getNodeCount());
+        assertEquals(fast.getLinkCount(), network.getLinkCount());
+        for (Link link : fast.getLinks()) {
+            Link copy = network.getLink(link.getID());
+            assertEquals(link.from().getID(), copy.from().getID());
+            assertEquals(link.to().getID(), copy.to().getID());
+        }
+
+        Network copy = network.getCopy();
+        assertEquals(network.getLinkCount(), copy.getLinkCount());
+        for (Node node : network.getNodes()) {
+            assertEquals(network.getNeighbours(node).size(),
+                    copy.getNeighbours(copy.getNode(node.getID())).size());
+        }
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final ConcurrentNetwork network = new ConcurrentNetwork();
+        final Node[] nodes = addNodes(network, 1000);
+        final int threads = 4;
+        final int linksPerThread = 20000;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < linksPerThread; i++) {
+                        network.addLink(nodes[random.nextInt(nodes.length)],
+                                nodes[random.nextInt(nodes.length)]);
+                        if (i % 100 == 0) {
+                            network.addNode(network.createNode());
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        run(tasks);
+
+        assertEquals(threads * linksPerThread, network.getLinkCount());
+        assertEquals(nodes.length + threads * linksPerThread / 100, network.getNodeCount());
+        assertConsistent(network);
+    }
+
+    @Test
+    public void testConcurrentChangesAndReads() throws Exception {
+        for (final boolean directed : new boolean[]{false, true}) {
+            final ConcurrentNetwork network = new ConcurrentNetwork(directed);
+            final Node[] nodes = addNodes(network, 200);
+            final AtomicBoolean done = new AtomicBoolean();
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                final Random random = new Random(t);
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        List<Link> added = new ArrayList<>();
+                        for (int i = 0; i < 30000; i++) {
+                            Node from = nodes[random.nextInt(nodes.length)];
+                            Node to = nodes[random.nextInt(nodes.length)];
+                            int action = random.nextInt(10);
+                            if (action < 6) {
+                                added.add(network.addLink(from, to));
+                            } else if (action < 9 && !added.isEmpty()) {
+                                network.removeLink(added.remove(random.nextInt(added.size())));
+                            } else {
+                                // nodes come back with the next link added to them
+                                network.removeNode(from);
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    NeighbourCursor cursor = network.createNeighbourCursor();
+                    while (!done.get()) {
+                        for (Node node : nodes) {
+                            cursor.reset(node);
+                            while (cursor.next()) {
+                                assertNotNull(cursor.node());
+                            }
+                            for (Link link : network.getLinks(node)) {
+                                assertTrue(link.from() == node || link.to() == node);
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+            ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+            try {
+                List<Future<Void>> futures = new ArrayList<>();
+                for (Callable<Void> task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+                for (int i = 0; i < 3; i++) {
+                    futures.get(i).get();
+                }
+                done.set(true);
+                futures.get(3).get();
+            } finally {
+                executor.shutdown();
+            }
+            assertConsistent(network);
+        }
+    }
+
+    /**
+     * Every link is in the links of its nodes and every link of a node is in
+     * the network
+     */
+    private static void assertConsistent(Network network) {
+        Set<Integer> ids = new HashSet<>();
+        int degrees = 0;
+        for (Node node : network.getNodes()) {
+            assertTrue(ids.add(node.getID()));
+            assertTrue(network.containsNode(node));
+            for (Link link : network.getOutLinks(node)) {
+                assertTrue(network.containsLink(link));
+                degrees++;
+            }
+        }
+        ids.clear();
+        for (Link link : network.getLinks()) {
+            assertTrue(ids.add(link.getID()));
+            assertTrue(network.containsNode(link.from()));
+            assertTrue(network.containsNode(link.to()));
+            assertTrue(network.getOutLinks(link.from()).contains(link));
+            assertTrue(network.getInLinks(link.to()).contains(link));
+        }
+        int loops = 0;
+        for (Link link : network.getLinks()) {
+            if (link.from() == link.to()) {
+                loops++;
+            }
+        }
+        boolean directed = ((ConcurrentNetwork) network).isDirected();
+        int links = network.getLinkCount();
+        assertEquals(directed ? links : 2 * links - loops, degrees);
+    }
+
+    private static void run(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Node[] addNodes(Network network, int count) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    private static Set<Object> set(Iterable<?> elements) {
+        Set<Object> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+
+    private static Set<Object> set(Object... elements) {
+        Set<Object> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+}
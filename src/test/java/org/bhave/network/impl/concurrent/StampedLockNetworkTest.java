@@ -0,0 +1,177 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.concurrent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class StampedLockNetworkTest {
+
+    @Test
+    public void testDelegation() {
+        StampedLockNetwork network = new StampedLockNetwork(new FastNetwork());
+        Node[] nodes = new Node[4];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            assertTrue(network.addNode(nodes[i]));
+        }
+        Link l01 = network.addLink(nodes[0], nodes[1]);
+        Link l12 = network.addLink(nodes[1], nodes[2]);
+        Link l13 = network.createLink(nodes[1], nodes[3]);
+        assertTrue(network.addLink(l13));
+
+        assertEquals(4, network.getNodeCount());
+        assertEquals(3, network.getLinkCount());
+        assertSame(nodes[2], network.getNode(nodes[2].getID()));
+        assertSame(l12, network.getLink(l12.getID()));
+        assertEquals(set(nodes[0], nodes[2], nodes[3]), set(network.getNeighbours(nodes[1])));
+        assertEquals(set(l01, l12, l13), set(network.getLinks(nodes[1])));
+        assertEquals(set(l01), set(network.getLinks(nodes[1], nodes[0])));
+        assertTrue(network.containsLinks(nodes[2], nodes[1]));
+        assertFalse(network.containsLinks(nodes[0], nodes[2]));
+        assertTrue(network.containsLink(l13));
+        assertEquals(4, network.getNodesView().size());
+
+        final Set<Object> visited = new HashSet<>();
+        network.forEachNeighbour(nodes[1], new NodeVisitor() {
+            @Override
+            public boolean visit(Node neighbour) {
+                visited.add(neighbour);
+                return true;
+            }
+        });
+        assertEquals(set(network.getNeighbours(nodes[1])), visited);
+
+        // the cursor keeps the links it took when reset
+        NeighbourCursor cursor = network.createNeighbourCursor();
+        cursor.reset(nodes[1]);
+        assertTrue(network.removeLink(l12));
+        Set<Object> cursorLinks = new HashSet<>();
+        while (cursor.next()) {
+            cursorLinks.add(cursor.link());
+        }
+        assertEquals(set(l01, l12, l13), cursorLinks);
+
+        assertTrue(network.removeNode(nodes[3]));
+        assertFalse(network.containsLink(l13));
+        assertEquals(1, network.getLinkCount());
+
+        StampedLockNetwork copy = network.getCopy();
+        assertNotSame(network.getNetwork(), copy.getNetwork());
+        assertEquals(3, copy.getNodeCount());
+        assertEquals(1, copy.getLinkCount());
+    }
+
+    @Test
+    public void testConcurrentRewiringAndReads() throws Exception {
+        for (final boolean directed : new boolean[]{false, true}) {
+            NetworkBuilder builder = new NetworkBuilder();
+            builder.addNodes(300);
+            Random seeds = new Random(0);
+            for (int i = 0; i < 1500; i++) {
+                builder.addLink(seeds.nextInt(300), seeds.nextInt(300));
+            }
+            final StampedLockNetwork network = new StampedLockNetwork(
+                    builder.buildFastNetwork(directed));
+            final Node[] nodes = network.getNodes().toArray(new Node[0]);
+            final int links = network.getLinkCount();
+            final AtomicBoolean done = new AtomicBoolean();
+
+            List<Callable<Void>> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                final Random random = new Random(t);
+                readers.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        NeighbourCursor cursor = network.createNeighbourCursor();
+                        while (!done.get()) {
+                            Node node = nodes[random.nextInt(nodes.length)];
+                            // the writer removes a link before adding another
+                            int count = network.getLinkCount();
+                            assertTrue(count == links || count == links - 1);
+                            for (Link link : network.getLinks(node)) {
+                                assertTrue(link.from() == node || link.to() == node);
+                            }
+                            for (Node neighbour : network.getSuccessors(node)) {
+                                assertNotNull(neighbour);
+                            }
+                            cursor.reset(node);
+                            while (cursor.next()) {
+                                assertTrue(cursor.link().from() == node
+                                        || cursor.link().to() == node);
+                            }
+                            network.containsLinks(node, nodes[random.nextInt(nodes.length)]);
+                        }
+                        return null;
+                    }
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(readers.size());
+            try {
+                List<Future<Void>> futures = new ArrayList<>();
+                for (Callable<Void> reader : readers) {
+                    futures.add(executor.submit(reader));
+                }
+                Random random = new Random(42);
+                for (int i = 0; i < 20000; i++) {
+                    List<? extends Link> current = new ArrayList<>(network.getLinks());
+                    network.removeLink(current.get(random.nextInt(current.size())));
+                    network.addLink(nodes[random.nextInt(nodes.length)],
+                            nodes[random.nextInt(nodes.length)]);
+                }
+                done.set(true);
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(links, network.getLinkCount());
+            for (Link link : network.getLinks()) {
+                assertTrue(network.getOutLinks(link.from()).contains(link));
+                assertTrue(network.getInLinks(link.to()).contains(link));
+            }
+        }
+    }
+
+    private static Set<Object> set(Iterable<?> elements) {
+        Set<Object> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+
+    private static Set<Object> set(Object... elements) {
+        Set<Object> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.fast;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.DirectedNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
+import org.bhave.network.model.BAModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class CsrNetworkTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testFreezeUndirected() throws ConfigurationException {
+        BAModel model = injector.getInstance(BAModel.class);
+        model.configure(500, 3, 0);
+        FastNetwork network = (FastNetwork) model.generate();
+
+        CsrNetwork csr = network.freeze();
+        assertFalse(csr.isDirected());
+        assertEquals(network.getNodeCount(), csr.getNodeCount());
+        assertEquals(network.getLinkCount(), csr.getLinkCount());
+
+        for (Node node : network.getNodes()) {
+            assertTrue(csr.containsNode(node));
+            assertSame(node, csr.getNode(node.getID()));
+            assertEquals(set(network.getNeighbours(node)), set(csr.getNeighbours(node)));
+            assertEquals(network.getNeighbours(node).size(), csr.getNeighbours(node).size());
+            assertEquals(set(network.getLinks(node)), set(csr.getLinks(node)));
+            assertEquals(set(network.getSuccessors(node)), set(csr.getSuccessors(node)));
+            assertEquals(set(network.getOutLinks(node)), set(csr.getOutLinks(node)));
+        }
+        for (Link link : network.getLinks()) {
+            assertSame(link, csr.getLink(link.getID()));
+            assertTrue(csr.containsLinks(link.from(), link.to()));
+            assertTrue(csr.containsLinks(link.to(), link.from()));
+            assertTrue(csr.getLinks(link.to(), link.from()).contains(link));
+        }
+    }
+
+    @Test
+    public void testFreezeDirected() {
+        FastNetwork network = (FastNetwork) injector.getInstance(DirectedNetwork.class);
+        Node[] nodes = new Node[4];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        Link l01 = network.addLink(nodes[0], nodes[1]);
+        Link l10 = network.addLink(nodes[1], nodes[0]);
+        Link l12a = network.addLink(nodes[1], nodes[2]);
+        Link l12b = network.addLink(nodes[1], nodes[2]);
+        Link l22 = network.addLink(nodes[2], nodes[2]);
+
+        CsrNetwork csr = network.freeze();
+        assertTrue(csr.isDirected());
+        assertEquals(5, csr.getLinkCount());
+
+        assertEquals(2, csr.getNeighbours(nodes[1]).size());
+        assertEquals(set(network.getNeighbours(nodes[1])), set(csr.getNeighbours(nodes[1])));
+        assertEquals(4, csr.getLinks(nodes[1]).size());
+        assertEquals(3, csr.getOutLinks(nodes[1]).size());
+        assertEquals(1, csr.getSuccessors(nodes[0]).size());
+        assertSame(nodes[1], csr.getPredecessors(nodes[0]).iterator().next());
+
+        // self loops are both in and out links but are counted once
+        assertEquals(3, csr.getLinks(nodes[2]).size());
+        assertTrue(csr.getSuccessors(nodes[2]).contains(nodes[2]));
+
+        assertEquals(set(l12a, l12b), set(csr.getLinks(nodes[1], nodes[2])));
+        assertEquals(set(l01), set(csr.getLinks(nodes[0], nodes[1])));
+        assertEquals(set(l10), set(csr.getLinks(nodes[1], nodes[0])));
+        assertTrue(csr.containsLinks(nodes[1], nodes[2]));
+        assertFalse(csr.containsLinks(nodes[2], nodes[1]));
+        assertEquals(set(l22), set(csr.getLinks(nodes[2], nodes[2])));
+
+        assertTrue(csr.getNeighbours(nodes[3]).isEmpty());
+        assertFalse(csr.containsLinks(nodes[3], nodes[0]));
+        assertEquals(1, csr.getOutDegree(csr.getNodeIndex(nodes[0])));
+        assertEquals(3, csr.getInDegree(csr.getNodeIndex(nodes[2])));
+    }
+
+    @Test
+    public void testSparseIds() {
+        FastNetwork network = new FastNetwork();
+        Node[] nodes = new Node[5];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        network.addLink(nodes[0], nodes[4]);
+        Link link = network.addLink(nodes[2], nodes[4]);
+        network.removeNode(nodes[1]);
+        network.removeNode(nodes[3]);
+
+        CsrNetwork csr = network.freeze();
+        assertEquals(3, csr.getNodeCount());
+        assertNull(csr.getNode(1));
+        assertSame(nodes[4], csr.getNode(4));
+        assertEquals(2, csr.getNodeIndex(nodes[4]));
+        assertSame(link, csr.getLink(link.getID()));
+        assertEquals(set(nodes[0], nodes[2]), set(csr.getNeighbours(nodes[4])));
+    }
+
+    @Test
+    public void testNeighbourCursor() throws ConfigurationException {
+        BAModel model = injector.getInstance(BAModel.class);
+        model.configure(200, 2, 0);
+        FastNetwork network = (FastNetwork) model.generate();
+        CsrNetwork csr = network.freeze();
+
+        NeighbourCursor cursor = csr.createNeighbourCursor();
+        for (Node node : csr.getNodes()) {
+            final Set<Object> visited = new HashSet<>();
+            csr.forEachNeighbour(node, new NodeVisitor() {
+                @Override
+                public boolean visit(Node neighbour) {
+                    visited.add(neighbour);
+                    return true;
+                }
+            });
+            assertEquals(set(network.getNeighbours(node)), visited);
+
+            Set<Object> cursorNodes = new HashSet<>();
+            Set<Object> cursorLinks = new HashSet<>();
+            cursor.reset(node);
+            while (cursor.next()) {
+                cursorNodes.add(cursor.node());
+                cursorLinks.add(cursor.link());
+            }
+            assertEquals(visited, cursorNodes);
+            assertEquals(set(network.getLinks(node)), cursorLinks);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        FastNetwork network = new FastNetwork();
+        Node node = network.createNode();
+        network.addNode(node);
+
+        Network csr = network.freeze();
+        csr.removeNode(node);
+    }
+
+    @Test
+    public void testParallelLinksInLinkOrder() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(3);
+        builder.addLink(0, 1);
+        builder.addLink(1, 0);
+        builder.addLink(0, 1);
+        builder.addLink(0, 2);
+        CsrNetwork csr = builder.buildCsrNetwork(false);
+
+        // rows sorted by (column, link), in both directions of the links
+        int[] offsets = csr.getOutOffsets();
+        int[] links = csr.getOutLinkIndexes();
+        assertArrayEquals(new int[]{0, 1, 2, 3},
+                Arrays.copyOfRange(links, offsets[0], offsets[1]));
+        assertArrayEquals(new int[]{0, 1, 2},
+                Arrays.copyOfRange(links, offsets[1], offsets[2]));
+    }
+
+    private static Set<Object> set(Iterable<?> elements) {
+        Set<Object> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+
+    private static Set<Object> set(Object... elements) {
+        Set<Object> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+}
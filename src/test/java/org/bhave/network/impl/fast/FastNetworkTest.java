@@ -6,11 +6,19 @@ package org.bhave.network.impl.fast;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import org.bhave.network.NetworkModule;
 import org.bhave.network.api.DirectedNetwork;
 import org.bhave.network.api.Link;
+import org.bhave.network.api.LinkVisitor;
+import org.bhave.network.api.NeighbourCursor;
 import org.bhave.network.api.Network;
 import org.bhave.network.api.Node;
+import org.bhave.network.api.NodeVisitor;
 import org.bhave.network.api.UndirectedNetwork;
 import org.junit.Test;
 
@@ -55,6 +63,81 @@ public class FastNetworkTest {
 
     }
 
+    @Test
+    public void testGetCopyDirected() {
+        FastNetwork network = new FastNetwork(true);
+        Node node0 = network.createNode();
+        Node node1 = network.createNode();
+        network.addNode(node0);
+        network.addNode(node1);
+        network.addLink(node1, node0);
+
+        FastNetwork copy = network.getCopy();
+        assertTrue(copy.isDirected());
+        Node copy0 = copy.getNode(node0.getID());
+        Node copy1 = copy.getNode(node1.getID());
+        assertTrue(copy.containsLinks(copy1, copy0));
+        assertFalse(copy.containsLinks(copy0, copy1));
+
+        Link link = copy.getLinks(copy1, copy0).iterator().next();
+        assertTrue(copy.removeLink(link));
+        assertEquals(0, copy.getLinkCount());
+        assertFalse(copy.containsLinks(copy1, copy0));
+        assertFalse(copy.containsLinks(copy0, copy1));
+        assertTrue(network.containsLinks(node1, node0));
+    }
+
+    @Test
+    public void testGetCopyRemoveNodes() {
+        FastNetwork network = new FastNetwork();
+        for (int i = 0; i < 100; i++) {
+            network.addNode(network.createNode());
+        }
+        for (int i = 1; i < 100; i++) {
+            network.addLink(network.getNode(i - 1), network.getNode(i));
+        }
+
+        // the node indexes of the copy point to the positions of their nodes
+        FastNetwork copy = network.getCopy();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(copy.removeNode(copy.getNode(i)));
+        }
+        assertEquals(0, copy.getNodeCount());
+        assertTrue(copy.getNodes().isEmpty());
+        assertEquals(0, copy.getLinkCount());
+        assertEquals(100, network.getNodeCount());
+    }
+
+    @Test
+    public void testCapacity() {
+        FastNetwork network = new FastNetwork(true, 100, 200);
+        Node[] nodes = new Node[10];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        for (int i = 1; i < nodes.length; i++) {
+            network.addLink(nodes[0], nodes[i]);
+        }
+
+        // growing an existing network keeps its contents
+        network.ensureCapacity(1000, 5000);
+        network.ensureCapacity(10, 10);
+        assertEquals(10, network.getNodeCount());
+        assertEquals(9, network.getLinkCount());
+        for (int i = 1; i < nodes.length; i++) {
+            assertTrue(network.containsNode(nodes[i]));
+            assertTrue(network.containsLinks(nodes[0], nodes[i]));
+        }
+        assertTrue(network.removeNode(nodes[0]));
+        assertEquals(0, network.getLinkCount());
+
+        Network sized = Guice.createInjector(new NetworkModule(100, 200))
+                .getInstance(Network.class);
+        assertTrue(sized instanceof FastNetwork);
+        assertNotSame(sized, injector.getInstance(Network.class));
+    }
+
     @Test
     public void testAddNode() {
         Network network = injector.getInstance(Network.class);
@@ -195,6 +278,31 @@ public class FastNetworkTest {
 
     }
 
+    @Test
+    public void testRemoveSelfLoops() {
+        Network network = injector.getInstance(Network.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        network.addNode(node1);
+        network.addNode(node2);
+
+        Link link = network.addLink(node1, node2);
+        Link loop1 = network.addLink(node1, node1);
+        Link loop2 = network.addLink(node1, node1);
+        Link last = network.addLink(node2, node1);
+
+        // each removal moves a self loop, or one of its ends, to a new place
+        network.removeLink(link);
+        network.removeLink(loop1);
+        assertEquals(new HashSet<>(Arrays.asList(loop2, last)),
+                new HashSet<>(network.getLinks(node1)));
+        network.removeLink(last);
+        network.removeLink(loop2);
+        assertEquals(0, network.getLinkCount());
+        assertTrue(network.getLinks(node1).isEmpty());
+        assertTrue(network.getLinks(node2).isEmpty());
+    }
+
     @Test
     public void testRemoveLink_int() {
         Network network = injector.getInstance(Network.class);
@@ -252,6 +360,32 @@ public class FastNetworkTest {
 
     @Test
     public void testGetLink_Node_Node() {
+        Network network = injector.getInstance(UndirectedNetwork.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        Node node3 = network.createNode();
+        Link link1 = network.addLink(node1, node2);
+        Link link2 = network.addLink(node2, node1);
+        network.addLink(node2, node3);
+
+        assertEquals(2, network.getLinks(node1, node2).size());
+        assertTrue(network.getLinks(node2, node1).contains(link1));
+        assertTrue(network.containsLinks(node3, node2));
+        assertFalse(network.containsLinks(node1, node3));
+
+        network.removeLink(link1);
+        assertEquals(Arrays.asList(link2), new ArrayList<>(network.getLinks(node1, node2)));
+        network.removeNode(node2);
+        assertFalse(network.containsLinks(node1, node2));
+        assertFalse(network.containsLinks(node2, node3));
+        assertTrue(network.getLinks(node1, node2).isEmpty());
+
+        Network directed = injector.getInstance(DirectedNetwork.class);
+        Link link3 = directed.addLink(node1, node2);
+        assertTrue(directed.containsLinks(node1, node2));
+        assertFalse(directed.containsLinks(node2, node1));
+        assertTrue(directed.getLinks(node2, node1).isEmpty());
+        assertTrue(directed.getLinks(node1, node2).contains(link3));
     }
 
     @Test
@@ -457,4 +591,130 @@ public class FastNetworkTest {
         assertEquals(0, network.getLinks(node1, node2).size());
 
     }
+
+    @Test
+    public void testForEachNeighbour() {
+        Network network = injector.getInstance(DirectedNetwork.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        Node node3 = network.createNode();
+        network.addNode(node1);
+        network.addNode(node2);
+        network.addNode(node3);
+
+        network.addLink(node1, node2);
+        network.addLink(node3, node1);
+
+        final List<Node> visited = new ArrayList<>();
+        NodeVisitor visitor = new NodeVisitor() {
+            @Override
+            public boolean visit(Node node) {
+                visited.add(node);
+                return true;
+            }
+        };
+
+        network.forEachNeighbour(node1, visitor);
+        assertEquals(Arrays.asList(node2, node3), visited);
+
+        visited.clear();
+        network.forEachSuccessor(node1, visitor);
+        assertEquals(Arrays.asList(node2), visited);
+
+        visited.clear();
+        network.forEachPredecessor(node1, visitor);
+        assertEquals(Arrays.asList(node3), visited);
+
+        visited.clear();
+        network.forEachNeighbour(node1, new NodeVisitor() {
+            @Override
+            public boolean visit(Node node) {
+                visited.add(node);
+                return false;
+            }
+        });
+        assertEquals(1, visited.size());
+
+        final List<Link> visitedLinks = new ArrayList<>();
+        network.forEachLink(node2, new LinkVisitor() {
+            @Override
+            public boolean visit(Link link) {
+                visitedLinks.add(link);
+                return true;
+            }
+        });
+        assertEquals(1, visitedLinks.size());
+    }
+
+    @Test
+    public void testNeighbourCursor() {
+        Network network = injector.getInstance(UndirectedNetwork.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        Node node3 = network.createNode();
+        network.addNode(node1);
+        network.addNode(node2);
+        network.addNode(node3);
+
+        Link link12 = network.addLink(node1, node2);
+        Link link31 = network.addLink(node3, node1);
+
+        NeighbourCursor cursor = network.createNeighbourCursor();
+        cursor.reset(node1);
+        assertTrue(cursor.next());
+        assertSame(node2, cursor.node());
+        assertSame(link12, cursor.link());
+        assertTrue(cursor.next());
+        assertSame(node3, cursor.node());
+        assertSame(link31, cursor.link());
+        assertFalse(cursor.next());
+
+        // the same cursor can be reused for other nodes
+        cursor.resetIn(node2);
+        assertTrue(cursor.next());
+        assertSame(node1, cursor.node());
+        assertFalse(cursor.next());
+
+        cursor.reset(network.createNode());
+        assertFalse(cursor.next());
+
+        Network directed = injector.getInstance(DirectedNetwork.class);
+        Node from = directed.createNode();
+        Node to = directed.createNode();
+        directed.addNode(from);
+        directed.addNode(to);
+        directed.addLink(from, to);
+
+        cursor = directed.createNeighbourCursor();
+        cursor.resetIn(from);
+        assertFalse(cursor.next());
+        cursor.reset(to);
+        assertTrue(cursor.next());
+        assertSame(from, cursor.node());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testViews() {
+        Network network = injector.getInstance(Network.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        network.addNode(node1);
+
+        Collection<? extends Node> nodes = network.getNodesView();
+        Collection<? extends Link> links = network.getLinksView();
+        assertEquals(1, nodes.size());
+        assertEquals(0, links.size());
+
+        network.addNode(node2);
+        network.addLink(node1, node2);
+        assertEquals(2, nodes.size());
+        assertEquals(1, links.size());
+
+        try {
+            nodes.clear();
+            fail("views should be read-only");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.fast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class LinkPairMapTest {
+
+    @Test
+    public void testKeys() {
+        assertEquals(LinkPairMap.unorderedKey(3, 7), LinkPairMap.unorderedKey(7, 3));
+        assertFalse(LinkPairMap.key(3, 7) == LinkPairMap.key(7, 3));
+        assertFalse(LinkPairMap.key(-1, 0) == LinkPairMap.key(0, -1));
+    }
+
+    @Test
+    public void testSameAsHashMap() {
+        LinkPairMap map = new LinkPairMap();
+        Map<Long, Set<Link>> expected = new HashMap<>();
+        List<Link> added = new ArrayList<>();
+        Random random = new Random(0);
+        Node[] nodes = new Node[50];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new SimpleNode(i);
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            if (added.isEmpty() || random.nextInt(3) > 0) {
+                Link link = new SimpleLink(i, nodes[random.nextInt(nodes.length)],
+                        nodes[random.nextInt(nodes.length)]);
+                long key = LinkPairMap.unorderedKey(link.from().getID(), link.to().getID());
+                map.add(key, link);
+                if (!expected.containsKey(key)) {
+                    expected.put(key, new HashSet<Link>());
+                }
+                expected.get(key).add(link);
+                added.add(link);
+            } else {
+                Link link = added.remove(random.nextInt(added.size()));
+                long key = LinkPairMap.unorderedKey(link.from().getID(), link.to().getID());
+                map.remove(key, link);
+                expected.get(key).remove(link);
+                if (expected.get(key).isEmpty()) {
+                    expected.remove(key);
+                }
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < nodes.length; i++) {
+            for (int j = 0; j < nodes.length; j++) {
+                long key = LinkPairMap.unorderedKey(i, j);
+                Set<Link> links = new HashSet<>();
+                map.get(key, links);
+                Set<Link> expectedLinks = expected.get(key);
+                assertEquals(expectedLinks == null ? new HashSet<Link>() : expectedLinks, links);
+                assertEquals(links.size(), map.count(key));
+                assertEquals(!links.isEmpty(), map.containsKey(key));
+            }
+        }
+    }
+}
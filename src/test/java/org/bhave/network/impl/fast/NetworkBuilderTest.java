@@ -0,0 +1,147 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.fast;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class NetworkBuilderTest {
+
+    @Test
+    public void testBuildFastNetwork() {
+        NetworkBuilder builder = new NetworkBuilder(2);
+        FastNetwork expected = new FastNetwork();
+        assertEquals(0, builder.addNodes(200));
+        Node[] nodes = new Node[200];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = expected.createNode();
+            expected.addNode(nodes[i]);
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            int from = random.nextInt(nodes.length);
+            int to = random.nextInt(nodes.length);
+            builder.addLink(from, to);
+            expected.addLink(nodes[from], nodes[to]);
+        }
+
+        FastNetwork network = builder.buildFastNetwork(false);
+        assertEquals(expected.getNodeCount(), network.getNodeCount());
+        assertEquals(expected.getLinkCount(), network.getLinkCount());
+        for (Node node : expected.getNodes()) {
+            Node other = network.getNode(node.getID());
+            assertSame(network, other.getNetwork());
+            assertEquals(ids(expected.getNeighbours(node)), ids(network.getNeighbours(other)));
+            assertEquals(expected.getLinks(node).size(), network.getLinks(other).size());
+        }
+        for (Link link : expected.getLinks()) {
+            assertEquals(link.from().getID(), network.getLink(link.getID()).from().getID());
+            assertTrue(network.containsLinks(network.getNode(link.to().getID()),
+                    network.getNode(link.from().getID())));
+        }
+
+        // the loaded indexes are kept consistent by later changes
+        for (int i = 0; i < 50; i++) {
+            Link link = network.getLink(i);
+            network.removeLink(link);
+            expected.removeLink(expected.getLink(i));
+        }
+        network.removeNode(network.getNode(7));
+        expected.removeNode(expected.getNode(7));
+        assertEquals(expected.getLinkCount(), network.getLinkCount());
+        Node node = network.createNode();
+        assertEquals(200, node.getID());
+        network.addLink(node, network.getNode(3));
+        assertEquals(1, network.getNeighbours(node).size());
+    }
+
+    @Test
+    public void testBuildCsrNetwork() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(4);
+        builder.addLinks(new int[]{0, 1, 2}, new int[]{1, 2, 0});
+        builder.addLink(3, 0, 2.5);
+
+        CsrNetwork network = builder.buildCsrNetwork(true);
+        assertTrue(network.isDirected());
+        assertEquals(4, network.getLinkCount());
+        assertEquals(0.0, network.getLink(0).getValue(), 0.0);
+        assertEquals(2.5, network.getLink(3).getValue(), 0.0);
+        assertEquals(2, network.getInDegree(0));
+        assertEquals(1, network.getOutDegree(0));
+        assertSame(network, network.getNode(3).getNetwork());
+    }
+
+    @Test
+    public void testBuildIntoNonEmpty() {
+        Network network = new FastNetwork(true);
+        network.addNode(network.createNode());
+
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2);
+        builder.addLinks(new int[]{0, 1}, new int[]{1, 1}, new double[]{1.0, 2.0}, 2);
+        Node[] nodes = builder.buildInto(network);
+
+        assertEquals(3, network.getNodeCount());
+        assertEquals(2, network.getLinkCount());
+        assertEquals(1, nodes[0].getID());
+        assertTrue(network.containsLinks(nodes[0], nodes[1]));
+        assertFalse(network.containsLinks(nodes[1], nodes[0]));
+        assertEquals(2.0, network.getLinks(nodes[1], nodes[1]).iterator().next().getValue(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNode() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.addNodes(2);
+        builder.addLink(0, 2);
+    }
+
+    @Test
+    public void testEdgeSink() {
+        NetworkBuilder builder = new NetworkBuilder();
+        builder.onNodes(3);
+        builder.onNodes(2);
+        assertEquals(3, builder.getNodeCount());
+        builder.accept(0, 2);
+        builder.accept(2, 1);
+
+        final List<String> links = new ArrayList<>();
+        builder.forEachLink(new EdgeSink() {
+            @Override
+            public void onNodes(int n) {
+                fail("nodes are not passed");
+            }
+
+            @Override
+            public void accept(int from, int to) {
+                links.add(from + "-" + to);
+            }
+        });
+        assertEquals("[0-2, 2-1]", links.toString());
+    }
+
+    private static Set<Integer> ids(Iterable<? extends Node> nodes) {
+        Set<Integer> result = new HashSet<>();
+        for (Node node : nodes) {
+            result.add(node.getID());
+        }
+        return result;
+    }
+}
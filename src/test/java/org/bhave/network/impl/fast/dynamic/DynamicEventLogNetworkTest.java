@@ -0,0 +1,149 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.fast.dynamic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.bhave.network.api.DynamicNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class DynamicEventLogNetworkTest {
+
+    @Test
+    public void testReplay() {
+        DynamicEventLogNetwork network = new DynamicEventLogNetwork(3);
+        Random random = new Random(42);
+        Map<Integer, Set<String>> expected = new HashMap<>();
+        for (int t = 0; t < 40; t += 1 + random.nextInt(2)) {
+            network.setCurrentTime(t);
+            for (int i = 0; i < 20; i++) {
+                int op = random.nextInt(10);
+                if (op < 3 || network.getNodeCount() < 2) {
+                    network.addNode(network.createNode());
+                } else if (op < 8) {
+                    List<? extends Node> nodes = new ArrayList<>(network.getNodesView());
+                    Link link = network.createLink(nodes.get(random.nextInt(nodes.size())),
+                            nodes.get(random.nextInt(nodes.size())));
+                    link.setValue(random.nextInt(3));
+                    assertTrue(network.addLink(link));
+                } else if (op < 9 && network.getLinkCount() > 0) {
+                    List<? extends Link> links = new ArrayList<>(network.getLinksView());
+                    assertTrue(network.removeLink(links.get(random.nextInt(links.size()))));
+                } else {
+                    List<? extends Node> nodes = new ArrayList<>(network.getNodesView());
+                    assertTrue(network.removeNode(nodes.get(random.nextInt(nodes.size()))));
+                }
+            }
+            expected.put(t, state(network));
+        }
+
+        List<Integer> times = new ArrayList<>(expected.keySet());
+        Collections.shuffle(times, random);
+        for (int t : times) {
+            network.setCurrentTime(t);
+            assertEquals(t, network.getCurrentTime());
+            assertEquals(expected.get(t), state(network));
+        }
+        assertEquals(expected.keySet(), network.getTimeInstances());
+
+        network.setCurrentTime(7);
+        DynamicNetwork copy = network.getCopy();
+        assertEquals(state(network), state(copy));
+        copy.setCurrentTime(copy.getLastTime());
+        network.setCurrentTime(network.getLastTime());
+        assertEquals(state(network), state(copy));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        DynamicEventLogNetwork network = new DynamicEventLogNetwork();
+        network.addNode(network.createNode());
+        network.setCurrentTime(5);
+        network.addNode(network.createNode());
+
+        network.setCurrentTime(2);
+        assertEquals(1, network.getNodeCount());
+        network.addNode(network.createNode());
+    }
+
+    @Test
+    public void testActiveLinks() {
+        DynamicEventLogNetwork network = new DynamicEventLogNetwork(2);
+        Node[] nodes = new Node[4];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        Link l01 = network.addLink(nodes[0], nodes[1]);
+        network.setCurrentTime(1);
+        Link l23 = network.createLink(nodes[2], nodes[3]);
+        l23.setValue(2.0);
+        network.addLink(l23);
+        network.setCurrentTime(2);
+        network.removeLink(l01);
+        network.setCurrentTime(3);
+        Link l12 = network.addLink(nodes[1], nodes[2]);
+        network.setCurrentTime(4);
+        network.removeNode(nodes[3]);
+        assertEquals(9, network.getEventCount());
+
+        assertEquals(ids(l01), ids(network.getActiveLinks(0, 0)));
+        assertEquals(ids(l01, l23), ids(network.getActiveLinks(0, 1)));
+        assertEquals(ids(l01, l23), ids(network.getActiveLinks(1, 2)));
+        assertEquals(ids(l23), ids(network.getActiveLinks(2, 2)));
+        assertEquals(ids(l01, l23, l12), ids(network.getActiveLinks(0, 10)));
+        assertEquals(ids(l12), ids(network.getActiveLinks(4, 10)));
+        assertTrue(network.getActiveLinks(3, 2).isEmpty());
+
+        for (Link link : network.getActiveLinks(1, 1)) {
+            if (link.getID() == l23.getID()) {
+                assertEquals(2.0, link.getValue(), 0);
+            }
+        }
+    }
+
+    private static Set<Integer> ids(Link... links) {
+        Set<Integer> result = new HashSet<>();
+        for (Link link : links) {
+            result.add(link.getID());
+        }
+        return result;
+    }
+
+    private static Set<Integer> ids(Iterable<? extends Link> links) {
+        Set<Integer> result = new HashSet<>();
+        for (Link link : links) {
+            result.add(link.getID());
+        }
+        return result;
+    }
+
+    private static Set<String> state(Network network) {
+        Set<String> result = new HashSet<>();
+        for (Node node : network.getNodesView()) {
+            result.add("n" + node.getID());
+        }
+        for (Link link : network.getLinksView()) {
+            result.add("l" + link.getID() + ":" + link.from().getID() + "-"
+                    + link.to().getID() + "=" + link.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.fast.dynamic;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.DynamicNetwork;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class DynamicFastNetworkTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testTimeInstances() {
+        DynamicNetwork network = injector.getInstance(DynamicNetwork.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        network.addNode(node1);
+        network.addNode(node2);
+        network.addLink(network.getNode(node1.getID()), network.getNode(node2.getID()));
+        network.getNode(node1.getID()).setProperty("state", "t0");
+
+        network.setCurrentTime(5);
+        assertEquals(2, network.getNodeCount());
+        Node node3 = network.createNode();
+        network.addNode(node3);
+        assertEquals(3, network.getNodeCount());
+        assertFalse(node1.getID() == node3.getID());
+        Node node1t5 = network.getNode(node1.getID());
+        assertEquals("t0", node1t5.getProperty("state"));
+        node1t5.setProperty("state", "t5");
+        Link link = network.getLinks(node1t5).iterator().next();
+        network.removeLink(link);
+        network.addLink(node1t5, network.getNode(node3.getID()));
+
+        network.setCurrentTime(0);
+        assertEquals(2, network.getNodeCount());
+        assertNull(network.getNode(node3.getID()));
+        Node node1t0 = network.getNode(node1.getID());
+        assertEquals("t0", node1t0.getProperty("state"));
+        assertTrue(network.containsLinks(node1t0, network.getNode(node2.getID())));
+
+        // t = 3 is a copy of t = 0
+        network.setCurrentTime(3);
+        assertEquals(2, network.getNodeCount());
+        assertEquals(1, network.getNeighbours(network.getNode(node2.getID())).size());
+
+        network.setCurrentTime(5);
+        assertEquals("t5", network.getNode(node1.getID()).getProperty("state"));
+        assertEquals(0, network.getNeighbours(network.getNode(node2.getID())).size());
+        assertEquals(3, network.getTimeInstances().size());
+    }
+
+    @Test
+    public void testObjectsAcrossTimes() {
+        DynamicNetwork network = injector.getInstance(DynamicNetwork.class);
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        network.addNode(network.createNode());
+        network.addNode(node1);
+        network.addNode(node2);
+        node1 = network.getNode(node1.getID());
+        node2 = network.getNode(node2.getID());
+        Link link = network.addLink(node1, node2);
+        link.setValue(1.0);
+
+        // objects kept across a time change belong to the new time instant
+        network.setCurrentTime(1);
+        assertTrue(network.containsLinks(node1, node2));
+        assertTrue(network.containsLink(link));
+        link.setValue(7.0);
+        assertSame(link, network.getLink(link.getID()));
+        assertEquals(7.0, network.getLink(link.getID()).getValue(), 0.0);
+
+        network.setCurrentTime(0);
+        assertEquals(1.0, network.getLink(link.getID()).getValue(), 0.0);
+        assertFalse(network.containsLink(link));
+        network.setCurrentTime(1);
+        assertEquals(7.0, network.getLink(link.getID()).getValue(), 0.0);
+    }
+
+    @Test
+    public void testCopy() {
+        DynamicNetwork network = injector.getInstance(DynamicNetwork.class);
+        Node node = network.createNode();
+        network.addNode(node);
+        network.setCurrentTime(1);
+        network.addNode(network.createNode());
+
+        DynamicNetwork copy = network.getCopy();
+        network.removeNode(network.getNode(node.getID()));
+        assertEquals(1, copy.getCurrentTime());
+        assertEquals(2, copy.getNodeCount());
+        copy.setCurrentTime(0);
+        assertEquals(1, copy.getNodeCount());
+    }
+}
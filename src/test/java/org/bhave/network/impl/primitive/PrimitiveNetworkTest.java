@@ -0,0 +1,384 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.impl.primitive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.SimpleLink;
+import org.bhave.network.impl.fast.SimpleNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class PrimitiveNetworkTest {
+
+    @Test
+    public void testAddRemoveIds() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        int n0 = network.addNode();
+        int n1 = network.addNode();
+        int n2 = network.addNode();
+        int l01 = network.addLink(n0, n1);
+        int l12 = network.addLink(n1, n2);
+        int l11 = network.addLink(n1, n1);
+
+        assertEquals(3, network.getNodeCount());
+        assertEquals(3, network.getLinkCount());
+        assertEquals(4, network.getDegree(n1));
+        assertEquals(n1, network.getTo(l01));
+
+        int[] neighbours = network.getNeighbours(n1);
+        Arrays.sort(neighbours);
+        assertArrayEquals(new int[]{n0, n1, n1, n2}, neighbours);
+
+        assertTrue(network.removeLink(l11));
+        assertFalse(network.containsLink(l11));
+        assertEquals(2, network.getDegree(n1));
+
+        assertTrue(network.removeNode(n1));
+        assertFalse(network.removeNode(n1));
+        assertEquals(0, network.getLinkCount());
+        assertFalse(network.containsLink(l12));
+        assertEquals(0, network.getDegree(n0));
+
+        // removed ids are reused
+        assertEquals(n1, network.addNode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLinkMissingNode() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        network.addLink(network.addNode(), 10);
+    }
+
+    @Test
+    public void testSameAsFastNetwork() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        FastNetwork expected = new FastNetwork();
+        Random random = new Random(0);
+
+        Node[] nodes = new Node[100];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+            expected.addNode(nodes[i].getCopy());
+        }
+        for (int i = 0; i < 400; i++) {
+            Node from = nodes[random.nextInt(nodes.length)];
+            Node to = nodes[random.nextInt(nodes.length)];
+            Link link = network.addLink(from, to);
+            expected.addLink(new SimpleLink(link.getID(),
+                    expected.getNode(from.getID()), expected.getNode(to.getID())));
+        }
+        for (int i = 0; i < 150; i++) {
+            Link link = network.getLink(network.getLinkIDAt(random.nextInt(network.getLinkCount())));
+            assertTrue(network.removeLink(link));
+            expected.removeLink(expected.getLink(link.getID()));
+        }
+        for (int i = 0; i < 10; i++) {
+            network.removeNode(network.getNode(i * 7));
+            expected.removeNode(expected.getNode(i * 7));
+        }
+
+        assertEquals(expected.getNodeCount(), network.getNodeCount());
+        assertEquals(expected.getLinkCount(), network.getLinkCount());
+        for (Node node : expected.getNodes()) {
+            Node other = network.getNode(node.getID());
+            assertNotNull(other);
+            assertEquals(ids(expected.getNeighbours(node)), ids(network.getNeighbours(other)));
+            assertEquals(ids(expected.getLinks(node)), ids(network.getLinks(other)));
+            assertEquals(expected.getLinks(node).size(), network.getLinks(other).size());
+        }
+        for (Link link : network.getLinksView()) {
+            assertTrue(network.containsLink(link));
+            assertTrue(network.containsLinks(link.from(), link.to()));
+            assertTrue(network.getLinks(link.to(), link.from()).contains(link));
+        }
+    }
+
+    @Test
+    public void testDirected() {
+        PrimitiveNetwork network = new PrimitiveNetwork(true);
+        Node[] nodes = new Node[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        Link l01 = network.addLink(nodes[0], nodes[1]);
+        network.addLink(nodes[2], nodes[1]);
+        network.addLink(nodes[1], nodes[1]);
+
+        assertEquals(1, network.getOutDegree(nodes[0].getID()));
+        assertEquals(3, network.getInDegree(nodes[1].getID()));
+        assertEquals(1, network.getOutDegree(nodes[1].getID()));
+        assertEquals(ids(nodes[1]), ids(network.getSuccessors(nodes[1])));
+        assertEquals(ids(nodes[0], nodes[1], nodes[2]), ids(network.getPredecessors(nodes[1])));
+        assertTrue(network.getInLinks(nodes[1]).contains(l01));
+        assertFalse(network.getInLinks(nodes[0]).contains(l01));
+
+        NeighbourCursor cursor = network.createNeighbourCursor();
+        int count = 0;
+        cursor.resetIn(nodes[1]);
+        while (cursor.next()) {
+            count++;
+        }
+        assertEquals(3, count);
+        cursor.reset(nodes[0]);
+        assertTrue(cursor.next());
+        assertSame(nodes[1], cursor.node());
+        assertSame(l01, cursor.link());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testCopy() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        for (int i = 0; i < 10; i++) {
+            network.addNode();
+        }
+        for (int i = 0; i < 9; i++) {
+            network.addLink(i, i + 1);
+        }
+        Node node = network.getNode(0);
+
+        Network copy = network.getCopy();
+        network.removeNode(5);
+        assertEquals(10, copy.getNodeCount());
+        assertEquals(9, copy.getLinkCount());
+        assertNotSame(node, copy.getNode(0));
+        assertSame(copy, copy.getNode(0).getNetwork());
+        assertEquals(2, copy.getNeighbours(copy.getNode(5)).size());
+    }
+
+    @Test
+    public void testFork() {
+        Random random = new Random(1);
+        List<PrimitiveNetwork> networks = new ArrayList<>();
+        List<Map<Integer, List<Integer>>> expected = new ArrayList<>();
+
+        PrimitiveNetwork first = new PrimitiveNetwork();
+        for (int i = 0; i < 5000; i++) {
+            first.addNode();
+        }
+        networks.add(first);
+        expected.add(new HashMap<Integer, List<Integer>>());
+
+        // fork random networks and change both the fork and the original
+        for (int step = 0; step < 40; step++) {
+            int source = random.nextInt(networks.size());
+            networks.add(networks.get(source).fork());
+            expected.add(new HashMap<>(expected.get(source)));
+            for (int n : new int[]{source, networks.size() - 1}) {
+                PrimitiveNetwork network = networks.get(n);
+                Map<Integer, List<Integer>> links = expected.get(n);
+                for (int i = 0; i < 300; i++) {
+                    if (links.isEmpty() || random.nextInt(3) > 0) {
+                        int from = random.nextInt(5000);
+                        int to = random.nextInt(5000);
+                        links.put(network.addLink(from, to), Arrays.asList(from, to));
+                    } else {
+                        int link = network.getLinkIDAt(random.nextInt(network.getLinkCount()));
+                        assertTrue(network.removeLink(link));
+                        links.remove(link);
+                    }
+                }
+            }
+        }
+
+        for (int n = 0; n < networks.size(); n++) {
+            PrimitiveNetwork network = networks.get(n);
+            Map<Integer, List<Integer>> links = expected.get(n);
+            assertEquals(links.size(), network.getLinkCount());
+            int degrees = 0;
+            for (Map.Entry<Integer, List<Integer>> link : links.entrySet()) {
+                assertTrue(network.containsLink(link.getKey()));
+                assertEquals((int) link.getValue().get(0), network.getFrom(link.getKey()));
+                assertEquals((int) link.getValue().get(1), network.getTo(link.getKey()));
+            }
+            for (int i = 0; i < 5000; i++) {
+                for (int link : network.getLinks(i)) {
+                    assertTrue(links.containsKey(link));
+                }
+                degrees += network.getDegree(i);
+            }
+            assertEquals(2 * links.size(), degrees);
+        }
+    }
+
+    @Test
+    public void testForkObjects() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        network.addNode(node1);
+        network.addNode(node2);
+        Link link = network.addLink(node1, node2);
+        node1.setProperty("state", "a");
+        link.setValue(2.0);
+
+        PrimitiveNetwork fork = network.fork();
+        assertFalse(fork.containsNode(node1));
+        assertFalse(fork.containsLink(link));
+
+        Node forkNode1 = fork.getNode(node1.getID());
+        assertNotSame(node1, forkNode1);
+        assertSame(fork, forkNode1.getNetwork());
+        assertEquals("a", forkNode1.getProperty("state"));
+        assertSame(forkNode1, fork.getNode(node1.getID()));
+
+        Link forkLink = fork.getLink(link.getID());
+        assertSame(forkNode1, forkLink.from());
+        assertSame(fork, forkLink.to().getNetwork());
+        assertEquals(2.0, forkLink.getValue(), 0.0);
+
+        forkNode1.setProperty("state", "b");
+        assertEquals("a", node1.getProperty("state"));
+        assertTrue(network.containsNode(node1));
+        assertSame(node1, network.getNode(node1.getID()));
+
+        fork.removeNode(forkNode1);
+        assertTrue(network.containsLink(link));
+        assertEquals(1, network.getNeighbours(node2).size());
+        assertEquals(0, fork.getNeighbours(fork.getNode(node2.getID())).size());
+    }
+
+    @Test
+    public void testForkKeepsObjectState() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        Node node1 = network.createNode();
+        Node node2 = network.createNode();
+        network.addNode(node1);
+        network.addNode(node2);
+        Link plain = network.addLink(node1, node2);
+        Link valued = network.addLink(node2, node1);
+        valued.setValue(2.0);
+
+        // changes made after the fork, before the fork asks for the objects
+        PrimitiveNetwork fork = network.fork();
+        plain.setValue(7.0);
+        valued.setValue(3.0);
+        node1.setProperty("state", "b");
+
+        assertEquals(0.0, fork.getLink(plain.getID()).getValue(), 0.0);
+        assertEquals(2.0, fork.getLink(valued.getID()).getValue(), 0.0);
+        assertNull(fork.getNode(node1.getID()).getProperty("state"));
+        assertEquals(7.0, network.getLink(plain.getID()).getValue(), 0.0);
+
+        // a fork of the fork sees the state of the fork
+        fork.getLink(valued.getID()).setValue(5.0);
+        PrimitiveNetwork second = fork.fork();
+        fork.getLink(valued.getID()).setValue(6.0);
+        assertEquals(5.0, second.getLink(valued.getID()).getValue(), 0.0);
+        assertEquals(0.0, second.getLink(plain.getID()).getValue(), 0.0);
+    }
+
+    @Test
+    public void testForkCopiesAddedObjects() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        Node node = new SimpleNode(3);
+        network.addNode(node);
+        Link link = new SimpleLink(0, node, node);
+        network.addLink(link);
+
+        PrimitiveNetwork fork = network.fork();
+        node.setProperty("state", "b");
+        link.setValue(7.0);
+
+        assertNull(fork.getNode(3).getProperty("state"));
+        assertEquals(0.0, fork.getLink(0).getValue(), 0.0);
+        assertTrue(fork.containsLinks(fork.getNode(3), fork.getNode(3)));
+    }
+
+    @Test
+    public void testForksKeepStateOfEarlierChanges() {
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        network.addNode();
+        network.addNode();
+        Link first = network.addLink(network.getNode(0), network.getNode(1));
+        Link second = network.addLink(network.getNode(1), network.getNode(0));
+        first.setValue(2.0);
+
+        // nothing changes between the forks, the change comes after both
+        PrimitiveNetwork fork1 = network.fork();
+        PrimitiveNetwork fork2 = network.fork();
+        first.setValue(3.0);
+        assertEquals(2.0, fork1.getLink(first.getID()).getValue(), 0.0);
+        assertEquals(2.0, fork2.getLink(first.getID()).getValue(), 0.0);
+
+        // a fork that copied the page of objects before its parent changed
+        // another object in it
+        PrimitiveNetwork fork3 = network.fork();
+        fork3.getLink(first.getID());
+        second.setValue(5.0);
+        assertEquals(0.0, fork3.getLink(second.getID()).getValue(), 0.0);
+        assertEquals(3.0, fork3.getLink(first.getID()).getValue(), 0.0);
+        assertSame(first, network.getLink(first.getID()));
+        assertSame(second, network.getLink(second.getID()));
+    }
+
+    @Test
+    public void testRandomForks() {
+        Random random = new Random(0);
+        PrimitiveNetwork network = new PrimitiveNetwork();
+        for (int i = 0; i < 600; i++) {
+            network.addNode();
+        }
+        for (int i = 0; i < 2000; i++) {
+            network.addLink(random.nextInt(600), random.nextInt(600));
+        }
+        List<Link> links = new ArrayList<>(network.getLinks());
+        List<PrimitiveNetwork> forks = new ArrayList<>();
+        List<double[]> expected = new ArrayList<>();
+        for (int step = 0; step < 30; step++) {
+            for (int i = 0; i < 50; i++) {
+                Link link = links.get(random.nextInt(links.size()));
+                link.setValue(random.nextDouble());
+            }
+            // forks read some of their links, in any order
+            for (PrimitiveNetwork fork : forks) {
+                fork.getLink(random.nextInt(links.size())).setProperty("read", "true");
+            }
+            double[] values = new double[links.size()];
+            for (Link link : links) {
+                values[link.getID()] = link.getValue();
+            }
+            forks.add(network.fork());
+            expected.add(values);
+        }
+        for (int f = 0; f < forks.size(); f++) {
+            for (Link link : forks.get(f).getLinks()) {
+                assertEquals(expected.get(f)[link.getID()], link.getValue(), 0.0);
+            }
+        }
+    }
+
+    private static Set<Integer> ids(Iterable<?> elements) {
+        Set<Integer> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element instanceof Node ? ((Node) element).getID()
+                    : ((Link) element).getID());
+        }
+        return result;
+    }
+
+    private static Set<Integer> ids(Node... nodes) {
+        return ids(Arrays.asList(nodes));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.io;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.impl.fast.NetworkBuilder;
+import org.bhave.network.model.GilbertModel;
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class EdgeListReaderTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private int files;
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFormats() throws IOException {
+        Path path = write("# Directed graph\n"
+                + "# Nodes: 12 Edges: 6\n"
+                + "source,target,weight\n"
+                + "0\t1\n"
+                + "  1 2 \r\n"
+                + "\n"
+                + "2,3,0.5\n"
+                + "3;4\n"
+                + "% comment 7 8\n"
+                + "5 , 4\n"
+                + "10 0");
+        NetworkBuilder builder = new EdgeListReader(pool).read(path);
+        assertEquals(12, builder.getNodeCount());
+        assertEquals("[0-1, 1-2, 2-3, 3-4, 5-4, 10-0]", links(builder).toString());
+    }
+
+    @Test
+    public void testNodesFromIndexes() throws IOException {
+        Path path = write("3 7\n");
+        NetworkBuilder builder = new EdgeListReader(pool).read(path);
+        assertEquals(8, builder.getNodeCount());
+        assertEquals(1, builder.getLinkCount());
+
+        builder = new EdgeListReader(pool).read(write(""));
+        assertEquals(0, builder.getNodeCount());
+    }
+
+    @Test
+    public void testInvalid() {
+        for (String invalid : new String[]{"1 2\n3\n", "1 2\n-1 2\n", "1 -2",
+            "1 x\n", "1 2147483648\n"}) {
+            try {
+                new EdgeListReader(pool).read(write(invalid));
+                fail("Read invalid edge list " + invalid);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Invalid link"));
+            }
+        }
+    }
+
+    @Test
+    public void testChunks() throws IOException, ConfigurationException {
+        // large enough to be split in several chunks
+        GilbertModel model = injector.getInstance(GilbertModel.class);
+        model.configure(50000, 0.0008, 7);
+        Network network = model.generate();
+        Path path = folder.newFile("gilbert.txt").toPath();
+        try (EdgeListWriter writer = new EdgeListWriter(path)) {
+            model.generate(writer);
+        }
+        assertTrue(Files.size(path) > 8 << 20);
+
+        NetworkBuilder builder = new EdgeListReader(pool).read(path);
+        FastNetwork read = builder.buildFastNetwork(false);
+        assertEquals(network.getNodeCount(), read.getNodeCount());
+        assertEquals(network.getLinkCount(), read.getLinkCount());
+        for (Link link : network.getLinks()) {
+            Link other = read.getLink(link.getID());
+            assertEquals(link.from().getID(), other.from().getID());
+            assertEquals(link.to().getID(), other.to().getID());
+        }
+
+        // the same links are passed to other sinks
+        final List<String> links = new ArrayList<>();
+        new EdgeListReader(new ForkJoinPool(1)).read(path, new EdgeSink() {
+            @Override
+            public void onNodes(int n) {
+                assertEquals(50000, n);
+            }
+
+            @Override
+            public void accept(int from, int to) {
+                links.add(from + "-" + to);
+            }
+        });
+        assertEquals(links(builder), links);
+    }
+
+    private Path write(String text) throws IOException {
+        Path path = folder.newFile("edges" + files++ + ".txt").toPath();
+        Files.write(path, text.getBytes(Charset.forName("US-ASCII")));
+        return path;
+    }
+
+    private static List<String> links(NetworkBuilder builder) {
+        final List<String> links = new ArrayList<>();
+        builder.forEachLink(new EdgeSink() {
+            @Override
+            public void onNodes(int n) {
+            }
+
+            @Override
+            public void accept(int from, int to) {
+                links.add(from + "-" + to);
+            }
+        });
+        return links;
+    }
+}
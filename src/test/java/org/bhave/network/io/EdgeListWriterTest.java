@@ -0,0 +1,90 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class EdgeListWriterTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EdgeListWriter writer = new EdgeListWriter(Channels.newChannel(out), ',')) {
+            writer.onNodes(3);
+            writer.accept(0, 1);
+            writer.accept(2147483647, 10);
+            writer.accept(-5, Integer.MIN_VALUE);
+        }
+        assertEquals("# Nodes: 3\n0,1\n2147483647,10\n-5,-2147483648\n",
+                out.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testWriteNetwork() throws IOException {
+        FastNetwork network = new FastNetwork();
+        Node[] nodes = new Node[4];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        network.addLink(nodes[0], nodes[3]);
+        network.addLink(nodes[2], nodes[1]);
+        network.removeNode(nodes[3]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EdgeListWriter writer = new EdgeListWriter(Channels.newChannel(out));
+        writer.write(network);
+        assertEquals("# Nodes: 3\n2\t1\n", out.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testLargeOutput() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EdgeListWriter writer = new EdgeListWriter(Channels.newChannel(out))) {
+            for (int i = 0; i < 200000; i++) {
+                writer.accept(i, i + 1);
+            }
+        }
+        String[] lines = out.toString("US-ASCII").split("\n");
+        assertEquals(200000, lines.length);
+        assertEquals("123456\t123457", lines[123456]);
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorOnClose() throws IOException {
+        EdgeListWriter writer = new EdgeListWriter(new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        for (int i = 0; i < 100000; i++) {
+            writer.accept(i, i);
+        }
+        writer.close();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.io;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.NeighbourCursor;
+import org.bhave.network.api.Node;
+import org.bhave.network.impl.fast.CsrNetwork;
+import org.bhave.network.impl.fast.FastNetwork;
+import org.bhave.network.model.BAModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class MappedNetworkTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testUndirected() throws ConfigurationException, IOException {
+        BAModel model = injector.getInstance(BAModel.class);
+        model.configure(500, 3, 0);
+        FastNetwork network = (FastNetwork) model.generate();
+        Path path = folder.newFile("ba.bin").toPath();
+        new BinaryNetworkWriter().write(network.freeze(), path);
+
+        MappedNetwork mapped = MappedNetwork.open(path);
+        assertFalse(mapped.isDirected());
+        assertEquals(network.getNodeCount(), mapped.getNodeCount());
+        assertEquals(network.getLinkCount(), mapped.getLinkCount());
+        for (Node node : network.getNodes()) {
+            Node mappedNode = mapped.getNode(node.getID());
+            assertEquals(node.getID(), mappedNode.getID());
+            assertTrue(mapped.containsNode(node));
+            assertEquals(ids(network.getNeighbours(node)), ids(mapped.getNeighbours(mappedNode)));
+            assertEquals(ids(network.getLinks(node)), ids(mapped.getLinks(node)));
+        }
+        for (Link link : network.getLinks()) {
+            Link mappedLink = mapped.getLink(link.getID());
+            assertEquals(link.from().getID(), mappedLink.from().getID());
+            assertEquals(link.to().getID(), mappedLink.to().getID());
+            assertTrue(mapped.containsLinks(link.to(), link.from()));
+            assertTrue(mapped.getLinks(link.to(), link.from()).contains(mappedLink));
+        }
+        assertNull(mapped.getNode(500));
+    }
+
+    @Test
+    public void testDirected() throws IOException {
+        FastNetwork network = new FastNetwork(true);
+        Node[] nodes = new Node[5];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        network.addLink(nodes[0], nodes[4]);
+        network.addLink(nodes[4], nodes[0]);
+        Link l24a = network.addLink(nodes[2], nodes[4]);
+        Link l24b = network.addLink(nodes[2], nodes[4]);
+        network.addLink(nodes[2], nodes[2]).setValue(0.5);
+        network.removeNode(nodes[1]);
+        network.removeNode(nodes[3]);
+        Path path = folder.newFile("directed.bin").toPath();
+        new BinaryNetworkWriter().write(network, false, path);
+
+        MappedNetwork mapped = MappedNetwork.open(path);
+        CsrNetwork csr = network.freeze();
+        assertTrue(mapped.isDirected());
+        assertEquals(3, mapped.getNodeCount());
+        assertEquals(5, mapped.getLinkCount());
+        assertNull(mapped.getNode(1));
+        assertEquals(2, mapped.getNodeIndex(4));
+        for (Node node : network.getNodes()) {
+            int i = csr.getNodeIndex(node);
+            assertEquals(csr.getOutDegree(i), mapped.getOutDegree(i));
+            assertEquals(csr.getInDegree(i), mapped.getInDegree(i));
+            assertEquals(ids(network.getNeighbours(node)), ids(mapped.getNeighbours(node)));
+            assertEquals(ids(network.getSuccessors(node)), ids(mapped.getSuccessors(node)));
+            assertEquals(ids(network.getPredecessors(node)), ids(mapped.getPredecessors(node)));
+            assertEquals(ids(network.getLinks(node)), ids(mapped.getLinks(node)));
+            assertEquals(ids(network.getInLinks(node)), ids(mapped.getInLinks(node)));
+
+            Set<Integer> cursorLinks = new HashSet<>();
+            NeighbourCursor cursor = mapped.createNeighbourCursor();
+            cursor.reset(node);
+            while (cursor.next()) {
+                cursorLinks.add(cursor.link().getID());
+            }
+            assertEquals(ids(network.getLinks(node)), cursorLinks);
+        }
+        assertEquals(ids(l24a, l24b), ids(mapped.getLinks(nodes[2], nodes[4])));
+        assertFalse(mapped.containsLinks(nodes[4], nodes[2]));
+        assertEquals(0.5, mapped.getLink(4).getValue(), 0);
+        assertEquals(0, mapped.getLink(0).getValue(), 0);
+    }
+
+    @Test
+    public void testProperties() throws IOException {
+        FastNetwork network = new FastNetwork();
+        Node[] nodes = new Node[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = network.createNode();
+            network.addNode(nodes[i]);
+        }
+        nodes[0].setProperty("name", "Ana");
+        nodes[1].setProperty("name", "R\u00faben");
+        nodes[2].setProperty("group", "Ana");
+        network.addLink(nodes[0], nodes[1]).setProperty("name", "friend");
+
+        Path path = folder.newFile("properties.bin").toPath();
+        BinaryNetworkWriter writer = new BinaryNetworkWriter();
+        writer.setNodeProperties("name", "group");
+        writer.setLinkProperties("name");
+        writer.write(network.freeze(), path);
+
+        MappedNetwork mapped = MappedNetwork.open(path);
+        assertEquals("Ana", mapped.getNode(0).getProperty("name"));
+        assertEquals("R\u00faben", mapped.getNode(1).getProperty("name"));
+        assertNull(mapped.getNode(2).getProperty("name"));
+        assertEquals("Ana", mapped.getNode(2).getProperty("group"));
+        assertNull(mapped.getNode(0).getProperty("age"));
+        assertEquals("friend", mapped.getLink(0).getProperty("name"));
+
+        Node copy = mapped.getNode(1).getCopy();
+        assertEquals(nodes[1], copy);
+        assertEquals("R\u00faben", copy.getProperty("name"));
+    }
+
+    @Test
+    public void testSerialization() throws ConfigurationException, IOException,
+            ClassNotFoundException {
+        BAModel model = injector.getInstance(BAModel.class);
+        model.configure(50, 2, 0);
+        Path path = folder.newFile("serial.bin").toPath();
+        new BinaryNetworkWriter().write(model.generate(), false, path);
+        MappedNetwork mapped = MappedNetwork.open(path);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mapped);
+        }
+        MappedNetwork read;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (MappedNetwork) in.readObject();
+        }
+        assertEquals(mapped.getLinkCount(), read.getLinkCount());
+        assertEquals(ids(mapped.getNeighbours(mapped.getNode(0))),
+                ids(read.getNeighbours(read.getNode(0))));
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        File file = folder.newFile("segments.bin");
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            for (int i = 0; i < 64; i++) {
+                out.write(i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedBuffer buffer = MappedBuffer.map(channel, 8, 48, 4);
+            assertEquals(48, buffer.size());
+            // little-endian ints starting at byte 8
+            assertEquals(0x0B0A0908, buffer.getInt(0));
+            assertEquals(0x17161514, buffer.getInt(3));
+            assertEquals(0x1F1E1D1C1B1A1918L, buffer.getLong(2));
+            byte[] bytes = new byte[20];
+            buffer.get(10, bytes);
+            for (int i = 0; i < bytes.length; i++) {
+                assertEquals(18 + i, bytes[i]);
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        Path path = folder.newFile("invalid.bin").toPath();
+        Files.write(path, "0 1\n1 2\n".getBytes("US-ASCII"));
+        MappedNetwork.open(path);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() throws IOException {
+        FastNetwork network = new FastNetwork();
+        network.addNode(network.createNode());
+        Path path = folder.newFile("readonly.bin").toPath();
+        new BinaryNetworkWriter().write(network.freeze(), path);
+
+        MappedNetwork.open(path).getNode(0).setProperty("name", "value");
+    }
+
+    private static Set<Integer> ids(Iterable<?> elements) {
+        Set<Integer> result = new HashSet<>();
+        for (Object element : elements) {
+            result.add(element instanceof Node ? ((Node) element).getID()
+                    : ((Link) element).getID());
+        }
+        return result;
+    }
+
+    private static Set<Integer> ids(Link... links) {
+        Set<Integer> result = new HashSet<>();
+        for (Link link : links) {
+            result.add(link.getID());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.model.impl;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.EdgeSink;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.model.BAForestModel;
+import org.bhave.network.model.BAModel;
+import org.bhave.network.model.ERModel;
+import org.bhave.network.model.GilbertModel;
+import org.bhave.network.model.KRegularModel;
+import org.bhave.network.model.NetworkModel;
+import org.bhave.network.model.WSModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class AbstractNetworkModelTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testGenerateIntoSink() throws ConfigurationException {
+        BAModel ba = injector.getInstance(BAModel.class);
+        ba.configure(1000, 3, 7);
+        assertSameNetwork(ba);
+
+        BAForestModel forest = injector.getInstance(BAForestModel.class);
+        forest.configure(1000, 7);
+        assertSameNetwork(forest);
+
+        ERModel er = injector.getInstance(ERModel.class);
+        er.configure(300, 2000, 7);
+        assertSameNetwork(er);
+        er.configure(100, 4000, 7);
+        assertSameNetwork(er);
+
+        GilbertModel gilbert = injector.getInstance(GilbertModel.class);
+        gilbert.configure(1000, 0.01, 7);
+        assertSameNetwork(gilbert);
+        gilbert.getConfiguration().setProperty(GilbertModel.P_THREADS, 2);
+        gilbert.configure(20000, 0.002, 7);
+        assertSameNetwork(gilbert);
+
+        KRegularModel regular = injector.getInstance(KRegularModel.class);
+        regular.configure(1000, 4, 7);
+        assertSameNetwork(regular);
+
+        WSModel ws = injector.getInstance(WSModel.class);
+        ws.configure(1000, 3, 0.2, 7);
+        assertSameNetwork(ws);
+    }
+
+    private static void assertSameNetwork(NetworkModel model) {
+        Network network = model.generate();
+        List<String> expected = new ArrayList<>();
+        for (Link link : network.getLinks()) {
+            expected.add(link.from().getID() + "-" + link.to().getID());
+        }
+
+        RecordingSink sink = new RecordingSink();
+        model.generate(sink);
+        assertEquals(network.getNodeCount(), sink.nodes);
+        assertEquals(expected, sink.links);
+
+        // the sink does not change the state of the model
+        RecordingSink again = new RecordingSink();
+        model.generate(again);
+        assertEquals(sink.links, again.links);
+    }
+
+    private static class RecordingSink implements EdgeSink {
+
+        private int nodes = -1;
+        private final List<String> links = new ArrayList<>();
+
+        @Override
+        public void onNodes(int n) {
+            assertEquals(-1, nodes);
+            assertTrue(links.isEmpty());
+            nodes = n;
+        }
+
+        @Override
+        public void accept(int from, int to) {
+            assertTrue(from >= 0 && from < nodes);
+            assertTrue(to >= 0 && to < nodes);
+            links.add(from + "-" + to);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.model.impl;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomDataGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.model.BAModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class DefaultBAModelTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testGenerate() throws ConfigurationException {
+        BAModel model = injector.getInstance(BAModel.class);
+        for (int d : new int[]{1, 3, 10}) {
+            model.configure(2000, d, 7);
+            Network network = model.generate();
+            assertNetwork(network, 2000, d);
+
+            // same seed, same network
+            assertEquals(links(network), links(model.generate()));
+        }
+    }
+
+    @Test
+    public void testCompatible() throws ConfigurationException {
+        BAModel model = injector.getInstance(BAModel.class);
+        model.getConfiguration().setProperty(BAModel.P_COMPATIBLE, true);
+        for (int d : new int[]{1, 3, 10}) {
+            model.configure(2000, d, 7);
+            Network network = model.generate();
+            assertNetwork(network, 2000, d);
+
+            int[][] expected = linearScan(2000, d, 7);
+            assertEquals(expected.length, network.getLinkCount());
+            for (int i = 0; i < expected.length; i++) {
+                Link link = network.getLink(i);
+                assertEquals(expected[i][0], link.from().getID());
+                assertEquals(expected[i][1], link.to().getID());
+            }
+        }
+    }
+
+    private static void assertNetwork(Network network, int n, int d) {
+        assertEquals(n, network.getNodeCount());
+        int expectedLinks = 1;
+        for (int v = 2; v < n; v++) {
+            expectedLinks += Math.min(v, d);
+        }
+        assertEquals(expectedLinks, network.getLinkCount());
+        // no node is linked twice to the same node
+        assertEquals(expectedLinks, links(network).size());
+        for (Node node : network.getNodes()) {
+            assertTrue(network.getLinks(node).size() >= Math.min(d, 1));
+        }
+    }
+
+    private static Set<String> links(Network network) {
+        Set<String> links = new HashSet<>();
+        for (Link link : network.getLinks()) {
+            int from = link.from().getID();
+            int to = link.to().getID();
+            links.add(Math.min(from, to) + "-" + Math.max(from, to));
+        }
+        return links;
+    }
+
+    /**
+     * The original quadratic implementation of the model, which scans the
+     * scores of all the nodes for each link
+     */
+    private static int[][] linearScan(int n, int d, long seed) {
+        RandomGenerator random = new MersenneTwister();
+        random.setSeed(seed);
+        int[] perm = new RandomDataGenerator(random).nextPermutation(n, n);
+        int[][] links = new int[n * d][];
+        int[] scores = new int[n];
+        links[0] = new int[]{perm[0], perm[1]};
+        scores[0] = 1;
+        scores[1] = 1;
+        int numLinks = 1;
+        for (int v = 2; v < n; v++) {
+            Set<Integer> current = new HashSet<>();
+            int maxLimit = numLinks * 2;
+            int i;
+            for (i = 0; i < d && i < v; i++) {
+                int tempMaxLimit = maxLimit;
+                for (Integer e : current) {
+                    tempMaxLimit -= scores[e];
+                }
+                int r = random.nextInt(tempMaxLimit);
+                int currentScore = 0;
+                int p = 0;
+                while (true) {
+                    if (!current.contains(p)) {
+                        currentScore += scores[p];
+                        if (r < currentScore) {
+                            break;
+                        }
+                    }
+                    p++;
+                }
+                links[numLinks++] = new int[]{perm[v], perm[p]};
+                current.add(p);
+            }
+            scores[v] += i;
+            for (Integer e : current) {
+                scores[e]++;
+            }
+        }
+        int[][] result = new int[numLinks][];
+        System.arraycopy(links, 0, result, 0, numLinks);
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.model.impl;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.api.Node;
+import org.bhave.network.model.KRegularModel;
+import org.bhave.network.model.WSModel;
+import org.bhave.network.model.utils.NetworkModelUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class DefaultWSModelTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testSameAsRewiringLattice() throws ConfigurationException {
+        WSModel model = injector.getInstance(WSModel.class);
+        for (int d : new int[]{1, 3}) {
+            for (double p : new double[]{0, 0.01, 0.3, 0.9}) {
+                model.configure(500, d, p, 7);
+                Network network = model.generate();
+                assertEquals(500, network.getNodeCount());
+                assertEquals(500 * d, network.getLinkCount());
+                assertEquals(rewireLattice(500, d, p, 7), links(network));
+            }
+        }
+    }
+
+    @Test
+    public void testSmall() throws ConfigurationException {
+        WSModel model = injector.getInstance(WSModel.class);
+        // nodes get linked to all the others, which cannot be rewired
+        for (long seed = 0; seed < 20; seed++) {
+            model.configure(5, 2, 0.9, seed);
+            Network network = model.generate();
+            assertEquals(10, network.getLinkCount());
+            for (Node node : network.getNodes()) {
+                assertEquals(4, network.getNeighbours(node).size());
+            }
+        }
+    }
+
+    private static List<String> links(Network network) {
+        List<String> links = new ArrayList<>();
+        for (Link link : network.getLinks()) {
+            links.add(link.from().getID() + "-" + link.to().getID());
+        }
+        Collections.sort(links);
+        return links;
+    }
+
+    /**
+     * The previous implementation of the model, which rewires the links of
+     * a network generated by {@link KRegularModel}
+     */
+    private static List<String> rewireLattice(int n, int d, double p, long seed)
+            throws ConfigurationException {
+        KRegularModel regularModel = injector.getInstance(KRegularModel.class);
+        regularModel.configure(n, d, seed);
+        Network network = regularModel.generate();
+        RandomGenerator random = new MersenneTwister();
+        random.setSeed(seed);
+
+        List<Link> links = new ArrayList<>(network.getLinks());
+        if (p > 0) {
+            for (Link link : links) {
+                if (random.nextDouble() < p) {
+                    Node node = link.from();
+                    List<Integer> toExclude = new ArrayList<>();
+                    toExclude.add(node.getID());
+                    for (Node neighbour : network.getNeighbours(node)) {
+                        toExclude.add(neighbour.getID());
+                    }
+                    Collections.sort(toExclude);
+                    int[] exclude = new int[toExclude.size()];
+                    for (int i = 0; i < exclude.length; i++) {
+                        exclude[i] = toExclude.get(i);
+                    }
+                    int newPartner = NetworkModelUtils.getRandomNode(random, n,
+                            exclude);
+                    network.removeLink(link);
+                    network.addLink(node, network.getNode(newPartner));
+                }
+            }
+        }
+        return links(network);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.model.impl;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.configuration.ConfigurationException;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.model.ERModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class EERModelTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testGenerate() throws ConfigurationException {
+        ERModel model = injector.getInstance(ERModel.class);
+        int n = 200;
+        int pairs = n * (n - 1) / 2;
+        // sparse, at the switch to the unlinked pairs and dense
+        for (int m : new int[]{0, 10, pairs / 2, pairs / 2 + 1, pairs - 10, pairs}) {
+            model.configure(n, m, 7);
+            Network network = model.generate();
+            assertEquals(n, network.getNodeCount());
+            assertEquals(m, links(network).size());
+            assertEquals(links(network), links(model.generate()));
+        }
+    }
+
+    @Test
+    public void testLargePairSpace() throws ConfigurationException {
+        ERModel model = injector.getInstance(ERModel.class);
+        // about 5 * 10^9 pairs, more than an int can index
+        int n = 100000;
+        model.configure(n, 50000, 7);
+        Network network = model.generate();
+        assertEquals(n, network.getNodeCount());
+        assertEquals(50000, links(network).size());
+
+        int largeRows = 0;
+        for (Link link : network.getLinks()) {
+            assertTrue(link.from().getID() > link.to().getID());
+            if (link.from().getID() > 46341) {
+                largeRows++;
+            }
+        }
+        // about 3/4 of the pairs are in rows larger than 46341
+        assertTrue(largeRows > 35000);
+    }
+
+    @Test
+    public void testUniform() throws ConfigurationException {
+        ERModel model = injector.getInstance(ERModel.class);
+        int[][] counts = new int[5][5];
+        int samples = 5000;
+        for (int seed = 0; seed < samples; seed++) {
+            model.configure(5, 2, seed);
+            for (Link link : model.generate().getLinks()) {
+                counts[link.from().getID()][link.to().getID()]++;
+            }
+        }
+        // each of the 10 pairs is linked in 1/5 of the networks
+        double expected = samples / 5.0;
+        double deviation = Math.sqrt(expected * 0.8);
+        for (int v = 1; v < 5; v++) {
+            for (int w = 0; w < v; w++) {
+                assertEquals(expected, counts[v][w], 5 * deviation);
+            }
+        }
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testTooManyLinks() throws ConfigurationException {
+        ERModel model = injector.getInstance(ERModel.class);
+        model.configure(10, 46, 7);
+    }
+
+    private static Set<String> links(Network network) {
+        Set<String> links = new HashSet<>();
+        for (Link link : network.getLinks()) {
+            int from = link.from().getID();
+            int to = link.to().getID();
+            assertTrue(from != to);
+            links.add(Math.min(from, to) + "-" + Math.max(from, to));
+        }
+        return links;
+    }
+}
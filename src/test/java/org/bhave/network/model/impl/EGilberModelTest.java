@@ -0,0 +1,120 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.bhave.network.model.impl;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.bhave.network.NetworkModule;
+import org.bhave.network.api.Link;
+import org.bhave.network.api.Network;
+import org.bhave.network.model.GilbertModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author davide
+ */
+public class EGilberModelTest {
+
+    private static final Injector injector = Guice
+            .createInjector(new NetworkModule());
+
+    @Test
+    public void testSerial() throws ConfigurationException {
+        GilbertModel model = injector.getInstance(GilbertModel.class);
+        model.configure(2000, 0.01, 7);
+        Network network = model.generate();
+        assertEquals(2000, network.getNodeCount());
+        assertEquals(skipSampling(2000, 0.01, 7), links(network));
+    }
+
+    @Test
+    public void testThreads() throws ConfigurationException {
+        GilbertModel model = injector.getInstance(GilbertModel.class);
+        int n = 30000;
+        double p = 0.0005;
+
+        model.getConfiguration().setProperty(GilbertModel.P_THREADS, 1);
+        model.configure(n, p, 7);
+        List<String> single = links(model.generate());
+
+        model.getConfiguration().setProperty(GilbertModel.P_THREADS, 3);
+        model.configure(n, p, 7);
+        Network network = model.generate();
+        List<String> multiple = links(network);
+        assertEquals(single, multiple);
+
+        // links are distinct pairs of distinct nodes
+        for (Link link : network.getLinks()) {
+            assertTrue(link.from().getID() > link.to().getID());
+        }
+        assertEquals(multiple.size(), new HashSet<>(multiple).size());
+
+        double expected = p * n * (n - 1.0) / 2;
+        double deviation = Math.sqrt(expected * (1 - p));
+        assertEquals(expected, multiple.size(), 5 * deviation);
+
+        // a different seed gives a different network
+        model.configure(n, p, 8);
+        assertFalse(multiple.equals(links(model.generate())));
+    }
+
+    @Test
+    public void testLimits() throws ConfigurationException {
+        GilbertModel model = injector.getInstance(GilbertModel.class);
+        for (int threads : new int[]{0, 2}) {
+            model.getConfiguration().setProperty(GilbertModel.P_THREADS, threads);
+            model.configure(100, 0, 7);
+            assertEquals(0, model.generate().getLinkCount());
+
+            model.configure(100, 1, 7);
+            Network network = model.generate();
+            assertEquals(100 * 99 / 2, network.getLinkCount());
+            Set<String> pairs = new HashSet<>(links(network));
+            assertEquals(100 * 99 / 2, pairs.size());
+        }
+    }
+
+    private static List<String> links(Network network) {
+        List<String> links = new ArrayList<>();
+        for (int i = 0; i < network.getLinkCount(); i++) {
+            Link link = network.getLink(i);
+            links.add(link.from().getID() + "-" + link.to().getID());
+        }
+        return links;
+    }
+
+    /**
+     * The original serial implementation of the model
+     */
+    private static List<String> skipSampling(int n, double p, long seed) {
+        RandomGenerator random = new MersenneTwister();
+        random.setSeed(seed);
+        List<String> links = new ArrayList<>();
+        int v = 1, w = -1;
+        while (v < n) {
+            double r = random.nextDouble();
+            w += 1 + (FastMath.log(1 - r) / FastMath.log(1 - p));
+            while (w >= v && v < n) {
+                w = w - v;
+                v++;
+            }
+            if (v < n) {
+                links.add(v + "-" + w);
+            }
+        }
+        return links;
+    }
+}